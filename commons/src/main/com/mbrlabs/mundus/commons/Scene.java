@@ -29,21 +29,30 @@ import com.badlogic.gdx.graphics.g3d.attributes.DirectionalLightsAttribute;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Disposable;
 import com.mbrlabs.mundus.commons.assets.SkyboxAsset;
+import com.mbrlabs.mundus.commons.culling.OcclusionCuller;
 import com.mbrlabs.mundus.commons.env.CameraSettings;
+import com.mbrlabs.mundus.commons.env.IBLCache;
 import com.mbrlabs.mundus.commons.env.MundusEnvironment;
+import com.mbrlabs.mundus.commons.env.lights.ClusteredLights;
+import com.mbrlabs.mundus.commons.env.lights.ClusteredLightsAttribute;
+import com.mbrlabs.mundus.commons.env.lights.LightSelector;
+import com.mbrlabs.mundus.commons.impostor.ImpostorManager;
 import com.mbrlabs.mundus.commons.rendering.DefaultSceneRenderer;
 import com.mbrlabs.mundus.commons.rendering.SceneRenderer;
+import com.mbrlabs.mundus.commons.scene3d.InstancedModelManager;
 import com.mbrlabs.mundus.commons.scene3d.ModelCacheManager;
 import com.mbrlabs.mundus.commons.scene3d.SceneGraph;
 import com.mbrlabs.mundus.commons.shaders.DepthShader;
+import com.mbrlabs.mundus.commons.shadows.CascadedShadowMap;
+import com.mbrlabs.mundus.commons.shadows.CascadedShadowMapAttribute;
 import com.mbrlabs.mundus.commons.shadows.MundusDirectionalShadowLight;
 import com.mbrlabs.mundus.commons.shadows.ShadowResolution;
+import com.mbrlabs.mundus.commons.shadows.StaticShadowCache;
 import com.mbrlabs.mundus.commons.skybox.Skybox;
 import com.mbrlabs.mundus.commons.utils.LightUtils;
 import com.mbrlabs.mundus.commons.water.WaterResolution;
 import net.mgsx.gltf.scene3d.attributes.PBRCubemapAttribute;
 import net.mgsx.gltf.scene3d.attributes.PBRTextureAttribute;
-import net.mgsx.gltf.scene3d.utils.IBLBuilder;
 
 /**
  * @author Marcus Brummer
@@ -53,6 +62,19 @@ public class Scene implements Disposable {
     public static boolean isRuntime = true;
 
     public MundusDirectionalShadowLight dirLight;
+    private CascadedShadowMap cascadedShadowMap;
+    private StaticShadowCache staticShadowCache;
+    private ClusteredLights clusteredLights;
+    private ClusteredLightsAttribute clusteredLightsAttribute;
+    // Clusters of other cameras than the scene camera, like the mirrored water reflection camera
+    private ClusteredLights passClusteredLights;
+    private ClusteredLightsAttribute passClusteredLightsAttribute;
+    private long lightsFrame = -1;
+    private IBLCache.Entry iblMaps;
+    private int iblVersion = -1;
+    // Maps baked ahead of time, owned by the scene, replace the maps of the directional light
+    private Cubemap bakedDiffuse;
+    private Cubemap bakedSpecular;
     private String name;
     private long id;
 
@@ -68,11 +90,19 @@ public class Scene implements Disposable {
     public ModelBatch batch;
     public ModelBatch depthBatch;
     public ModelCacheManager modelCacheManager;
+    public InstancedModelManager instancedModelManager;
+    public ImpostorManager impostorManager;
+    public OcclusionCuller occlusionCuller;
+    public LightSelector lightSelector;
 
     public Scene() {
         environment = new MundusEnvironment();
         settings = new SceneSettings();
         modelCacheManager = new ModelCacheManager(this);
+        instancedModelManager = new InstancedModelManager();
+        impostorManager = new ImpostorManager();
+        occlusionCuller = new OcclusionCuller();
+        lightSelector = new LightSelector();
         sceneRenderer = new DefaultSceneRenderer();
 
         cam = new PerspectiveCamera(CameraSettings.DEFAULT_FOV, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
@@ -95,11 +125,20 @@ public class Scene implements Disposable {
         sceneGraph = new SceneGraph(this);
     }
 
+    /**
+     * Sets the image based lighting maps for the directional light. Maps are shared through the {@link IBLCache},
+     * so they are only built if no similar light was used before, at low resolution first and refined over the
+     * next frames by {@link #updateIBL()}. Does not replace maps set by {@link #setBakedIBL(Cubemap, Cubemap)}.
+     */
     public void initPBR() {
-        IBLBuilder iblBuilder = IBLBuilder.createOutdoor(dirLight);
-        Cubemap diffuseCubemap = iblBuilder.buildIrradianceMap(512);
-        Cubemap specularCubemap = iblBuilder.buildRadianceMap(10);
-        iblBuilder.dispose();
+        if (bakedDiffuse == null) {
+            IBLCache.Entry previous = iblMaps;
+            iblMaps = IBLCache.getInstance().acquire(dirLight);
+            if (previous != null) {
+                IBLCache.getInstance().release(previous);
+            }
+            iblVersion = -1;
+        }
 
         PBRTextureAttribute tex = (PBRTextureAttribute) environment.get(PBRTextureAttribute.BRDFLUTTexture);
         if (tex == null) {
@@ -107,20 +146,63 @@ public class Scene implements Disposable {
             environment.set(new PBRTextureAttribute(PBRTextureAttribute.BRDFLUTTexture, brdfLUT));
         }
 
+        applyIBL();
+    }
+
+    /**
+     * Uses image based lighting maps baked ahead of time, like the maps the editor bakes from the skybox on export,
+     * instead of the maps built for the directional light. The scene takes ownership of the maps.
+     */
+    public void setBakedIBL(Cubemap diffuse, Cubemap specular) {
+        disposeBakedIBL();
+        if (iblMaps != null) {
+            IBLCache.getInstance().release(iblMaps);
+            iblMaps = null;
+        }
+        bakedDiffuse = diffuse;
+        bakedSpecular = specular;
+        setIBLMaps(diffuse, specular);
+    }
+
+    /**
+     * Refines the image based lighting maps not yet at full resolution, one cubemap face per frame. Called by
+     * {@link #render(float)}, call it once per frame when rendering through the scene renderer directly.
+     */
+    public void updateIBL() {
+        IBLCache.getInstance().update();
+        applyIBL();
+    }
+
+    private void applyIBL() {
+        if (iblMaps == null || iblMaps.getVersion() == iblVersion) return;
+        iblVersion = iblMaps.getVersion();
+
+        // The cache owns the cubemaps, so the replaced ones are not disposed here
+        setIBLMaps(iblMaps.getDiffuse(), iblMaps.getSpecular());
+    }
+
+    private void setIBLMaps(Cubemap diffuse, Cubemap specular) {
         PBRCubemapAttribute specularEnv = (PBRCubemapAttribute) environment.get(PBRCubemapAttribute.SpecularEnv);
         if (specularEnv != null) {
-            specularEnv.textureDescription.texture.dispose();
-            specularEnv.textureDescription.texture = specularCubemap;
+            specularEnv.textureDescription.texture = specular;
         } else {
-            environment.set(PBRCubemapAttribute.createSpecularEnv(specularCubemap));
+            environment.set(PBRCubemapAttribute.createSpecularEnv(specular));
         }
 
         PBRCubemapAttribute diffuseEnv = (PBRCubemapAttribute) environment.get(PBRCubemapAttribute.DiffuseEnv);
         if (diffuseEnv != null) {
-            diffuseEnv.textureDescription.texture.dispose();
-            diffuseEnv.textureDescription.texture = diffuseCubemap;
+            diffuseEnv.textureDescription.texture = diffuse;
         } else {
-            environment.set(PBRCubemapAttribute.createDiffuseEnv(diffuseCubemap));
+            environment.set(PBRCubemapAttribute.createDiffuseEnv(diffuse));
+        }
+    }
+
+    private void disposeBakedIBL() {
+        if (bakedDiffuse != null) {
+            bakedDiffuse.dispose();
+            bakedSpecular.dispose();
+            bakedDiffuse = null;
+            bakedSpecular = null;
         }
     }
 
@@ -138,6 +220,7 @@ public class Scene implements Disposable {
      * @param delta time since last frame
      */
     public void render(float delta) {
+        updateIBL();
         sceneRenderer.render(this, delta);
     }
 
@@ -147,7 +230,10 @@ public class Scene implements Disposable {
     }
 
     public void setDirectionalLight(MundusDirectionalShadowLight light) {
+        int cascadeCount = getCascadeCount();
+        setCascadedShadows(0);
         this.dirLight = light;
+        setCascadedShadows(cascadeCount);
         environment.remove(DirectionalLightsAttribute.Type);
         environment.add(light);
         initPBR();
@@ -201,10 +287,127 @@ public class Scene implements Disposable {
         if (light == null || shadowResolution == null) return;
 
         light.setShadowResolution(shadowResolution);
+        if (cascadedShadowMap != null) {
+            cascadedShadowMap.setShadowResolution(shadowResolution);
+        }
 
         environment.shadowMap = light;
     }
 
+    /**
+     * Enables cascaded shadow maps for the scenes DirectionalLight, splitting the shadowed view distance into
+     * the given number of cascades.
+     *
+     * @param cascadeCount number of cascades, 2 to 4. Less than 2 disables cascaded shadows.
+     */
+    public void setCascadedShadows(int cascadeCount) {
+        if (cascadedShadowMap != null) {
+            if (cascadedShadowMap.getCascadeCount() == cascadeCount) return;
+            cascadedShadowMap.dispose();
+            cascadedShadowMap = null;
+            environment.remove(CascadedShadowMapAttribute.CascadedShadowMap);
+        }
+
+        if (cascadeCount < CascadedShadowMap.MIN_CASCADES || dirLight == null) return;
+
+        cascadedShadowMap = new CascadedShadowMap(dirLight, Math.min(cascadeCount, CascadedShadowMap.MAX_CASCADES));
+        environment.set(new CascadedShadowMapAttribute(cascadedShadowMap));
+    }
+
+    /**
+     * Prepares the point and spot lights for rendering. Runs at most once per frame.
+     * <p>
+     * Switches to clustered lighting when the environment has more point or spot lights than the shader uniforms
+     * hold, and bins the lights into the clusters of the scene camera. Otherwise the lights of each model are
+     * selected by the {@link LightSelector} if {@link SceneSettings#lightsPerObject} is set.
+     */
+    public void updateLights() {
+        if (lightsFrame == Gdx.graphics.getFrameId()) return;
+        lightsFrame = Gdx.graphics.getFrameId();
+
+        updateLightClusters();
+
+        // Clustered lighting already limits each fragment to the lights around it
+        boolean clustered = environment.has(ClusteredLightsAttribute.ClusteredLights);
+        lightSelector.update(environment, clustered ? 0 : settings.lightsPerObject);
+    }
+
+    private void updateLightClusters() {
+        if (!ClusteredLights.isSupported() || !LightUtils.needsClusteredLighting(environment)) {
+            if (environment.has(ClusteredLightsAttribute.ClusteredLights)) {
+                environment.remove(ClusteredLightsAttribute.ClusteredLights);
+            }
+            return;
+        }
+
+        if (clusteredLights == null) {
+            clusteredLights = new ClusteredLights();
+            clusteredLightsAttribute = new ClusteredLightsAttribute(clusteredLights);
+        }
+        clusteredLights.update(cam, environment);
+        if (!environment.has(ClusteredLightsAttribute.ClusteredLights)) {
+            environment.set(clusteredLightsAttribute);
+        }
+    }
+
+    /**
+     * Bins the point and spot lights into the clusters of another camera than the scene camera, like the mirrored
+     * water reflection camera, and shades with them until {@link #endPassLightClusters()}. Fragments outside of the
+     * clustered camera get no point and spot lights, so passes with their own camera need their own clusters. Does
+     * nothing without clustered lighting. Must be called outside of a model batch, after {@link #updateLights()}.
+     *
+     * @param camera the camera of the pass
+     */
+    public void beginPassLightClusters(Camera camera) {
+        if (!environment.has(ClusteredLightsAttribute.ClusteredLights)) return;
+
+        if (passClusteredLights == null) {
+            passClusteredLights = new ClusteredLights();
+            passClusteredLightsAttribute = new ClusteredLightsAttribute(passClusteredLights);
+        }
+        passClusteredLights.update(camera, environment);
+        environment.set(passClusteredLightsAttribute);
+    }
+
+    /**
+     * Shades with the clusters of the scene camera again after {@link #beginPassLightClusters(Camera)}.
+     */
+    public void endPassLightClusters() {
+        if (!environment.has(ClusteredLightsAttribute.ClusteredLights)) return;
+        environment.set(clusteredLightsAttribute);
+    }
+
+    /**
+     * @return the clustered lights, or null if clustered lighting was never needed
+     */
+    public ClusteredLights getClusteredLights() {
+        return clusteredLights;
+    }
+
+    /**
+     * @return the static shadow cache used when {@link SceneSettings#cacheStaticShadows} is enabled
+     */
+    public StaticShadowCache getStaticShadowCache() {
+        if (staticShadowCache == null) {
+            staticShadowCache = new StaticShadowCache();
+        }
+        return staticShadowCache;
+    }
+
+    /**
+     * @return number of cascaded shadow maps, 0 if cascaded shadows are disabled
+     */
+    public int getCascadeCount() {
+        return cascadedShadowMap != null ? cascadedShadowMap.getCascadeCount() : 0;
+    }
+
+    /**
+     * @return the cascaded shadow map, or null if cascaded shadows are disabled
+     */
+    public CascadedShadowMap getCascadedShadowMap() {
+        return cascadedShadowMap;
+    }
+
     /**
      * Sets and switches the scenes skybox to the given SkyboxAsset.
      *
@@ -235,9 +438,31 @@ public class Scene implements Disposable {
 
     @Override
     public void dispose() {
+        if (cascadedShadowMap != null) {
+            cascadedShadowMap.dispose();
+        }
+        if (staticShadowCache != null) {
+            staticShadowCache.dispose();
+        }
+        if (clusteredLights != null) {
+            clusteredLights.dispose();
+        }
+        if (passClusteredLights != null) {
+            passClusteredLights.dispose();
+        }
         if (skybox != null) {
             skybox.dispose();
         }
         modelCacheManager.dispose();
+        instancedModelManager.dispose();
+        impostorManager.dispose();
+        if (iblMaps != null) {
+            IBLCache.getInstance().release(iblMaps);
+            iblMaps = null;
+        }
+        disposeBakedIBL();
+        if (sceneRenderer instanceof Disposable) {
+            ((Disposable) sceneRenderer).dispose();
+        }
     }
 }
@@ -1,5 +1,6 @@
 package com.mbrlabs.mundus.commons;
 
+import com.mbrlabs.mundus.commons.rendering.DynamicResolution;
 import com.mbrlabs.mundus.commons.water.WaterResolution;
 
 /**
@@ -15,7 +16,44 @@ public class SceneSettings {
     public WaterResolution waterResolution = WaterResolution.DEFAULT_WATER_RESOLUTION;
     public boolean enableWaterReflections = true;
     public boolean enableWaterRefractions = true;
+    // Reflections and refractions are re-rendered every n frames
+    public int waterUpdateInterval = 1;
+    // Only re-render reflections and refractions when the camera has moved or rotated
+    public boolean waterUpdateOnCameraMove = false;
+    // Objects further away than this are not reflected, 0 for no limit
+    public float waterReflectionDrawDistance = 0f;
+    // Objects smaller than this fraction of the screen height are not reflected, 0 for no limit
+    public float waterReflectionMinScreenSize = 0f;
 
     // Performance
     public boolean useFrustumCulling = true;
+    // Hides objects behind terrains and occluder models from the main camera, requires frustum culling
+    public boolean useOcclusionCulling = false;
+    public boolean cacheStaticShadows = false;
+    // Multiplies the projected screen size used for LOD selection, higher values keep detailed LODs longer
+    public float lodBias = 1f;
+    // Models with a baked impostor further away from the camera than this are drawn as impostors, 0 to disable
+    public float impostorDistance = 0f;
+    // Models are shaded with only their n most influential point and spot lights, 0 to use all lights, at most
+    // LightSelector.MAX_LIGHTS_PER_OBJECT
+    public int lightsPerObject = 0;
+    // Renders the depth of opaque objects before the color pass, so each pixel is only shaded once
+    public boolean depthPrePass = false;
+    // Lowers the resolution the scene is rendered at while frames take longer than the target frame rate allows
+    public boolean dynamicResolution = false;
+    public int targetFrameRate = 60;
+    // Lowest fraction of the viewport resolution dynamic resolution goes down to
+    public float minResolutionScale = DynamicResolution.DEFAULT_MIN_SCALE;
+
+    // Draw distances, 0 for no limit. Game objects can have a shorter draw distance of their own
+    // Objects further away than this are not rendered by the main camera or refracted
+    public float drawDistance = 0f;
+    // Objects smaller than this fraction of the screen height are not rendered by the main camera or refracted
+    public float minScreenSize = 0f;
+    // Objects further away from the main camera than this do not cast shadows
+    public float shadowDrawDistance = 0f;
+    // Objects smaller than this fraction of the screen height do not cast shadows
+    public float shadowMinScreenSize = 0f;
+    // Objects entirely behind the end of the fog are not rendered by the main camera or reflected
+    public boolean cullFoggedObjects = false;
 }
@@ -15,6 +15,7 @@
  */
 package com.mbrlabs.mundus.commons.assets;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.g3d.Attribute;
@@ -27,6 +28,9 @@ import com.badlogic.gdx.utils.UBJsonReader;
 import com.mbrlabs.mundus.commons.assets.meta.Meta;
 import com.mbrlabs.mundus.commons.assets.meta.MetaModel;
 import com.mbrlabs.mundus.commons.g3d.MG3dModelLoader;
+import com.mbrlabs.mundus.commons.impostor.ImpostorAtlas;
+import com.mbrlabs.mundus.commons.lod.ModelLod;
+import com.mbrlabs.mundus.commons.lod.ModelLodData;
 import com.mbrlabs.mundus.commons.utils.FileFormatUtils;
 import com.mbrlabs.mundus.commons.utils.ModelUtils;
 import net.mgsx.gltf.loaders.glb.GLBLoader;
@@ -44,10 +48,14 @@ import static net.mgsx.gltf.scene3d.attributes.PBRTextureAttribute.*;
  * @version 01-10-2016
  */
 public class ModelAsset extends Asset {
+    public static final String LOD_EXTENSION = "lod";
+
     protected static long TextureAttributeMask = Diffuse | Specular | Bump | Normal | Ambient | Emissive | Reflection | MetallicRoughnessTexture
             | OcclusionTexture | BaseColorTexture | NormalTexture | EmissiveTexture | BRDFLUTTexture;
 
     private Model model;
+    private ModelLod lod;
+    private ImpostorAtlas impostor;
 
     private final Map<String, MaterialAsset> defaultMaterials;
     private final Array<Material> initialModelMaterials; // The initial materials for the model, before mundus modifies them
@@ -62,6 +70,61 @@ public class ModelAsset extends Asset {
         return model;
     }
 
+    /**
+     * @return the generated LOD meshes, null if the model has none
+     */
+    public ModelLod getLod() {
+        return lod;
+    }
+
+    /**
+     * Replaces the LOD meshes, disposing the previous ones.
+     */
+    public void setLod(ModelLod lod) {
+        if (this.lod != null) {
+            this.lod.dispose();
+        }
+        this.lod = lod;
+    }
+
+    /**
+     * @return the file the LOD meshes are stored in, next to the model file
+     */
+    public FileHandle getLodFile() {
+        return file.sibling(file.name() + "." + LOD_EXTENSION);
+    }
+
+    /**
+     * @return the baked impostor atlas, null if the model has none
+     */
+    public ImpostorAtlas getImpostor() {
+        return impostor;
+    }
+
+    /**
+     * Replaces the impostor atlas, disposing the previous one.
+     */
+    public void setImpostor(ImpostorAtlas impostor) {
+        if (this.impostor != null) {
+            this.impostor.dispose();
+        }
+        this.impostor = impostor;
+    }
+
+    /**
+     * @return the file the impostor albedo atlas is stored in, next to the model file
+     */
+    public FileHandle getImpostorAlbedoFile() {
+        return file.sibling(file.name() + ImpostorAtlas.ALBEDO_SUFFIX);
+    }
+
+    /**
+     * @return the file the impostor normal atlas is stored in, next to the model file
+     */
+    public FileHandle getImpostorNormalFile() {
+        return file.sibling(file.name() + ImpostorAtlas.NORMAL_SUFFIX);
+    }
+
     public Map<String, MaterialAsset> getDefaultMaterials() {
         return defaultMaterials;
     }
@@ -84,6 +147,8 @@ public class ModelAsset extends Asset {
 
         copyMaterials();
         updateBoneCount();
+        loadLod();
+        loadImpostor();
      }
 
     @Override
@@ -99,6 +164,8 @@ public class ModelAsset extends Asset {
 
         copyMaterials();
         updateBoneCount();
+        loadLod();
+        loadImpostor();
     }
 
     @Override
@@ -128,6 +195,8 @@ public class ModelAsset extends Asset {
         if (model != null) {
             model.dispose();
         }
+        setLod(null);
+        setImpostor(null);
     }
 
     @Override
@@ -175,6 +244,35 @@ public class ModelAsset extends Asset {
         }
     }
 
+    private void loadLod() {
+        if (meta == null || meta.getModel() == null || meta.getModel().getLodLevels() <= 0) return;
+
+        FileHandle lodFile = getLodFile();
+        if (!lodFile.exists()) return;
+
+        try {
+            setLod(new ModelLod(model, ModelLodData.read(lodFile)));
+        } catch (GdxRuntimeException e) {
+            // The model is still usable without LODs
+            Gdx.app.error("ModelAsset", "Unable to load LODs of " + file.name(), e);
+        }
+    }
+
+    private void loadImpostor() {
+        if (meta == null || meta.getModel() == null || meta.getModel().getImpostorFrames() <= 0) return;
+
+        FileHandle albedoFile = getImpostorAlbedoFile();
+        FileHandle normalFile = getImpostorNormalFile();
+        if (!albedoFile.exists() || !normalFile.exists()) return;
+
+        try {
+            setImpostor(ImpostorAtlas.load(albedoFile, normalFile, meta.getModel().getImpostorFrames(), model));
+        } catch (GdxRuntimeException e) {
+            // The model is still usable without impostor
+            Gdx.app.error("ModelAsset", "Unable to load impostor of " + file.name(), e);
+        }
+    }
+
     private void updateBoneCount() {
         // Update bone count for model
         if (meta != null && meta.getModel() != null) {
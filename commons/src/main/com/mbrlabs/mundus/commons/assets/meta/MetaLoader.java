@@ -85,6 +85,8 @@ public class MetaLoader {
 
         int numBones = readWithDefault(jsonModel, MetaModel.JSON_NUM_BONES, 0);
         model.setNumBones(numBones);
+        model.setLodLevels(readWithDefault(jsonModel, MetaModel.JSON_LOD_LEVELS, 0));
+        model.setImpostorFrames(readWithDefault(jsonModel, MetaModel.JSON_IMPOSTOR_FRAMES, 0));
 
         final JsonValue materials = jsonModel.get(MetaModel.JSON_DEFAULT_MATERIALS);
 
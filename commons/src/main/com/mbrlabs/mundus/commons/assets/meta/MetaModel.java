@@ -27,12 +27,20 @@ public class MetaModel {
 
     public static final String JSON_DEFAULT_MATERIALS = "mats";
     public static final String JSON_NUM_BONES = "numBones";
+    public static final String JSON_LOD_LEVELS = "lods";
+    public static final String JSON_IMPOSTOR_FRAMES = "impostor";
 
     // g3db material id -> material asset uuid
     private ObjectMap<String, String> defaultMaterials = new ObjectMap<>();
 
     private int numBones;
 
+    // number of generated LOD levels, excluding the original model
+    private int lodLevels;
+
+    // frames per side of the baked impostor atlas, 0 if none was baked
+    private int impostorFrames;
+
     public ObjectMap<String, String> getDefaultMaterials() {
         return defaultMaterials;
     }
@@ -45,11 +53,29 @@ public class MetaModel {
         this.numBones = numBones;
     }
 
+    public int getLodLevels() {
+        return lodLevels;
+    }
+
+    public void setLodLevels(int lodLevels) {
+        this.lodLevels = lodLevels;
+    }
+
+    public int getImpostorFrames() {
+        return impostorFrames;
+    }
+
+    public void setImpostorFrames(int impostorFrames) {
+        this.impostorFrames = impostorFrames;
+    }
+
     @Override
     public String toString() {
         return "MetaModel{" +
                 "defaultMaterials=" + defaultMaterials +
                 "numBones=" + numBones +
+                "lodLevels=" + lodLevels +
+                "impostorFrames=" + impostorFrames +
                 '}';
     }
 }
@@ -0,0 +1,273 @@
+package com.mbrlabs.mundus.commons.culling;
+
+import com.badlogic.gdx.math.Frustum;
+import com.badlogic.gdx.math.Plane;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IdentityMap;
+
+/**
+ * A dynamic loose octree used for hierarchical frustum culling.
+ * <p>
+ * Every node covers a cubic cell, but objects are tested against the cell expanded by
+ * {@link #LOOSENESS}, so an object only has to have its center inside the cell and be no larger than
+ * the cell to be stored there. This keeps updates cheap (an object never straddles nodes) while still
+ * allowing whole subtrees to be rejected, or accepted, with a single test.
+ * <p>
+ * The root grows automatically when objects are inserted outside its bounds.
+ */
+public class LooseOctree<T> {
+    public static final float LOOSENESS = 2f;
+    public static final float DEFAULT_ROOT_HALF_SIZE = 256f;
+    public static final float DEFAULT_MIN_HALF_SIZE = 4f;
+
+    private static final int OUTSIDE = 0;
+    private static final int INTERSECTING = 1;
+    private static final int INSIDE = 2;
+
+    // Safeguard against runaway growth from bogus (huge or NaN) bounds
+    private static final int MAX_GROW_STEPS = 16;
+
+    private final Vector3 tmpCenter = new Vector3();
+    private final Vector3 tmpDimensions = new Vector3();
+
+    private final IdentityMap<T, Item<T>> items = new IdentityMap<>();
+    private final float minHalfSize;
+    private Node<T> root;
+
+    public LooseOctree() {
+        this(DEFAULT_ROOT_HALF_SIZE, DEFAULT_MIN_HALF_SIZE);
+    }
+
+    /**
+     * @param rootHalfSize initial half size of the root cell, centered on the origin
+     * @param minHalfSize  nodes are not subdivided below this half size
+     */
+    public LooseOctree(float rootHalfSize, float minHalfSize) {
+        this.minHalfSize = minHalfSize;
+        this.root = new Node<>(null, 0, 0, 0, rootHalfSize);
+    }
+
+    /**
+     * Inserts the object or, if it is already in the tree, moves it to match its new bounds.
+     *
+     * @param object the object to insert or update
+     * @param bounds world space bounds of the object, copied
+     */
+    public void update(T object, BoundingBox bounds) {
+        Item<T> item = items.get(object);
+        if (item == null) {
+            item = new Item<>(object);
+            items.put(object, item);
+        }
+
+        item.bounds.set(bounds);
+        item.bounds.getCenter(tmpCenter);
+        item.bounds.getDimensions(tmpDimensions);
+        float halfExtent = Math.max(tmpDimensions.x, Math.max(tmpDimensions.y, tmpDimensions.z)) * 0.5f;
+
+        // Cheap path, object still belongs to the same node
+        if (item.node != null && fitsExactly(item.node, tmpCenter, halfExtent)) return;
+
+        if (item.node != null) {
+            detach(item);
+        }
+
+        growToFit(tmpCenter, halfExtent);
+        insert(root, item, tmpCenter, halfExtent);
+    }
+
+    /**
+     * Removes the object from the tree.
+     *
+     * @return true if the object was in the tree
+     */
+    public boolean remove(T object) {
+        Item<T> item = items.remove(object);
+        if (item == null) return false;
+        detach(item);
+        return true;
+    }
+
+    public boolean contains(T object) {
+        return items.containsKey(object);
+    }
+
+    public int size() {
+        return items.size;
+    }
+
+    public void clear() {
+        items.clear();
+        root = new Node<>(null, root.center.x, root.center.y, root.center.z, root.halfSize);
+    }
+
+    /**
+     * Adds all objects whose bounds intersect the frustum to the out array. Nodes fully outside the frustum are
+     * rejected along with their whole subtree, nodes fully inside are accepted without testing their contents.
+     *
+     * @param frustum the frustum to test against
+     * @param out     array to add visible objects to, not cleared
+     * @return the out array
+     */
+    public Array<T> query(Frustum frustum, Array<T> out) {
+        query(root, frustum, out, false);
+        return out;
+    }
+
+    /**
+     * Adds every object in the tree to the out array.
+     */
+    public Array<T> getAll(Array<T> out) {
+        for (T object : items.keys()) {
+            out.add(object);
+        }
+        return out;
+    }
+
+    private void query(Node<T> node, Frustum frustum, Array<T> out, boolean inside) {
+        if (!inside) {
+            int result = classify(frustum, node.center, node.halfSize * LOOSENESS);
+            if (result == OUTSIDE && node != root) return;
+            inside = result == INSIDE;
+        }
+
+        for (int i = 0; i < node.items.size; i++) {
+            Item<T> item = node.items.get(i);
+            if (inside || frustum.boundsInFrustum(item.bounds)) {
+                out.add(item.object);
+            }
+        }
+
+        if (node.childCount == 0) return;
+        for (int i = 0; i < 8; i++) {
+            Node<T> child = node.children[i];
+            if (child != null) {
+                query(child, frustum, out, inside);
+            }
+        }
+    }
+
+    private void insert(Node<T> node, Item<T> item, Vector3 center, float halfExtent) {
+        // Descend as long as the object still fits in a child's loose bounds
+        while (node.halfSize * 0.5f >= halfExtent && node.halfSize * 0.5f >= minHalfSize) {
+            int index = childIndex(node, center);
+            Node<T> child = node.children[index];
+            if (child == null) {
+                float offset = node.halfSize * 0.5f;
+                child = new Node<>(node,
+                        node.center.x + ((index & 1) != 0 ? offset : -offset),
+                        node.center.y + ((index & 2) != 0 ? offset : -offset),
+                        node.center.z + ((index & 4) != 0 ? offset : -offset),
+                        offset);
+                node.children[index] = child;
+                node.childCount++;
+            }
+            node = child;
+        }
+
+        node.items.add(item);
+        item.node = node;
+    }
+
+    private void detach(Item<T> item) {
+        Node<T> node = item.node;
+        node.items.removeValue(item, true);
+        item.node = null;
+
+        // Prune empty branches
+        while (node.parent != null && node.items.size == 0 && node.childCount == 0) {
+            Node<T> parent = node.parent;
+            parent.children[childIndex(parent, node.center)] = null;
+            parent.childCount--;
+            node = parent;
+        }
+    }
+
+    private void growToFit(Vector3 center, float halfExtent) {
+        int steps = 0;
+        while (!contains(root, center, halfExtent) && steps++ < MAX_GROW_STEPS) {
+            float h = root.halfSize;
+            Node<T> newRoot = new Node<>(null,
+                    root.center.x + (center.x >= root.center.x ? h : -h),
+                    root.center.y + (center.y >= root.center.y ? h : -h),
+                    root.center.z + (center.z >= root.center.z ? h : -h),
+                    h * 2f);
+
+            // Old root becomes a child of the new one, unless it is empty
+            if (root.items.size > 0 || root.childCount > 0) {
+                newRoot.children[childIndex(newRoot, root.center)] = root;
+                newRoot.childCount++;
+                root.parent = newRoot;
+            }
+            root = newRoot;
+        }
+    }
+
+    /**
+     * Whether an object is stored in this node when inserted, meaning it fits here but not in a child.
+     */
+    private boolean fitsExactly(Node<T> node, Vector3 center, float halfExtent) {
+        if (!contains(node, center, halfExtent)) return false;
+        float childHalf = node.halfSize * 0.5f;
+        return childHalf < halfExtent || childHalf < minHalfSize;
+    }
+
+    private static boolean contains(Node<?> node, Vector3 center, float halfExtent) {
+        float h = node.halfSize;
+        return halfExtent <= h
+                && Math.abs(center.x - node.center.x) <= h
+                && Math.abs(center.y - node.center.y) <= h
+                && Math.abs(center.z - node.center.z) <= h;
+    }
+
+    private static int childIndex(Node<?> node, Vector3 point) {
+        int index = 0;
+        if (point.x >= node.center.x) index |= 1;
+        if (point.y >= node.center.y) index |= 2;
+        if (point.z >= node.center.z) index |= 4;
+        return index;
+    }
+
+    /**
+     * Classifies a cube against the frustum planes. Frustum planes face inwards.
+     */
+    private static int classify(Frustum frustum, Vector3 center, float halfSize) {
+        int result = INSIDE;
+        for (Plane plane : frustum.planes) {
+            Vector3 n = plane.normal;
+            float distance = n.dot(center) + plane.d;
+            float radius = halfSize * (Math.abs(n.x) + Math.abs(n.y) + Math.abs(n.z));
+            if (distance + radius < 0) return OUTSIDE;
+            if (distance - radius < 0) result = INTERSECTING;
+        }
+        return result;
+    }
+
+    private static class Node<T> {
+        final Vector3 center = new Vector3();
+        final float halfSize;
+        final Array<Item<T>> items = new Array<>(false, 4);
+        @SuppressWarnings("unchecked")
+        final Node<T>[] children = new Node[8];
+        int childCount = 0;
+        Node<T> parent;
+
+        Node(Node<T> parent, float x, float y, float z, float halfSize) {
+            this.parent = parent;
+            this.center.set(x, y, z);
+            this.halfSize = halfSize;
+        }
+    }
+
+    private static class Item<T> {
+        final T object;
+        final BoundingBox bounds = new BoundingBox();
+        Node<T> node;
+
+        Item(T object) {
+            this.object = object;
+        }
+    }
+}
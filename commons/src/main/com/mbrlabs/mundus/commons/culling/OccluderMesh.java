@@ -0,0 +1,151 @@
+package com.mbrlabs.mundus.commons.culling;
+
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.g3d.Model;
+import com.badlogic.gdx.graphics.g3d.model.MeshPart;
+import com.badlogic.gdx.graphics.g3d.model.Node;
+import com.badlogic.gdx.graphics.g3d.model.NodePart;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.mbrlabs.mundus.commons.terrain.Terrain;
+
+import java.util.Arrays;
+
+/**
+ * CPU copy of the triangles of an occluder, in the local space of its model or terrain, for rasterizing into the
+ * {@link OcclusionBuffer}.
+ */
+public class OccluderMesh {
+    /** Terrains are rasterized with roughly this many cells per side */
+    public static final int TERRAIN_CELLS = 48;
+
+    public final float[] positions;
+    public final int[] indices;
+    /** Version of the source the mesh was built from, see {@link Terrain#getVersion()} */
+    public final int version;
+
+    public OccluderMesh(float[] positions, int[] indices, int version) {
+        this.positions = positions;
+        this.indices = indices;
+        this.version = version;
+    }
+
+    /**
+     * Copies the indexed triangle node parts of a model, with the node transforms applied. Must be called on the
+     * render thread.
+     */
+    public static OccluderMesh fromModel(Model model) {
+        FloatArray positions = new FloatArray();
+        IntArray indices = new IntArray();
+        ObjectMap<Mesh, float[]> meshVertices = new ObjectMap<>();
+        ObjectMap<Mesh, short[]> meshIndices = new ObjectMap<>();
+        addNodes(model.nodes, positions, indices, meshVertices, meshIndices, new Vector3());
+        return new OccluderMesh(positions.toArray(), indices.toArray(), 0);
+    }
+
+    private static void addNodes(Iterable<Node> nodes, FloatArray positions, IntArray indices,
+                                 ObjectMap<Mesh, float[]> meshVertices, ObjectMap<Mesh, short[]> meshIndices, Vector3 tmp) {
+        for (Node node : nodes) {
+            for (NodePart nodePart : node.parts) {
+                MeshPart meshPart = nodePart.meshPart;
+                Mesh mesh = meshPart.mesh;
+                VertexAttribute position = mesh.getVertexAttribute(VertexAttributes.Usage.Position);
+                if (meshPart.primitiveType != GL20.GL_TRIANGLES || mesh.getNumIndices() == 0 || position == null) continue;
+
+                float[] vertices = meshVertices.get(mesh);
+                short[] meshPartIndices = meshIndices.get(mesh);
+                if (vertices == null) {
+                    vertices = new float[mesh.getNumVertices() * mesh.getVertexSize() / 4];
+                    mesh.getVertices(vertices);
+                    meshPartIndices = new short[mesh.getNumIndices()];
+                    mesh.getIndices(meshPartIndices);
+                    meshVertices.put(mesh, vertices);
+                    meshIndices.put(mesh, meshPartIndices);
+                }
+
+                // Each node part gets its own copy of the vertices it uses, transformed into model space
+                int vertexSize = mesh.getVertexSize() / 4;
+                int positionOffset = position.offset / 4;
+                int[] remap = new int[mesh.getNumVertices()];
+                Arrays.fill(remap, -1);
+
+                for (int i = 0; i < meshPart.size; i++) {
+                    int index = meshPartIndices[meshPart.offset + i] & 0xFFFF;
+                    int mapped = remap[index];
+                    if (mapped < 0) {
+                        int v = index * vertexSize + positionOffset;
+                        tmp.set(vertices[v], vertices[v + 1], vertices[v + 2]).mul(node.globalTransform);
+                        mapped = positions.size / 3;
+                        positions.add(tmp.x, tmp.y, tmp.z);
+                        remap[index] = mapped;
+                    }
+                    indices.add(mapped);
+                }
+            }
+
+            if (node.hasChildren()) {
+                addNodes(node.getChildren(), positions, indices, meshVertices, meshIndices, tmp);
+            }
+        }
+    }
+
+    /**
+     * Builds a coarse grid of the terrain of about {@link #TERRAIN_CELLS} cells per side. Each grid vertex takes the
+     * lowest height around it, so the coarse surface never rises above the real terrain and can't hide objects
+     * which are actually visible.
+     */
+    public static OccluderMesh fromTerrain(Terrain terrain) {
+        int resolution = terrain.vertexResolution;
+        int step = Math.max(1, (int) Math.ceil((resolution - 1) / (float) TERRAIN_CELLS));
+        int cells = (resolution - 1 + step - 1) / step;
+        int gridSize = cells + 1;
+
+        float[] positions = new float[gridSize * gridSize * 3];
+        for (int gz = 0; gz < gridSize; gz++) {
+            int z = Math.min(gz * step, resolution - 1);
+            for (int gx = 0; gx < gridSize; gx++) {
+                int x = Math.min(gx * step, resolution - 1);
+
+                float minHeight = Float.MAX_VALUE;
+                for (int sz = Math.max(0, z - step); sz <= Math.min(resolution - 1, z + step); sz++) {
+                    for (int sx = Math.max(0, x - step); sx <= Math.min(resolution - 1, x + step); sx++) {
+                        minHeight = Math.min(minHeight, terrain.heightData[sz * resolution + sx]);
+                    }
+                }
+
+                int p = (gz * gridSize + gx) * 3;
+                positions[p] = x / (float) (resolution - 1) * terrain.terrainWidth;
+                positions[p + 1] = minHeight;
+                positions[p + 2] = z / (float) (resolution - 1) * terrain.terrainDepth;
+            }
+        }
+
+        int[] indices = new int[cells * cells * 6];
+        int i = 0;
+        for (int gz = 0; gz < cells; gz++) {
+            for (int gx = 0; gx < cells; gx++) {
+                int c00 = gz * gridSize + gx;
+                int c10 = c00 + 1;
+                int c01 = c00 + gridSize;
+                int c11 = c01 + 1;
+                indices[i++] = c00;
+                indices[i++] = c01;
+                indices[i++] = c11;
+                indices[i++] = c11;
+                indices[i++] = c10;
+                indices[i++] = c00;
+            }
+        }
+
+        return new OccluderMesh(positions, indices, terrain.getVersion());
+    }
+
+    public int getTriangleCount() {
+        return indices.length / 3;
+    }
+}
@@ -0,0 +1,378 @@
+package com.mbrlabs.mundus.commons.culling;
+
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Vector3;
+
+import java.util.Arrays;
+
+/**
+ * Low resolution depth buffer rasterized on the CPU, used to reject objects hidden behind large occluders before
+ * they are submitted for rendering.
+ * <p>
+ * Occluder triangles are rasterized with {@link #rasterize(float[], int[], int, Matrix4)} between {@link #begin(Matrix4)}
+ * and {@link #end()}, which builds a hierarchical-Z pyramid of the farthest depth per texel. Bounds are then tested
+ * against the pyramid level at which they cover only a few texels with {@link #isVisible(Vector3[])}.
+ * <p>
+ * Depths are normalized device depths, so perspective and orthographic cameras are supported. All tests are
+ * conservative: bounds crossing the near plane or in front of any unoccluded texel are reported visible.
+ */
+public class OcclusionBuffer {
+    public static final int DEFAULT_WIDTH = 256;
+    public static final int DEFAULT_HEIGHT = 128;
+
+    /** Bounds are tested at the first pyramid level where they span at most this many texels per axis */
+    private static final int MAX_TEST_TEXELS = 4;
+
+    // Clip space outcodes
+    private static final int OUT_LEFT = 1;
+    private static final int OUT_RIGHT = 2;
+    private static final int OUT_BOTTOM = 4;
+    private static final int OUT_TOP = 8;
+    private static final int OUT_NEAR = 16;
+    private static final int OUT_FAR = 32;
+
+    private final int width;
+    private final int height;
+
+    // Level 0 is the depth buffer, each further level holds the farthest depth of 2x2 texels of the previous one
+    private final float[][] levels;
+    private final int[] levelWidths;
+    private final int[] levelHeights;
+
+    private final Matrix4 projView = new Matrix4();
+    private final Matrix4 tmpMatrix = new Matrix4();
+
+    // Clip space positions (x, y, z, w) and outcodes of the vertices of the current occluder
+    private float[] clipVertices = new float[64 * 4];
+    private int[] outcodes = new int[64];
+
+    // Triangle clipped against the near plane, up to 4 vertices
+    private final float[] polygon = new float[4 * 4];
+    private final float[] screen = new float[4 * 3];
+
+    private int triangleCount;
+
+    public OcclusionBuffer() {
+        this(DEFAULT_WIDTH, DEFAULT_HEIGHT);
+    }
+
+    public OcclusionBuffer(int width, int height) {
+        this.width = width;
+        this.height = height;
+
+        int levelCount = 1;
+        int w = width, h = height;
+        while (w > 1 || h > 1) {
+            w = Math.max(1, (w + 1) / 2);
+            h = Math.max(1, (h + 1) / 2);
+            levelCount++;
+        }
+
+        levels = new float[levelCount][];
+        levelWidths = new int[levelCount];
+        levelHeights = new int[levelCount];
+        w = width;
+        h = height;
+        for (int i = 0; i < levelCount; i++) {
+            levels[i] = new float[w * h];
+            levelWidths[i] = w;
+            levelHeights[i] = h;
+            w = Math.max(1, (w + 1) / 2);
+            h = Math.max(1, (h + 1) / 2);
+        }
+        clear();
+    }
+
+    /**
+     * Clears the buffer to the far plane and sets the view projection used for rasterizing and testing.
+     *
+     * @param projView combined projection and view matrix of the camera
+     */
+    public void begin(Matrix4 projView) {
+        this.projView.set(projView);
+        triangleCount = 0;
+        clear();
+    }
+
+    private void clear() {
+        for (float[] level : levels) {
+            Arrays.fill(level, 1f);
+        }
+    }
+
+    /**
+     * Rasterizes occluder triangles into the depth buffer.
+     *
+     * @param positions  vertex positions, 3 floats per vertex
+     * @param indices    triangle list indices into positions
+     * @param indexCount number of indices to use
+     * @param transform  world transform of the occluder
+     */
+    public void rasterize(float[] positions, int[] indices, int indexCount, Matrix4 transform) {
+        int vertexCount = positions.length / 3;
+        if (clipVertices.length < vertexCount * 4) {
+            clipVertices = new float[vertexCount * 4];
+            outcodes = new int[vertexCount];
+        }
+
+        float[] m = tmpMatrix.set(projView).mul(transform).val;
+        for (int i = 0, p = 0, c = 0; i < vertexCount; i++, p += 3, c += 4) {
+            float x = positions[p], y = positions[p + 1], z = positions[p + 2];
+            float cx = m[Matrix4.M00] * x + m[Matrix4.M01] * y + m[Matrix4.M02] * z + m[Matrix4.M03];
+            float cy = m[Matrix4.M10] * x + m[Matrix4.M11] * y + m[Matrix4.M12] * z + m[Matrix4.M13];
+            float cz = m[Matrix4.M20] * x + m[Matrix4.M21] * y + m[Matrix4.M22] * z + m[Matrix4.M23];
+            float cw = m[Matrix4.M30] * x + m[Matrix4.M31] * y + m[Matrix4.M32] * z + m[Matrix4.M33];
+            clipVertices[c] = cx;
+            clipVertices[c + 1] = cy;
+            clipVertices[c + 2] = cz;
+            clipVertices[c + 3] = cw;
+
+            int code = 0;
+            if (cx < -cw) code |= OUT_LEFT;
+            if (cx > cw) code |= OUT_RIGHT;
+            if (cy < -cw) code |= OUT_BOTTOM;
+            if (cy > cw) code |= OUT_TOP;
+            if (cz < -cw) code |= OUT_NEAR;
+            if (cz > cw) code |= OUT_FAR;
+            outcodes[i] = code;
+        }
+
+        for (int i = 0; i + 2 < indexCount; i += 3) {
+            int i0 = indices[i], i1 = indices[i + 1], i2 = indices[i + 2];
+            int code0 = outcodes[i0], code1 = outcodes[i1], code2 = outcodes[i2];
+
+            // Entirely outside one of the frustum planes
+            if ((code0 & code1 & code2) != 0) continue;
+
+            int count = clipNear(i0 * 4, i1 * 4, i2 * 4, (code0 | code1 | code2) & OUT_NEAR);
+            if (count < 3) continue;
+            if (!toScreen(count)) continue;
+
+            rasterizeTriangle(0, 1, 2);
+            if (count == 4) {
+                rasterizeTriangle(0, 2, 3);
+            }
+        }
+    }
+
+    /**
+     * Copies the triangle into the polygon buffer, clipped against the near plane if needed.
+     *
+     * @return number of polygon vertices
+     */
+    private int clipNear(int v0, int v1, int v2, int nearCode) {
+        if (nearCode == 0) {
+            System.arraycopy(clipVertices, v0, polygon, 0, 4);
+            System.arraycopy(clipVertices, v1, polygon, 4, 4);
+            System.arraycopy(clipVertices, v2, polygon, 8, 4);
+            return 3;
+        }
+
+        int count = 0;
+        count = clipEdge(v0, v1, count);
+        count = clipEdge(v1, v2, count);
+        count = clipEdge(v2, v0, count);
+        return count;
+    }
+
+    /**
+     * Sutherland-Hodgman step against the near plane z = -w, for the edge from a to b.
+     */
+    private int clipEdge(int a, int b, int count) {
+        float da = clipVertices[a + 2] + clipVertices[a + 3];
+        float db = clipVertices[b + 2] + clipVertices[b + 3];
+
+        if (da >= 0) {
+            System.arraycopy(clipVertices, a, polygon, count * 4, 4);
+            count++;
+        }
+        if ((da >= 0) != (db >= 0)) {
+            float t = da / (da - db);
+            int out = count * 4;
+            for (int k = 0; k < 4; k++) {
+                polygon[out + k] = clipVertices[a + k] + (clipVertices[b + k] - clipVertices[a + k]) * t;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Projects the polygon vertices to pixel coordinates and normalized device depth.
+     */
+    private boolean toScreen(int count) {
+        for (int i = 0; i < count; i++) {
+            float w = polygon[i * 4 + 3];
+            if (w <= 1e-6f) return false;
+            float invW = 1f / w;
+            screen[i * 3] = (polygon[i * 4] * invW * 0.5f + 0.5f) * width;
+            screen[i * 3 + 1] = (polygon[i * 4 + 1] * invW * 0.5f + 0.5f) * height;
+            screen[i * 3 + 2] = polygon[i * 4 + 2] * invW;
+        }
+        return true;
+    }
+
+    /**
+     * Rasterizes a screen space triangle, keeping the nearest depth of each pixel whose center it covers.
+     */
+    private void rasterizeTriangle(int a, int b, int c) {
+        float x0 = screen[a * 3], y0 = screen[a * 3 + 1], z0 = screen[a * 3 + 2];
+        float x1 = screen[b * 3], y1 = screen[b * 3 + 1], z1 = screen[b * 3 + 2];
+        float x2 = screen[c * 3], y2 = screen[c * 3 + 1], z2 = screen[c * 3 + 2];
+
+        float area = (x1 - x0) * (y2 - y0) - (x2 - x0) * (y1 - y0);
+        if (Math.abs(area) < 1e-8f) return;
+        if (area < 0) {
+            // Occluders are double sided, flip to counter clockwise
+            float tx = x1, ty = y1, tz = z1;
+            x1 = x2; y1 = y2; z1 = z2;
+            x2 = tx; y2 = ty; z2 = tz;
+            area = -area;
+        }
+
+        int minX = Math.max(0, (int) Math.ceil(Math.min(x0, Math.min(x1, x2)) - 0.5f));
+        int maxX = Math.min(width - 1, (int) Math.floor(Math.max(x0, Math.max(x1, x2)) - 0.5f));
+        int minY = Math.max(0, (int) Math.ceil(Math.min(y0, Math.min(y1, y2)) - 0.5f));
+        int maxY = Math.min(height - 1, (int) Math.floor(Math.max(y0, Math.max(y1, y2)) - 0.5f));
+        if (minX > maxX || minY > maxY) return;
+
+        triangleCount++;
+
+        // Depth plane gradients
+        float invArea = 1f / area;
+        float dzdx = ((z1 - z0) * (y2 - y0) - (z2 - z0) * (y1 - y0)) * invArea;
+        float dzdy = ((z2 - z0) * (x1 - x0) - (z1 - z0) * (x2 - x0)) * invArea;
+
+        // Edge function steps per pixel in x
+        float step0 = y1 - y2;
+        float step1 = y2 - y0;
+        float step2 = y0 - y1;
+
+        float[] depth = levels[0];
+        float startX = minX + 0.5f;
+        for (int y = minY; y <= maxY; y++) {
+            float py = y + 0.5f;
+            float e0 = (x2 - x1) * (py - y1) - (y2 - y1) * (startX - x1);
+            float e1 = (x0 - x2) * (py - y2) - (y0 - y2) * (startX - x2);
+            float e2 = (x1 - x0) * (py - y0) - (y1 - y0) * (startX - x0);
+            float z = z0 + dzdx * (startX - x0) + dzdy * (py - y0);
+
+            int row = y * width;
+            for (int x = minX; x <= maxX; x++) {
+                if (e0 >= 0 && e1 >= 0 && e2 >= 0 && z < depth[row + x]) {
+                    depth[row + x] = z;
+                }
+                e0 += step0;
+                e1 += step1;
+                e2 += step2;
+                z += dzdx;
+            }
+        }
+    }
+
+    /**
+     * Builds the hierarchical-Z pyramid, call after all occluders were rasterized.
+     */
+    public void end() {
+        for (int level = 1; level < levels.length; level++) {
+            float[] src = levels[level - 1];
+            float[] dst = levels[level];
+            int srcWidth = levelWidths[level - 1];
+            int srcHeight = levelHeights[level - 1];
+            int dstWidth = levelWidths[level];
+            int dstHeight = levelHeights[level];
+
+            for (int y = 0; y < dstHeight; y++) {
+                int sy0 = y * 2;
+                int sy1 = Math.min(sy0 + 1, srcHeight - 1);
+                for (int x = 0; x < dstWidth; x++) {
+                    int sx0 = x * 2;
+                    int sx1 = Math.min(sx0 + 1, srcWidth - 1);
+                    float max = Math.max(Math.max(src[sy0 * srcWidth + sx0], src[sy0 * srcWidth + sx1]),
+                            Math.max(src[sy1 * srcWidth + sx0], src[sy1 * srcWidth + sx1]));
+                    dst[y * dstWidth + x] = max;
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests bounds against the occluders rasterized since the last {@link #begin(Matrix4)}.
+     *
+     * @param corners world space corners of the bounds, for example the 8 vertices of an oriented bounding box
+     * @return false if the bounds are entirely hidden behind occluders
+     */
+    public boolean isVisible(Vector3[] corners) {
+        float[] m = projView.val;
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+
+        for (Vector3 corner : corners) {
+            float x = corner.x, y = corner.y, z = corner.z;
+            float cz = m[Matrix4.M20] * x + m[Matrix4.M21] * y + m[Matrix4.M22] * z + m[Matrix4.M23];
+            float cw = m[Matrix4.M30] * x + m[Matrix4.M31] * y + m[Matrix4.M32] * z + m[Matrix4.M33];
+
+            // Crosses the near plane, can't be projected
+            if (cw <= 1e-6f || cz < -cw) return true;
+
+            float cx = m[Matrix4.M00] * x + m[Matrix4.M01] * y + m[Matrix4.M02] * z + m[Matrix4.M03];
+            float cy = m[Matrix4.M10] * x + m[Matrix4.M11] * y + m[Matrix4.M12] * z + m[Matrix4.M13];
+            float invW = 1f / cw;
+            float sx = (cx * invW * 0.5f + 0.5f) * width;
+            float sy = (cy * invW * 0.5f + 0.5f) * height;
+            minX = Math.min(minX, sx);
+            maxX = Math.max(maxX, sx);
+            minY = Math.min(minY, sy);
+            maxY = Math.max(maxY, sy);
+            minZ = Math.min(minZ, cz * invW);
+        }
+
+        // Offscreen bounds are left to frustum culling
+        if (maxX < 0 || maxY < 0 || minX >= width || minY >= height) return true;
+
+        int x0 = Math.max(0, (int) minX);
+        int x1 = Math.min(width - 1, (int) maxX);
+        int y0 = Math.max(0, (int) minY);
+        int y1 = Math.min(height - 1, (int) maxY);
+
+        int size = Math.max(x1 - x0, y1 - y0) + 1;
+        int level = 0;
+        while (level < levels.length - 1 && (size >> level) > MAX_TEST_TEXELS) {
+            level++;
+        }
+
+        float[] hiZ = levels[level];
+        int levelWidth = levelWidths[level];
+        int tx1 = x1 >> level;
+        int ty1 = y1 >> level;
+        for (int ty = y0 >> level; ty <= ty1; ty++) {
+            int row = ty * levelWidth;
+            for (int tx = x0 >> level; tx <= tx1; tx++) {
+                if (minZ <= hiZ[row + tx]) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return depth of a pixel in normalized device coordinates, 1 if no occluder covers it
+     */
+    public float getDepth(int x, int y) {
+        return levels[0][y * width + x];
+    }
+
+    /**
+     * @return number of triangles rasterized since the last {@link #begin(Matrix4)}
+     */
+    public int getTriangleCount() {
+        return triangleCount;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
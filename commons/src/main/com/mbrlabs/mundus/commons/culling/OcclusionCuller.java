@@ -0,0 +1,141 @@
+package com.mbrlabs.mundus.commons.culling;
+
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.g3d.Model;
+import com.badlogic.gdx.graphics.g3d.ModelInstance;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.mbrlabs.mundus.commons.rendering.RenderLayer;
+import com.mbrlabs.mundus.commons.scene3d.components.CullableComponent;
+import com.mbrlabs.mundus.commons.scene3d.components.ModelComponent;
+import com.mbrlabs.mundus.commons.scene3d.components.TerrainComponent;
+import com.mbrlabs.mundus.commons.terrain.Terrain;
+
+/**
+ * Removes components hidden behind terrains and occluder models from the frustum culled visibility list of the
+ * main camera. The occluders among the visible components are rasterized into an {@link OcclusionBuffer}, then
+ * the oriented bounds of every visible component are tested against it.
+ * <p>
+ * Terrains always occlude, models only when flagged with {@link ModelComponent#setOccluder(boolean)}. Occluder
+ * geometry is copied from the GPU once per model and rebuilt for terrains when their height data changes.
+ */
+public class OcclusionCuller {
+
+    private final OcclusionBuffer buffer;
+    private final ObjectMap<Model, OccluderMesh> modelOccluders = new ObjectMap<>();
+    private final ObjectMap<Terrain, OccluderMesh> terrainOccluders = new ObjectMap<>();
+
+    private int occluderCount;
+    private int occludedCount;
+
+    public OcclusionCuller() {
+        this(new OcclusionBuffer());
+    }
+
+    public OcclusionCuller(OcclusionBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Rasterizes the visible occluders and removes all components hidden behind them from the list.
+     *
+     * @param camera  the camera the list was frustum culled with
+     * @param visible frustum culled components, occluded components are removed
+     */
+    public void cull(Camera camera, Array<CullableComponent> visible) {
+        buffer.begin(camera.combined);
+        occluderCount = 0;
+        occludedCount = 0;
+
+        for (int i = 0; i < visible.size; i++) {
+            CullableComponent component = visible.get(i);
+            if (!component.gameObject.active || !component.gameObject.isInLayer(RenderLayer.MAIN)) continue;
+
+            if (rasterize(component)) {
+                occluderCount++;
+            }
+        }
+
+        if (occluderCount == 0) return;
+        buffer.end();
+
+        for (int i = visible.size - 1; i >= 0; i--) {
+            if (!buffer.isVisible(visible.get(i).getOrientedBoundingBox().getVertices())) {
+                visible.removeIndex(i);
+                occludedCount++;
+            }
+        }
+    }
+
+    /**
+     * @return true if the component is an occluder and was rasterized
+     */
+    private boolean rasterize(CullableComponent component) {
+        OccluderMesh mesh = null;
+        ModelInstance modelInstance = null;
+
+        if (component instanceof TerrainComponent) {
+            TerrainComponent terrainComponent = (TerrainComponent) component;
+            mesh = getOccluderMesh(terrainComponent);
+            modelInstance = terrainComponent.getModelInstance();
+        } else if (component instanceof ModelComponent) {
+            ModelComponent modelComponent = (ModelComponent) component;
+            mesh = getOccluderMesh(modelComponent);
+            modelInstance = modelComponent.getModelInstance();
+        }
+
+        if (mesh == null || modelInstance == null) return false;
+        buffer.rasterize(mesh.positions, mesh.indices, mesh.indices.length, modelInstance.transform);
+        return true;
+    }
+
+    private OccluderMesh getOccluderMesh(TerrainComponent terrainComponent) {
+        if (terrainComponent.getTerrainAsset() == null) return null;
+
+        Terrain terrain = terrainComponent.getTerrainAsset().getTerrain();
+        OccluderMesh mesh = terrainOccluders.get(terrain);
+        if (mesh == null || mesh.version != terrain.getVersion()) {
+            mesh = OccluderMesh.fromTerrain(terrain);
+            terrainOccluders.put(terrain, mesh);
+        }
+        return mesh;
+    }
+
+    private OccluderMesh getOccluderMesh(ModelComponent modelComponent) {
+        if (!modelComponent.isOccluder() || modelComponent.getModelAsset() == null) return null;
+
+        Model model = modelComponent.getModelAsset().getModel();
+        OccluderMesh mesh = modelOccluders.get(model);
+        if (mesh == null) {
+            mesh = OccluderMesh.fromModel(model);
+            modelOccluders.put(model, mesh);
+        }
+        return mesh;
+    }
+
+    /**
+     * Drops all cached occluder geometry, call when models were reloaded or deleted.
+     */
+    public void invalidate() {
+        modelOccluders.clear();
+        terrainOccluders.clear();
+    }
+
+    public OcclusionBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * @return number of occluders rasterized in the last run
+     */
+    public int getOccluderCount() {
+        return occluderCount;
+    }
+
+    /**
+     * @return number of components removed by the last run
+     */
+    public int getOccludedCount() {
+        return occludedCount;
+    }
+}
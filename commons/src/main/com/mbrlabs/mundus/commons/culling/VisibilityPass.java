@@ -0,0 +1,40 @@
+package com.mbrlabs.mundus.commons.culling;
+
+import com.mbrlabs.mundus.commons.rendering.RenderLayer;
+
+/**
+ * Render passes that keep their own visibility set, each culled against the frustum of the camera used by that
+ * pass. The water refraction pass renders from the main camera and shares the {@link #CAMERA} set.
+ * <p>
+ * Each pass also has a {@link RenderLayer} flag, game objects without it in their layer mask are skipped.
+ */
+public enum VisibilityPass {
+    /** Main camera */
+    CAMERA(RenderLayer.MAIN),
+    /** Directional light shadow camera */
+    SHADOW(RenderLayer.SHADOW),
+    /** Mirrored camera of the water reflection pass */
+    REFLECTION(RenderLayer.REFLECTION),
+    /** Water refraction, rendered from the main camera */
+    REFRACTION(RenderLayer.REFRACTION);
+
+    private final int layer;
+
+    VisibilityPass(int layer) {
+        this.layer = layer;
+    }
+
+    /**
+     * @return the render layer flag of this pass
+     */
+    public int getLayer() {
+        return layer;
+    }
+
+    /**
+     * @return the pass whose visibility set this pass uses
+     */
+    public VisibilityPass getCullingPass() {
+        return this == REFRACTION ? CAMERA : this;
+    }
+}
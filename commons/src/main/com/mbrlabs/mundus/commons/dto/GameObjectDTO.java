@@ -18,6 +18,7 @@ package com.mbrlabs.mundus.commons.dto;
 
 import com.badlogic.gdx.utils.Array;
 import com.mbrlabs.mundus.commons.assets.Asset;
+import com.mbrlabs.mundus.commons.rendering.RenderLayer;
 
 import java.util.Map;
 
@@ -30,6 +31,8 @@ public class GameObjectDTO implements AssetUsageDTO {
     private int id;
     private String name;
     private boolean active;
+    private int layerMask = RenderLayer.ALL;
+    private float drawDistance;
 
     private float[] transform = new float[10];
 
@@ -41,6 +44,7 @@ public class GameObjectDTO implements AssetUsageDTO {
     private WaterComponentDTO waterComponent;
     private LightComponentDTO lightComponent;
     private CustomPropertiesComponentDTO customPropertiesComponent;
+    private VegetationComponentDTO vegetationComponent;
 
     public GameObjectDTO() {
         childs = new Array<>();
@@ -71,6 +75,22 @@ public class GameObjectDTO implements AssetUsageDTO {
         this.active = active;
     }
 
+    public int getLayerMask() {
+        return layerMask;
+    }
+
+    public void setLayerMask(int layerMask) {
+        this.layerMask = layerMask;
+    }
+
+    public float getDrawDistance() {
+        return drawDistance;
+    }
+
+    public void setDrawDistance(float drawDistance) {
+        this.drawDistance = drawDistance;
+    }
+
     public float[] getTransform() {
         return transform;
     }
@@ -131,6 +151,14 @@ public class GameObjectDTO implements AssetUsageDTO {
         this.customPropertiesComponent = customPropertiesComponent;
     }
 
+    public VegetationComponentDTO getVegetationComponent() {
+        return vegetationComponent;
+    }
+
+    public void setVegetationComponent(VegetationComponentDTO vegetationComponent) {
+        this.vegetationComponent = vegetationComponent;
+    }
+
     @Override
     public boolean usesAsset(Asset assetToCheck, Map<String, Asset> assetMap) {
         if (modelComponent != null && modelComponent.usesAsset(assetToCheck, assetMap)) {
@@ -145,6 +173,10 @@ public class GameObjectDTO implements AssetUsageDTO {
             return true;
         }
 
+        if (vegetationComponent != null && vegetationComponent.usesAsset(assetToCheck, assetMap)) {
+            return true;
+        }
+
         return false;
     }
 }
@@ -32,6 +32,8 @@ public class ModelComponentDTO implements AssetUsageDTO {
     private String modelID;
     private HashMap<String, String> materials; // g3db material id to material asset uuid
     private boolean useModelCache;
+    private boolean useInstancing;
+    private boolean occluder;
 
     public ModelComponentDTO() {
         materials = new HashMap<>();
@@ -61,6 +63,22 @@ public class ModelComponentDTO implements AssetUsageDTO {
         this.useModelCache = useModelCache;
     }
 
+    public boolean isUseInstancing() {
+        return useInstancing;
+    }
+
+    public void setUseInstancing(boolean useInstancing) {
+        this.useInstancing = useInstancing;
+    }
+
+    public boolean isOccluder() {
+        return occluder;
+    }
+
+    public void setOccluder(boolean occluder) {
+        this.occluder = occluder;
+    }
+
     @Override
     public boolean usesAsset(Asset assetToCheck, Map<String, Asset> assetMap) {
         if (assetToCheck.getID().equals(modelID)) {
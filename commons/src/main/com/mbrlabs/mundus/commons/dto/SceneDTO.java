@@ -46,8 +46,27 @@ public class SceneDTO implements Json.Serializable {
     private float camFieldOfView;
     private float waterHeight;
     private boolean useFrustumCulling;
+    private boolean useOcclusionCulling;
+    private boolean cacheStaticShadows;
+    private int shadowCascades;
+    private float lodBias = 1f;
+    private float impostorDistance;
+    private int lightsPerObject;
+    private boolean depthPrePass;
+    private boolean dynamicResolution;
+    private int targetFrameRate = 60;
+    private float minResolutionScale = 0.5f;
+    private float drawDistance;
+    private float minScreenSize;
+    private float shadowDrawDistance;
+    private float shadowMinScreenSize;
+    private boolean cullFoggedObjects;
     private boolean enableWaterReflections = true;
     private boolean enableWaterRefractions = true;
+    private int waterUpdateInterval = 1;
+    private boolean waterUpdateOnCameraMove;
+    private float waterReflectionDrawDistance;
+    private float waterReflectionMinScreenSize;
     private WaterResolution waterResolution;
 
     public SceneDTO() {
@@ -198,6 +217,158 @@ public class SceneDTO implements Json.Serializable {
         this.useFrustumCulling = useFrustumCulling;
     }
 
+    public boolean isUseOcclusionCulling() {
+        return useOcclusionCulling;
+    }
+
+    public void setUseOcclusionCulling(boolean useOcclusionCulling) {
+        this.useOcclusionCulling = useOcclusionCulling;
+    }
+
+    public int getWaterUpdateInterval() {
+        return waterUpdateInterval;
+    }
+
+    public void setWaterUpdateInterval(int waterUpdateInterval) {
+        this.waterUpdateInterval = waterUpdateInterval;
+    }
+
+    public boolean isWaterUpdateOnCameraMove() {
+        return waterUpdateOnCameraMove;
+    }
+
+    public void setWaterUpdateOnCameraMove(boolean waterUpdateOnCameraMove) {
+        this.waterUpdateOnCameraMove = waterUpdateOnCameraMove;
+    }
+
+    public float getWaterReflectionDrawDistance() {
+        return waterReflectionDrawDistance;
+    }
+
+    public void setWaterReflectionDrawDistance(float waterReflectionDrawDistance) {
+        this.waterReflectionDrawDistance = waterReflectionDrawDistance;
+    }
+
+    public float getWaterReflectionMinScreenSize() {
+        return waterReflectionMinScreenSize;
+    }
+
+    public void setWaterReflectionMinScreenSize(float waterReflectionMinScreenSize) {
+        this.waterReflectionMinScreenSize = waterReflectionMinScreenSize;
+    }
+
+    public boolean isCacheStaticShadows() {
+        return cacheStaticShadows;
+    }
+
+    public void setCacheStaticShadows(boolean cacheStaticShadows) {
+        this.cacheStaticShadows = cacheStaticShadows;
+    }
+
+    public int getShadowCascades() {
+        return shadowCascades;
+    }
+
+    public void setShadowCascades(int shadowCascades) {
+        this.shadowCascades = shadowCascades;
+    }
+
+    public float getLodBias() {
+        return lodBias;
+    }
+
+    public void setLodBias(float lodBias) {
+        this.lodBias = lodBias;
+    }
+
+    public float getImpostorDistance() {
+        return impostorDistance;
+    }
+
+    public void setImpostorDistance(float impostorDistance) {
+        this.impostorDistance = impostorDistance;
+    }
+
+    public int getLightsPerObject() {
+        return lightsPerObject;
+    }
+
+    public void setLightsPerObject(int lightsPerObject) {
+        this.lightsPerObject = lightsPerObject;
+    }
+
+    public boolean isDepthPrePass() {
+        return depthPrePass;
+    }
+
+    public void setDepthPrePass(boolean depthPrePass) {
+        this.depthPrePass = depthPrePass;
+    }
+
+    public boolean isDynamicResolution() {
+        return dynamicResolution;
+    }
+
+    public void setDynamicResolution(boolean dynamicResolution) {
+        this.dynamicResolution = dynamicResolution;
+    }
+
+    public int getTargetFrameRate() {
+        return targetFrameRate;
+    }
+
+    public void setTargetFrameRate(int targetFrameRate) {
+        this.targetFrameRate = targetFrameRate;
+    }
+
+    public float getMinResolutionScale() {
+        return minResolutionScale;
+    }
+
+    public void setMinResolutionScale(float minResolutionScale) {
+        this.minResolutionScale = minResolutionScale;
+    }
+
+    public float getDrawDistance() {
+        return drawDistance;
+    }
+
+    public void setDrawDistance(float drawDistance) {
+        this.drawDistance = drawDistance;
+    }
+
+    public float getMinScreenSize() {
+        return minScreenSize;
+    }
+
+    public void setMinScreenSize(float minScreenSize) {
+        this.minScreenSize = minScreenSize;
+    }
+
+    public float getShadowDrawDistance() {
+        return shadowDrawDistance;
+    }
+
+    public void setShadowDrawDistance(float shadowDrawDistance) {
+        this.shadowDrawDistance = shadowDrawDistance;
+    }
+
+    public float getShadowMinScreenSize() {
+        return shadowMinScreenSize;
+    }
+
+    public void setShadowMinScreenSize(float shadowMinScreenSize) {
+        this.shadowMinScreenSize = shadowMinScreenSize;
+    }
+
+    public boolean isCullFoggedObjects() {
+        return cullFoggedObjects;
+    }
+
+    public void setCullFoggedObjects(boolean cullFoggedObjects) {
+        this.cullFoggedObjects = cullFoggedObjects;
+    }
+
     public void setSkyboxAssetId(String skyboxAssetId) {
         this.skyboxAssetId = skyboxAssetId;
     }
@@ -0,0 +1,164 @@
+package com.mbrlabs.mundus.commons.dto;
+
+import com.mbrlabs.mundus.commons.assets.Asset;
+import com.mbrlabs.mundus.commons.scene3d.components.VegetationComponent;
+import com.mbrlabs.mundus.commons.terrain.SplatTexture;
+
+import java.util.Map;
+
+/**
+ * Placement and render settings of a {@link VegetationComponent}. Instances are generated at runtime and never
+ * serialized.
+ */
+public class VegetationComponentDTO implements AssetUsageDTO {
+
+    private String modelID;
+    private float density = VegetationComponent.DEFAULT_DENSITY;
+    private int seed;
+    private SplatTexture.Channel densityChannel;
+    private float minSlope;
+    private float maxSlope = VegetationComponent.DEFAULT_MAX_SLOPE;
+    private float minHeight;
+    private float maxHeight;
+    private float minScale = VegetationComponent.DEFAULT_MIN_SCALE;
+    private float maxScale = VegetationComponent.DEFAULT_MAX_SCALE;
+    private boolean randomRotation = true;
+    private boolean alignToNormal;
+    private float chunkSize = VegetationComponent.DEFAULT_CHUNK_SIZE;
+    private float viewDistance = VegetationComponent.DEFAULT_VIEW_DISTANCE;
+    private float fadeStart = VegetationComponent.DEFAULT_FADE_START;
+    private boolean castShadows;
+
+    public String getModelID() {
+        return modelID;
+    }
+
+    public void setModelID(String modelID) {
+        this.modelID = modelID;
+    }
+
+    public float getDensity() {
+        return density;
+    }
+
+    public void setDensity(float density) {
+        this.density = density;
+    }
+
+    public int getSeed() {
+        return seed;
+    }
+
+    public void setSeed(int seed) {
+        this.seed = seed;
+    }
+
+    public SplatTexture.Channel getDensityChannel() {
+        return densityChannel;
+    }
+
+    public void setDensityChannel(SplatTexture.Channel densityChannel) {
+        this.densityChannel = densityChannel;
+    }
+
+    public float getMinSlope() {
+        return minSlope;
+    }
+
+    public void setMinSlope(float minSlope) {
+        this.minSlope = minSlope;
+    }
+
+    public float getMaxSlope() {
+        return maxSlope;
+    }
+
+    public void setMaxSlope(float maxSlope) {
+        this.maxSlope = maxSlope;
+    }
+
+    public float getMinHeight() {
+        return minHeight;
+    }
+
+    public void setMinHeight(float minHeight) {
+        this.minHeight = minHeight;
+    }
+
+    public float getMaxHeight() {
+        return maxHeight;
+    }
+
+    public void setMaxHeight(float maxHeight) {
+        this.maxHeight = maxHeight;
+    }
+
+    public float getMinScale() {
+        return minScale;
+    }
+
+    public void setMinScale(float minScale) {
+        this.minScale = minScale;
+    }
+
+    public float getMaxScale() {
+        return maxScale;
+    }
+
+    public void setMaxScale(float maxScale) {
+        this.maxScale = maxScale;
+    }
+
+    public boolean isRandomRotation() {
+        return randomRotation;
+    }
+
+    public void setRandomRotation(boolean randomRotation) {
+        this.randomRotation = randomRotation;
+    }
+
+    public boolean isAlignToNormal() {
+        return alignToNormal;
+    }
+
+    public void setAlignToNormal(boolean alignToNormal) {
+        this.alignToNormal = alignToNormal;
+    }
+
+    public float getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(float chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public float getViewDistance() {
+        return viewDistance;
+    }
+
+    public void setViewDistance(float viewDistance) {
+        this.viewDistance = viewDistance;
+    }
+
+    public float getFadeStart() {
+        return fadeStart;
+    }
+
+    public void setFadeStart(float fadeStart) {
+        this.fadeStart = fadeStart;
+    }
+
+    public boolean isCastShadows() {
+        return castShadows;
+    }
+
+    public void setCastShadows(boolean castShadows) {
+        this.castShadows = castShadows;
+    }
+
+    @Override
+    public boolean usesAsset(Asset assetToCheck, Map<String, Asset> assetMap) {
+        return assetToCheck.getID().equals(modelID);
+    }
+}
@@ -0,0 +1,180 @@
+package com.mbrlabs.mundus.commons.env;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Cubemap;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Disposable;
+import com.mbrlabs.mundus.commons.utils.NestableFrameBuffer;
+import com.mbrlabs.mundus.commons.utils.PixmapCubemapData;
+import com.mbrlabs.mundus.commons.utils.ShaderUtils;
+
+/**
+ * Renders the image based lighting maps of an environment cubemap, like a skybox or the sky built for a
+ * directional light, by convolving it with the diffuse and the GGX specular lobe. Faces are rendered one at a time
+ * and read back, so callers can spread the work of a map over several frames and store the faces. Reading back a
+ * 2D framebuffer works on all backends, unlike reading back cubemap mip levels.
+ * <p>
+ * Radiance maps have one mip level per roughness step, from a mirror reflection in the largest level to fully
+ * rough in the 1x1 level, as expected by the PBR shader.
+ */
+public class IBLBaker implements Disposable {
+    private static final String VERTEX_SHADER = "com/mbrlabs/mundus/commons/shaders/ibl.vert.glsl";
+    private static final String FRAGMENT_SHADER = "com/mbrlabs/mundus/commons/shaders/ibl.frag.glsl";
+    private static final int SAMPLE_COUNT = 64;
+
+    // Center, s and t direction of each face in CubemapSide order, as defined for cubemap lookups by the GL spec
+    private static final Vector3[][] FACE_AXES = {
+            {new Vector3(1, 0, 0), new Vector3(0, 0, -1), new Vector3(0, -1, 0)},
+            {new Vector3(-1, 0, 0), new Vector3(0, 0, 1), new Vector3(0, -1, 0)},
+            {new Vector3(0, 1, 0), new Vector3(1, 0, 0), new Vector3(0, 0, 1)},
+            {new Vector3(0, -1, 0), new Vector3(1, 0, 0), new Vector3(0, 0, -1)},
+            {new Vector3(0, 0, 1), new Vector3(1, 0, 0), new Vector3(0, -1, 0)},
+            {new Vector3(0, 0, -1), new Vector3(-1, 0, 0), new Vector3(0, -1, 0)}
+    };
+
+    private final ShaderProgram irradianceProgram;
+    private final ShaderProgram radianceProgram;
+    private final Mesh quad;
+    private NestableFrameBuffer frameBuffer;
+    private Cubemap environment;
+
+    public IBLBaker() {
+        String prefix = "#define sampleCount " + SAMPLE_COUNT + "\n";
+        irradianceProgram = ShaderUtils.compile(VERTEX_SHADER, FRAGMENT_SHADER, null, prefix + "#define irradianceFlag\n");
+        radianceProgram = ShaderUtils.compile(VERTEX_SHADER, FRAGMENT_SHADER, null, prefix);
+
+        quad = new Mesh(true, 4, 0, new VertexAttribute(VertexAttributes.Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE));
+        quad.setVertices(new float[] {-1, -1, 1, -1, 1, 1, -1, 1});
+    }
+
+    /**
+     * Sets the environment the maps are rendered from and generates its mip levels, which samples read from to cover
+     * their solid angle. The environment map is not disposed with the baker.
+     *
+     * @param environment the environment to convolve, with power of two faces on GLES2 and WebGL
+     */
+    public void setEnvironment(Cubemap environment) {
+        if (environment == this.environment) return;
+
+        this.environment = environment;
+        environment.bind();
+        Gdx.gl.glGenerateMipmap(GL20.GL_TEXTURE_CUBE_MAP);
+        environment.setFilter(Texture.TextureFilter.MipMapLinearLinear, Texture.TextureFilter.Linear);
+    }
+
+    /**
+     * @return size of the faces of a mip level of a radiance map
+     */
+    public static int getRadianceSize(int mipLevels, int level) {
+        return 1 << (mipLevels - level - 1);
+    }
+
+    /**
+     * Renders one face of an irradiance map. Must be called on the render thread, outside of a model batch.
+     */
+    public Pixmap renderIrradiance(int size, Cubemap.CubemapSide side) {
+        irradianceProgram.bind();
+        return render(irradianceProgram, size, side);
+    }
+
+    /**
+     * Renders one face of a mip level of a radiance map. Must be called on the render thread, outside of a model
+     * batch.
+     */
+    public Pixmap renderRadiance(int mipLevels, int level, Cubemap.CubemapSide side) {
+        radianceProgram.bind();
+        radianceProgram.setUniformf("u_roughness", mipLevels > 1 ? (float) level / (mipLevels - 1) : 0f);
+        return render(radianceProgram, getRadianceSize(mipLevels, level), side);
+    }
+
+    /**
+     * Renders all faces of an irradiance map at once, see {@link #createIrradianceMap(Pixmap[])}.
+     */
+    public Pixmap[] renderIrradianceMap(int size) {
+        Pixmap[] faces = new Pixmap[PixmapCubemapData.SIDES];
+        for (Cubemap.CubemapSide side : Cubemap.CubemapSide.values()) {
+            faces[PixmapCubemapData.getIndex(0, side)] = renderIrradiance(size, side);
+        }
+        return faces;
+    }
+
+    /**
+     * Renders all faces of all mip levels of a radiance map at once, see {@link #createRadianceMap(Pixmap[])}.
+     */
+    public Pixmap[] renderRadianceMap(int mipLevels) {
+        Pixmap[] faces = new Pixmap[mipLevels * PixmapCubemapData.SIDES];
+        for (int level = 0; level < mipLevels; level++) {
+            for (Cubemap.CubemapSide side : Cubemap.CubemapSide.values()) {
+                faces[PixmapCubemapData.getIndex(level, side)] = renderRadiance(mipLevels, level, side);
+            }
+        }
+        return faces;
+    }
+
+    /**
+     * Uploads the faces of an irradiance map. The faces are not disposed.
+     */
+    public static Cubemap createIrradianceMap(Pixmap[] faces) {
+        Cubemap map = new Cubemap(new PixmapCubemapData(faces));
+        map.setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+        return map;
+    }
+
+    /**
+     * Uploads the faces of all mip levels of a radiance map, down to the 1x1 level. The faces are not disposed.
+     */
+    public static Cubemap createRadianceMap(Pixmap[] faces) {
+        Cubemap map = new Cubemap(new PixmapCubemapData(faces));
+        map.setFilter(Texture.TextureFilter.MipMapLinearLinear, Texture.TextureFilter.Linear);
+        return map;
+    }
+
+    private Pixmap render(ShaderProgram program, int size, Cubemap.CubemapSide side) {
+        if (frameBuffer == null || frameBuffer.getWidth() != size) {
+            if (frameBuffer != null) {
+                frameBuffer.dispose();
+            }
+            frameBuffer = new NestableFrameBuffer(Pixmap.Format.RGBA8888, size, size, false);
+        }
+
+        int environmentSize = environment.getWidth();
+        Vector3[] axes = FACE_AXES[side.ordinal()];
+
+        frameBuffer.begin();
+        Gdx.gl.glDisable(GL20.GL_BLEND);
+        Gdx.gl.glDisable(GL20.GL_DEPTH_TEST);
+        Gdx.gl.glDisable(GL20.GL_CULL_FACE);
+
+        environment.bind(0);
+        program.setUniformi("u_environment", 0);
+        program.setUniformf("u_faceDirection", axes[0]);
+        program.setUniformf("u_faceS", axes[1]);
+        program.setUniformf("u_faceT", axes[2]);
+        program.setUniformf("u_texelSolidAngle", 4f * MathUtils.PI / (6f * environmentSize * environmentSize));
+        program.setUniformf("u_faceLod", Math.max(0f, MathUtils.log2((float) environmentSize / size)));
+        quad.render(program, GL20.GL_TRIANGLE_FAN);
+
+        // Read back bottom up, rows stay in texture coordinate order
+        Pixmap face = Pixmap.createFromFrameBuffer(0, 0, size, size);
+        frameBuffer.end();
+        return face;
+    }
+
+    @Override
+    public void dispose() {
+        irradianceProgram.dispose();
+        radianceProgram.dispose();
+        quad.dispose();
+        if (frameBuffer != null) {
+            frameBuffer.dispose();
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.mbrlabs.mundus.commons.env;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Cubemap;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongMap;
+import com.mbrlabs.mundus.commons.utils.PixmapCubemapData;
+import net.mgsx.gltf.scene3d.lights.DirectionalLightEx;
+import net.mgsx.gltf.scene3d.utils.IBLBuilder;
+
+/**
+ * Shares the image based lighting maps generated for a directional light between scenes and light changes, so
+ * loading a scene or editing its light only builds the maps when no similar light was used before.
+ * <p>
+ * Lights are matched by their direction, color and intensity, each rounded to a tolerance small enough that the
+ * difference in lighting is not visible. The maps are rendered by an {@link IBLBaker} from the sky IBLBuilder builds
+ * for the light. New maps are first rendered at low resolution, which takes a fraction of the time of the full maps,
+ * and then refined in {@link #update()}, which renders one face of one mip level per call. The faces of a map
+ * replace the preview map once all of them are done. Maps of lights no scene uses anymore are not refined and the
+ * last few of them are kept, so switching back to a scene does not build them again.
+ * <p>
+ * With an {@link IBLMapStore} set, refined faces are loaded from the store when an earlier run stored them, and
+ * maps with rendered faces are stored once they are done.
+ * <p>
+ * The cache owns the cubemaps, scenes must {@link #release(Entry)} their entry instead of disposing them.
+ */
+public class IBLCache {
+    public static final int IRRADIANCE_SIZE = 512;
+    public static final int RADIANCE_MIP_LEVELS = 10;
+    public static final int PREVIEW_IRRADIANCE_SIZE = 32;
+    public static final int PREVIEW_RADIANCE_MIP_LEVELS = 6;
+    /** Size of the faces of the sky the maps are rendered from */
+    public static final int ENVIRONMENT_SIZE = 256;
+
+    /** Number of maps no scene uses anymore which are kept until the least recently used is disposed */
+    public static final int MAX_UNUSED = 4;
+
+    // Faces refined per entry, one per update, the irradiance faces first
+    private static final int IRRADIANCE_FACES = PixmapCubemapData.SIDES;
+    private static final int REFINE_STEPS = IRRADIANCE_FACES + RADIANCE_MIP_LEVELS * PixmapCubemapData.SIDES;
+    private static final Cubemap.CubemapSide[] SIDES = Cubemap.CubemapSide.values();
+    // Part of the stored names, increase it when the rendered maps change so older faces are not loaded
+    private static final int STORE_VERSION = 1;
+
+    // Quantization steps per component, chosen to fit all components into a 64-bit key
+    private static final float DIRECTION_STEPS = 127f;
+    private static final float COLOR_STEPS = 63f;
+    private static final float INTENSITY_STEP = 0.05f;
+    private static final long INTENSITY_MASK = (1L << 10) - 1;
+
+    private static IBLCache instance;
+
+    private final LongMap<Entry> entries = new LongMap<>();
+    // Unused entries, least recently used first
+    private final Array<Entry> unused = new Array<>();
+    private final Vector3 tmpDirection = new Vector3();
+    private IBLBaker baker;
+    private IBLMapStore store;
+
+    /**
+     * Maps built for one light. The cubemaps are replaced while they are refined, check {@link #getVersion()} to
+     * know when to update attributes holding them.
+     */
+    public static class Entry {
+        private final long key;
+        private final DirectionalLightEx light = new DirectionalLightEx();
+        private Cubemap diffuse;
+        private Cubemap specular;
+        // Sky the maps are rendered from, disposed once the maps are refined
+        private Cubemap environment;
+        // Faces refined so far of the map being refined
+        private Pixmap[] faces;
+        // Number of faces refined, irradiance faces first
+        private int step;
+        // True if a face of the map being refined was rendered instead of loaded from the store
+        private boolean rendered;
+        private int version;
+        private int references;
+
+        private Entry(long key, DirectionalLightEx light) {
+            this.key = key;
+            this.light.color.set(light.color);
+            this.light.baseColor.set(light.baseColor);
+            this.light.direction.set(light.direction);
+            this.light.intensity = light.intensity;
+        }
+
+        public Cubemap getDiffuse() {
+            return diffuse;
+        }
+
+        public Cubemap getSpecular() {
+            return specular;
+        }
+
+        /**
+         * @return number of times the cubemaps were replaced
+         */
+        public int getVersion() {
+            return version;
+        }
+
+        /**
+         * @return true when the maps are built at full resolution
+         */
+        public boolean isRefined() {
+            return step == REFINE_STEPS;
+        }
+
+        private void dispose() {
+            diffuse.dispose();
+            specular.dispose();
+            disposeFaces(faces);
+            faces = null;
+            if (environment != null) {
+                environment.dispose();
+                environment = null;
+            }
+        }
+    }
+
+    /**
+     * @return the shared instance
+     */
+    public static IBLCache getInstance() {
+        if (instance == null) {
+            instance = new IBLCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Sets the store refined maps are loaded from and saved to, null to always render them.
+     */
+    public void setStore(IBLMapStore store) {
+        this.store = store;
+    }
+
+    public IBLMapStore getStore() {
+        return store;
+    }
+
+    /**
+     * Returns the maps for the light, building preview maps if no similar light is cached. Every acquired entry
+     * has to be released again.
+     */
+    public Entry acquire(DirectionalLightEx light) {
+        long key = getKey(light, tmpDirection);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry(key, light);
+            IBLBaker baker = getBaker(entry);
+            Pixmap[] faces = baker.renderIrradianceMap(PREVIEW_IRRADIANCE_SIZE);
+            entry.diffuse = IBLBaker.createIrradianceMap(faces);
+            disposeFaces(faces);
+            faces = baker.renderRadianceMap(PREVIEW_RADIANCE_MIP_LEVELS);
+            entry.specular = IBLBaker.createRadianceMap(faces);
+            disposeFaces(faces);
+            entries.put(key, entry);
+        } else if (entry.references == 0) {
+            unused.removeValue(entry, true);
+        }
+
+        entry.references++;
+        return entry;
+    }
+
+    /**
+     * Releases an entry acquired before. Its maps are kept until {@link #MAX_UNUSED} newer entries are unused.
+     */
+    public void release(Entry entry) {
+        if (entry.references == 0) return;
+
+        entry.references--;
+        if (entry.references > 0) return;
+
+        unused.add(entry);
+        while (unused.size > MAX_UNUSED) {
+            Entry removed = unused.removeIndex(0);
+            entries.remove(removed.key);
+            removed.dispose();
+        }
+    }
+
+    /**
+     * Refines one face of the first used entry not yet at full resolution. Call once per frame, outside of a model
+     * batch.
+     *
+     * @return true if a face was refined
+     */
+    public boolean update() {
+        for (Entry entry : entries.values()) {
+            if (entry.references == 0 || entry.isRefined()) continue;
+
+            refineStep(entry);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Builds all remaining faces of the entry at full resolution right away, for example before taking a screenshot.
+     */
+    public void refine(Entry entry) {
+        while (!entry.isRefined()) {
+            refineStep(entry);
+        }
+    }
+
+    private void refineStep(Entry entry) {
+        boolean irradiance = entry.step < IRRADIANCE_FACES;
+        int index = irradiance ? entry.step : entry.step - IRRADIANCE_FACES;
+        int level = index / PixmapCubemapData.SIDES;
+        Cubemap.CubemapSide side = SIDES[index % PixmapCubemapData.SIDES];
+
+        if (entry.faces == null) {
+            entry.faces = new Pixmap[irradiance ? IRRADIANCE_FACES : REFINE_STEPS - IRRADIANCE_FACES];
+        }
+        entry.faces[index] = getFace(entry, irradiance, level, side);
+        entry.step++;
+
+        if (irradiance && entry.step == IRRADIANCE_FACES) {
+            entry.diffuse.dispose();
+            entry.diffuse = IBLBaker.createIrradianceMap(entry.faces);
+            finishMap(entry, IBLFiles.IRRADIANCE);
+        } else if (entry.isRefined()) {
+            entry.specular.dispose();
+            entry.specular = IBLBaker.createRadianceMap(entry.faces);
+            finishMap(entry, IBLFiles.RADIANCE);
+
+            entry.environment.dispose();
+            entry.environment = null;
+        }
+    }
+
+    private Pixmap getFace(Entry entry, boolean irradiance, int level, Cubemap.CubemapSide side) {
+        String map = irradiance ? IBLFiles.IRRADIANCE : IBLFiles.RADIANCE;
+        int size = irradiance ? IRRADIANCE_SIZE : IBLBaker.getRadianceSize(RADIANCE_MIP_LEVELS, level);
+
+        if (store != null) {
+            Pixmap face = store.load(getName(entry), map, level, side);
+            // Faces of all levels need the same format for the cubemap to be complete
+            if (face != null && face.getWidth() == size && face.getHeight() == size
+                    && face.getFormat() == Pixmap.Format.RGBA8888) {
+                return face;
+            }
+            if (face != null) {
+                face.dispose();
+            }
+        }
+
+        entry.rendered = true;
+        IBLBaker baker = getBaker(entry);
+        return irradiance ? baker.renderIrradiance(size, side) : baker.renderRadiance(RADIANCE_MIP_LEVELS, level, side);
+    }
+
+    private void finishMap(Entry entry, String map) {
+        if (store != null && entry.rendered) {
+            store.save(getName(entry), map, entry.faces);
+        } else {
+            disposeFaces(entry.faces);
+        }
+        entry.faces = null;
+        entry.rendered = false;
+        entry.version++;
+    }
+
+    private IBLBaker getBaker(Entry entry) {
+        if (entry.environment == null) {
+            IBLBuilder iblBuilder = IBLBuilder.createOutdoor(entry.light);
+            entry.environment = iblBuilder.buildEnvMap(ENVIRONMENT_SIZE);
+            iblBuilder.dispose();
+        }
+        if (baker == null) {
+            baker = new IBLBaker();
+        }
+        baker.setEnvironment(entry.environment);
+        return baker;
+    }
+
+    private static String getName(Entry entry) {
+        return STORE_VERSION + "_" + Long.toHexString(entry.key);
+    }
+
+    private static void disposeFaces(Pixmap[] faces) {
+        if (faces == null) return;
+        for (Pixmap face : faces) {
+            if (face != null) {
+                face.dispose();
+            }
+        }
+    }
+
+    /**
+     * Disposes the maps no scene uses anymore.
+     */
+    public void clearUnused() {
+        for (Entry entry : unused) {
+            entries.remove(entry.key);
+            entry.dispose();
+        }
+        unused.clear();
+    }
+
+    /**
+     * Packs the quantized light into a key, lights with the same key get the same maps. The color is split into its
+     * hue and brightness, as it is scaled by the intensity and may exceed 1.
+     * <pre>
+     * direction x, y, z (8 bits each) | hue r, g, b (6 bits each) | brightness (10 bits) | intensity (10 bits)
+     * </pre>
+     */
+    static long getKey(DirectionalLightEx light, Vector3 tmpDirection) {
+        Vector3 direction = tmpDirection.set(light.direction).nor();
+        Color color = light.color;
+        float brightness = Math.max(color.r, Math.max(color.g, color.b));
+        float scale = brightness > 0 ? 1f / brightness : 0f;
+
+        long key = quantize(direction.x * 0.5f + 0.5f, DIRECTION_STEPS);
+        key = key << 8 | quantize(direction.y * 0.5f + 0.5f, DIRECTION_STEPS);
+        key = key << 8 | quantize(direction.z * 0.5f + 0.5f, DIRECTION_STEPS);
+        key = key << 6 | quantize(color.r * scale, COLOR_STEPS);
+        key = key << 6 | quantize(color.g * scale, COLOR_STEPS);
+        key = key << 6 | quantize(color.b * scale, COLOR_STEPS);
+        key = key << 10 | quantizeIntensity(brightness);
+        key = key << 10 | quantizeIntensity(light.intensity);
+        return key;
+    }
+
+    private static long quantizeIntensity(float value) {
+        return Math.min(INTENSITY_MASK, Math.max(0, Math.round(value / INTENSITY_STEP)));
+    }
+
+    private static long quantize(float value, float steps) {
+        return Math.round(Math.max(0f, Math.min(1f, value)) * steps);
+    }
+}
@@ -0,0 +1,80 @@
+package com.mbrlabs.mundus.commons.env;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Cubemap;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.mbrlabs.mundus.commons.utils.PixmapCubemapData;
+
+/**
+ * Layout of image based lighting maps stored as one PNG file per face and mip level in a directory, used by the
+ * maps the editor bakes from a skybox on export and by {@link IBLMapStore} implementations. Faces are stored in
+ * the row order they are uploaded in, so they appear flipped in image viewers.
+ */
+public class IBLFiles {
+    public static final String IRRADIANCE = "irradiance";
+    public static final String RADIANCE = "radiance";
+
+    private static final String BAKE_SUFFIX = "_ibl";
+    private static final String EXTENSION = ".png";
+
+    private IBLFiles() {}
+
+    public static FileHandle getFace(FileHandle directory, String map, int level, Cubemap.CubemapSide side) {
+        return directory.child(map + "_" + level + "_" + side.name().toLowerCase() + EXTENSION);
+    }
+
+    /**
+     * @param assetsFolder the folder the skybox asset is in
+     * @param skyboxId     the id of the skybox asset
+     * @return the directory the maps baked from the skybox are exported to
+     */
+    public static FileHandle getBakeDirectory(FileHandle assetsFolder, String skyboxId) {
+        return assetsFolder.child(skyboxId + BAKE_SUFFIX);
+    }
+
+    /**
+     * @return true if the directory holds an irradiance and a radiance map
+     */
+    public static boolean exists(FileHandle directory) {
+        return getFace(directory, IRRADIANCE, 0, Cubemap.CubemapSide.PositiveX).exists()
+                && getFace(directory, RADIANCE, 0, Cubemap.CubemapSide.PositiveX).exists();
+    }
+
+    public static Cubemap loadIrradianceMap(FileHandle directory) {
+        Pixmap[] faces = load(directory, IRRADIANCE, 1);
+        Cubemap map = IBLBaker.createIrradianceMap(faces);
+        dispose(faces);
+        return map;
+    }
+
+    /**
+     * Loads a radiance map with as many mip levels as stored in the directory.
+     */
+    public static Cubemap loadRadianceMap(FileHandle directory) {
+        int mipLevels = 0;
+        while (getFace(directory, RADIANCE, mipLevels, Cubemap.CubemapSide.PositiveX).exists()) {
+            mipLevels++;
+        }
+
+        Pixmap[] faces = load(directory, RADIANCE, mipLevels);
+        Cubemap map = IBLBaker.createRadianceMap(faces);
+        dispose(faces);
+        return map;
+    }
+
+    private static Pixmap[] load(FileHandle directory, String map, int mipLevels) {
+        Pixmap[] faces = new Pixmap[mipLevels * PixmapCubemapData.SIDES];
+        for (int level = 0; level < mipLevels; level++) {
+            for (Cubemap.CubemapSide side : Cubemap.CubemapSide.values()) {
+                faces[PixmapCubemapData.getIndex(level, side)] = new Pixmap(getFace(directory, map, level, side));
+            }
+        }
+        return faces;
+    }
+
+    private static void dispose(Pixmap[] faces) {
+        for (Pixmap face : faces) {
+            face.dispose();
+        }
+    }
+}
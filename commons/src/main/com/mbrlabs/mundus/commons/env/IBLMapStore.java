@@ -0,0 +1,32 @@
+package com.mbrlabs.mundus.commons.env;
+
+import com.badlogic.gdx.graphics.Cubemap;
+import com.badlogic.gdx.graphics.Pixmap;
+
+/**
+ * Stores the image based lighting maps refined by the {@link IBLCache}, so maps of a light used in an earlier run
+ * are loaded instead of rendered again. Writing image files is not supported on all backends, implementations live
+ * in the desktop backends. Installed with {@link IBLCache#setStore(IBLMapStore)}.
+ */
+public interface IBLMapStore {
+
+    /**
+     * Loads one stored face. Called on the render thread, one face per frame.
+     *
+     * @param name  the name of the light the maps were built for
+     * @param map   {@link IBLFiles#IRRADIANCE} or {@link IBLFiles#RADIANCE}
+     * @param level the mip level of the face
+     * @param side  the side of the face
+     * @return the face, or null if it is not stored
+     */
+    Pixmap load(String name, String map, int level, Cubemap.CubemapSide side);
+
+    /**
+     * Stores all faces of a map. The store takes ownership of the faces and disposes them once they are written.
+     *
+     * @param name  the name of the light the maps were built for
+     * @param map   {@link IBLFiles#IRRADIANCE} or {@link IBLFiles#RADIANCE}
+     * @param faces the faces of all mip levels, in the order of {@link com.mbrlabs.mundus.commons.utils.PixmapCubemapData}
+     */
+    void save(String name, String map, Pixmap[] faces);
+}
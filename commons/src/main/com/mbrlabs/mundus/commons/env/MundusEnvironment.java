@@ -34,6 +34,8 @@ public class MundusEnvironment extends Environment {
 
     private float clippingHeight = 0;
     private Vector3 clippingPlane = new Vector3();
+    // Whether the depth of the current pass was already rendered by a depth pre-pass
+    private boolean depthPrePass = false;
 
     public MundusEnvironment() {
         super();
@@ -108,4 +110,12 @@ public class MundusEnvironment extends Environment {
     public void setClippingPlane(Vector3 clippingPlane) {
         this.clippingPlane = clippingPlane;
     }
+
+    public boolean isDepthPrePass() {
+        return depthPrePass;
+    }
+
+    public void setDepthPrePass(boolean depthPrePass) {
+        this.depthPrePass = depthPrePass;
+    }
 }
@@ -0,0 +1,348 @@
+package com.mbrlabs.mundus.commons.env.lights;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.GL30;
+import com.badlogic.gdx.graphics.PerspectiveCamera;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g3d.Environment;
+import com.badlogic.gdx.graphics.g3d.environment.PointLight;
+import com.badlogic.gdx.graphics.g3d.environment.SpotLight;
+import com.badlogic.gdx.graphics.glutils.FloatTextureData;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.Disposable;
+import com.mbrlabs.mundus.commons.utils.LightUtils;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Clustered forward lighting for scenes with more point and spot lights than the PBR shaders have uniforms for.
+ * <p>
+ * Each frame the view frustum of the scene camera is split into {@link #TILES_X} x {@link #TILES_Y} screen tiles
+ * and {@link #DEPTH_SLICES} exponential depth slices. Every light is assigned on the CPU to the clusters its range
+ * overlaps, and the lights, the per cluster light lists and the cluster grid are uploaded to float textures. The
+ * PBR shader then only evaluates the lights of the cluster a fragment falls into. Passes rendered with another
+ * camera, like water reflections, need clusters built for that camera, fragments outside of the camera frustum use
+ * the nearest cluster.
+ * <p>
+ * Light contributions fade out smoothly at the light range, see {@link LightUtils#getLightRange(PointLight)}.
+ * Requires GL30, see {@link #isSupported()}.
+ */
+public class ClusteredLights implements Disposable {
+    /** Maximum number of point and spot lights together */
+    public static final int MAX_LIGHTS = 1024;
+
+    public static final int TILES_X = 16;
+    public static final int TILES_Y = 9;
+    public static final int DEPTH_SLICES = 24;
+    public static final int CLUSTER_COUNT = TILES_X * TILES_Y * DEPTH_SLICES;
+
+    /** Light indices are packed 4 per texel into rows of this many texels */
+    public static final int INDEX_TEXTURE_WIDTH = 1024;
+    private static final int INDEX_TEXTURE_HEIGHT = 64;
+    private static final int MAX_INDICES = INDEX_TEXTURE_WIDTH * INDEX_TEXTURE_HEIGHT * 4;
+
+    /** Texels per light in the light texture: position and range, color and spot scale, direction and spot offset */
+    private static final int LIGHT_TEXELS = 3;
+
+    private final Texture lightTexture;
+    private final Texture gridTexture;
+    private final Texture indexTexture;
+    private final FloatBuffer lightBuffer;
+    private final FloatBuffer gridBuffer;
+    private final FloatBuffer indexBuffer;
+
+    private final float[] lightData = new float[MAX_LIGHTS * LIGHT_TEXELS * 4];
+    private final float[] gridData = new float[CLUSTER_COUNT * 4];
+    private final float[] indexData = new float[MAX_INDICES];
+    private final int[] clusterCounts = new int[CLUSTER_COUNT];
+    private final int[] clusterOffsets = new int[CLUSTER_COUNT];
+    // Cluster range of each light: min x, max x, min y, max y, min slice, max slice. Min x is -1 if culled.
+    private final int[] lightClusters = new int[MAX_LIGHTS * 6];
+
+    private final Matrix4 projView = new Matrix4();
+    private final Vector3 viewPos = new Vector3();
+    private final Vector3 tmp = new Vector3();
+
+    private int lightCount;
+    private int indexCount;
+    private int depthSlices;
+    private float near;
+    private float depthScale;
+
+    public ClusteredLights() {
+        lightTexture = createTexture(LIGHT_TEXELS, MAX_LIGHTS);
+        gridTexture = createTexture(TILES_X * TILES_Y, DEPTH_SLICES);
+        indexTexture = createTexture(INDEX_TEXTURE_WIDTH, INDEX_TEXTURE_HEIGHT);
+        lightBuffer = BufferUtils.newFloatBuffer(lightData.length);
+        gridBuffer = BufferUtils.newFloatBuffer(gridData.length);
+        indexBuffer = BufferUtils.newFloatBuffer(indexData.length);
+    }
+
+    /**
+     * @return true if clustered lighting is supported on the current backend
+     */
+    public static boolean isSupported() {
+        return Gdx.gl30 != null;
+    }
+
+    private static Texture createTexture(int width, int height) {
+        FloatTextureData data = new FloatTextureData(width, height, GL30.GL_RGBA32F, GL20.GL_RGBA, GL20.GL_FLOAT, false);
+        Texture texture = new Texture(data);
+        texture.setFilter(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest);
+        return texture;
+    }
+
+    /**
+     * Bins the point and spot lights of the environment into the clusters of the camera and uploads the result.
+     * Must be called outside of a model batch, before the passes using the clusters are rendered.
+     */
+    public void update(Camera camera, Environment environment) {
+        projView.set(camera.combined);
+        near = camera.near;
+        if (camera instanceof PerspectiveCamera) {
+            depthSlices = DEPTH_SLICES;
+            depthScale = DEPTH_SLICES / (float) Math.log(camera.far / camera.near);
+        } else {
+            // Orthographic cameras use a single depth slice
+            depthSlices = 1;
+            depthScale = 0f;
+        }
+
+        lightCount = 0;
+        Array<PointLight> pointLights = LightUtils.getPointLights(environment);
+        for (int i = 0; i < pointLights.size && lightCount < MAX_LIGHTS; i++) {
+            addLight(camera, pointLights.get(i));
+        }
+        Array<SpotLight> spotLights = LightUtils.getSpotLights(environment);
+        for (int i = 0; i < spotLights.size && lightCount < MAX_LIGHTS; i++) {
+            addLight(camera, spotLights.get(i));
+        }
+
+        buildClusters();
+        upload();
+    }
+
+    private void addLight(Camera camera, PointLight light) {
+        float range = LightUtils.getLightRange(light);
+        // No direction and an angle offset of one leaves point lights without angular attenuation
+        putLight(light.position, range, light.color.r * light.intensity, light.color.g * light.intensity,
+                light.color.b * light.intensity, tmp.setZero(), 0f, 1f);
+        findClusters(camera, light.position, range);
+        lightCount++;
+    }
+
+    private void addLight(Camera camera, SpotLight light) {
+        float range = LightUtils.getLightRange(light);
+        // gdx-gltf stores the cone as angle scale in the exponent and angle offset in the cutoff angle
+        putLight(light.position, range, light.color.r * light.intensity, light.color.g * light.intensity,
+                light.color.b * light.intensity, tmp.set(light.direction).nor(), light.exponent, light.cutoffAngle);
+        findClusters(camera, light.position, range);
+        lightCount++;
+    }
+
+    private void putLight(Vector3 position, float range, float r, float g, float b, Vector3 direction,
+                          float spotScale, float spotOffset) {
+        int i = lightCount * LIGHT_TEXELS * 4;
+        lightData[i] = position.x;
+        lightData[i + 1] = position.y;
+        lightData[i + 2] = position.z;
+        lightData[i + 3] = range;
+        lightData[i + 4] = r;
+        lightData[i + 5] = g;
+        lightData[i + 6] = b;
+        lightData[i + 7] = spotScale;
+        lightData[i + 8] = direction.x;
+        lightData[i + 9] = direction.y;
+        lightData[i + 10] = direction.z;
+        lightData[i + 11] = spotOffset;
+    }
+
+    /**
+     * Computes the conservative cluster range of the lights bounding sphere.
+     */
+    private void findClusters(Camera camera, Vector3 position, float range) {
+        int c = lightCount * 6;
+        lightClusters[c] = -1;
+        if (range <= 0f) return;
+
+        viewPos.set(position).mul(camera.view);
+        float depth = -viewPos.z;
+        float minDepth = depth - range;
+        float maxDepth = depth + range;
+        if (maxDepth < camera.near || minDepth > camera.far) return;
+
+        int minX = 0, maxX = TILES_X - 1, minY = 0, maxY = TILES_Y - 1;
+        if (minDepth > camera.near) {
+            // Project the corners of the view space bounds of the sphere
+            float ndcMinX = Float.MAX_VALUE, ndcMinY = Float.MAX_VALUE;
+            float ndcMaxX = -Float.MAX_VALUE, ndcMaxY = -Float.MAX_VALUE;
+            for (int corner = 0; corner < 8; corner++) {
+                tmp.set(viewPos.x + ((corner & 1) == 0 ? -range : range),
+                        viewPos.y + ((corner & 2) == 0 ? -range : range),
+                        viewPos.z + ((corner & 4) == 0 ? -range : range)).prj(camera.projection);
+                ndcMinX = Math.min(ndcMinX, tmp.x);
+                ndcMaxX = Math.max(ndcMaxX, tmp.x);
+                ndcMinY = Math.min(ndcMinY, tmp.y);
+                ndcMaxY = Math.max(ndcMaxY, tmp.y);
+            }
+            if (ndcMaxX < -1f || ndcMinX > 1f || ndcMaxY < -1f || ndcMinY > 1f) return;
+
+            minX = MathUtils.clamp((int) ((ndcMinX * 0.5f + 0.5f) * TILES_X), 0, TILES_X - 1);
+            maxX = MathUtils.clamp((int) ((ndcMaxX * 0.5f + 0.5f) * TILES_X), 0, TILES_X - 1);
+            minY = MathUtils.clamp((int) ((ndcMinY * 0.5f + 0.5f) * TILES_Y), 0, TILES_Y - 1);
+            maxY = MathUtils.clamp((int) ((ndcMaxY * 0.5f + 0.5f) * TILES_Y), 0, TILES_Y - 1);
+        }
+
+        lightClusters[c] = minX;
+        lightClusters[c + 1] = maxX;
+        lightClusters[c + 2] = minY;
+        lightClusters[c + 3] = maxY;
+        lightClusters[c + 4] = getSlice(Math.max(minDepth, camera.near));
+        lightClusters[c + 5] = getSlice(Math.min(maxDepth, camera.far));
+    }
+
+    /**
+     * @return depth slice of a view depth, matching the lookup in the shader
+     */
+    private int getSlice(float depth) {
+        if (depthSlices == 1) return 0;
+        int slice = (int) ((float) Math.log(depth / near) * depthScale);
+        return MathUtils.clamp(slice, 0, depthSlices - 1);
+    }
+
+    /**
+     * Counts the lights per cluster, then writes the light lists in cluster order.
+     */
+    private void buildClusters() {
+        Arrays.fill(clusterCounts, 0);
+        for (int light = 0; light < lightCount; light++) {
+            int c = light * 6;
+            if (lightClusters[c] < 0) continue;
+            for (int z = lightClusters[c + 4]; z <= lightClusters[c + 5]; z++) {
+                for (int y = lightClusters[c + 2]; y <= lightClusters[c + 3]; y++) {
+                    for (int x = lightClusters[c]; x <= lightClusters[c + 1]; x++) {
+                        clusterCounts[getCluster(x, y, z)]++;
+                    }
+                }
+            }
+        }
+
+        int offset = 0;
+        for (int cluster = 0; cluster < CLUSTER_COUNT; cluster++) {
+            // Lights beyond the index capacity are dropped
+            int count = Math.min(clusterCounts[cluster], MAX_INDICES - offset);
+            clusterOffsets[cluster] = offset;
+            clusterCounts[cluster] = count;
+            gridData[cluster * 4] = offset;
+            gridData[cluster * 4 + 1] = count;
+            offset += count;
+        }
+        indexCount = offset;
+
+        // Reuse the counts as fill positions
+        Arrays.fill(clusterCounts, 0);
+        for (int light = 0; light < lightCount; light++) {
+            int c = light * 6;
+            if (lightClusters[c] < 0) continue;
+            for (int z = lightClusters[c + 4]; z <= lightClusters[c + 5]; z++) {
+                for (int y = lightClusters[c + 2]; y <= lightClusters[c + 3]; y++) {
+                    for (int x = lightClusters[c]; x <= lightClusters[c + 1]; x++) {
+                        int cluster = getCluster(x, y, z);
+                        int filled = clusterCounts[cluster];
+                        if (filled >= (int) gridData[cluster * 4 + 1]) continue;
+                        indexData[clusterOffsets[cluster] + filled] = light;
+                        clusterCounts[cluster] = filled + 1;
+                    }
+                }
+            }
+        }
+    }
+
+    private static int getCluster(int x, int y, int z) {
+        return (z * TILES_Y + y) * TILES_X + x;
+    }
+
+    private void upload() {
+        if (lightCount > 0) {
+            upload(lightTexture, lightBuffer, lightData, LIGHT_TEXELS, lightCount);
+        }
+        upload(gridTexture, gridBuffer, gridData, TILES_X * TILES_Y, DEPTH_SLICES);
+        if (indexCount > 0) {
+            int rows = (indexCount + INDEX_TEXTURE_WIDTH * 4 - 1) / (INDEX_TEXTURE_WIDTH * 4);
+            upload(indexTexture, indexBuffer, indexData, INDEX_TEXTURE_WIDTH, rows);
+        }
+    }
+
+    private void upload(Texture texture, FloatBuffer buffer, float[] data, int width, int rows) {
+        buffer.clear();
+        buffer.put(data, 0, width * rows * 4);
+        buffer.flip();
+        texture.bind();
+        Gdx.gl.glTexSubImage2D(GL20.GL_TEXTURE_2D, 0, 0, 0, width, rows, GL20.GL_RGBA, GL20.GL_FLOAT, buffer);
+    }
+
+    public Texture getLightTexture() {
+        return lightTexture;
+    }
+
+    public Texture getGridTexture() {
+        return gridTexture;
+    }
+
+    public Texture getIndexTexture() {
+        return indexTexture;
+    }
+
+    /**
+     * @return view projection of the camera the clusters were built for
+     */
+    public Matrix4 getProjView() {
+        return projView;
+    }
+
+    /**
+     * @return number of lights in the light texture
+     */
+    public int getLightCount() {
+        return lightCount;
+    }
+
+    public int getDepthSlices() {
+        return depthSlices;
+    }
+
+    /**
+     * @return near plane of the camera the clusters were built for
+     */
+    public float getNear() {
+        return near;
+    }
+
+    /**
+     * @return depth slices per unit of log(depth / near)
+     */
+    public float getDepthScale() {
+        return depthScale;
+    }
+
+    /**
+     * @return total number of light indices over all clusters
+     */
+    public int getIndexCount() {
+        return indexCount;
+    }
+
+    @Override
+    public void dispose() {
+        lightTexture.dispose();
+        gridTexture.dispose();
+        indexTexture.dispose();
+    }
+}
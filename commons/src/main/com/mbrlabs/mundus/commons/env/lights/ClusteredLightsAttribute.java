@@ -0,0 +1,30 @@
+package com.mbrlabs.mundus.commons.env.lights;
+
+import com.badlogic.gdx.graphics.g3d.Attribute;
+
+/**
+ * Environment attribute holding the {@link ClusteredLights} of a scene. When present, the PBR shaders read point
+ * and spot lights from the cluster textures instead of the fixed size uniform arrays.
+ */
+public class ClusteredLightsAttribute extends Attribute {
+    public final static String ClusteredLightsAlias = "clusteredLights";
+    public final static long ClusteredLights = register(ClusteredLightsAlias);
+
+    public final ClusteredLights clusteredLights;
+
+    public ClusteredLightsAttribute(ClusteredLights clusteredLights) {
+        super(ClusteredLights);
+        this.clusteredLights = clusteredLights;
+    }
+
+    @Override
+    public Attribute copy() {
+        return new ClusteredLightsAttribute(clusteredLights);
+    }
+
+    @Override
+    public int compareTo(Attribute o) {
+        if (type != o.type) return type < o.type ? -1 : 1;
+        return 0;
+    }
+}
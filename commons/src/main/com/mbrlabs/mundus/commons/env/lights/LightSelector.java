@@ -0,0 +1,308 @@
+package com.mbrlabs.mundus.commons.env.lights;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g3d.Environment;
+import com.badlogic.gdx.graphics.g3d.attributes.PointLightsAttribute;
+import com.badlogic.gdx.graphics.g3d.attributes.SpotLightsAttribute;
+import com.badlogic.gdx.graphics.g3d.environment.BaseLight;
+import com.badlogic.gdx.graphics.g3d.environment.PointLight;
+import com.badlogic.gdx.graphics.g3d.environment.SpotLight;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongMap;
+import com.mbrlabs.mundus.commons.env.MundusEnvironment;
+import com.mbrlabs.mundus.commons.scene3d.components.CullableComponent;
+import com.mbrlabs.mundus.commons.utils.LightUtils;
+
+import java.util.Arrays;
+
+/**
+ * Picks the most influential point and spot lights for single objects, so each object is shaded with a few nearby
+ * lights instead of every light of the scene.
+ * <p>
+ * Once per frame {@link #update(Environment, int)} buckets the lights into a grid on the XZ plane by the area their
+ * range covers. {@link #getEnvironment(MundusEnvironment, Vector3, float)} then looks up the lights in range of an
+ * objects bounding sphere, keeps the strongest by their attenuation at the sphere and returns a copy of the scene
+ * environment with only those lights. The environments are pooled and stay valid until the next update, as model
+ * batches only render once the whole pass was queued.
+ */
+public class LightSelector {
+    public static final float DEFAULT_CELL_SIZE = 32f;
+    /**
+     * Highest supported number of lights per object. Selected lights are compiled into the shader as light arrays,
+     * more than the default shader lights would exceed the uniform limits of GLES2 and WebGL.
+     */
+    public static final int MAX_LIGHTS_PER_OBJECT = Math.min(LightUtils.MAX_POINT_LIGHTS, LightUtils.MAX_SPOT_LIGHTS);
+
+    // Lights and objects spanning more cells than this per axis bypass the grid
+    private static final int MAX_CELL_SPAN = 8;
+
+    private final float cellSize;
+    private int lightsPerObject;
+
+    private final Array<BaseLight> lights = new Array<>();
+    private final FloatArray positions = new FloatArray();
+    private final FloatArray ranges = new FloatArray();
+    private final FloatArray brightness = new FloatArray();
+    private final LongMap<IntArray> cells = new LongMap<>();
+    private final Array<IntArray> freeCells = new Array<>();
+    private final IntArray largeLights = new IntArray();
+    private int[] queryStamps = new int[0];
+    private int queryStamp;
+
+    private int[] selected = new int[0];
+    private float[] selectedScores = new float[0];
+
+    private final Array<MundusEnvironment> environments = new Array<>();
+    private final Array<PointLightsAttribute> pointLightAttributes = new Array<>();
+    private final Array<SpotLightsAttribute> spotLightAttributes = new Array<>();
+    private int usedEnvironments;
+    private SelectedLightsAttribute selectedLightsAttribute;
+
+    private final BoundingBox tmpBounds = new BoundingBox();
+    private final Vector3 tmpCenter = new Vector3();
+
+    public LightSelector() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    public LightSelector(float cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Rebuilds the light grid from the point and spot lights of the environment and releases all environments
+     * returned since the last update. Call once per frame before rendering.
+     *
+     * @param lightsPerObject maximum number of lights per object, 0 disables the selection, clamped to
+     *                        {@link #MAX_LIGHTS_PER_OBJECT}
+     */
+    public void update(Environment environment, int lightsPerObject) {
+        this.lightsPerObject = MathUtils.clamp(lightsPerObject, 0, MAX_LIGHTS_PER_OBJECT);
+        usedEnvironments = 0;
+        clear();
+        if (this.lightsPerObject == 0) return;
+
+        Array<PointLight> pointLights = LightUtils.getPointLights(environment);
+        for (int i = 0; i < pointLights.size; i++) {
+            PointLight light = pointLights.get(i);
+            addLight(light, light.position, LightUtils.getLightRange(light), light.color, light.intensity);
+        }
+        Array<SpotLight> spotLights = LightUtils.getSpotLights(environment);
+        for (int i = 0; i < spotLights.size; i++) {
+            SpotLight light = spotLights.get(i);
+            addLight(light, light.position, LightUtils.getLightRange(light), light.color, light.intensity);
+        }
+
+        if (queryStamps.length < lights.size) {
+            queryStamps = new int[lights.size];
+        } else {
+            Arrays.fill(queryStamps, 0);
+        }
+        queryStamp = 0;
+
+        if (selected.length != this.lightsPerObject) {
+            selected = new int[this.lightsPerObject];
+            selectedScores = new float[this.lightsPerObject];
+            selectedLightsAttribute = new SelectedLightsAttribute(this.lightsPerObject);
+        }
+    }
+
+    private void clear() {
+        for (IntArray cell : cells.values()) {
+            cell.clear();
+            freeCells.add(cell);
+        }
+        cells.clear();
+        largeLights.clear();
+        lights.clear();
+        positions.clear();
+        ranges.clear();
+        brightness.clear();
+    }
+
+    private void addLight(BaseLight light, Vector3 position, float range, Color color, float intensity) {
+        if (range <= 0f) return;
+
+        int index = lights.size;
+        lights.add(light);
+        positions.add(position.x);
+        positions.add(position.y);
+        positions.add(position.z);
+        ranges.add(range);
+        brightness.add(Math.max(color.r, Math.max(color.g, color.b)) * intensity);
+
+        int minX = getCell(position.x - range);
+        int maxX = getCell(position.x + range);
+        int minZ = getCell(position.z - range);
+        int maxZ = getCell(position.z + range);
+        if (maxX - minX >= MAX_CELL_SPAN || maxZ - minZ >= MAX_CELL_SPAN) {
+            largeLights.add(index);
+            return;
+        }
+
+        for (int z = minZ; z <= maxZ; z++) {
+            for (int x = minX; x <= maxX; x++) {
+                long key = getKey(x, z);
+                IntArray cell = cells.get(key);
+                if (cell == null) {
+                    cell = freeCells.size > 0 ? freeCells.pop() : new IntArray();
+                    cells.put(key, cell);
+                }
+                cell.add(index);
+            }
+        }
+    }
+
+    /**
+     * @return true if objects should be rendered with the environments of this selector
+     */
+    public boolean isEnabled() {
+        return lightsPerObject > 0 && lights.size > 0;
+    }
+
+    public int getLightsPerObject() {
+        return lightsPerObject;
+    }
+
+    /**
+     * Returns a copy of the scene environment with only the strongest lights at the bounding sphere of the
+     * component. The environment is valid until the next {@link #update(Environment, int)}.
+     */
+    public MundusEnvironment getEnvironment(MundusEnvironment sceneEnvironment, CullableComponent component) {
+        tmpBounds.set(component.getOrientedBoundingBox().getVertices());
+        tmpBounds.getCenter(tmpCenter);
+        return getEnvironment(sceneEnvironment, tmpCenter, component.getRadius());
+    }
+
+    /**
+     * Returns a copy of the scene environment with only the strongest lights at the given bounding sphere. The
+     * environment is valid until the next {@link #update(Environment, int)}.
+     *
+     * @param sceneEnvironment the environment to copy everything but the point and spot lights from
+     * @param center           world space center of the objects bounding sphere
+     * @param radius           radius of the objects bounding sphere
+     */
+    public MundusEnvironment getEnvironment(MundusEnvironment sceneEnvironment, Vector3 center, float radius) {
+        int count = select(center, radius);
+
+        if (usedEnvironments == environments.size) {
+            environments.add(new MundusEnvironment());
+            pointLightAttributes.add(new PointLightsAttribute());
+            spotLightAttributes.add(new SpotLightsAttribute());
+        }
+        MundusEnvironment environment = environments.get(usedEnvironments);
+        PointLightsAttribute pointLights = pointLightAttributes.get(usedEnvironments);
+        SpotLightsAttribute spotLights = spotLightAttributes.get(usedEnvironments);
+        usedEnvironments++;
+
+        pointLights.lights.clear();
+        spotLights.lights.clear();
+        for (int i = 0; i < count; i++) {
+            BaseLight light = lights.get(selected[i]);
+            if (light instanceof SpotLight) {
+                spotLights.lights.add((SpotLight) light);
+            } else {
+                pointLights.lights.add((PointLight) light);
+            }
+        }
+
+        environment.clear();
+        environment.set(sceneEnvironment);
+        environment.set(pointLights);
+        environment.set(spotLights);
+        environment.set(selectedLightsAttribute);
+        environment.shadowMap = sceneEnvironment.shadowMap;
+        environment.setClippingHeight(sceneEnvironment.getClippingHeight());
+        environment.getClippingPlane().set(sceneEnvironment.getClippingPlane());
+        environment.setDepthPrePass(sceneEnvironment.isDepthPrePass());
+        return environment;
+    }
+
+    /**
+     * Collects the strongest lights in range of the sphere into the selected arrays.
+     *
+     * @return number of selected lights
+     */
+    private int select(Vector3 center, float radius) {
+        int count = 0;
+        int minX = getCell(center.x - radius);
+        int maxX = getCell(center.x + radius);
+        int minZ = getCell(center.z - radius);
+        int maxZ = getCell(center.z + radius);
+
+        if (maxX - minX >= MAX_CELL_SPAN || maxZ - minZ >= MAX_CELL_SPAN) {
+            for (int i = 0; i < lights.size; i++) {
+                count = consider(i, center, radius, count);
+            }
+            return count;
+        }
+
+        for (int i = 0; i < largeLights.size; i++) {
+            count = consider(largeLights.get(i), center, radius, count);
+        }
+
+        // Lights span multiple cells, only consider them once per query
+        queryStamp++;
+        for (int z = minZ; z <= maxZ; z++) {
+            for (int x = minX; x <= maxX; x++) {
+                IntArray cell = cells.get(getKey(x, z));
+                if (cell == null) continue;
+
+                for (int i = 0; i < cell.size; i++) {
+                    int light = cell.get(i);
+                    if (queryStamps[light] == queryStamp) continue;
+                    queryStamps[light] = queryStamp;
+                    count = consider(light, center, radius, count);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Inserts the light into the selection sorted by descending influence, if it is in range and among the
+     * strongest.
+     *
+     * @return the new number of selected lights
+     */
+    private int consider(int light, Vector3 center, float radius, int count) {
+        int p = light * 3;
+        float distance = center.dst(positions.get(p), positions.get(p + 1), positions.get(p + 2)) - radius;
+        distance = Math.max(0f, distance);
+        if (distance > ranges.get(light)) return count;
+
+        float score = brightness.get(light) / (1f + distance * distance);
+        int max = selected.length;
+        if (count == max && score <= selectedScores[max - 1]) return count;
+
+        int i;
+        if (count < max) {
+            i = count;
+            count++;
+        } else {
+            // Replace the weakest
+            i = max - 1;
+        }
+        while (i > 0 && selectedScores[i - 1] < score) {
+            selected[i] = selected[i - 1];
+            selectedScores[i] = selectedScores[i - 1];
+            i--;
+        }
+        selected[i] = light;
+        selectedScores[i] = score;
+        return count;
+    }
+
+    private int getCell(float coordinate) {
+        return MathUtils.floor(coordinate / cellSize);
+    }
+
+    private static long getKey(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+}
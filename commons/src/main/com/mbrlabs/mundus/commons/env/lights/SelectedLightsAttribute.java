@@ -0,0 +1,31 @@
+package com.mbrlabs.mundus.commons.env.lights;
+
+import com.badlogic.gdx.graphics.g3d.Attribute;
+
+/**
+ * Environment attribute marking an environment whose point and spot lights were selected for a single object by
+ * the {@link LightSelector}. Shaders for it are compiled with room for {@link #lightCount} lights of each type
+ * instead of the scene wide maximum.
+ */
+public class SelectedLightsAttribute extends Attribute {
+    public final static String SelectedLightsAlias = "selectedLights";
+    public final static long SelectedLights = register(SelectedLightsAlias);
+
+    public final int lightCount;
+
+    public SelectedLightsAttribute(int lightCount) {
+        super(SelectedLights);
+        this.lightCount = lightCount;
+    }
+
+    @Override
+    public Attribute copy() {
+        return new SelectedLightsAttribute(lightCount);
+    }
+
+    @Override
+    public int compareTo(Attribute o) {
+        if (type != o.type) return type < o.type ? -1 : 1;
+        return lightCount - ((SelectedLightsAttribute) o).lightCount;
+    }
+}
@@ -0,0 +1,149 @@
+package com.mbrlabs.mundus.commons.impostor;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g3d.Model;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Pre-rendered views of a model, used to draw it as a camera facing quad at large distances.
+ * <p>
+ * The atlas is a grid of frames x frames views. Frame (x, y) shows the model from the direction given by
+ * {@link #getFrameDirection(int, int, int, Vector3)}, a hemi-octahedral mapping of the upper hemisphere in model
+ * space, looking at the center of the models bounds with an orthographic camera fitting its bounding sphere.
+ * The albedo texture holds the unlit base color with alpha coverage, the normal texture the model space normals
+ * encoded as n * 0.5 + 0.5.
+ * <p>
+ * Frame rows are stored bottom up, as read back from the frame buffer, so texture coordinates of a frame grow
+ * towards the top of the view.
+ */
+public class ImpostorAtlas implements Disposable {
+    public static final String ALBEDO_SUFFIX = ".impostor.png";
+    public static final String NORMAL_SUFFIX = ".impostor_normal.png";
+
+    private static final BoundingBox tmpBounds = new BoundingBox();
+    private static final Vector3 tmpVec = new Vector3();
+
+    private final Texture albedo;
+    private final Texture normal;
+    private final int frames;
+    private final Vector3 center = new Vector3();
+    private final float radius;
+
+    /**
+     * @param albedo albedo atlas
+     * @param normal normal atlas
+     * @param frames number of frames per side
+     * @param model  the model the atlas was baked from
+     */
+    public ImpostorAtlas(Texture albedo, Texture normal, int frames, Model model) {
+        this.albedo = albedo;
+        this.normal = normal;
+        this.frames = frames;
+        this.radius = computeBounds(model, center);
+    }
+
+    /**
+     * Loads the atlas textures, with mip maps to avoid shimmering at distance.
+     */
+    public static ImpostorAtlas load(FileHandle albedoFile, FileHandle normalFile, int frames, Model model) {
+        Texture albedo = new Texture(albedoFile, true);
+        albedo.setFilter(Texture.TextureFilter.MipMapLinearLinear, Texture.TextureFilter.Linear);
+        Texture normal = new Texture(normalFile, true);
+        normal.setFilter(Texture.TextureFilter.MipMapLinearLinear, Texture.TextureFilter.Linear);
+        return new ImpostorAtlas(albedo, normal, frames, model);
+    }
+
+    /**
+     * Computes the bounding sphere impostors of the model are baked and drawn with.
+     *
+     * @param center receives the center of the models bounds
+     * @return radius of the bounding sphere
+     */
+    public static float computeBounds(Model model, Vector3 center) {
+        model.calculateBoundingBox(tmpBounds);
+        tmpBounds.getCenter(center);
+        return tmpBounds.getDimensions(tmpVec).len() / 2f;
+    }
+
+    /**
+     * Direction from the model towards the viewer of a frame, in model space.
+     *
+     * @param frames number of frames per side
+     * @param x      frame column
+     * @param y      frame row
+     * @param out    receives the normalized direction
+     */
+    public static Vector3 getFrameDirection(int frames, int x, int y, Vector3 out) {
+        float u = frames > 1 ? x / (frames - 1f) * 2f - 1f : 0f;
+        float v = frames > 1 ? y / (frames - 1f) * 2f - 1f : 0f;
+
+        // Hemi-octahedral decode, the center of the grid looks straight down
+        float dx = (u + v) * 0.5f;
+        float dz = (u - v) * 0.5f;
+        float dy = 1f - Math.abs(dx) - Math.abs(dz);
+        return out.set(dx, dy, dz).nor();
+    }
+
+    /**
+     * @param direction direction from the model towards the viewer in model space, need not be normalized.
+     *                  Views from below use the frames at the horizon.
+     * @return index of the frame closest to the direction, y * frames + x
+     */
+    public int getFrameIndex(Vector3 direction) {
+        float dy = Math.max(0f, direction.y);
+        float sum = Math.abs(direction.x) + dy + Math.abs(direction.z);
+        if (sum == 0) return getFrameIndex(frames / 2, frames / 2);
+
+        // Hemi-octahedral encode
+        float dx = direction.x / sum;
+        float dz = direction.z / sum;
+        float u = dx + dz;
+        float v = dx - dz;
+        int x = MathUtils.clamp(MathUtils.round((u + 1f) * 0.5f * (frames - 1)), 0, frames - 1);
+        int y = MathUtils.clamp(MathUtils.round((v + 1f) * 0.5f * (frames - 1)), 0, frames - 1);
+        return getFrameIndex(x, y);
+    }
+
+    private int getFrameIndex(int x, int y) {
+        return y * frames + x;
+    }
+
+    public Texture getAlbedo() {
+        return albedo;
+    }
+
+    public Texture getNormal() {
+        return normal;
+    }
+
+    /**
+     * @return number of frames per side
+     */
+    public int getFrames() {
+        return frames;
+    }
+
+    /**
+     * @return center of the models bounds in model space
+     */
+    public Vector3 getCenter() {
+        return center;
+    }
+
+    /**
+     * @return radius of the models bounding sphere, half the size of a frame in model units
+     */
+    public float getRadius() {
+        return radius;
+    }
+
+    @Override
+    public void dispose() {
+        albedo.dispose();
+        normal.dispose();
+    }
+}
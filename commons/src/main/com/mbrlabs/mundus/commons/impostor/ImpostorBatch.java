@@ -0,0 +1,152 @@
+package com.mbrlabs.mundus.commons.impostor;
+
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.g3d.Material;
+import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.badlogic.gdx.graphics.g3d.attributes.TextureAttribute;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Collects the impostor quads of one {@link ImpostorAtlas} for a render pass, so all of them are drawn with a
+ * single draw call. Quads are built on the CPU in world space, each vertex also carries the light direction in
+ * the model space of its object for shading with the model space normal atlas.
+ */
+public class ImpostorBatch implements Disposable {
+    /** Maximum impostors per atlas and pass, limited by short indices. Further impostors are dropped. */
+    public static final int MAX_IMPOSTORS = 16383;
+    public static final String LIGHT_DIRECTION_ATTRIBUTE = "a_lightDir";
+
+    private static final int VERTEX_SIZE = 8;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final ImpostorAtlas atlas;
+    private final Renderable renderable = new Renderable();
+
+    private Mesh mesh;
+    private int capacity;
+    private float[] vertices;
+    private int queuedCount;
+    private long lastQueuedFrame = -1;
+
+    public ImpostorBatch(ImpostorAtlas atlas) {
+        this.atlas = atlas;
+        renderable.material = new Material(TextureAttribute.createDiffuse(atlas.getAlbedo()),
+                TextureAttribute.createNormal(atlas.getNormal()));
+        renderable.worldTransform.idt();
+        vertices = new float[INITIAL_CAPACITY * 4 * VERTEX_SIZE];
+    }
+
+    /**
+     * Queues an impostor quad.
+     *
+     * @param center         world space center
+     * @param halfSize       half the quad size in world units
+     * @param right          world space right axis of the quad, normalized
+     * @param up             world space up axis of the quad, normalized
+     * @param frame          atlas frame to show, see {@link ImpostorAtlas#getFrameIndex(Vector3)}
+     * @param lightDirection light direction in the model space of the object
+     * @param frameId        id of the current frame
+     */
+    public void queue(Vector3 center, float halfSize, Vector3 right, Vector3 up, int frame, Vector3 lightDirection, long frameId) {
+        lastQueuedFrame = frameId;
+        if (queuedCount >= MAX_IMPOSTORS) return;
+
+        int required = (queuedCount + 1) * 4 * VERTEX_SIZE;
+        if (required > vertices.length) {
+            float[] grown = new float[Math.min(MAX_IMPOSTORS * 4 * VERTEX_SIZE, vertices.length * 2)];
+            System.arraycopy(vertices, 0, grown, 0, queuedCount * 4 * VERTEX_SIZE);
+            vertices = grown;
+        }
+
+        int frames = atlas.getFrames();
+        float frameSize = 1f / frames;
+        float u0 = (frame % frames) * frameSize;
+        float v0 = (frame / frames) * frameSize;
+
+        int offset = queuedCount * 4 * VERTEX_SIZE;
+        offset = putVertex(offset, center, halfSize, right, up, -1, -1, u0, v0, lightDirection);
+        offset = putVertex(offset, center, halfSize, right, up, 1, -1, u0 + frameSize, v0, lightDirection);
+        offset = putVertex(offset, center, halfSize, right, up, 1, 1, u0 + frameSize, v0 + frameSize, lightDirection);
+        putVertex(offset, center, halfSize, right, up, -1, 1, u0, v0 + frameSize, lightDirection);
+        queuedCount++;
+    }
+
+    private int putVertex(int offset, Vector3 center, float halfSize, Vector3 right, Vector3 up, float x, float y,
+                          float u, float v, Vector3 lightDirection) {
+        vertices[offset++] = center.x + (right.x * x + up.x * y) * halfSize;
+        vertices[offset++] = center.y + (right.y * x + up.y * y) * halfSize;
+        vertices[offset++] = center.z + (right.z * x + up.z * y) * halfSize;
+        vertices[offset++] = u;
+        vertices[offset++] = v;
+        vertices[offset++] = lightDirection.x;
+        vertices[offset++] = lightDirection.y;
+        vertices[offset++] = lightDirection.z;
+        return offset;
+    }
+
+    /**
+     * Uploads the queued quads and resets the queue. The returned renderable stays valid until the next call.
+     */
+    public Renderable prepare() {
+        ensureCapacity(queuedCount);
+        mesh.setVertices(vertices, 0, queuedCount * 4 * VERTEX_SIZE);
+        renderable.meshPart.set("impostors", mesh, 0, queuedCount * 6, GL20.GL_TRIANGLES);
+        queuedCount = 0;
+        return renderable;
+    }
+
+    private void ensureCapacity(int count) {
+        if (mesh != null && count <= capacity) return;
+
+        int newCapacity = Math.max(INITIAL_CAPACITY, capacity);
+        while (newCapacity < count) {
+            newCapacity *= 2;
+        }
+        newCapacity = Math.min(MAX_IMPOSTORS, newCapacity);
+
+        if (mesh != null) {
+            mesh.dispose();
+        }
+        mesh = new Mesh(false, newCapacity * 4, newCapacity * 6,
+                new VertexAttribute(VertexAttributes.Usage.Position, 3, ShaderProgram.POSITION_ATTRIBUTE),
+                new VertexAttribute(VertexAttributes.Usage.TextureCoordinates, 2, ShaderProgram.TEXCOORD_ATTRIBUTE + "0"),
+                new VertexAttribute(VertexAttributes.Usage.Generic, 3, LIGHT_DIRECTION_ATTRIBUTE));
+
+        short[] indices = new short[newCapacity * 6];
+        for (int i = 0, v = 0; i < indices.length; i += 6, v += 4) {
+            indices[i] = (short) v;
+            indices[i + 1] = (short) (v + 1);
+            indices[i + 2] = (short) (v + 2);
+            indices[i + 3] = (short) (v + 2);
+            indices[i + 4] = (short) (v + 3);
+            indices[i + 5] = (short) v;
+        }
+        mesh.setIndices(indices);
+        capacity = newCapacity;
+    }
+
+    public boolean hasQueued() {
+        return queuedCount > 0;
+    }
+
+    public long getLastQueuedFrame() {
+        return lastQueuedFrame;
+    }
+
+    public ImpostorAtlas getAtlas() {
+        return atlas;
+    }
+
+    @Override
+    public void dispose() {
+        if (mesh != null) {
+            mesh.dispose();
+            mesh = null;
+        }
+    }
+}
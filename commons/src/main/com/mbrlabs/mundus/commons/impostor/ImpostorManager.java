@@ -0,0 +1,168 @@
+package com.mbrlabs.mundus.commons.impostor;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.g3d.Environment;
+import com.badlogic.gdx.graphics.g3d.ModelBatch;
+import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Quaternion;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.mbrlabs.mundus.commons.Scene;
+import com.mbrlabs.mundus.commons.assets.ModelAsset;
+import com.mbrlabs.mundus.commons.scene3d.components.ModelComponent;
+import com.mbrlabs.mundus.commons.shaders.ImpostorShader;
+import com.mbrlabs.mundus.commons.shadows.MundusDirectionalShadowLight;
+import com.mbrlabs.mundus.commons.utils.LightUtils;
+
+/**
+ * Replaces model components further away from the scene camera than {@link com.mbrlabs.mundus.commons.SceneSettings#impostorDistance}
+ * with camera facing quads showing a frame of their models {@link ImpostorAtlas}. All impostors sharing an atlas
+ * are drawn with one draw call per pass.
+ * <p>
+ * Like the {@link com.mbrlabs.mundus.commons.scene3d.InstancedModelManager}, the scene renderer queues visible
+ * components while walking the scene graph and calls {@link #render} at the end of the pass.
+ */
+public class ImpostorManager implements Disposable {
+    /** Batches not used for this many frames are disposed */
+    private static final int UNUSED_FRAMES = 600;
+
+    private final ObjectMap<ImpostorAtlas, ImpostorBatch> batches = new ObjectMap<>();
+    private final Array<ImpostorBatch> queuedBatches = new Array<>();
+    private ImpostorShader shader;
+    private long lastPruneFrame = -1;
+
+    private final Vector3 center = new Vector3();
+    private final Vector3 view = new Vector3();
+    private final Vector3 right = new Vector3();
+    private final Vector3 up = new Vector3();
+    private final Vector3 localView = new Vector3();
+    private final Vector3 lightDirection = new Vector3();
+    private final Vector3 scale = new Vector3();
+    private final Quaternion inverseRotation = new Quaternion();
+
+    /**
+     * Queues the component as impostor, if its model has an impostor atlas and it is beyond the impostor
+     * distance of the scene camera.
+     *
+     * @param camera      camera of the pass, impostors face it
+     * @param isDepthPass whether this is a depth pass, impostors are not drawn into depth passes
+     * @return true if the component is handled as impostor and must not be rendered as model
+     */
+    public boolean queue(Scene scene, ModelComponent component, Camera camera, boolean isDepthPass) {
+        float distance = scene.settings.impostorDistance;
+        if (distance <= 0 || component.getModelInstance() == null) return false;
+
+        ModelAsset modelAsset = component.getModelAsset();
+        ImpostorAtlas atlas = modelAsset != null ? modelAsset.getImpostor() : null;
+        if (atlas == null) return false;
+
+        // Distance to the scene camera, so all passes agree on which objects are impostors
+        Matrix4 transform = component.getModelInstance().transform;
+        center.set(atlas.getCenter()).mul(transform);
+        if (center.dst2(scene.cam.position) < distance * distance) return false;
+
+        if (isDepthPass) return true;
+
+        view.set(camera.position).sub(center).nor();
+        right.set(Vector3.Y).crs(view);
+        if (right.isZero(0.0001f)) {
+            right.set(Vector3.X);
+        }
+        right.nor();
+        up.set(view).crs(right).nor();
+
+        transform.getRotation(inverseRotation, true).conjugate();
+        inverseRotation.transform(localView.set(view));
+        int frame = atlas.getFrameIndex(localView);
+
+        MundusDirectionalShadowLight light = LightUtils.getDirectionalLight(scene.environment);
+        if (light != null) {
+            inverseRotation.transform(lightDirection.set(light.direction)).nor();
+        } else {
+            lightDirection.setZero();
+        }
+
+        transform.getScale(scale);
+        float halfSize = atlas.getRadius() * Math.max(scale.x, Math.max(scale.y, scale.z));
+
+        ImpostorBatch batch = batches.get(atlas);
+        if (batch == null) {
+            batch = new ImpostorBatch(atlas);
+            batches.put(atlas, batch);
+        }
+        if (!batch.hasQueued()) {
+            queuedBatches.add(batch);
+        }
+        batch.queue(center, halfSize, right, up, frame, lightDirection, Gdx.graphics.getFrameId());
+        return true;
+    }
+
+    /**
+     * Renders the impostors queued since the last call into the batch, which must have begun.
+     */
+    public void render(ModelBatch batch, Environment environment) {
+        for (int i = 0; i < queuedBatches.size; i++) {
+            Renderable renderable = queuedBatches.get(i).prepare();
+            renderable.environment = environment;
+            renderable.shader = getShader();
+            batch.render(renderable);
+        }
+        queuedBatches.clear();
+
+        pruneUnusedBatches();
+    }
+
+    private void pruneUnusedBatches() {
+        long frameId = Gdx.graphics.getFrameId();
+        if (frameId == lastPruneFrame) return;
+        lastPruneFrame = frameId;
+
+        ObjectMap.Entries<ImpostorAtlas, ImpostorBatch> entries = batches.entries();
+        while (entries.hasNext()) {
+            ImpostorBatch batch = entries.next().value;
+            if (frameId - batch.getLastQueuedFrame() > UNUSED_FRAMES) {
+                batch.dispose();
+                entries.remove();
+            }
+        }
+    }
+
+    private ImpostorShader getShader() {
+        if (shader == null) {
+            shader = new ImpostorShader();
+            shader.init();
+        }
+        return shader;
+    }
+
+    /**
+     * @return number of impostor batches currently allocated
+     */
+    public int getBatchCount() {
+        return batches.size;
+    }
+
+    /**
+     * Disposes all batches, they are recreated on demand. Call when an impostor atlas was replaced.
+     */
+    public void invalidate() {
+        for (ImpostorBatch batch : batches.values()) {
+            batch.dispose();
+        }
+        batches.clear();
+        queuedBatches.clear();
+    }
+
+    @Override
+    public void dispose() {
+        invalidate();
+        if (shader != null) {
+            shader.dispose();
+            shader = null;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.mbrlabs.mundus.commons.lod;
+
+import java.util.Arrays;
+
+/**
+ * Simplifies indexed triangle lists using quadric error metrics (Garland and Heckbert). Vertices are collapsed
+ * onto one of their neighbours (half edge collapse), so the simplified mesh only references original vertices
+ * and all vertex attributes stay valid without interpolation.
+ * <p>
+ * Vertices on open edges are locked. Since vertices are split along UV and normal seams, seams show up as open
+ * edges in the index buffer, so neither the mesh outline nor its seams open up. Collapses that would flip a
+ * triangle are rejected.
+ * <p>
+ * Works on plain arrays without touching GL, so it can run on a background thread.
+ */
+public final class MeshSimplifier {
+    private static final int QUADRIC_SIZE = 10;
+    // Collapses turning a triangle by more than ~85 degrees are rejected
+    private static final float MIN_NORMAL_DOT = 0.1f;
+
+    private MeshSimplifier() {
+    }
+
+    /**
+     * Simplifies the triangle list until it has at most targetIndexCount indices, or no further collapse is
+     * possible.
+     *
+     * @param vertices         interleaved vertex data
+     * @param stride           number of floats per vertex
+     * @param positionOffset   offset of the position attribute within a vertex, in floats
+     * @param vertexCount      number of vertices
+     * @param indices          triangle list, not modified
+     * @param targetIndexCount index count to reduce to
+     * @return the simplified triangle list
+     */
+    public static int[] simplify(float[] vertices, int stride, int positionOffset, int vertexCount, int[] indices,
+                                 int targetIndexCount) {
+        int indexCount = indices.length - indices.length % 3;
+        int[] result = Arrays.copyOf(indices, indexCount);
+
+        int[] triOffsets = new int[vertexCount + 1];
+        int[] triList = new int[indexCount];
+        int[] cursor = new int[vertexCount];
+
+        double[] quadrics = new double[vertexCount * QUADRIC_SIZE];
+        computeQuadrics(vertices, stride, positionOffset, result, indexCount, quadrics);
+
+        buildAdjacency(result, indexCount, vertexCount, triOffsets, triList, cursor);
+        boolean[] locked = findOpenEdgeVertices(result, indexCount, vertexCount, triOffsets, triList);
+
+        int[] bestTarget = new int[vertexCount];
+        float[] bestCost = new float[vertexCount];
+        long[] candidates = new long[vertexCount];
+        boolean[] touched = new boolean[vertexCount];
+        int[] remap = new int[vertexCount];
+
+        while (indexCount > targetIndexCount) {
+            // Cheapest collapse for each vertex
+            Arrays.fill(bestTarget, -1);
+            for (int t = 0; t < indexCount; t += 3) {
+                for (int e = 0; e < 3; e++) {
+                    int a = result[t + e];
+                    int b = result[t + (e + 1) % 3];
+                    evaluate(a, b, vertices, stride, positionOffset, quadrics, locked, bestTarget, bestCost);
+                    evaluate(b, a, vertices, stride, positionOffset, quadrics, locked, bestTarget, bestCost);
+                }
+            }
+
+            // Sort candidates by cost, the cost is non negative so its float bits sort like the float
+            int candidateCount = 0;
+            for (int v = 0; v < vertexCount; v++) {
+                if (bestTarget[v] == -1) continue;
+                candidates[candidateCount++] = ((long) Float.floatToIntBits(bestCost[v]) << 32) | v;
+            }
+            if (candidateCount == 0) break;
+            Arrays.sort(candidates, 0, candidateCount);
+
+            // Each collapse removes about two triangles, don't overshoot the target by much in one pass
+            int maxCollapses = Math.max(1, (indexCount - targetIndexCount) / 6);
+            int collapses = 0;
+
+            Arrays.fill(touched, false);
+            for (int v = 0; v < vertexCount; v++) {
+                remap[v] = v;
+            }
+
+            for (int i = 0; i < candidateCount && collapses < maxCollapses; i++) {
+                int a = (int) (candidates[i] & 0xFFFFFFFFL);
+                int b = bestTarget[a];
+                if (touched[a] || touched[b]) continue;
+                if (flipsTriangle(a, b, vertices, stride, positionOffset, result, triOffsets, triList)) continue;
+
+                remap[a] = b;
+                for (int q = 0; q < QUADRIC_SIZE; q++) {
+                    quadrics[b * QUADRIC_SIZE + q] += quadrics[a * QUADRIC_SIZE + q];
+                }
+
+                // The one ring of a changes, no other collapse may touch it in this pass
+                for (int k = triOffsets[a]; k < triOffsets[a + 1]; k++) {
+                    int t = triList[k];
+                    touched[result[t]] = true;
+                    touched[result[t + 1]] = true;
+                    touched[result[t + 2]] = true;
+                }
+                collapses++;
+            }
+
+            if (collapses == 0) break;
+
+            // Apply the collapses and drop degenerate triangles
+            int written = 0;
+            for (int t = 0; t < indexCount; t += 3) {
+                int i0 = remap[result[t]];
+                int i1 = remap[result[t + 1]];
+                int i2 = remap[result[t + 2]];
+                if (i0 == i1 || i1 == i2 || i0 == i2) continue;
+                result[written++] = i0;
+                result[written++] = i1;
+                result[written++] = i2;
+            }
+            indexCount = written;
+
+            buildAdjacency(result, indexCount, vertexCount, triOffsets, triList, cursor);
+        }
+
+        return Arrays.copyOf(result, indexCount);
+    }
+
+    private static void evaluate(int a, int b, float[] vertices, int stride, int positionOffset, double[] quadrics,
+                                 boolean[] locked, int[] bestTarget, float[] bestCost) {
+        if (locked[a]) return;
+
+        int p = b * stride + positionOffset;
+        double x = vertices[p];
+        double y = vertices[p + 1];
+        double z = vertices[p + 2];
+        float cost = (float) Math.max(0, error(quadrics, a, x, y, z) + error(quadrics, b, x, y, z));
+
+        if (bestTarget[a] == -1 || cost < bestCost[a]) {
+            bestTarget[a] = b;
+            bestCost[a] = cost;
+        }
+    }
+
+    private static double error(double[] quadrics, int v, double x, double y, double z) {
+        int q = v * QUADRIC_SIZE;
+        return quadrics[q] * x * x + 2 * quadrics[q + 1] * x * y + 2 * quadrics[q + 2] * x * z + 2 * quadrics[q + 3] * x
+                + quadrics[q + 4] * y * y + 2 * quadrics[q + 5] * y * z + 2 * quadrics[q + 6] * y
+                + quadrics[q + 7] * z * z + 2 * quadrics[q + 8] * z
+                + quadrics[q + 9];
+    }
+
+    /**
+     * Accumulates the area weighted plane quadric of each triangle into its vertices.
+     */
+    private static void computeQuadrics(float[] vertices, int stride, int positionOffset, int[] indices, int indexCount,
+                                        double[] quadrics) {
+        for (int t = 0; t < indexCount; t += 3) {
+            int p0 = indices[t] * stride + positionOffset;
+            int p1 = indices[t + 1] * stride + positionOffset;
+            int p2 = indices[t + 2] * stride + positionOffset;
+
+            double e1x = vertices[p1] - vertices[p0];
+            double e1y = vertices[p1 + 1] - vertices[p0 + 1];
+            double e1z = vertices[p1 + 2] - vertices[p0 + 2];
+            double e2x = vertices[p2] - vertices[p0];
+            double e2y = vertices[p2 + 1] - vertices[p0 + 1];
+            double e2z = vertices[p2 + 2] - vertices[p0 + 2];
+
+            double nx = e1y * e2z - e1z * e2y;
+            double ny = e1z * e2x - e1x * e2z;
+            double nz = e1x * e2y - e1y * e2x;
+            double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (length == 0) continue;
+
+            double area = length * 0.5;
+            nx /= length;
+            ny /= length;
+            nz /= length;
+            double d = -(nx * vertices[p0] + ny * vertices[p0 + 1] + nz * vertices[p0 + 2]);
+
+            for (int i = 0; i < 3; i++) {
+                int q = indices[t + i] * QUADRIC_SIZE;
+                quadrics[q] += area * nx * nx;
+                quadrics[q + 1] += area * nx * ny;
+                quadrics[q + 2] += area * nx * nz;
+                quadrics[q + 3] += area * nx * d;
+                quadrics[q + 4] += area * ny * ny;
+                quadrics[q + 5] += area * ny * nz;
+                quadrics[q + 6] += area * ny * d;
+                quadrics[q + 7] += area * nz * nz;
+                quadrics[q + 8] += area * nz * d;
+                quadrics[q + 9] += area * d * d;
+            }
+        }
+    }
+
+    /**
+     * Builds the list of triangles (as index offsets) using each vertex, in compressed row form.
+     */
+    private static void buildAdjacency(int[] indices, int indexCount, int vertexCount, int[] triOffsets, int[] triList,
+                                       int[] cursor) {
+        Arrays.fill(triOffsets, 0);
+        for (int i = 0; i < indexCount; i++) {
+            triOffsets[indices[i] + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            triOffsets[v + 1] += triOffsets[v];
+        }
+
+        System.arraycopy(triOffsets, 0, cursor, 0, vertexCount);
+        for (int t = 0; t < indexCount; t += 3) {
+            triList[cursor[indices[t]]++] = t;
+            triList[cursor[indices[t + 1]]++] = t;
+            triList[cursor[indices[t + 2]]++] = t;
+        }
+    }
+
+    /**
+     * Marks vertices of edges without an opposite half edge, i.e. mesh borders and attribute seams.
+     */
+    private static boolean[] findOpenEdgeVertices(int[] indices, int indexCount, int vertexCount, int[] triOffsets,
+                                                  int[] triList) {
+        boolean[] open = new boolean[vertexCount];
+        for (int t = 0; t < indexCount; t += 3) {
+            for (int e = 0; e < 3; e++) {
+                int a = indices[t + e];
+                int b = indices[t + (e + 1) % 3];
+                if (!hasHalfEdge(b, a, indices, triOffsets, triList)) {
+                    open[a] = true;
+                    open[b] = true;
+                }
+            }
+        }
+        return open;
+    }
+
+    private static boolean hasHalfEdge(int from, int to, int[] indices, int[] triOffsets, int[] triList) {
+        for (int k = triOffsets[from]; k < triOffsets[from + 1]; k++) {
+            int t = triList[k];
+            for (int e = 0; e < 3; e++) {
+                if (indices[t + e] == from && indices[t + (e + 1) % 3] == to) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether moving vertex a onto b turns one of the remaining triangles around a too far.
+     */
+    private static boolean flipsTriangle(int a, int b, float[] vertices, int stride, int positionOffset, int[] indices,
+                                         int[] triOffsets, int[] triList) {
+        int pb = b * stride + positionOffset;
+
+        for (int k = triOffsets[a]; k < triOffsets[a + 1]; k++) {
+            int t = triList[k];
+            int i0 = indices[t];
+            int i1 = indices[t + 1];
+            int i2 = indices[t + 2];
+            // Triangles on the collapsed edge disappear
+            if (i0 == b || i1 == b || i2 == b) continue;
+
+            int p0 = i0 * stride + positionOffset;
+            int p1 = i1 * stride + positionOffset;
+            int p2 = i2 * stride + positionOffset;
+
+            float nx = normalX(vertices, p0, p1, p2);
+            float ny = normalY(vertices, p0, p1, p2);
+            float nz = normalZ(vertices, p0, p1, p2);
+            // Zero area triangles have no orientation to flip
+            if (nx == 0 && ny == 0 && nz == 0) continue;
+
+            if (i0 == a) p0 = pb;
+            else if (i1 == a) p1 = pb;
+            else p2 = pb;
+
+            float mx = normalX(vertices, p0, p1, p2);
+            float my = normalY(vertices, p0, p1, p2);
+            float mz = normalZ(vertices, p0, p1, p2);
+
+            float dot = nx * mx + ny * my + nz * mz;
+            float lengths = (float) Math.sqrt((nx * nx + ny * ny + nz * nz) * (mx * mx + my * my + mz * mz));
+            if (dot <= MIN_NORMAL_DOT * lengths) return true;
+        }
+        return false;
+    }
+
+    private static float normalX(float[] v, int p0, int p1, int p2) {
+        return (v[p1 + 1] - v[p0 + 1]) * (v[p2 + 2] - v[p0 + 2]) - (v[p1 + 2] - v[p0 + 2]) * (v[p2 + 1] - v[p0 + 1]);
+    }
+
+    private static float normalY(float[] v, int p0, int p1, int p2) {
+        return (v[p1 + 2] - v[p0 + 2]) * (v[p2] - v[p0]) - (v[p1] - v[p0]) * (v[p2 + 2] - v[p0 + 2]);
+    }
+
+    private static float normalZ(float[] v, int p0, int p1, int p2) {
+        return (v[p1] - v[p0]) * (v[p2 + 1] - v[p0 + 1]) - (v[p1 + 1] - v[p0 + 1]) * (v[p2] - v[p0]);
+    }
+}
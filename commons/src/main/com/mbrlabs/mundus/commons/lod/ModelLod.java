@@ -0,0 +1,128 @@
+package com.mbrlabs.mundus.commons.lod;
+
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.g3d.Model;
+import com.badlogic.gdx.graphics.g3d.model.MeshPart;
+import com.badlogic.gdx.graphics.g3d.model.Node;
+import com.badlogic.gdx.graphics.g3d.model.NodePart;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * GPU meshes of the LOD levels of a model. Level 0 is the original model, which is not held here, and
+ * {@link #getMeshPart(int, int)} returns the replacement for a node part on a higher level.
+ */
+public class ModelLod implements Disposable {
+    /** Fraction the screen size has to move past a threshold before the level changes, avoids flickering */
+    public static final float HYSTERESIS = 0.1f;
+
+    private final float[] screenSizes;
+    private final MeshPart[][] meshParts;
+    private final Array<Mesh> meshes = new Array<>();
+
+    /**
+     * Uploads the LOD meshes. Must be called on the render thread.
+     *
+     * @param model the model the data was generated from, provides the vertex layout
+     * @param data  the LOD levels
+     */
+    public ModelLod(Model model, ModelLodData data) {
+        Array<NodePart> nodeParts = collectNodeParts(model.nodes, new Array<NodePart>());
+
+        int levelCount = data.levels.size + 1;
+        screenSizes = new float[levelCount];
+        meshParts = new MeshPart[levelCount][];
+        screenSizes[0] = Float.MAX_VALUE;
+        meshParts[0] = new MeshPart[nodeParts.size];
+
+        for (int l = 1; l < levelCount; l++) {
+            ModelLodData.Level level = data.levels.get(l - 1);
+            screenSizes[l] = level.screenSize;
+            meshParts[l] = new MeshPart[nodeParts.size];
+
+            for (ModelLodData.Part part : level.parts) {
+                if (part.partIndex >= nodeParts.size) continue;
+                MeshPart source = nodeParts.get(part.partIndex).meshPart;
+                // The model changed since the levels were generated
+                if (source.mesh.getVertexSize() / 4 != part.vertexSize) continue;
+
+                Mesh mesh = new Mesh(true, part.vertices.length / part.vertexSize, part.indices.length,
+                        source.mesh.getVertexAttributes());
+                mesh.setVertices(part.vertices);
+                mesh.setIndices(part.indices);
+                meshes.add(mesh);
+
+                MeshPart meshPart = new MeshPart(source.id, mesh, 0, part.indices.length, source.primitiveType);
+                // Keep the bounds of the original so culling does not change between levels
+                meshPart.center.set(source.center);
+                meshPart.halfExtents.set(source.halfExtents);
+                meshPart.radius = source.radius;
+                meshParts[l][part.partIndex] = meshPart;
+            }
+        }
+    }
+
+    /**
+     * Collects the node parts of the nodes and their children, depth first. The index in this order identifies a
+     * node part for LODs, and is the same for a model and its instances.
+     */
+    public static Array<NodePart> collectNodeParts(Iterable<Node> nodes, Array<NodePart> out) {
+        for (Node node : nodes) {
+            out.addAll(node.parts);
+            collectNodeParts(node.getChildren(), out);
+        }
+        return out;
+    }
+
+    /**
+     * @return number of levels, including the original model
+     */
+    public int getLevelCount() {
+        return screenSizes.length;
+    }
+
+    /**
+     * @return projected screen size below which the level is used
+     */
+    public float getScreenSize(int level) {
+        return screenSizes[level];
+    }
+
+    /**
+     * @return the mesh part replacing the node part on the level, null to keep the original
+     */
+    public MeshPart getMeshPart(int level, int partIndex) {
+        if (level <= 0 || level >= meshParts.length || partIndex >= meshParts[level].length) return null;
+        return meshParts[level][partIndex];
+    }
+
+    /**
+     * Selects the level for the projected screen size, only changing from the current level once the size is
+     * clearly past a threshold.
+     *
+     * @param screenSize   radius of the object on screen relative to half the view height
+     * @param currentLevel the level currently used
+     */
+    public int selectLevel(float screenSize, int currentLevel) {
+        return selectLevel(screenSizes, screenSize, currentLevel);
+    }
+
+    static int selectLevel(float[] screenSizes, float screenSize, int currentLevel) {
+        int level = Math.max(0, Math.min(currentLevel, screenSizes.length - 1));
+        while (level + 1 < screenSizes.length && screenSize < screenSizes[level + 1] * (1f - HYSTERESIS)) {
+            level++;
+        }
+        while (level > 0 && screenSize > screenSizes[level] * (1f + HYSTERESIS)) {
+            level--;
+        }
+        return level;
+    }
+
+    @Override
+    public void dispose() {
+        for (Mesh mesh : meshes) {
+            mesh.dispose();
+        }
+        meshes.clear();
+    }
+}
@@ -0,0 +1,254 @@
+package com.mbrlabs.mundus.commons.lod;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.g3d.Model;
+import com.badlogic.gdx.graphics.g3d.model.MeshPart;
+import com.badlogic.gdx.graphics.g3d.model.NodePart;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.StreamUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * CPU side LOD meshes of a model, as generated by {@link MeshSimplifier} and stored in the .lod file next to the
+ * model. Parts are matched to the models node parts by their index in depth first node order, see
+ * {@link ModelLod#collectNodeParts(Iterable, Array)}.
+ * <p>
+ * Generating works on copies of the mesh data made by {@link #extract(Model)}, so only the extraction has to run
+ * on the render thread.
+ */
+public class ModelLodData {
+    public static final int MAX_LEVELS = 4;
+    /** Projected screen size below which the first LOD is used, each further LOD halves it */
+    public static final float FIRST_LEVEL_SCREEN_SIZE = 0.3f;
+
+    private static final int MAGIC = 0x4D4C4F44; // MLOD
+    private static final int VERSION = 1;
+
+    public final Array<Level> levels = new Array<>();
+
+    /**
+     * A simplified version of the whole model.
+     */
+    public static class Level {
+        /** Projected screen size (radius relative to half the view height) below which this level is used */
+        public float screenSize;
+        public final Array<Part> parts = new Array<>();
+    }
+
+    /**
+     * Simplified mesh of one node part, with the vertex layout of the original mesh.
+     */
+    public static class Part {
+        public int partIndex;
+        public int vertexSize; // in floats
+        public float[] vertices;
+        public short[] indices;
+    }
+
+    /**
+     * Copy of the mesh data of a node part, see {@link #extract(Model)}.
+     */
+    public static class SourcePart {
+        int partIndex;
+        int vertexSize;
+        int positionOffset;
+        float[] vertices;
+        int[] indices;
+    }
+
+    /**
+     * Copies the mesh data of all indexed triangle node parts. Must be called on the render thread.
+     */
+    public static Array<SourcePart> extract(Model model) {
+        Array<SourcePart> sources = new Array<>();
+        ObjectMap<Mesh, float[]> meshVertices = new ObjectMap<>();
+        ObjectMap<Mesh, short[]> meshIndices = new ObjectMap<>();
+
+        Array<NodePart> nodeParts = ModelLod.collectNodeParts(model.nodes, new Array<NodePart>());
+        for (int i = 0; i < nodeParts.size; i++) {
+            MeshPart meshPart = nodeParts.get(i).meshPart;
+            Mesh mesh = meshPart.mesh;
+            VertexAttribute position = mesh.getVertexAttribute(VertexAttributes.Usage.Position);
+            if (meshPart.primitiveType != GL20.GL_TRIANGLES || mesh.getNumIndices() == 0 || position == null) continue;
+
+            float[] vertices = meshVertices.get(mesh);
+            short[] indices = meshIndices.get(mesh);
+            if (vertices == null) {
+                vertices = new float[mesh.getNumVertices() * mesh.getVertexSize() / 4];
+                mesh.getVertices(vertices);
+                indices = new short[mesh.getNumIndices()];
+                mesh.getIndices(indices);
+                meshVertices.put(mesh, vertices);
+                meshIndices.put(mesh, indices);
+            }
+
+            SourcePart source = new SourcePart();
+            source.partIndex = i;
+            source.vertexSize = mesh.getVertexSize() / 4;
+            source.positionOffset = position.offset / 4;
+            source.vertices = vertices;
+            source.indices = new int[meshPart.size];
+            for (int k = 0; k < meshPart.size; k++) {
+                source.indices[k] = indices[meshPart.offset + k] & 0xFFFF;
+            }
+            sources.add(source);
+        }
+
+        return sources;
+    }
+
+    /**
+     * Generates the LOD levels, each level halves the triangle count of the previous one. Does not touch GL, so
+     * it can run on a background thread.
+     *
+     * @param sources    mesh data from {@link #extract(Model)}
+     * @param levelCount number of levels to generate, excluding the original model
+     */
+    public static ModelLodData generate(Array<SourcePart> sources, int levelCount) {
+        levelCount = Math.max(1, Math.min(MAX_LEVELS, levelCount));
+
+        ModelLodData data = new ModelLodData();
+        int[][] current = new int[sources.size][];
+        for (int i = 0; i < sources.size; i++) {
+            current[i] = sources.get(i).indices;
+        }
+
+        float screenSize = FIRST_LEVEL_SCREEN_SIZE;
+        for (int l = 0; l < levelCount; l++) {
+            Level level = new Level();
+            level.screenSize = screenSize;
+            screenSize *= 0.5f;
+
+            for (int i = 0; i < sources.size; i++) {
+                SourcePart source = sources.get(i);
+                int vertexCount = source.vertices.length / source.vertexSize;
+                int target = Math.max(3, current[i].length / 6 * 3);
+
+                // Each level continues from the previous one, which is cheaper and keeps the levels consistent
+                current[i] = MeshSimplifier.simplify(source.vertices, source.vertexSize, source.positionOffset,
+                        vertexCount, current[i], target);
+                level.parts.add(compact(source, current[i]));
+            }
+
+            data.levels.add(level);
+        }
+
+        return data;
+    }
+
+    /**
+     * Copies the vertices referenced by the indices into a new part.
+     */
+    private static Part compact(SourcePart source, int[] indices) {
+        int vertexCount = source.vertices.length / source.vertexSize;
+        int[] remap = new int[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            remap[v] = -1;
+        }
+
+        Part part = new Part();
+        part.partIndex = source.partIndex;
+        part.vertexSize = source.vertexSize;
+        part.indices = new short[indices.length];
+
+        int used = 0;
+        for (int i = 0; i < indices.length; i++) {
+            if (remap[indices[i]] == -1) {
+                remap[indices[i]] = used++;
+            }
+            part.indices[i] = (short) remap[indices[i]];
+        }
+
+        part.vertices = new float[used * source.vertexSize];
+        for (int v = 0; v < vertexCount; v++) {
+            if (remap[v] == -1) continue;
+            System.arraycopy(source.vertices, v * source.vertexSize, part.vertices, remap[v] * source.vertexSize, source.vertexSize);
+        }
+
+        return part;
+    }
+
+    /**
+     * Writes the levels in binary form.
+     */
+    public void write(FileHandle file) throws IOException {
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(file.write(false)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(levels.size);
+            for (Level level : levels) {
+                out.writeFloat(level.screenSize);
+                out.writeInt(level.parts.size);
+                for (Part part : level.parts) {
+                    out.writeInt(part.partIndex);
+                    out.writeInt(part.vertexSize);
+                    out.writeInt(part.vertices.length);
+                    for (float f : part.vertices) {
+                        out.writeFloat(f);
+                    }
+                    out.writeInt(part.indices.length);
+                    for (short s : part.indices) {
+                        out.writeShort(s);
+                    }
+                }
+            }
+            out.flush();
+        } finally {
+            StreamUtils.closeQuietly(out);
+        }
+    }
+
+    /**
+     * Reads levels written by {@link #write(FileHandle)}.
+     */
+    public static ModelLodData read(FileHandle file) {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(file.read()));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new GdxRuntimeException("Unsupported lod file: " + file.name());
+            }
+
+            ModelLodData data = new ModelLodData();
+            int levelCount = in.readInt();
+            for (int l = 0; l < levelCount; l++) {
+                Level level = new Level();
+                level.screenSize = in.readFloat();
+                int partCount = in.readInt();
+                for (int p = 0; p < partCount; p++) {
+                    Part part = new Part();
+                    part.partIndex = in.readInt();
+                    part.vertexSize = in.readInt();
+                    part.vertices = new float[in.readInt()];
+                    for (int i = 0; i < part.vertices.length; i++) {
+                        part.vertices[i] = in.readFloat();
+                    }
+                    part.indices = new short[in.readInt()];
+                    for (int i = 0; i < part.indices.length; i++) {
+                        part.indices[i] = in.readShort();
+                    }
+                    level.parts.add(part);
+                }
+                data.levels.add(level);
+            }
+            return data;
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error reading lod file: " + file.name(), e);
+        } finally {
+            StreamUtils.closeQuietly(in);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.mbrlabs.mundus.commons.mapper;
+
+import com.mbrlabs.mundus.commons.assets.ModelAsset;
+import com.mbrlabs.mundus.commons.dto.VegetationComponentDTO;
+import com.mbrlabs.mundus.commons.scene3d.GameObject;
+import com.mbrlabs.mundus.commons.scene3d.components.VegetationComponent;
+
+/**
+ * The converter for vegetation, shared by the editor and the runtime.
+ */
+public class VegetationComponentConverter {
+
+    /**
+     * Converts {@link VegetationComponentDTO} to {@link VegetationComponent}.
+     *
+     * @param modelAsset the model asset referenced by the dto, resolved by the caller
+     */
+    public static VegetationComponent convert(final VegetationComponentDTO dto, final GameObject go, final ModelAsset modelAsset) {
+        final VegetationComponent component = new VegetationComponent(go);
+        component.setDensity(dto.getDensity());
+        component.setSeed(dto.getSeed());
+        component.setDensityChannel(dto.getDensityChannel());
+        component.setMinSlope(dto.getMinSlope());
+        component.setMaxSlope(dto.getMaxSlope());
+        component.setMinHeight(dto.getMinHeight());
+        component.setMaxHeight(dto.getMaxHeight());
+        component.setMinScale(dto.getMinScale());
+        component.setMaxScale(dto.getMaxScale());
+        component.setRandomRotation(dto.isRandomRotation());
+        component.setAlignToNormal(dto.isAlignToNormal());
+        component.setChunkSize(dto.getChunkSize());
+        component.setViewDistance(dto.getViewDistance());
+        component.setFadeStart(dto.getFadeStart());
+        component.setCastShadows(dto.isCastShadows());
+        component.setModelAsset(modelAsset);
+
+        return component;
+    }
+
+    /**
+     * Converts {@link VegetationComponent} to {@link VegetationComponentDTO}.
+     */
+    public static VegetationComponentDTO convert(final VegetationComponent component) {
+        final VegetationComponentDTO dto = new VegetationComponentDTO();
+        dto.setModelID(component.getModelAsset() != null ? component.getModelAsset().getID() : null);
+        dto.setDensity(component.getDensity());
+        dto.setSeed(component.getSeed());
+        dto.setDensityChannel(component.getDensityChannel());
+        dto.setMinSlope(component.getMinSlope());
+        dto.setMaxSlope(component.getMaxSlope());
+        dto.setMinHeight(component.getMinHeight());
+        dto.setMaxHeight(component.getMaxHeight());
+        dto.setMinScale(component.getMinScale());
+        dto.setMaxScale(component.getMaxScale());
+        dto.setRandomRotation(component.isRandomRotation());
+        dto.setAlignToNormal(component.isAlignToNormal());
+        dto.setChunkSize(component.getChunkSize());
+        dto.setViewDistance(component.getViewDistance());
+        dto.setFadeStart(component.getFadeStart());
+        dto.setCastShadows(component.isCastShadows());
+
+        return dto;
+    }
+}
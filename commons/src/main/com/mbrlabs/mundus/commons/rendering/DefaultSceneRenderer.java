@@ -1,35 +1,235 @@
 package com.mbrlabs.mundus.commons.rendering;
 
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.g3d.Environment;
 import com.badlogic.gdx.graphics.g3d.ModelBatch;
 import com.badlogic.gdx.graphics.g3d.Shader;
+import com.badlogic.gdx.graphics.g3d.attributes.ColorAttribute;
 import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
 import com.mbrlabs.mundus.commons.Scene;
+import com.mbrlabs.mundus.commons.SceneSettings;
+import com.mbrlabs.mundus.commons.culling.VisibilityPass;
 import com.mbrlabs.mundus.commons.scene3d.GameObject;
+import com.mbrlabs.mundus.commons.scene3d.ModelCacheManager;
 import com.mbrlabs.mundus.commons.scene3d.ModelCacheable;
+import com.mbrlabs.mundus.commons.scene3d.SceneGraph;
 import com.mbrlabs.mundus.commons.scene3d.components.Component;
 import com.mbrlabs.mundus.commons.scene3d.components.CullableComponent;
+import com.mbrlabs.mundus.commons.scene3d.components.ModelComponent;
 import com.mbrlabs.mundus.commons.scene3d.components.RenderableComponent;
+import com.mbrlabs.mundus.commons.scene3d.components.VegetationComponent;
+import com.mbrlabs.mundus.commons.shaders.DepthShader;
+import com.mbrlabs.mundus.commons.shaders.FrameUniformBuffer;
+import com.mbrlabs.mundus.commons.shadows.CascadedShadowMap;
+import com.mbrlabs.mundus.commons.shadows.MundusDirectionalShadowLight;
 import com.mbrlabs.mundus.commons.shadows.ShadowResolution;
+import com.mbrlabs.mundus.commons.shadows.StaticShadowCache;
+import com.mbrlabs.mundus.commons.utils.MathUtils;
 import com.mbrlabs.mundus.commons.water.WaterResolution;
+import net.mgsx.gltf.scene3d.attributes.FogAttribute;
+
+import java.util.Arrays;
 
 /**
  * @author JamesTKhan
  * @version October 03, 2023
  */
-public class DefaultSceneRenderer implements SceneRenderer {
+public class DefaultSceneRenderer implements SceneRenderer, Disposable {
     public static final Vector3 clippingPlaneDisable = new Vector3(0.0f, 0f, 0.0f);
     private WaterRenderer waterRenderer;
     private Shader depthShader;
+    private final DynamicResolution dynamicResolution = new DynamicResolution();
+
+    // Visibility list and last updated frame id per visibility pass
+    private final Array<Array<CullableComponent>> visibleComponents = new Array<>();
+    private final long[] lastVisibilityFrameIds = new long[VisibilityPass.values().length];
+
+    private final BoundingBox tmpBounds = new BoundingBox();
+    private final Vector3 tmpVec = new Vector3();
 
     public DefaultSceneRenderer() {
         waterRenderer = new WaterRenderer();
+        for (int i = 0; i < VisibilityPass.values().length; i++) {
+            visibleComponents.add(new Array<CullableComponent>(false, 128));
+        }
+        Arrays.fill(lastVisibilityFrameIds, -1);
     }
 
     @Override
     public void render(Scene scene, float delta) {
+        updateVisibility(scene, VisibilityPass.CAMERA, scene.cam);
+        scene.updateLights();
         waterRenderer.renderWaterFBOs(scene);
         renderShadowMap(scene);
-        renderScene(scene, delta);
+
+        if (scene.settings.dynamicResolution) {
+            // Water and shadow maps are rendered above, so only the main pass goes into the scaled frame buffer
+            float targetFrameTime = 1f / Math.max(1, scene.settings.targetFrameRate);
+            dynamicResolution.update(delta, targetFrameTime, scene.settings.minResolutionScale);
+            dynamicResolution.begin();
+            renderScene(scene, delta);
+            dynamicResolution.end();
+        } else {
+            dynamicResolution.reset();
+            renderScene(scene, delta);
+        }
+    }
+
+    /**
+     * @return fraction of the viewport resolution the scene was last rendered at, 1 without dynamic resolution
+     */
+    public float getResolutionScale() {
+        return dynamicResolution.getScale();
+    }
+
+    /**
+     * Builds the visibility list of a pass by walking the scene graphs octree with the given cameras frustum,
+     * marking every component found visible for that pass. Runs at most once per frame for each pass, so it is
+     * safe to call from every method rendering the pass.
+     */
+    public void updateVisibility(Scene scene, VisibilityPass pass, Camera camera) {
+        pass = pass.getCullingPass();
+        long frameId = Gdx.graphics.getFrameId();
+        if (frameId == lastVisibilityFrameIds[pass.ordinal()]) return;
+        lastVisibilityFrameIds[pass.ordinal()] = frameId;
+
+        cullPass(scene, pass, camera);
+    }
+
+    /**
+     * Culls the pass against the cameras frustum, without the once per frame guard of updateVisibility. The main
+     * camera pass is also occlusion culled if enabled in the scene settings.
+     */
+    protected void cullPass(Scene scene, VisibilityPass pass, Camera camera) {
+        pass = pass.getCullingPass();
+        Array<CullableComponent> visible = visibleComponents.get(pass.ordinal());
+        visible.clear();
+
+        if (!scene.settings.useFrustumCulling) return;
+
+        SceneGraph sceneGraph = scene.sceneGraph;
+        long visibilityFrame = sceneGraph.nextVisibilityFrame(pass);
+        sceneGraph.getOctree().query(camera.frustum, visible);
+
+        // Drop components beyond their draw distance first, so they are not tested for occlusion
+        for (int i = visible.size - 1; i >= 0; i--) {
+            CullableComponent component = visible.get(i);
+            if (!isWithinDrawDistance(scene, pass, camera, component)
+                    || pass == VisibilityPass.REFLECTION && !isReflected(scene, camera, component)) {
+                visible.removeIndex(i);
+            }
+        }
+
+        if (pass == VisibilityPass.CAMERA && scene.settings.useOcclusionCulling) {
+            scene.occlusionCuller.cull(camera, visible);
+        }
+
+        for (int i = 0; i < visible.size; i++) {
+            visible.get(i).markVisible(pass, visibilityFrame);
+        }
+    }
+
+    /**
+     * Whether the component should be rendered into the water reflection. Components entirely below the water
+     * plane are never reflected.
+     *
+     * @param camera the mirrored reflection camera
+     */
+    protected boolean isReflected(Scene scene, Camera camera, CullableComponent component) {
+        tmpBounds.set(component.getOrientedBoundingBox().getVertices());
+        return tmpBounds.max.y >= scene.settings.waterHeight;
+    }
+
+    /**
+     * Whether the component is within the draw distance and above the minimum screen size of the pass. The game
+     * objects own draw distance applies to every pass, the end of the fog to all but the shadow pass if fog culling
+     * is enabled. The shadow pass measures from the main camera, as the light camera is placed far away.
+     *
+     * @param camera the camera of the pass
+     */
+    protected boolean isWithinDrawDistance(Scene scene, VisibilityPass pass, Camera camera, CullableComponent component) {
+        float drawDistance = minDrawDistance(getDrawDistance(scene, pass), component.gameObject.getDrawDistance());
+        float minScreenSize = getMinScreenSize(scene, pass);
+        if (drawDistance <= 0 && minScreenSize <= 0) return true;
+
+        if (pass == VisibilityPass.SHADOW) {
+            camera = scene.cam;
+        }
+        tmpBounds.set(component.getOrientedBoundingBox().getVertices());
+        tmpBounds.getCenter(tmpVec);
+        float distance = Math.max(0f, tmpVec.dst(camera.position) - component.getRadius());
+        if (drawDistance > 0 && distance > drawDistance) return false;
+
+        return minScreenSize <= 0 || MathUtils.getScreenSize(camera, component.getRadius(), distance) >= minScreenSize;
+    }
+
+    /**
+     * @return the draw distance of the pass from the scene settings, including the end of the fog if fog culling is
+     * enabled, 0 for no limit
+     */
+    protected float getDrawDistance(Scene scene, VisibilityPass pass) {
+        SceneSettings settings = scene.settings;
+        if (pass == VisibilityPass.SHADOW) return settings.shadowDrawDistance;
+
+        float drawDistance = pass == VisibilityPass.REFLECTION ? settings.waterReflectionDrawDistance : settings.drawDistance;
+        if (settings.cullFoggedObjects) {
+            drawDistance = minDrawDistance(drawDistance, getFogEnd(scene));
+        }
+        return drawDistance;
+    }
+
+    /**
+     * @return the minimum screen size of the pass from the scene settings, 0 for no limit
+     */
+    protected float getMinScreenSize(Scene scene, VisibilityPass pass) {
+        SceneSettings settings = scene.settings;
+        if (pass == VisibilityPass.SHADOW) return settings.shadowMinScreenSize;
+        if (pass == VisibilityPass.REFLECTION) return settings.waterReflectionMinScreenSize;
+        return settings.minScreenSize;
+    }
+
+    /**
+     * Renders the model cache cells visible in the pass, culled by the draw distance and minimum screen size of the
+     * pass like the components, see {@link ModelCacheManager#render(ModelBatch, Environment, Shader, Camera, float, float)}.
+     *
+     * @param batch  the model batch to use, must have begun with the camera of the pass
+     * @param shader the shader to use, or null to use the batches shader provider
+     * @param pass   the pass
+     */
+    public void renderModelCache(Scene scene, ModelBatch batch, Shader shader, VisibilityPass pass) {
+        Camera camera = pass == VisibilityPass.SHADOW ? scene.cam : batch.getCamera();
+        scene.modelCacheManager.render(batch, scene.environment, shader, camera, getDrawDistance(scene, pass), getMinScreenSize(scene, pass));
+    }
+
+    /**
+     * @return distance from the camera at which the fog fully covers objects, 0 without fog
+     */
+    protected float getFogEnd(Scene scene) {
+        if (!scene.environment.has(ColorAttribute.Fog)) return 0;
+
+        FogAttribute fogEquation = (FogAttribute) scene.environment.get(FogAttribute.FogEquation);
+        return fogEquation != null ? fogEquation.value.y : 0;
+    }
+
+    /**
+     * @return the shorter of both draw distances, where 0 means no limit
+     */
+    private static float minDrawDistance(float a, float b) {
+        if (a <= 0) return b;
+        if (b <= 0) return a;
+        return Math.min(a, b);
+    }
+
+    /**
+     * @return components visible in the given pass as of the last visibility update, empty if frustum culling is
+     * disabled
+     */
+    public Array<CullableComponent> getVisibleComponents(VisibilityPass pass) {
+        return visibleComponents.get(pass.getCullingPass().ordinal());
     }
 
     /**
@@ -39,19 +239,61 @@ public class DefaultSceneRenderer implements SceneRenderer {
      * @param delta time since last frame
      */
     public void renderScene(Scene scene, float delta) {
+        updateVisibility(scene, VisibilityPass.CAMERA, scene.cam);
+        scene.updateLights();
         scene.modelCacheManager.update(delta);
+
+        boolean depthPrePass = scene.settings.depthPrePass && depthShader != null;
+        scene.environment.setDepthPrePass(depthPrePass);
+        if (depthPrePass) {
+            renderDepthPrePass(scene);
+        }
+
         scene.batch.begin(scene.cam);
         renderObjects(scene);
         renderSkybox(scene);
         scene.batch.end();
+        scene.environment.setDepthPrePass(false);
+    }
+
+    /**
+     * Renders the depth of opaque renderables visible to the camera, so the color pass only shades the nearest
+     * fragment of each pixel. Renderables whose depth the depth shader cannot reproduce, see
+     * {@link DepthShader#writesExactDepth}, are left to the color pass.
+     * <p>
+     * The water refraction depth cannot be reused here, it is clipped at the water plane and rendered into a
+     * separate frame buffer.
+     */
+    protected void renderDepthPrePass(Scene scene) {
+        scene.setClippingPlane(clippingPlaneDisable, 0);
+        Gdx.gl.glColorMask(false, false, false, false);
+
+        scene.depthBatch.begin(scene.cam);
+        renderComponents(scene, scene.depthBatch, scene.sceneGraph.getRoot(), depthShader, true, VisibilityPass.CAMERA);
+        renderModelCache(scene, scene.depthBatch, depthShader, VisibilityPass.CAMERA);
+        scene.depthBatch.end();
+
+        Gdx.gl.glColorMask(true, true, true, true);
     }
 
     protected void renderObjects(Scene scene) {
         scene.setClippingPlane(clippingPlaneDisable, 0);
+        updateFrameUniforms(scene, scene.batch.getCamera());
         waterRenderer.renderWater(scene, scene.sceneGraph.getRoot());
         renderComponents(scene, scene.batch, scene.sceneGraph.getRoot());
         scene.modelCacheManager.triggerBeforeRenderEvent();
-        scene.batch.render(scene.modelCacheManager.modelCache, scene.environment);
+        renderModelCache(scene, scene.batch, null, VisibilityPass.CAMERA);
+    }
+
+    /**
+     * Writes the camera, clipping plane and fog of the pass into the uniform buffer shared by all shaders, if
+     * supported. Called once per pass after the batch began and the clipping plane was set.
+     */
+    public void updateFrameUniforms(Scene scene, Camera camera) {
+        FrameUniformBuffer frameUniforms = FrameUniformBuffer.getInstance();
+        if (frameUniforms != null) {
+            frameUniforms.update(camera, scene.environment);
+        }
     }
 
     /**
@@ -75,8 +317,30 @@ public class DefaultSceneRenderer implements SceneRenderer {
      * @param isDepthPass whether this is a depth render pass
      */
     public void renderComponents(Scene scene, ModelBatch batch, GameObject parent, Shader shader, boolean isDepthPass) {
+        renderComponents(scene, batch, parent, shader, isDepthPass, VisibilityPass.CAMERA);
+    }
+
+    /**
+     * Renders all renderable components (except Water) of the given parent game objects children
+     * recursively, skipping components culled for the given pass and game objects not in the passes render layer.
+     *
+     * @param batch       the model batch to use
+     * @param parent      the parent game object
+     * @param shader      the shader to use
+     * @param isDepthPass whether this is a depth render pass
+     * @param pass        the visibility pass to cull against
+     */
+    public void renderComponents(Scene scene, ModelBatch batch, GameObject parent, Shader shader, boolean isDepthPass, VisibilityPass pass) {
+        renderChildren(scene, batch, parent, shader, isDepthPass, pass);
+
+        // Instanced components and impostors were queued while walking the scene graph
+        scene.instancedModelManager.render(batch, scene.environment, isDepthPass);
+        scene.impostorManager.render(batch, scene.environment);
+    }
+
+    protected void renderChildren(Scene scene, ModelBatch batch, GameObject parent, Shader shader, boolean isDepthPass, VisibilityPass pass) {
         for (GameObject go : parent.getChildren()) {
-            renderComponent(scene, batch, go, shader, isDepthPass);
+            renderComponent(scene, batch, go, shader, isDepthPass, pass);
         }
     }
 
@@ -96,15 +360,77 @@ public class DefaultSceneRenderer implements SceneRenderer {
 
         scene.environment.shadowMap = scene.dirLight;
 
+        CascadedShadowMap cascadedShadowMap = scene.getCascadedShadowMap();
+        if (cascadedShadowMap != null) {
+            renderCascadedShadowMaps(scene, cascadedShadowMap);
+            return;
+        }
+
+        if (scene.settings.cacheStaticShadows && StaticShadowCache.isSupported()) {
+            renderCachedShadowMap(scene, scene.getStaticShadowCache());
+            return;
+        }
+
         scene.dirLight.setCenter(scene.cam.position);
-        scene.dirLight.begin();
-        scene.depthBatch.begin(scene.dirLight.getCamera());
+        renderShadowCasters(scene, scene.dirLight);
+    }
+
+    /**
+     * Renders the shadow map from the static shadow cache, redrawing the cache only when it is invalid, then draws
+     * dynamic (non model cached) casters on top.
+     */
+    protected void renderCachedShadowMap(Scene scene, StaticShadowCache cache) {
+        MundusDirectionalShadowLight light = scene.dirLight;
+        light.setCenter(cache.getSnappedCenter(light, scene.cam.position));
+        light.begin();
+        cullPass(scene, VisibilityPass.SHADOW, light.getCamera());
         scene.setClippingPlane(clippingPlaneDisable, 0);
-        renderComponents(scene, scene.depthBatch, scene.sceneGraph.getRoot(), null, true);
+
+        long staticVersion = scene.modelCacheManager.getVersion();
+        if (cache.needsRedraw(light, staticVersion)) {
+            cache.begin(light);
+            scene.depthBatch.begin(light.getCamera());
+            scene.modelCacheManager.triggerBeforeDepthRenderEvent();
+            // Not culled by the shadow draw distance, the cache is only redrawn when the camera moves far enough
+            scene.modelCacheManager.render(scene.depthBatch, scene.environment);
+            scene.depthBatch.end();
+            cache.end(light, staticVersion);
+        }
+        cache.copyTo(light.getFrameBuffer());
+
+        scene.depthBatch.begin(light.getCamera());
+        renderComponents(scene, scene.depthBatch, scene.sceneGraph.getRoot(), null, true, VisibilityPass.SHADOW);
+        scene.depthBatch.end();
+        light.end();
+    }
+
+    /**
+     * Renders the cascades due for a refresh this frame, each culled against its own camera.
+     */
+    protected void renderCascadedShadowMaps(Scene scene, CascadedShadowMap cascadedShadowMap) {
+        long frameId = Gdx.graphics.getFrameId();
+        for (int i = 0; i < cascadedShadowMap.getCascadeCount(); i++) {
+            if (!cascadedShadowMap.needsUpdate(i, frameId)) continue;
+
+            cascadedShadowMap.updateCascade(i, scene.cam);
+            renderShadowCasters(scene, cascadedShadowMap.getCascades().get(i));
+        }
+    }
+
+    /**
+     * Renders the shadow casters visible to the lights camera into its shadow map.
+     */
+    protected void renderShadowCasters(Scene scene, MundusDirectionalShadowLight light) {
+        light.begin();
+        // Shadow camera is up to date after begin()
+        cullPass(scene, VisibilityPass.SHADOW, light.getCamera());
+        scene.depthBatch.begin(light.getCamera());
+        scene.setClippingPlane(clippingPlaneDisable, 0);
+        renderComponents(scene, scene.depthBatch, scene.sceneGraph.getRoot(), null, true, VisibilityPass.SHADOW);
         scene.modelCacheManager.triggerBeforeDepthRenderEvent();
-        scene.depthBatch.render(scene.modelCacheManager.modelCache, scene.environment);
+        renderModelCache(scene, scene.depthBatch, null, VisibilityPass.SHADOW);
         scene.depthBatch.end();
-        scene.dirLight.end();
+        light.end();
     }
 
     public void renderSkybox(Scene scene) {
@@ -118,47 +444,76 @@ public class DefaultSceneRenderer implements SceneRenderer {
         waterRenderer.updateWaterResolution(waterResolution);
     }
 
-    protected void renderComponent(Scene scene, ModelBatch batch, GameObject go, Shader shader, boolean isDepthPass) {
+    protected void renderComponent(Scene scene, ModelBatch batch, GameObject go, Shader shader, boolean isDepthPass, VisibilityPass pass) {
         if (!go.active) return;
         if (go.hasWaterComponent) return;
 
-        // Render all renderable components
-        for (Component component : go.getComponents()) {
-            if (!(component instanceof RenderableComponent)) continue;
+        // Render all renderable components, if the game object takes part in this pass, children have their own layers
+        if (go.isInLayer(pass.getLayer())) {
+            for (Component component : go.getComponents()) {
+                if (component instanceof VegetationComponent) {
+                    // Queues its visible chunks to the instanced model manager
+                    ((VegetationComponent) component).render(scene, batch.getCamera(), pass);
+                    continue;
+                }
+
+                if (!(component instanceof RenderableComponent)) continue;
 
-            if (component instanceof CullableComponent) {
-                CullableComponent cullableComponent = (CullableComponent) component;
-                if (cullableComponent.isCulled()) continue;
+                if (component instanceof CullableComponent) {
+                    CullableComponent cullableComponent = (CullableComponent) component;
+                    if (cullableComponent.isCulled(pass)) continue;
 
-                if (isDepthPass) {
-                    cullableComponent.triggerBeforeDepthRenderEvent();
-                } else {
-                    cullableComponent.triggerBeforeRenderEvent();
+                    if (isDepthPass) {
+                        cullableComponent.triggerBeforeDepthRenderEvent();
+                    } else {
+                        cullableComponent.triggerBeforeRenderEvent();
+                    }
                 }
-            }
 
-            if (component instanceof ModelCacheable) {
-                // Don't render the component here if it's a model cacheable
-                ModelCacheable modelCacheable = (ModelCacheable) component;
-                if (modelCacheable.shouldCache()) continue;
-            }
+                if (component instanceof ModelCacheable) {
+                    // Don't render the component here if it's a model cacheable
+                    ModelCacheable modelCacheable = (ModelCacheable) component;
+                    if (modelCacheable.shouldCache()) continue;
+                }
 
-            if (shader != null) {
-                // Render the component with the given shader
-                batch.render(((RenderableComponent) component).getRenderableProvider(), scene.environment, shader);
-                continue;
-            }
+                if (component instanceof ModelComponent
+                        && scene.impostorManager.queue(scene, (ModelComponent) component, batch.getCamera(), isDepthPass)) {
+                    // Far away, drawn as impostor by the impostor manager at the end of the pass
+                    continue;
+                }
 
-            // Render with default shaders (Uses Provider)
-            batch.render(((RenderableComponent) component).getRenderableProvider(), scene.environment);
+                if (component instanceof ModelComponent && scene.instancedModelManager.queue((ModelComponent) component)) {
+                    // Drawn by the instanced model manager at the end of the pass
+                    continue;
+                }
+
+                if (shader != null) {
+                    // Render the component with the given shader
+                    batch.render(((RenderableComponent) component).getRenderableProvider(), scene.environment, shader);
+                    continue;
+                }
+
+                // Render with default shaders (Uses Provider)
+                batch.render(((RenderableComponent) component).getRenderableProvider(), getEnvironment(scene, component));
+            }
         }
 
         // Render children recursively
         if (go.getChildren() != null) {
-            renderComponents(scene, batch, go, shader, isDepthPass);
+            renderChildren(scene, batch, go, shader, isDepthPass, pass);
         }
     }
 
+    /**
+     * @return the environment to render the component with, holding only the lights nearest to it if per object
+     * light selection is enabled
+     */
+    protected Environment getEnvironment(Scene scene, Component component) {
+        if (!(component instanceof ModelComponent) || !scene.lightSelector.isEnabled()) return scene.environment;
+
+        return scene.lightSelector.getEnvironment(scene.environment, (ModelComponent) component);
+    }
+
     @Override
     public void setDepthShader(Shader depthShader) {
         this.depthShader = depthShader;
@@ -167,4 +522,9 @@ public class DefaultSceneRenderer implements SceneRenderer {
     public Shader getDepthShader() {
         return depthShader;
     }
+
+    @Override
+    public void dispose() {
+        dynamicResolution.dispose();
+    }
 }
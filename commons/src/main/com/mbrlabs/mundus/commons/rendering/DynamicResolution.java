@@ -0,0 +1,175 @@
+package com.mbrlabs.mundus.commons.rendering;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Disposable;
+import com.mbrlabs.mundus.commons.utils.GLUtils;
+import com.mbrlabs.mundus.commons.utils.NestableFrameBuffer;
+
+/**
+ * Renders the scene into an offscreen frame buffer at a fraction of the viewport resolution and upscales it to the
+ * viewport, adapting the fraction to keep the frame time at a target.
+ * <p>
+ * The scale is lowered a step when the averaged frame time stayed above the target for a short while, and raised a
+ * step when it stayed within the target for longer. Separate thresholds and delays for both directions keep the
+ * scale from switching back and forth on single slow frames.
+ * <p>
+ * The frame buffer is nestable, so it can be used while rendering into another frame buffer, and the water and
+ * shadow frame buffers can still be rendered while it is bound.
+ */
+public class DynamicResolution implements Disposable {
+    public static final float MAX_SCALE = 1f;
+    public static final float DEFAULT_MIN_SCALE = 0.5f;
+    public static final float SCALE_STEP = 0.1f;
+
+    // Averaged frame time has to be above target * DOWNSCALE_THRESHOLD to lower the scale and below
+    // target * UPSCALE_THRESHOLD to raise it, leaving a band in between where the scale is kept
+    private static final float DOWNSCALE_THRESHOLD = 1.15f;
+    private static final float UPSCALE_THRESHOLD = 1.02f;
+    // Seconds the frame time has to stay above or below the thresholds before each step
+    private static final float DOWNSCALE_DELAY = 0.25f;
+    private static final float UPSCALE_DELAY = 2f;
+    // Weight of the latest frame in the averaged frame time
+    private static final float SMOOTHING = 0.1f;
+    private static final float MAX_FRAME_TIME_FACTOR = 4f;
+
+    private float scale = MAX_SCALE;
+    private float averageFrameTime = -1;
+    private float overTargetTime;
+    private float underTargetTime;
+
+    private NestableFrameBuffer frameBuffer;
+    private SpriteBatch batch;
+    private boolean scissorTest;
+
+    /**
+     * Updates the scale from the time of the last frame.
+     *
+     * @param delta           time of the last frame in seconds
+     * @param targetFrameTime frame time to keep in seconds
+     * @param minScale        lowest scale to use
+     * @return the new scale
+     */
+    public float update(float delta, float targetFrameTime, float minScale) {
+        // Single long frames, like when loading assets, only count as a few slow frames
+        delta = Math.min(delta, targetFrameTime * MAX_FRAME_TIME_FACTOR);
+
+        if (averageFrameTime < 0) {
+            averageFrameTime = delta;
+        } else {
+            averageFrameTime += (delta - averageFrameTime) * SMOOTHING;
+        }
+
+        if (averageFrameTime > targetFrameTime * DOWNSCALE_THRESHOLD) {
+            underTargetTime = 0;
+            overTargetTime += delta;
+            if (overTargetTime >= DOWNSCALE_DELAY) {
+                overTargetTime = 0;
+                scale = step(scale - SCALE_STEP);
+            }
+        } else if (averageFrameTime < targetFrameTime * UPSCALE_THRESHOLD) {
+            overTargetTime = 0;
+            underTargetTime += delta;
+            if (underTargetTime >= UPSCALE_DELAY) {
+                underTargetTime = 0;
+                scale = step(scale + SCALE_STEP);
+            }
+        } else {
+            overTargetTime = 0;
+            underTargetTime = 0;
+        }
+
+        scale = MathUtils.clamp(scale, Math.min(minScale, MAX_SCALE), MAX_SCALE);
+        return scale;
+    }
+
+    /**
+     * Snaps to whole steps, so the scale does not drift from adding floats.
+     */
+    private static float step(float scale) {
+        return Math.round(scale / SCALE_STEP) * SCALE_STEP;
+    }
+
+    /**
+     * Goes back to full resolution and forgets the measured frame times.
+     */
+    public void reset() {
+        scale = MAX_SCALE;
+        averageFrameTime = -1;
+        overTargetTime = 0;
+        underTargetTime = 0;
+    }
+
+    /**
+     * @return the current fraction of the viewport resolution the scene is rendered at
+     */
+    public float getScale() {
+        return scale;
+    }
+
+    /**
+     * Binds the offscreen frame buffer, sized to the current viewport times the scale, and clears it with the
+     * current clear color. Everything rendered until {@link #end()} goes into it.
+     */
+    public void begin() {
+        int[] viewport = GLUtils.getViewport();
+        int width = Math.max(1, Math.round(viewport[2] * scale));
+        int height = Math.max(1, Math.round(viewport[3] * scale));
+
+        if (frameBuffer == null || frameBuffer.getWidth() != width || frameBuffer.getHeight() != height) {
+            if (frameBuffer != null) {
+                frameBuffer.dispose();
+            }
+            frameBuffer = new NestableFrameBuffer(Pixmap.Format.RGB888, width, height, true);
+            frameBuffer.getColorBufferTexture().setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+        }
+
+        // A scissor rectangle in viewport coordinates, like the one of UI widgets, does not apply to the frame buffer
+        scissorTest = Gdx.gl.glIsEnabled(GL20.GL_SCISSOR_TEST);
+        if (scissorTest) {
+            Gdx.gl.glDisable(GL20.GL_SCISSOR_TEST);
+        }
+
+        frameBuffer.begin();
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT);
+    }
+
+    /**
+     * Unbinds the offscreen frame buffer and draws it stretched over the viewport it was begun in.
+     */
+    public void end() {
+        frameBuffer.end();
+
+        if (scissorTest) {
+            Gdx.gl.glEnable(GL20.GL_SCISSOR_TEST);
+        }
+
+        if (batch == null) {
+            batch = new SpriteBatch(1);
+        }
+        batch.getProjectionMatrix().setToOrtho2D(0, 0, 1, 1);
+        batch.disableBlending();
+
+        Gdx.gl.glDisable(GL20.GL_DEPTH_TEST);
+        batch.begin();
+        // Frame buffer textures are not flipped like textures loaded from images
+        batch.draw(frameBuffer.getColorBufferTexture(), 0, 0, 1, 1, 0, 0, 1, 1);
+        batch.end();
+    }
+
+    @Override
+    public void dispose() {
+        if (frameBuffer != null) {
+            frameBuffer.dispose();
+            frameBuffer = null;
+        }
+        if (batch != null) {
+            batch.dispose();
+            batch = null;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.mbrlabs.mundus.commons.rendering;
+
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.g3d.Material;
+import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.badlogic.gdx.graphics.g3d.Shader;
+import com.badlogic.gdx.graphics.g3d.attributes.BlendingAttribute;
+import com.badlogic.gdx.graphics.g3d.attributes.TextureAttribute;
+import com.badlogic.gdx.graphics.g3d.utils.RenderableSorter;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import net.mgsx.gltf.scene3d.attributes.PBRTextureAttribute;
+
+import java.util.Arrays;
+
+/**
+ * Sorts renderables to minimize GL state changes. Opaque renderables are grouped by shader, then material, then
+ * textures and sorted front to back within each group, transparent renderables are rendered after them back to front.
+ * <p>
+ * Each renderable gets a packed 64-bit key holding its sort criteria and its index in the lowest bits. The keys are
+ * sorted as primitives, so sorting allocates nothing and calls no comparator. Ids which do not fit their bits wrap
+ * around, which only makes grouping less effective.
+ * <pre>
+ * opaque:      0 | 0 | shader (9) | material (11) | textures (10) | depth (12)           | index (20)
+ * transparent: 0 | 1 | inverted depth (22)                        | shader (9) | unused  | index (20)
+ * </pre>
+ */
+public class MundusRenderableSorter implements RenderableSorter {
+    /** Renderables above this count are left unsorted, their index would not fit into the key */
+    public static final int MAX_RENDERABLES = 1 << 20;
+
+    private static final long INDEX_MASK = MAX_RENDERABLES - 1;
+    private static final long TRANSPARENT_BIT = 1L << 62;
+
+    private static final int SHADER_BITS = 9;
+    private static final int MATERIAL_BITS = 11;
+    private static final int TEXTURE_BITS = 10;
+    private static final int OPAQUE_DEPTH_BITS = 12;
+    private static final int TRANSPARENT_DEPTH_BITS = 22;
+
+    private final ObjectIntMap<Shader> shaderIds = new ObjectIntMap<>();
+    private final ObjectIntMap<Material> materialIds = new ObjectIntMap<>();
+
+    private long[] keys = new long[0];
+    private Renderable[] sorted = new Renderable[0];
+    private final Vector3 tmpV = new Vector3();
+
+    @Override
+    public void sort(Camera camera, Array<Renderable> renderables) {
+        int count = renderables.size;
+        if (count < 2 || count > MAX_RENDERABLES) return;
+
+        if (keys.length < count) {
+            keys = new long[count];
+            sorted = new Renderable[count];
+        }
+
+        for (int i = 0; i < count; i++) {
+            keys[i] = getKey(camera, renderables.get(i)) | i;
+        }
+        Arrays.sort(keys, 0, count);
+
+        for (int i = 0; i < count; i++) {
+            sorted[i] = renderables.get((int) (keys[i] & INDEX_MASK));
+        }
+        for (int i = 0; i < count; i++) {
+            renderables.set(i, sorted[i]);
+        }
+
+        // Do not keep renderables of the pool alive
+        Arrays.fill(sorted, 0, count, null);
+        shaderIds.clear();
+        materialIds.clear();
+    }
+
+    /**
+     * @return the sort key of the renderable without its index
+     */
+    protected long getKey(Camera camera, Renderable renderable) {
+        long shader = getId(shaderIds, renderable.shader, SHADER_BITS);
+
+        tmpV.set(renderable.meshPart.center).mul(renderable.worldTransform);
+        float distance = Math.min(1f, camera.position.dst(tmpV) / camera.far);
+
+        if (isTransparent(renderable)) {
+            long depth = quantize(1f - distance, TRANSPARENT_DEPTH_BITS);
+            return TRANSPARENT_BIT
+                    | depth << 40
+                    | shader << 31;
+        }
+
+        long material = getId(materialIds, renderable.material, MATERIAL_BITS);
+        long textures = getTextureId(renderable.material);
+        long depth = quantize(distance, OPAQUE_DEPTH_BITS);
+        return shader << 53
+                | material << 42
+                | textures << 32
+                | depth << 20;
+    }
+
+    protected boolean isTransparent(Renderable renderable) {
+        BlendingAttribute blending = (BlendingAttribute) renderable.material.get(BlendingAttribute.Type);
+        return blending != null && blending.blended;
+    }
+
+    /**
+     * Combines the base color and normal textures, which make up most texture binds, into one id.
+     */
+    private static long getTextureId(Material material) {
+        int id = getTextureHandle(material, PBRTextureAttribute.BaseColorTexture) * 31
+                + getTextureHandle(material, PBRTextureAttribute.NormalTexture);
+        return id & ((1 << TEXTURE_BITS) - 1);
+    }
+
+    private static int getTextureHandle(Material material, long type) {
+        TextureAttribute attribute = (TextureAttribute) material.get(type);
+        if (attribute == null || attribute.textureDescription.texture == null) return 0;
+        return attribute.textureDescription.texture.getTextureObjectHandle();
+    }
+
+    /**
+     * Returns the id of the object, assigning the next free one on first use. Ids are reset after each sort.
+     */
+    private static <T> long getId(ObjectIntMap<T> ids, T object, int bits) {
+        if (object == null) return 0;
+
+        int id = ids.get(object, -1);
+        if (id == -1) {
+            id = ids.size;
+            ids.put(object, id);
+        }
+        return id & ((1 << bits) - 1);
+    }
+
+    private static long quantize(float value, int bits) {
+        long max = (1L << bits) - 1;
+        return Math.max(0, Math.min(max, (long) (value * max)));
+    }
+}
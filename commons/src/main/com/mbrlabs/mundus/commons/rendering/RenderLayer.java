@@ -0,0 +1,25 @@
+package com.mbrlabs.mundus.commons.rendering;
+
+/**
+ * Render layer flags of a {@link com.mbrlabs.mundus.commons.scene3d.GameObject}. The layer mask of a game object
+ * decides which render passes its components take part in, so small or unimportant objects can be kept out of
+ * expensive secondary passes.
+ */
+public final class RenderLayer {
+    /** Rendered by the main camera */
+    public static final int MAIN = 1;
+    /** Rendered into the directional shadow map */
+    public static final int SHADOW = 1 << 1;
+    /** Rendered into water reflections */
+    public static final int REFLECTION = 1 << 2;
+    /** Rendered into water refractions, including the refraction depth pass */
+    public static final int REFRACTION = 1 << 3;
+
+    /** Only rendered by the main camera */
+    public static final int MAIN_ONLY = MAIN;
+    /** Rendered in every pass, the default */
+    public static final int ALL = MAIN | SHADOW | REFLECTION | REFRACTION;
+
+    private RenderLayer() {
+    }
+}
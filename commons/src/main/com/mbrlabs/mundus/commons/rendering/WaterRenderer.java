@@ -3,16 +3,21 @@ package com.mbrlabs.mundus.commons.rendering;
 import com.badlogic.gdx.Application;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Camera;
 import com.badlogic.gdx.graphics.GL30;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g3d.ModelBatch;
+import com.badlogic.gdx.graphics.g3d.Shader;
 import com.badlogic.gdx.graphics.glutils.FrameBuffer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
 import com.mbrlabs.mundus.commons.Scene;
+import com.mbrlabs.mundus.commons.culling.VisibilityPass;
 import com.mbrlabs.mundus.commons.scene3d.GameObject;
 import com.mbrlabs.mundus.commons.scene3d.components.Component;
 import com.mbrlabs.mundus.commons.scene3d.components.WaterComponent;
+import com.mbrlabs.mundus.commons.shaders.FrameUniformBuffer;
 import com.mbrlabs.mundus.commons.utils.NestableFrameBuffer;
 import com.mbrlabs.mundus.commons.water.WaterResolution;
 
@@ -38,8 +43,20 @@ public class WaterRenderer {
     private final Vector3 tmpCamDir = new Vector3();
     private final Vector3 tmpCamPos = new Vector3();
 
+    // State of the last capture, used to throttle updates
+    private boolean captured = false;
+    private long lastCaptureFrame = -1;
+    private final Vector3 lastCapturePos = new Vector3();
+    private final Vector3 lastCaptureDir = new Vector3();
+    private float lastCaptureWaterHeight;
+    private boolean lastCaptureReflections;
+    private boolean lastCaptureRefractions;
+
+    private static final float CAMERA_MOVE_EPSILON = 0.001f;
+
     /**
      * Gets updated Reflection and Refraction textures for water, and captures depth for refraction if needed.
+     * Skipped when no water is in view, and throttled by the water update settings of the scene.
      */
     public void renderWaterFBOs(Scene scene) {
         if (fboWaterReflection == null) {
@@ -47,13 +64,77 @@ public class WaterRenderer {
             updateFBOS((int) res.x, (int) res.y);
         }
 
-        if (scene.sceneGraph.isContainsWater()) {
-            if (!isMRTRefraction) {
-                captureDepth(scene);
+        if (!scene.sceneGraph.isContainsWater()) return;
+        if (!isWaterVisible(scene.sceneGraph.getRoot())) return;
+        if (!needsCapture(scene)) return;
+
+        if (!isMRTRefraction) {
+            captureDepth(scene);
+        }
+        captureReflectionFBO(scene);
+        captureRefractionFBO(scene);
+
+        captured = true;
+        lastCaptureFrame = Gdx.graphics.getFrameId();
+        lastCapturePos.set(scene.cam.position);
+        lastCaptureDir.set(scene.cam.direction);
+        lastCaptureWaterHeight = scene.settings.waterHeight;
+        lastCaptureReflections = scene.settings.enableWaterReflections;
+        lastCaptureRefractions = scene.settings.enableWaterRefractions;
+    }
+
+    /**
+     * Whether the water frame buffers should be re-rendered this frame, based on the update interval and
+     * camera movement settings of the scene.
+     */
+    protected boolean needsCapture(Scene scene) {
+        if (!captured) return true;
+
+        // Settings affecting the content of the frame buffers always force a capture
+        if (scene.settings.waterHeight != lastCaptureWaterHeight
+                || scene.settings.enableWaterReflections != lastCaptureReflections
+                || scene.settings.enableWaterRefractions != lastCaptureRefractions) {
+            return true;
+        }
+
+        long frameId = Gdx.graphics.getFrameId();
+        if (frameId - lastCaptureFrame < Math.max(1, scene.settings.waterUpdateInterval)) return false;
+
+        if (scene.settings.waterUpdateOnCameraMove) {
+            return !scene.cam.position.epsilonEquals(lastCapturePos, CAMERA_MOVE_EPSILON)
+                    || !scene.cam.direction.epsilonEquals(lastCaptureDir, CAMERA_MOVE_EPSILON);
+        }
+
+        return true;
+    }
+
+    /**
+     * Forces the water frame buffers to be re-rendered on the next frame.
+     */
+    public void invalidate() {
+        captured = false;
+    }
+
+    /**
+     * @return true if any active water component below the given parent is visible to the main camera
+     */
+    protected boolean isWaterVisible(GameObject parent) {
+        for (GameObject go : parent.getChildren()) {
+            if (!go.active) continue;
+
+            if (go.hasWaterComponent) {
+                for (Component component : go.getComponents()) {
+                    if (component instanceof WaterComponent && !((WaterComponent) component).isCulled()) {
+                        return true;
+                    }
+                }
+            }
+
+            if (go.getChildren() != null && isWaterVisible(go)) {
+                return true;
             }
-            captureReflectionFBO(scene);
-            captureRefractionFBO(scene);
         }
+        return false;
     }
 
     /**
@@ -92,8 +173,8 @@ public class WaterRenderer {
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT);
         scene.depthBatch.begin(scene.cam);
         scene.setClippingPlane(clippingPlaneRefraction, scene.settings.waterHeight + scene.settings.distortionEdgeCorrection);
-        scene.getSceneRenderer().renderComponents(scene, scene.depthBatch, scene.sceneGraph.getRoot(), scene.getSceneRenderer().getDepthShader(), true);
-        scene.depthBatch.render(scene.modelCacheManager.modelCache, scene.environment, scene.getSceneRenderer().getDepthShader());
+        renderComponents(scene, scene.depthBatch, scene.getSceneRenderer().getDepthShader(), true, VisibilityPass.REFRACTION);
+        renderModelCache(scene, scene.depthBatch, scene.getSceneRenderer().getDepthShader(), VisibilityPass.REFRACTION);
         scene.depthBatch.end();
         fboDepthRefraction.end();
     }
@@ -105,8 +186,9 @@ public class WaterRenderer {
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT);
         scene.batch.begin(scene.cam);
         scene.setClippingPlane(clippingPlaneRefraction, scene.settings.waterHeight + scene.settings.distortionEdgeCorrection);
-        scene.getSceneRenderer().renderComponents(scene, scene.batch, scene.sceneGraph.getRoot());
-        scene.batch.render(scene.modelCacheManager.modelCache, scene.environment);
+        updateFrameUniforms(scene, scene.cam);
+        renderComponents(scene, scene.batch, null, false, VisibilityPass.REFRACTION);
+        renderModelCache(scene, scene.batch, null, VisibilityPass.REFRACTION);
         scene.batch.end();
         fboWaterRefraction.end();
     }
@@ -129,17 +211,21 @@ public class WaterRenderer {
         // Position the scene.camera below the water plane, looking "up"
         scene.cam.position.sub(0, camReflectionDistance, 0);
         scene.cam.update();
+        updateVisibility(scene, VisibilityPass.REFLECTION, scene.cam);
+        scene.beginPassLightClusters(scene.cam);
 
         // Render reflections to FBO
         fboWaterReflection.begin();
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT);
         scene.batch.begin(scene.cam);
         scene.setClippingPlane(clippingPlaneReflection, -scene.settings.waterHeight + scene.settings.distortionEdgeCorrection);
-        scene.getSceneRenderer().renderComponents(scene, scene.batch, scene.sceneGraph.getRoot());
-        scene.batch.render(scene.modelCacheManager.modelCache, scene.environment);
+        updateFrameUniforms(scene, scene.cam);
+        renderComponents(scene, scene.batch, null, false, VisibilityPass.REFLECTION);
+        renderModelCache(scene, scene.batch, null, VisibilityPass.REFLECTION);
         scene.getSceneRenderer().renderSkybox(scene);
         scene.batch.end();
         fboWaterReflection.end();
+        scene.endPassLightClusters();
 
         // Restore camera data
         scene.cam.direction.set(tmpCamDir);
@@ -148,6 +234,59 @@ public class WaterRenderer {
         scene.cam.update();
     }
 
+    /**
+     * Renders the components of the scene for the given pass. Scene renderers other than the
+     * {@link DefaultSceneRenderer} keep no visibility sets, their components are rendered without pass culling.
+     */
+    protected void renderComponents(Scene scene, ModelBatch batch, Shader shader, boolean isDepthPass, VisibilityPass pass) {
+        SceneRenderer sceneRenderer = scene.getSceneRenderer();
+        if (sceneRenderer instanceof DefaultSceneRenderer) {
+            ((DefaultSceneRenderer) sceneRenderer).renderComponents(scene, batch, scene.sceneGraph.getRoot(), shader, isDepthPass, pass);
+        } else {
+            sceneRenderer.renderComponents(scene, batch, scene.sceneGraph.getRoot(), shader, isDepthPass);
+        }
+    }
+
+    /**
+     * Renders the model cache for the given pass. Scene renderers other than the {@link DefaultSceneRenderer} render
+     * all cells in the cameras frustum.
+     */
+    protected void renderModelCache(Scene scene, ModelBatch batch, Shader shader, VisibilityPass pass) {
+        SceneRenderer sceneRenderer = scene.getSceneRenderer();
+        if (sceneRenderer instanceof DefaultSceneRenderer) {
+            ((DefaultSceneRenderer) sceneRenderer).renderModelCache(scene, batch, shader, pass);
+        } else {
+            scene.modelCacheManager.render(batch, scene.environment, shader);
+        }
+    }
+
+    /**
+     * Updates the visibility set of the pass, if the scene renderer keeps visibility sets.
+     */
+    protected void updateVisibility(Scene scene, VisibilityPass pass, Camera camera) {
+        SceneRenderer sceneRenderer = scene.getSceneRenderer();
+        if (sceneRenderer instanceof DefaultSceneRenderer) {
+            ((DefaultSceneRenderer) sceneRenderer).updateVisibility(scene, pass, camera);
+        }
+    }
+
+    /**
+     * Writes the per pass uniforms shared by all shaders. Other scene renderers than the {@link DefaultSceneRenderer}
+     * get the plain uniform buffer update, which does nothing if uniform buffers are not supported.
+     */
+    protected void updateFrameUniforms(Scene scene, Camera camera) {
+        SceneRenderer sceneRenderer = scene.getSceneRenderer();
+        if (sceneRenderer instanceof DefaultSceneRenderer) {
+            ((DefaultSceneRenderer) sceneRenderer).updateFrameUniforms(scene, camera);
+            return;
+        }
+
+        FrameUniformBuffer frameUniforms = FrameUniformBuffer.getInstance();
+        if (frameUniforms != null) {
+            frameUniforms.update(camera, scene.environment);
+        }
+    }
+
     protected void updateFBOS(int width, int height) {
         if (fboWaterReflection != null) {
             fboWaterReflection.dispose();
@@ -160,6 +299,7 @@ public class WaterRenderer {
         }
 
         fboWaterReflection = new NestableFrameBuffer(Pixmap.Format.RGB888, width, height, true);
+        captured = false;
 
         // Despite supporting MRT on WebGL2, the depth precision is far worse then doing a separate depth pass frustratingly.
         isMRTRefraction = Gdx.graphics.isGL30Available() && Gdx.app.getType() != Application.ApplicationType.WebGL;
@@ -18,7 +18,9 @@ package com.mbrlabs.mundus.commons.scene3d;
 
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Array;
+import com.mbrlabs.mundus.commons.rendering.RenderLayer;
 import com.mbrlabs.mundus.commons.scene3d.components.Component;
+import com.mbrlabs.mundus.commons.scene3d.components.CullableComponent;
 import com.mbrlabs.mundus.commons.scene3d.components.LightComponent;
 import com.mbrlabs.mundus.commons.scene3d.components.WaterComponent;
 import com.mbrlabs.mundus.commons.scene3d.traversal.DepthFirstIterator;
@@ -40,6 +42,8 @@ public class GameObject extends SimpleNode<GameObject> implements Iterable<GameO
     public boolean hasWaterComponent = false;
     private Array<String> tags;
     private Array<Component> components;
+    private int layerMask = RenderLayer.ALL;
+    private float drawDistance = 0f;
 
     public final SceneGraph sceneGraph;
 
@@ -73,6 +77,8 @@ public class GameObject extends SimpleNode<GameObject> implements Iterable<GameO
         // set name _copy
         this.name = gameObject.name + "_copy";
         this.active = gameObject.active;
+        this.layerMask = gameObject.layerMask;
+        this.drawDistance = gameObject.drawDistance;
 
         // copy tags
         if (tags != null) {
@@ -114,6 +120,72 @@ public class GameObject extends SimpleNode<GameObject> implements Iterable<GameO
         scaleChanged = false;
     }
 
+    /**
+     * Returns the render layer mask, see {@link RenderLayer}
+     *
+     * @return the layer mask
+     */
+    public int getLayerMask() {
+        return layerMask;
+    }
+
+    /**
+     * Sets the render layer mask, deciding which render passes this game objects components take part in.
+     * Children have their own layer mask.
+     *
+     * @param layerMask combination of {@link RenderLayer} flags
+     */
+    public void setLayerMask(int layerMask) {
+        if (this.layerMask == layerMask) return;
+        this.layerMask = layerMask;
+
+        // Only objects in all layers are model cached
+        if (sceneGraph != null && sceneGraph.scene != null) {
+            sceneGraph.scene.modelCacheManager.requestModelCacheRebuild();
+        }
+    }
+
+    /**
+     * @param layer a {@link RenderLayer} flag
+     * @return true if the layer mask contains the layer
+     */
+    public boolean isInLayer(int layer) {
+        return (layerMask & layer) != 0;
+    }
+
+    /**
+     * Returns the maximum distance from the camera at which this game objects components are rendered
+     *
+     * @return the draw distance, 0 for no limit
+     */
+    public float getDrawDistance() {
+        return drawDistance;
+    }
+
+    /**
+     * Sets the maximum distance from the camera at which this game objects components are rendered, in every render
+     * pass. Children have their own draw distance.
+     *
+     * @param drawDistance the draw distance, 0 for no limit
+     */
+    public void setDrawDistance(float drawDistance) {
+        if (this.drawDistance == drawDistance) return;
+        boolean hadDrawDistance = hasDrawDistance();
+        this.drawDistance = drawDistance;
+
+        // Only objects without a draw distance are model cached
+        if (hadDrawDistance != hasDrawDistance() && sceneGraph != null && sceneGraph.scene != null) {
+            sceneGraph.scene.modelCacheManager.requestModelCacheRebuild();
+        }
+    }
+
+    /**
+     * @return true if the game object has a draw distance limit
+     */
+    public boolean hasDrawDistance() {
+        return drawDistance > 0;
+    }
+
     /**
      * Returns the tags
      * 
@@ -186,6 +258,10 @@ public class GameObject extends SimpleNode<GameObject> implements Iterable<GameO
     public void removeComponent(Component component) {
         components.removeValue(component, true);
 
+        if (component instanceof CullableComponent) {
+            sceneGraph.getOctree().remove((CullableComponent) component);
+        }
+
         if (component instanceof LightComponent) {
             sceneGraph.scene.environment.remove(((LightComponent)component).getLight());
         }
@@ -316,6 +392,9 @@ public class GameObject extends SimpleNode<GameObject> implements Iterable<GameO
         if (component != null) {
             sceneGraph.scene.environment.remove(component.getLight());
         }
+
+        // Cullable components are added back to the octree on the next transform update after re-adding
+        removeFromOctree(this);
     }
 
     @Override
@@ -379,6 +458,20 @@ public class GameObject extends SimpleNode<GameObject> implements Iterable<GameO
         }
     }
 
+    private void removeFromOctree(GameObject go) {
+        for (int i = 0; i < go.components.size; ++i) {
+            Component c = go.components.get(i);
+            if (c instanceof CullableComponent) {
+                sceneGraph.getOctree().remove((CullableComponent) c);
+            }
+        }
+
+        if (go.children == null) return;
+        for (int i = 0; i < go.children.size; ++i) {
+            removeFromOctree(go.children.get(i));
+        }
+    }
+
     private <T extends Component> Array<T> findComponentsByType(Array<T> out, GameObject go, Component.Type type, boolean recursive) {
         for (int i = 0; i < go.components.size; ++i) {
             Component c = go.components.get(i);
@@ -0,0 +1,257 @@
+package com.mbrlabs.mundus.commons.scene3d;
+
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.g3d.ModelInstance;
+import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.badlogic.gdx.graphics.g3d.RenderableProvider;
+import com.badlogic.gdx.graphics.g3d.model.Node;
+import com.badlogic.gdx.graphics.g3d.model.NodePart;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.Pool;
+import com.mbrlabs.mundus.commons.scene3d.components.ModelComponent;
+
+import java.util.Arrays;
+
+/**
+ * Renders all queued model components sharing a model and material set with one instanced draw call per node
+ * part. Each distinct mesh of the model is copied once with an instance buffer holding the world transform of every
+ * queued component, node parts of the same mesh and node transform share the copy and keep their own offset and
+ * size into it.
+ * <p>
+ * Besides model components, raw world transforms can be queued, which is used by procedurally placed instances
+ * that have no game object of their own, see {@link com.mbrlabs.mundus.commons.scene3d.components.VegetationComponent}.
+ * <p>
+ * Models with skinned parts are not supported, see {@link #isSupported()}.
+ */
+public class InstancedModelGroup implements RenderableProvider, Disposable {
+    /** Floats per instance, a world transform */
+    public static final int INSTANCE_SIZE = 16;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Array<InstancedMesh> meshes = new Array<>();
+    private final Array<Renderable> renderables = new Array<>();
+
+    private boolean supported = true;
+    // Instance count the part meshes are allocated for
+    private int capacity = INITIAL_CAPACITY;
+    private float[] instanceData = new float[INITIAL_CAPACITY * INSTANCE_SIZE];
+    private float[] partData = new float[INITIAL_CAPACITY * INSTANCE_SIZE];
+    private int queuedCount = 0;
+    private long lastQueuedFrame = -1;
+
+    private final Matrix4 tmpMat = new Matrix4();
+
+    /**
+     * @param template a model instance of the group, its node parts and materials are used for all instances
+     */
+    public InstancedModelGroup(ModelInstance template) {
+        // Copies of each source mesh, one per distinct node transform
+        ObjectMap<Mesh, Array<InstancedMesh>> meshCopies = new ObjectMap<>();
+        for (Node node : template.nodes) {
+            collectParts(node, meshCopies);
+        }
+
+        if (!supported) {
+            dispose();
+        }
+    }
+
+    private void collectParts(Node node, ObjectMap<Mesh, Array<InstancedMesh>> meshCopies) {
+        if (!supported) return;
+
+        for (NodePart nodePart : node.parts) {
+            if (!nodePart.enabled) continue;
+            if (nodePart.bones != null) {
+                supported = false;
+                return;
+            }
+
+            InstancedMesh instancedMesh = getInstancedMesh(meshCopies, nodePart.meshPart.mesh, node.globalTransform);
+
+            Renderable renderable = new Renderable();
+            renderable.meshPart.set(nodePart.meshPart);
+            renderable.meshPart.mesh = instancedMesh.mesh;
+            renderable.material = nodePart.material;
+            renderables.add(renderable);
+        }
+
+        for (Node child : node.getChildren()) {
+            collectParts(child, meshCopies);
+        }
+    }
+
+    /**
+     * @return the copy of the mesh for parts with the given node transform, copied if there is none yet
+     */
+    private InstancedMesh getInstancedMesh(ObjectMap<Mesh, Array<InstancedMesh>> meshCopies, Mesh source, Matrix4 localTransform) {
+        Array<InstancedMesh> copies = meshCopies.get(source);
+        if (copies == null) {
+            copies = new Array<>(1);
+            meshCopies.put(source, copies);
+        }
+
+        // The instance buffer holds the transforms of one node, parts of other nodes need another copy
+        for (InstancedMesh copy : copies) {
+            if (Arrays.equals(copy.localTransform.val, localTransform.val)) return copy;
+        }
+
+        InstancedMesh instancedMesh = new InstancedMesh();
+        instancedMesh.mesh = source.copy(true);
+        instancedMesh.mesh.enableInstancedRendering(false, capacity, createInstanceAttributes());
+        instancedMesh.localTransform.set(localTransform);
+        instancedMesh.identity = isIdentity(localTransform);
+        copies.add(instancedMesh);
+        meshes.add(instancedMesh);
+        return instancedMesh;
+    }
+
+    /**
+     * Queues a component to be drawn by the next {@link #prepare()}.
+     */
+    public void queue(ModelComponent component, long frameId) {
+        queue(component.getModelInstance().transform, frameId);
+    }
+
+    /**
+     * Queues an instance with the given world transform to be drawn by the next {@link #prepare()}.
+     */
+    public void queue(Matrix4 transform, long frameId) {
+        growData(queuedCount + 1);
+        System.arraycopy(transform.val, 0, instanceData, queuedCount * INSTANCE_SIZE, INSTANCE_SIZE);
+        queuedCount++;
+        lastQueuedFrame = frameId;
+    }
+
+    /**
+     * Queues instances to be drawn by the next {@link #prepare()}.
+     *
+     * @param transforms world transforms, {@link #INSTANCE_SIZE} floats per instance
+     * @param offset     index of the first instance to queue
+     * @param count      number of instances to queue
+     */
+    public void queue(float[] transforms, int offset, int count, long frameId) {
+        if (count <= 0) return;
+
+        growData(queuedCount + count);
+        System.arraycopy(transforms, offset * INSTANCE_SIZE, instanceData, queuedCount * INSTANCE_SIZE, count * INSTANCE_SIZE);
+        queuedCount += count;
+        lastQueuedFrame = frameId;
+    }
+
+    public boolean hasQueued() {
+        return queuedCount > 0;
+    }
+
+    /**
+     * Writes the world transforms of the queued instances into the instance buffers and clears the queue. The
+     * group must be rendered in the same batch before the next prepare.
+     */
+    public void prepare() {
+        int count = queuedCount;
+        ensureCapacity(count);
+
+        for (InstancedMesh instancedMesh : meshes) {
+            if (instancedMesh.identity) {
+                instancedMesh.mesh.setInstanceData(instanceData, 0, count * INSTANCE_SIZE);
+                continue;
+            }
+
+            // Node transform relative to the model instance
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(instanceData, i * INSTANCE_SIZE, tmpMat.val, 0, INSTANCE_SIZE);
+                tmpMat.mul(instancedMesh.localTransform);
+                System.arraycopy(tmpMat.val, 0, partData, i * INSTANCE_SIZE, INSTANCE_SIZE);
+            }
+            instancedMesh.mesh.setInstanceData(partData, 0, count * INSTANCE_SIZE);
+        }
+
+        queuedCount = 0;
+    }
+
+    /**
+     * Grows the instance data arrays, keeping already queued instances.
+     */
+    private void growData(int count) {
+        if (count * INSTANCE_SIZE <= instanceData.length) return;
+
+        int size = MathUtils.nextPowerOfTwo(count) * INSTANCE_SIZE;
+        float[] data = new float[size];
+        System.arraycopy(instanceData, 0, data, 0, queuedCount * INSTANCE_SIZE);
+        instanceData = data;
+        partData = new float[size];
+    }
+
+    private void ensureCapacity(int count) {
+        if (count <= capacity) return;
+
+        capacity = MathUtils.nextPowerOfTwo(count);
+        for (InstancedMesh instancedMesh : meshes) {
+            instancedMesh.mesh.disableInstancedRendering();
+            instancedMesh.mesh.enableInstancedRendering(false, capacity, createInstanceAttributes());
+        }
+    }
+
+    @Override
+    public void getRenderables(Array<Renderable> renderables, Pool<Renderable> pool) {
+        for (Renderable renderable : this.renderables) {
+            renderable.shader = null;
+            renderable.environment = null;
+        }
+        renderables.addAll(this.renderables);
+    }
+
+    /**
+     * @return false if the model can not be instanced, in which case its components are rendered individually
+     */
+    public boolean isSupported() {
+        return supported;
+    }
+
+    public long getLastQueuedFrame() {
+        return lastQueuedFrame;
+    }
+
+    public int getPartCount() {
+        return renderables.size;
+    }
+
+    private static VertexAttribute[] createInstanceAttributes() {
+        return new VertexAttribute[] {
+                new VertexAttribute(VertexAttributes.Usage.Generic, 4, "i_worldTrans0"),
+                new VertexAttribute(VertexAttributes.Usage.Generic, 4, "i_worldTrans1"),
+                new VertexAttribute(VertexAttributes.Usage.Generic, 4, "i_worldTrans2"),
+                new VertexAttribute(VertexAttributes.Usage.Generic, 4, "i_worldTrans3")
+        };
+    }
+
+    private static boolean isIdentity(Matrix4 mat) {
+        float[] val = mat.val;
+        for (int i = 0; i < 16; i++) {
+            float expected = i % 5 == 0 ? 1f : 0f;
+            if (!MathUtils.isEqual(val[i], expected)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void dispose() {
+        for (InstancedMesh instancedMesh : meshes) {
+            instancedMesh.mesh.dispose();
+        }
+        meshes.clear();
+        renderables.clear();
+        queuedCount = 0;
+    }
+
+    private static class InstancedMesh {
+        Mesh mesh;
+        final Matrix4 localTransform = new Matrix4();
+        boolean identity;
+    }
+}
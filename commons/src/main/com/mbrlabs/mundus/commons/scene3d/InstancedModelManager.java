@@ -0,0 +1,161 @@
+package com.mbrlabs.mundus.commons.scene3d;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.g3d.Environment;
+import com.badlogic.gdx.graphics.g3d.ModelBatch;
+import com.badlogic.gdx.graphics.g3d.ModelInstance;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.mbrlabs.mundus.commons.scene3d.components.ModelComponent;
+import com.mbrlabs.mundus.commons.shaders.InstancedDepthShader;
+
+/**
+ * Manages GPU instanced rendering of model components with instancing enabled. Components sharing a model asset
+ * and material set are grouped into an {@link InstancedModelGroup}, so draw calls scale with the number of unique
+ * models instead of the number of objects.
+ * <p>
+ * The scene renderer queues visible components while walking the scene graph for a pass, so per instance
+ * frustum culling and layer masks apply as usual, then calls {@link #render} to draw the queued groups.
+ * Requires GL30, see {@link #isSupported()}.
+ */
+public class InstancedModelManager implements Disposable {
+    /** Groups not used for this many frames are disposed */
+    private static final int UNUSED_FRAMES = 600;
+
+    private final ObjectMap<String, InstancedModelGroup> groups = new ObjectMap<>();
+    private final Array<InstancedModelGroup> queuedGroups = new Array<>();
+    private InstancedDepthShader depthShader;
+    private long lastPruneFrame = -1;
+
+    /**
+     * @return true if instanced rendering is supported on the current backend
+     */
+    public static boolean isSupported() {
+        return Gdx.gl30 != null;
+    }
+
+    /**
+     * Queues the component for instanced rendering in the current pass.
+     *
+     * @param component the component to queue
+     * @return true if the component was queued, false if it must be rendered individually
+     */
+    public boolean queue(ModelComponent component) {
+        String key = component.getInstancingKey();
+        if (key == null) return false;
+
+        InstancedModelGroup group = getGroup(key, component.getModelInstance());
+        if (!group.isSupported()) return false;
+
+        if (!group.hasQueued()) {
+            queuedGroups.add(group);
+        }
+        group.queue(component, Gdx.graphics.getFrameId());
+        return true;
+    }
+
+    /**
+     * Queues raw world transforms for instanced rendering in the current pass.
+     *
+     * @param group      the group to draw the instances with, see {@link #getGroup}
+     * @param transforms world transforms, {@link InstancedModelGroup#INSTANCE_SIZE} floats per instance
+     * @param offset     index of the first instance to queue
+     * @param count      number of instances to queue
+     */
+    public void queue(InstancedModelGroup group, float[] transforms, int offset, int count) {
+        if (count <= 0 || !group.isSupported()) return;
+
+        if (!group.hasQueued()) {
+            queuedGroups.add(group);
+        }
+        group.queue(transforms, offset, count, Gdx.graphics.getFrameId());
+    }
+
+    /**
+     * Returns the group for the key, creating it from the template if missing. Groups are owned by the manager
+     * and disposed when unused, so they should be looked up again each frame rather than kept.
+     *
+     * @param key      the instancing key, see {@link ModelComponent#getInstancingKey()}
+     * @param template a model instance of the group, used if the group has to be created
+     */
+    public InstancedModelGroup getGroup(String key, ModelInstance template) {
+        InstancedModelGroup group = groups.get(key);
+        if (group == null) {
+            group = new InstancedModelGroup(template);
+            groups.put(key, group);
+        }
+        return group;
+    }
+
+    /**
+     * Renders the groups queued since the last call into the batch, which must have begun.
+     *
+     * @param isDepthPass whether this is a depth render pass, instances are then drawn with an instanced depth shader
+     */
+    public void render(ModelBatch batch, Environment environment, boolean isDepthPass) {
+        for (int i = 0; i < queuedGroups.size; i++) {
+            InstancedModelGroup group = queuedGroups.get(i);
+            group.prepare();
+            if (isDepthPass) {
+                batch.render(group, environment, getDepthShader());
+            } else {
+                batch.render(group, environment);
+            }
+        }
+        queuedGroups.clear();
+
+        pruneUnusedGroups();
+    }
+
+    private void pruneUnusedGroups() {
+        long frameId = Gdx.graphics.getFrameId();
+        if (frameId == lastPruneFrame) return;
+        lastPruneFrame = frameId;
+
+        ObjectMap.Entries<String, InstancedModelGroup> entries = groups.entries();
+        while (entries.hasNext()) {
+            InstancedModelGroup group = entries.next().value;
+            if (frameId - group.getLastQueuedFrame() > UNUSED_FRAMES) {
+                group.dispose();
+                entries.remove();
+            }
+        }
+    }
+
+    private InstancedDepthShader getDepthShader() {
+        if (depthShader == null) {
+            depthShader = new InstancedDepthShader();
+            depthShader.init();
+        }
+        return depthShader;
+    }
+
+    /**
+     * @return number of instanced groups currently allocated
+     */
+    public int getGroupCount() {
+        return groups.size;
+    }
+
+    /**
+     * Disposes all groups, they are recreated on demand. Call when models or materials of instanced components
+     * changed in a way not reflected by their instancing key.
+     */
+    public void invalidate() {
+        for (InstancedModelGroup group : groups.values()) {
+            group.dispose();
+        }
+        groups.clear();
+        queuedGroups.clear();
+    }
+
+    @Override
+    public void dispose() {
+        invalidate();
+        if (depthShader != null) {
+            depthShader.dispose();
+            depthShader = null;
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package com.mbrlabs.mundus.commons.scene3d;
+
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.g3d.Material;
+import com.badlogic.gdx.graphics.g3d.ModelInstance;
+import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.badlogic.gdx.math.Matrix3;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IdentityMap;
+import com.badlogic.gdx.utils.ShortArray;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.async.AsyncTask;
+import com.mbrlabs.mundus.commons.scene3d.components.CullableComponent;
+import com.mbrlabs.mundus.commons.utils.RenderablePool;
+
+/**
+ * Builds the merged meshes of {@link ModelCacheCell}s.
+ * <p>
+ * Building is split in two. The snapshot step runs on the render thread and copies everything the merge needs
+ * (vertex and index data, world transforms and materials) into immutable snapshots. The merge step transforms
+ * vertices into world space, groups parts by material and rebases indices, and only touches those snapshots so
+ * it can run on a worker thread. Uploading the merged data to the GPU is left to
+ * {@link ModelCacheCell#apply(CellBuild)} on the render thread.
+ */
+public class ModelCacheBuilder implements Disposable {
+    /** Max vertices of a merged mesh, limited by short indices */
+    public static final int MAX_VERTICES = 1 << 16;
+
+    private final AsyncExecutor executor = new AsyncExecutor(1, "ModelCacheBuilder");
+    private final RenderablePool renderablePool = new RenderablePool();
+    private final Array<Renderable> tmpRenderables = new Array<>();
+    private final BoundingBox tmpBounds = new BoundingBox();
+
+    private AsyncResult<Array<CellBuild>> pending;
+
+    /**
+     * @return true while an asynchronous build is in progress
+     */
+    public boolean isBuilding() {
+        return pending != null;
+    }
+
+    /**
+     * Snapshots the given cells and merges them on the worker thread. Results are retrieved with {@link #poll()}.
+     * Must be called from the render thread, and only when no build is in progress.
+     */
+    public void buildAsync(Array<ModelCacheCell> cells) {
+        if (isBuilding()) throw new IllegalStateException("A model cache build is already in progress");
+
+        final Array<CellBuild> builds = snapshot(cells);
+        pending = executor.submit(new AsyncTask<Array<CellBuild>>() {
+            @Override
+            public Array<CellBuild> call() {
+                for (CellBuild build : builds) {
+                    merge(build);
+                }
+                return builds;
+            }
+        });
+    }
+
+    /**
+     * @return the finished builds of the last asynchronous build, or null if it is not done yet
+     */
+    public Array<CellBuild> poll() {
+        if (pending == null || !pending.isDone()) return null;
+        Array<CellBuild> builds = pending.get();
+        pending = null;
+        return builds;
+    }
+
+    /**
+     * Snapshots and merges the given cells on the calling thread.
+     */
+    public Array<CellBuild> buildNow(Array<ModelCacheCell> cells) {
+        Array<CellBuild> builds = snapshot(cells);
+        for (CellBuild build : builds) {
+            merge(build);
+        }
+        return builds;
+    }
+
+    private Array<CellBuild> snapshot(Array<ModelCacheCell> cells) {
+        Array<CellBuild> builds = new Array<>(cells.size);
+        // Meshes shared between cacheables are only copied once per build
+        IdentityMap<Mesh, MeshSnapshot> meshSnapshots = new IdentityMap<>();
+
+        for (ModelCacheCell cell : cells) {
+            CellBuild build = new CellBuild(cell, cell.getVersion());
+            build.bounds.inf();
+
+            for (ModelCacheable cacheable : cell.getCacheables()) {
+                ModelInstance modelInstance = cacheable.getModelInstance();
+                build.bounds.ext(getWorldBounds(cacheable));
+
+                if (cacheable instanceof ModelEventable) {
+                    build.modelEventables.add((ModelEventable) cacheable);
+                }
+
+                tmpRenderables.clear();
+                modelInstance.getRenderables(tmpRenderables, renderablePool);
+                for (Renderable renderable : tmpRenderables) {
+                    if (!isMergeable(renderable)) {
+                        build.passthrough.add(new Renderable().set(renderable));
+                        continue;
+                    }
+
+                    Mesh mesh = renderable.meshPart.mesh;
+                    MeshSnapshot meshSnapshot = meshSnapshots.get(mesh);
+                    if (meshSnapshot == null) {
+                        meshSnapshot = new MeshSnapshot(mesh);
+                        meshSnapshots.put(mesh, meshSnapshot);
+                    }
+
+                    build.parts.add(new PartSnapshot(meshSnapshot, renderable));
+                }
+                renderablePool.flush();
+            }
+            tmpRenderables.clear();
+
+            builds.add(build);
+        }
+
+        return builds;
+    }
+
+    private boolean isMergeable(Renderable renderable) {
+        // Skinned parts and strips/fans cannot be merged
+        if (renderable.bones != null) return false;
+
+        int primitiveType = renderable.meshPart.primitiveType;
+        if (primitiveType != GL20.GL_TRIANGLES && primitiveType != GL20.GL_LINES && primitiveType != GL20.GL_POINTS) {
+            return false;
+        }
+
+        Mesh mesh = renderable.meshPart.mesh;
+        return mesh.getNumIndices() > 0 || renderable.meshPart.size <= MAX_VERTICES;
+    }
+
+    private BoundingBox getWorldBounds(ModelCacheable cacheable) {
+        if (cacheable instanceof CullableComponent) {
+            return tmpBounds.set(((CullableComponent) cacheable).getOrientedBoundingBox().getVertices());
+        }
+
+        ModelInstance modelInstance = cacheable.getModelInstance();
+        return modelInstance.calculateBoundingBox(tmpBounds).mul(modelInstance.transform);
+    }
+
+    /**
+     * Merges the parts of a build. Only works on snapshot data, safe to call from any thread.
+     */
+    static void merge(CellBuild build) {
+        Array<Array<PartSnapshot>> groups = new Array<>();
+
+        for (PartSnapshot part : build.parts) {
+            Array<PartSnapshot> group = null;
+            for (Array<PartSnapshot> candidate : groups) {
+                if (candidate.first().canMergeWith(part)) {
+                    group = candidate;
+                    break;
+                }
+            }
+            if (group == null) {
+                group = new Array<>();
+                groups.add(group);
+            }
+            group.add(part);
+        }
+
+        for (Array<PartSnapshot> group : groups) {
+            mergeGroup(group, build.merged);
+        }
+    }
+
+    private static void mergeGroup(Array<PartSnapshot> group, Array<MergedPart> out) {
+        PartSnapshot first = group.first();
+        int stride = first.mesh.stride;
+
+        FloatArray vertices = new FloatArray();
+        ShortArray indices = new ShortArray();
+        int vertexCount = 0;
+
+        for (PartSnapshot part : group) {
+            MeshSnapshot mesh = part.mesh;
+
+            // Range of vertices referenced by the part
+            int firstVertex;
+            int lastVertex;
+            if (mesh.indices != null) {
+                firstVertex = Integer.MAX_VALUE;
+                lastVertex = 0;
+                for (int i = part.offset; i < part.offset + part.count; i++) {
+                    int index = mesh.indices[i] & 0xFFFF;
+                    firstVertex = Math.min(firstVertex, index);
+                    lastVertex = Math.max(lastVertex, index);
+                }
+            } else {
+                firstVertex = part.offset;
+                lastVertex = part.offset + part.count - 1;
+            }
+            int partVertices = lastVertex - firstVertex + 1;
+            if (partVertices <= 0) continue;
+
+            if (vertexCount + partVertices > MAX_VERTICES) {
+                out.add(new MergedPart(first, vertices.toArray(), indices.toArray()));
+                vertices.clear();
+                indices.clear();
+                vertexCount = 0;
+            }
+
+            int start = vertices.size;
+            vertices.addAll(mesh.vertices, firstVertex * stride, partVertices * stride);
+            transformVertices(vertices.items, start, partVertices, mesh, part.transform);
+
+            if (mesh.indices != null) {
+                for (int i = part.offset; i < part.offset + part.count; i++) {
+                    indices.add((short) ((mesh.indices[i] & 0xFFFF) - firstVertex + vertexCount));
+                }
+            } else {
+                for (int i = 0; i < part.count; i++) {
+                    indices.add((short) (vertexCount + i));
+                }
+            }
+
+            vertexCount += partVertices;
+        }
+
+        if (indices.size > 0) {
+            out.add(new MergedPart(first, vertices.toArray(), indices.toArray()));
+        }
+    }
+
+    /**
+     * Transforms positions, normals, tangents and binormals of the given vertices into world space.
+     */
+    private static void transformVertices(float[] vertices, int start, int count, MeshSnapshot mesh, Matrix4 transform) {
+        Matrix3 directionMatrix = new Matrix3().set(transform);
+        Matrix3 normalMatrix = new Matrix3().set(transform);
+        if (normalMatrix.det() != 0) {
+            normalMatrix.inv().transpose();
+        }
+
+        Vector3 tmp = new Vector3();
+        int stride = mesh.stride;
+
+        for (int v = 0; v < count; v++) {
+            int vertex = start + v * stride;
+
+            if (mesh.positionOffset >= 0) {
+                int i = vertex + mesh.positionOffset;
+                tmp.set(vertices[i], vertices[i + 1], mesh.positionComponents > 2 ? vertices[i + 2] : 0).mul(transform);
+                vertices[i] = tmp.x;
+                vertices[i + 1] = tmp.y;
+                if (mesh.positionComponents > 2) vertices[i + 2] = tmp.z;
+            }
+            if (mesh.normalOffset >= 0) {
+                transformDirection(vertices, vertex + mesh.normalOffset, normalMatrix, tmp);
+            }
+            if (mesh.tangentOffset >= 0) {
+                transformDirection(vertices, vertex + mesh.tangentOffset, directionMatrix, tmp);
+            }
+            if (mesh.binormalOffset >= 0) {
+                transformDirection(vertices, vertex + mesh.binormalOffset, directionMatrix, tmp);
+            }
+        }
+    }
+
+    private static void transformDirection(float[] vertices, int i, Matrix3 matrix, Vector3 tmp) {
+        tmp.set(vertices[i], vertices[i + 1], vertices[i + 2]).mul(matrix).nor();
+        vertices[i] = tmp.x;
+        vertices[i + 1] = tmp.y;
+        vertices[i + 2] = tmp.z;
+    }
+
+    @Override
+    public void dispose() {
+        executor.dispose();
+        pending = null;
+    }
+
+    /**
+     * Immutable copy of a meshes vertex and index data.
+     */
+    static class MeshSnapshot {
+        final VertexAttributes attributes;
+        final float[] vertices;
+        final short[] indices;
+        final int stride;
+        final int positionOffset;
+        final int positionComponents;
+        final int normalOffset;
+        final int tangentOffset;
+        final int binormalOffset;
+
+        MeshSnapshot(Mesh mesh) {
+            attributes = mesh.getVertexAttributes();
+            stride = mesh.getVertexSize() / 4;
+
+            vertices = new float[mesh.getNumVertices() * stride];
+            mesh.getVertices(vertices);
+
+            if (mesh.getNumIndices() > 0) {
+                indices = new short[mesh.getNumIndices()];
+                mesh.getIndices(indices);
+            } else {
+                indices = null;
+            }
+
+            VertexAttribute position = attributes.findByUsage(VertexAttributes.Usage.Position);
+            positionOffset = position != null ? position.offset / 4 : -1;
+            positionComponents = position != null ? position.numComponents : 0;
+            normalOffset = getOffset(VertexAttributes.Usage.Normal);
+            tangentOffset = getOffset(VertexAttributes.Usage.Tangent);
+            binormalOffset = getOffset(VertexAttributes.Usage.BiNormal);
+        }
+
+        private int getOffset(int usage) {
+            VertexAttribute attribute = attributes.findByUsage(usage);
+            return attribute != null && attribute.numComponents >= 3 ? attribute.offset / 4 : -1;
+        }
+    }
+
+    /**
+     * Immutable snapshot of a single mesh part of a cacheable.
+     */
+    static class PartSnapshot {
+        final MeshSnapshot mesh;
+        final int offset;
+        final int count;
+        final int primitiveType;
+        final Matrix4 transform;
+        /** The live material, used for rendering */
+        final Material material;
+        /** A copy of the material taken at snapshot time, used for grouping */
+        final Material materialSnapshot;
+
+        PartSnapshot(MeshSnapshot mesh, Renderable renderable) {
+            this.mesh = mesh;
+            this.offset = renderable.meshPart.offset;
+            this.count = renderable.meshPart.size;
+            this.primitiveType = renderable.meshPart.primitiveType;
+            this.transform = new Matrix4(renderable.worldTransform);
+            this.material = renderable.material;
+            this.materialSnapshot = renderable.material.copy();
+        }
+
+        boolean canMergeWith(PartSnapshot other) {
+            return primitiveType == other.primitiveType
+                    && mesh.attributes.equals(other.mesh.attributes)
+                    && materialSnapshot.equals(other.materialSnapshot);
+        }
+    }
+
+    /**
+     * CPU side result of merging, ready to be uploaded.
+     */
+    static class MergedPart {
+        final VertexAttributes attributes;
+        final int primitiveType;
+        final Material material;
+        final float[] vertices;
+        final short[] indices;
+
+        MergedPart(PartSnapshot first, float[] vertices, short[] indices) {
+            this.attributes = first.mesh.attributes;
+            this.primitiveType = first.primitiveType;
+            this.material = first.material;
+            this.vertices = vertices;
+            this.indices = indices;
+        }
+    }
+
+    /**
+     * Snapshot and merge result for a single cell.
+     */
+    public static class CellBuild {
+        final ModelCacheCell cell;
+        final int version;
+        final BoundingBox bounds = new BoundingBox();
+        final Array<PartSnapshot> parts = new Array<>();
+        final Array<MergedPart> merged = new Array<>();
+        final Array<Renderable> passthrough = new Array<>();
+        final Array<ModelEventable> modelEventables = new Array<>();
+
+        CellBuild(ModelCacheCell cell, int version) {
+            this.cell = cell;
+            this.version = version;
+        }
+
+        public ModelCacheCell getCell() {
+            return cell;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.mbrlabs.mundus.commons.scene3d;
+
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.badlogic.gdx.graphics.g3d.RenderableProvider;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * A single spatial cell of the {@link ModelCacheManager}. Renders the merged meshes built from the cacheable
+ * objects positioned inside the cell, and holds the combined world bounds of those objects for culling.
+ * <p>
+ * Merged meshes are built by the {@link ModelCacheBuilder} and swapped in with {@link #apply}, the previous
+ * meshes keep rendering until then.
+ */
+public class ModelCacheCell implements RenderableProvider, Disposable {
+    private final long key;
+    private final BoundingBox bounds = new BoundingBox();
+    private final Array<ModelCacheable> cacheables = new Array<>();
+    private final Array<ModelEventable> modelEventables = new Array<>();
+    private final Array<Renderable> renderables = new Array<>();
+    private final Array<Mesh> meshes = new Array<>();
+
+    private boolean dirty = true;
+    // Incremented on every change, used to detect changes made while a build was in progress
+    private int version = 0;
+    private int builtVersion = -1;
+
+    public ModelCacheCell(long key) {
+        this.key = key;
+    }
+
+    public void add(ModelCacheable cacheable) {
+        cacheables.add(cacheable);
+        markDirty();
+    }
+
+    public void remove(ModelCacheable cacheable) {
+        if (cacheables.removeValue(cacheable, true)) {
+            markDirty();
+        }
+    }
+
+    /**
+     * Swaps in the merged meshes of a finished build, uploading them to the GPU. Must be called on the render
+     * thread. Builds older than the currently applied one are ignored.
+     *
+     * @param build the finished build for this cell
+     */
+    public void apply(ModelCacheBuilder.CellBuild build) {
+        if (build.version <= builtVersion) return;
+
+        disposeMeshes();
+        renderables.clear();
+
+        for (ModelCacheBuilder.MergedPart part : build.merged) {
+            Mesh mesh = new Mesh(true, part.vertices.length / (part.attributes.vertexSize / 4), part.indices.length, part.attributes);
+            mesh.setVertices(part.vertices);
+            mesh.setIndices(part.indices);
+            meshes.add(mesh);
+
+            Renderable renderable = new Renderable();
+            renderable.meshPart.set("modelCacheCell", mesh, 0, part.indices.length, part.primitiveType);
+            renderable.meshPart.update();
+            renderable.material = part.material;
+            renderables.add(renderable);
+        }
+        renderables.addAll(build.passthrough);
+
+        bounds.set(build.bounds);
+        modelEventables.clear();
+        modelEventables.addAll(build.modelEventables);
+
+        builtVersion = build.version;
+        dirty = builtVersion != version;
+    }
+
+    @Override
+    public void getRenderables(Array<Renderable> renderables, Pool<Renderable> pool) {
+        for (Renderable renderable : this.renderables) {
+            renderable.shader = null;
+            renderable.environment = null;
+        }
+        renderables.addAll(this.renderables);
+    }
+
+    public void markDirty() {
+        dirty = true;
+        version++;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public boolean isEmpty() {
+        return cacheables.size == 0;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public Array<ModelCacheable> getCacheables() {
+        return cacheables;
+    }
+
+    public BoundingBox getBounds() {
+        return bounds;
+    }
+
+    public Array<ModelEventable> getModelEventables() {
+        return modelEventables;
+    }
+
+    private void disposeMeshes() {
+        for (Mesh mesh : meshes) {
+            mesh.dispose();
+        }
+        meshes.clear();
+    }
+
+    @Override
+    public void dispose() {
+        disposeMeshes();
+        renderables.clear();
+    }
+}
@@ -1,66 +1,289 @@
 package com.mbrlabs.mundus.commons.scene3d;
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Camera;
 import com.badlogic.gdx.graphics.Mesh;
-import com.badlogic.gdx.graphics.g3d.ModelCache;
+import com.badlogic.gdx.graphics.g3d.Environment;
+import com.badlogic.gdx.graphics.g3d.ModelBatch;
 import com.badlogic.gdx.graphics.g3d.ModelInstance;
+import com.badlogic.gdx.graphics.g3d.Shader;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IdentityMap;
+import com.badlogic.gdx.utils.LongMap;
+import com.badlogic.gdx.utils.ObjectMap;
 import com.mbrlabs.mundus.commons.Scene;
 import com.mbrlabs.mundus.commons.scene3d.components.Component;
 
+import java.util.Arrays;
+
 /**
- * Manages a ModelCache and keeps it up to date based on requests for rebuilds and set intervals
+ * Manages spatially chunked model caches and keeps them up to date based on requests for rebuilds and set intervals.
+ * <p>
+ * Cacheable objects are assigned to cubic cells by their position, each cell owning its own merged meshes. On a
+ * rebuild only the cells whose objects were added, removed, moved or changed are rebuilt, and cells are frustum
+ * culled against the camera of each render pass.
+ * <p>
+ * Interval rebuilds merge meshes on a background thread, the previous meshes keep rendering until the new ones are
+ * uploaded.
  *
  * @author JamesTKhan
  * @version August 02, 2022
  */
 public class ModelCacheManager implements Disposable {
+    public static final float DEFAULT_CELL_SIZE = 64f;
+
+    // Bits per axis when packing cell coordinates into a key
+    private static final int KEY_BITS = 21;
+    private static final long KEY_MASK = (1L << KEY_BITS) - 1;
+    private static final int KEY_OFFSET = 1 << (KEY_BITS - 1);
+
     private final Scene scene;
 
-    public ModelCache modelCache;
     protected float modelCacheUpdateInterval = 0.5f;
     protected float lastModelCacheRebuild = modelCacheUpdateInterval;
     protected boolean modelCacheRebuildRequested = true;
+    protected float cellSize = DEFAULT_CELL_SIZE;
+
+    private final LongMap<ModelCacheCell> cells = new LongMap<>();
+    private final Array<ModelCacheCell> cellList = new Array<>();
+    private final IdentityMap<ModelCacheable, CachedEntry> entries = new IdentityMap<>();
     private final Array<ModelEventable> modelEventables;
+    private final ModelCacheBuilder builder = new ModelCacheBuilder();
+    private final Array<ModelCacheCell> dirtyCells = new Array<>();
+    private final Vector3 tmpPosition = new Vector3();
+    private int rebuildStamp = 0;
+    // Incremented whenever the rendered content of any cell changes
+    private long version = 0;
 
     public ModelCacheManager(Scene scene) {
-        modelCache = new ModelCache();
         this.scene = scene;
         this.modelEventables = new Array<>();
     }
 
     public void update(float delta) {
+        Array<ModelCacheBuilder.CellBuild> finished = builder.poll();
+        if (finished != null) {
+            applyBuilds(finished);
+        }
+
         if (modelCacheRebuildRequested) {
             lastModelCacheRebuild += delta;
 
-            if (lastModelCacheRebuild > modelCacheUpdateInterval) {
+            // Wait for the running build to finish before starting the next one
+            if (lastModelCacheRebuild > modelCacheUpdateInterval && !builder.isBuilding()) {
                 modelCacheRebuildRequested = false;
                 lastModelCacheRebuild = 0f;
-                rebuildModelCache();
+                rebuildModelCacheAsync();
+            }
+        }
+    }
+
+    /**
+     * Renders the cells visible to the batches camera.
+     *
+     * @param batch       the model batch to use, must have begun
+     * @param environment the environment
+     */
+    public void render(ModelBatch batch, Environment environment) {
+        render(batch, environment, null);
+    }
+
+    /**
+     * Renders the cells visible to the batches camera with the given shader.
+     *
+     * @param batch       the model batch to use, must have begun
+     * @param environment the environment
+     * @param shader      the shader to use, or null to use the batches shader provider
+     */
+    public void render(ModelBatch batch, Environment environment, Shader shader) {
+        render(batch, environment, shader, null, 0, 0);
+    }
+
+    /**
+     * Renders the cells visible to the batches camera with the given shader, skipping cells beyond the draw distance
+     * or below the minimum screen size. Cells are tested with the bounding sphere of all their objects, so objects of
+     * a rendered cell are drawn even if they are beyond the limits themselves.
+     *
+     * @param batch          the model batch to use, must have begun
+     * @param environment    the environment
+     * @param shader         the shader to use, or null to use the batches shader provider
+     * @param distanceCamera the camera to measure the distance and screen size from, or null to skip these tests
+     * @param drawDistance   the draw distance, 0 for no limit
+     * @param minScreenSize  the minimum fraction of the screen height a cell has to cover, 0 for no limit
+     */
+    public void render(ModelBatch batch, Environment environment, Shader shader, Camera distanceCamera, float drawDistance, float minScreenSize) {
+        boolean cull = scene.settings.useFrustumCulling && batch.getCamera() != null;
+        boolean cullDistance = distanceCamera != null && (drawDistance > 0 || minScreenSize > 0);
+
+        for (int i = 0; i < cellList.size; i++) {
+            ModelCacheCell cell = cellList.get(i);
+            if (cull && !batch.getCamera().frustum.boundsInFrustum(cell.getBounds())) continue;
+            if (cullDistance && !isWithinDrawDistance(cell, distanceCamera, drawDistance, minScreenSize)) continue;
+
+            if (shader == null) {
+                batch.render(cell, environment);
+            } else {
+                batch.render(cell, environment, shader);
             }
         }
     }
 
+    private boolean isWithinDrawDistance(ModelCacheCell cell, Camera camera, float drawDistance, float minScreenSize) {
+        BoundingBox bounds = cell.getBounds();
+        float radius = bounds.getDimensions(tmpPosition).len() * 0.5f;
+        float distance = Math.max(0f, bounds.getCenter(tmpPosition).dst(camera.position) - radius);
+        if (drawDistance > 0 && distance > drawDistance) return false;
+
+        return minScreenSize <= 0 || com.mbrlabs.mundus.commons.utils.MathUtils.getScreenSize(camera, radius, distance) >= minScreenSize;
+    }
+
     /**
-     * Rebuilds model cache for the current scene. Potentially expensive
-     * depending on the size of the scene and should only be rebuilt when needed.
+     * Brings the model cache up to date for the current scene immediately, rebuilding only the cells that have
+     * changed since the last rebuild. Potentially expensive depending on the size of the changes and should only
+     * be called when needed, prefer {@link #requestModelCacheRebuild()}.
      */
     public void rebuildModelCache() {
+        Array<ModelCacheCell> cellsToBuild = updateCells();
+        if (cellsToBuild.size > 0) {
+            applyBuilds(builder.buildNow(cellsToBuild));
+        }
+    }
+
+    /**
+     * Brings the model cache up to date for the current scene, merging the changed cells on a background thread.
+     * Results are applied by {@link #update(float)} once ready.
+     */
+    protected void rebuildModelCacheAsync() {
+        Array<ModelCacheCell> cellsToBuild = updateCells();
+        if (cellsToBuild.size > 0) {
+            builder.buildAsync(cellsToBuild);
+        }
+    }
+
+    /**
+     * Reassigns cacheables to cells and removes empty cells.
+     *
+     * @return the cells that need to be rebuilt
+     */
+    private Array<ModelCacheCell> updateCells() {
+        rebuildStamp++;
+        collectCacheables(scene.sceneGraph.getGameObjects());
+
+        // Objects no longer in the scene, or no longer cacheable
+        ObjectMap.Entries<ModelCacheable, CachedEntry> iterator = entries.entries();
+        while (iterator.hasNext()) {
+            ObjectMap.Entry<ModelCacheable, CachedEntry> entry = iterator.next();
+            if (entry.value.stamp != rebuildStamp) {
+                cells.get(entry.value.cellKey).remove(entry.key);
+                iterator.remove();
+            }
+        }
+
+        dirtyCells.clear();
+        for (int i = cellList.size - 1; i >= 0; i--) {
+            ModelCacheCell cell = cellList.get(i);
+            if (!cell.isDirty()) continue;
+
+            if (cell.isEmpty()) {
+                cell.dispose();
+                cells.remove(cell.getKey());
+                cellList.removeIndex(i);
+                version++;
+            } else {
+                dirtyCells.add(cell);
+            }
+        }
+
+        updateModelEventables();
+        return dirtyCells;
+    }
+
+    private void applyBuilds(Array<ModelCacheBuilder.CellBuild> builds) {
+        for (ModelCacheBuilder.CellBuild build : builds) {
+            ModelCacheCell cell = build.getCell();
+            // Cell may have been removed while building
+            if (cells.get(cell.getKey()) != cell) continue;
+
+            cell.apply(build);
+            version++;
+            if (cell.isDirty()) {
+                // Changed while building
+                requestModelCacheRebuild();
+            }
+        }
+
+        updateModelEventables();
+    }
+
+    private void updateModelEventables() {
         modelEventables.clear();
-        modelCache.begin(scene.cam);
-        addModelsToCache(scene.sceneGraph.getGameObjects());
-        modelCache.end();
+        for (ModelCacheCell cell : cellList) {
+            modelEventables.addAll(cell.getModelEventables());
+        }
     }
 
-    protected void addModelsToCache(Array<GameObject> gameObjects) {
+    /**
+     * Marks every cell dirty so the whole model cache is rebuilt on the next rebuild.
+     */
+    public void invalidateAll() {
+        for (ModelCacheCell cell : cellList) {
+            cell.markDirty();
+        }
+        requestModelCacheRebuild();
+    }
+
+    /**
+     * Requests a rebuild and marks the cell of the cacheable dirty, for changes the transform and model instance
+     * checks do not catch, like modified materials. Cacheables which are not cached yet, for example because their
+     * game object was inactive, are picked up by the rebuild.
+     */
+    public void invalidate(ModelCacheable cacheable) {
+        markDirty(cacheable);
+        requestModelCacheRebuild();
+    }
+
+    /**
+     * Requests a rebuild and marks the cells of all cacheable components of the game object and its children dirty.
+     */
+    public void invalidate(GameObject go) {
+        markDirty(go);
+        requestModelCacheRebuild();
+    }
+
+    private void markDirty(ModelCacheable cacheable) {
+        CachedEntry entry = entries.get(cacheable);
+        if (entry != null) {
+            cells.get(entry.cellKey).markDirty();
+        }
+    }
+
+    private void markDirty(GameObject go) {
+        for (Component comp : go.getComponents()) {
+            if (comp instanceof ModelCacheable) {
+                markDirty((ModelCacheable) comp);
+            }
+        }
+
+        if (go.getChildren() != null) {
+            for (GameObject child : go.getChildren()) {
+                markDirty(child);
+            }
+        }
+    }
+
+    protected void collectCacheables(Array<GameObject> gameObjects) {
         for (GameObject go : gameObjects) {
 
             if (!go.active) continue;
 
             for (Component comp : go.getComponents()) {
                 if (comp instanceof ModelCacheable && ((ModelCacheable) comp).shouldCache()) {
-                    ModelInstance modelInstance = ((ModelCacheable) comp).getModelInstance();
+                    ModelCacheable cacheable = (ModelCacheable) comp;
+                    ModelInstance modelInstance = cacheable.getModelInstance();
 
                     boolean skip = false;
                     for (Mesh mesh : modelInstance.model.meshes) {
@@ -74,20 +297,95 @@ public class ModelCacheManager implements Disposable {
                         continue;
                     }
 
-                    modelCache.add(((ModelCacheable) comp).getModelInstance());
-
-                    if (comp instanceof ModelEventable) {
-                        modelEventables.add((ModelEventable) comp);
-                    }
+                    track(cacheable, modelInstance);
                 }
             }
 
             if (go.getChildren() != null) {
-                addModelsToCache(go.getChildren());
+                collectCacheables(go.getChildren());
             }
         }
     }
 
+    /**
+     * Assigns the cacheable to its cell, marking cells dirty if it is new, moved to another cell, transformed
+     * or its model instance was replaced.
+     */
+    private void track(ModelCacheable cacheable, ModelInstance modelInstance) {
+        long key = getCellKey(modelInstance.transform.getTranslation(tmpPosition));
+        CachedEntry entry = entries.get(cacheable);
+
+        if (entry == null) {
+            entry = new CachedEntry();
+            entries.put(cacheable, entry);
+            getOrCreateCell(key).add(cacheable);
+        } else if (entry.cellKey != key) {
+            cells.get(entry.cellKey).remove(cacheable);
+            getOrCreateCell(key).add(cacheable);
+        } else if (entry.modelInstance != modelInstance || !Arrays.equals(entry.transform, modelInstance.transform.val)) {
+            cells.get(key).markDirty();
+        }
+
+        entry.cellKey = key;
+        entry.modelInstance = modelInstance;
+        entry.stamp = rebuildStamp;
+        System.arraycopy(modelInstance.transform.val, 0, entry.transform, 0, 16);
+    }
+
+    private ModelCacheCell getOrCreateCell(long key) {
+        ModelCacheCell cell = cells.get(key);
+        if (cell == null) {
+            cell = new ModelCacheCell(key);
+            cells.put(key, cell);
+            cellList.add(cell);
+        }
+        return cell;
+    }
+
+    private long getCellKey(Vector3 position) {
+        long x = (MathUtils.floor(position.x / cellSize) + KEY_OFFSET) & KEY_MASK;
+        long y = (MathUtils.floor(position.y / cellSize) + KEY_OFFSET) & KEY_MASK;
+        long z = (MathUtils.floor(position.z / cellSize) + KEY_OFFSET) & KEY_MASK;
+        return x | (y << KEY_BITS) | (z << (KEY_BITS * 2));
+    }
+
+    /**
+     * @return a number that changes whenever the rendered model cache changes, useful for invalidating data
+     * derived from it such as cached shadows
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the spatial cells of the model cache
+     */
+    public Array<ModelCacheCell> getCells() {
+        return cellList;
+    }
+
+    /**
+     * Change the size of the spatial cells, in world units. Causes a full rebuild.
+     *
+     * @param cellSize the cell size
+     */
+    public void setCellSize(float cellSize) {
+        if (this.cellSize == cellSize) return;
+        this.cellSize = cellSize;
+        // Force every entry to be reassigned
+        entries.clear();
+        for (ModelCacheCell cell : cellList) {
+            cell.dispose();
+        }
+        cells.clear();
+        cellList.clear();
+        requestModelCacheRebuild();
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
     /**
      * Request for the model cache to be rebuilt on the next interval
      */
@@ -133,6 +431,19 @@ public class ModelCacheManager implements Disposable {
 
     @Override
     public void dispose() {
-        modelCache.dispose();
+        builder.dispose();
+        for (ModelCacheCell cell : cellList) {
+            cell.dispose();
+        }
+        cells.clear();
+        cellList.clear();
+        entries.clear();
+    }
+
+    private static class CachedEntry {
+        long cellKey;
+        int stamp;
+        ModelInstance modelInstance;
+        final float[] transform = new float[16];
     }
 }
@@ -22,10 +22,15 @@ import com.badlogic.gdx.graphics.g3d.ModelInstance;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Array;
 import com.mbrlabs.mundus.commons.Scene;
+import com.mbrlabs.mundus.commons.culling.LooseOctree;
+import com.mbrlabs.mundus.commons.culling.VisibilityPass;
+import com.mbrlabs.mundus.commons.scene3d.components.CullableComponent;
 import com.mbrlabs.mundus.commons.scene3d.components.Component;
 import com.mbrlabs.mundus.commons.scene3d.components.ModelComponent;
 import com.mbrlabs.mundus.commons.scene3d.components.WaterComponent;
 
+import java.util.Arrays;
+
 /**
  * @author Marcus Brummer
  * @version 16-01-2016
@@ -38,11 +43,19 @@ public class SceneGraph {
 
     private boolean containsWater = false;
 
+    /** Spatial index of all cullable components, kept up to date by the components themselves */
+    private final LooseOctree<CullableComponent> octree = new LooseOctree<>();
+
+    /** Id of the last culling run per visibility pass, -1 if culling has never run for the pass */
+    private final long[] visibilityFrames = new long[VisibilityPass.values().length];
+    private long lastVisibilityFrame = -1;
+
     public SceneGraph(Scene scene) {
         root = new GameObject(this, null, -1);
         root.initChildrenArray();
         root.active = false;
         this.scene = scene;
+        Arrays.fill(visibilityFrames, -1);
     }
 
     public void update() {
@@ -194,6 +207,28 @@ public class SceneGraph {
         return root;
     }
 
+    public LooseOctree<CullableComponent> getOctree() {
+        return octree;
+    }
+
+    /**
+     * @return id of the current culling run for the pass, or -1 if culling has never been performed for it
+     */
+    public long getVisibilityFrame(VisibilityPass pass) {
+        return visibilityFrames[pass.ordinal()];
+    }
+
+    /**
+     * Starts a new culling run for the given pass. Components marked visible during previous runs of the pass
+     * are considered culled for it until marked visible again.
+     *
+     * @return the id of the new culling run, unique across all passes
+     */
+    public long nextVisibilityFrame(VisibilityPass pass) {
+        visibilityFrames[pass.ordinal()] = ++lastVisibilityFrame;
+        return lastVisibilityFrame;
+    }
+
     public boolean isContainsWater() {
         return containsWater;
     }
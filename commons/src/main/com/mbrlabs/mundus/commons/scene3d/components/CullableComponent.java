@@ -17,28 +17,28 @@
 package com.mbrlabs.mundus.commons.scene3d.components;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Camera;
 import com.badlogic.gdx.graphics.g3d.ModelInstance;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.math.collision.BoundingBox;
 import com.badlogic.gdx.math.collision.OrientedBoundingBox;
 import com.badlogic.gdx.utils.Array;
+import com.mbrlabs.mundus.commons.culling.VisibilityPass;
 import com.mbrlabs.mundus.commons.event.Event;
 import com.mbrlabs.mundus.commons.event.EventType;
 import com.mbrlabs.mundus.commons.scene3d.DirtyListener;
 import com.mbrlabs.mundus.commons.scene3d.GameObject;
 import com.mbrlabs.mundus.commons.scene3d.ModelCacheable;
 import com.mbrlabs.mundus.commons.scene3d.ModelEventable;
-import com.mbrlabs.mundus.commons.shadows.MundusDirectionalShadowLight;
 
-import static com.mbrlabs.mundus.commons.utils.ModelUtils.isVisible;
+import java.util.Arrays;
 
 /**
  * Components that can be Culled via Frustum Culling should extend
  * this class and call setDimensions once they have access to a modelInstance as well as super
- * for render() and update()
- * The isCulled value will be set accordingly and components can check if is isCulled == true
- * before rendering.
+ * for update().
+ * The component keeps its world bounds up to date in the scene graphs octree, which the scene renderer
+ * queries with the frustum of each render pass to mark visible components. Components can check if
+ * isCulled(pass) == true before rendering.
  *
  * @author JamesTKhan
  * @version July 18, 2022
@@ -46,24 +46,22 @@ import static com.mbrlabs.mundus.commons.utils.ModelUtils.isVisible;
 public abstract class CullableComponent extends AbstractComponent implements ModelEventable, DirtyListener {
     private final static BoundingBox tmpBounds = new BoundingBox();
     private final static Vector3 tmpScale = new Vector3();
-    private final static short frameCullCheckInterval = 15;
 
     protected final Vector3 center = new Vector3();
     protected final Vector3 dimensions = new Vector3();
     private final OrientedBoundingBox orientedBoundingBox = new OrientedBoundingBox();
     protected float radius;
 
-    // Render calls since last cull check
-    protected short framesSinceLastCullCheck = 0;
+    // Id of the last culling run in which this component was visible, per visibility pass
+    protected final long[] visibleFrames = new long[VisibilityPass.values().length];
 
-    // Is it offscreen?
-    protected boolean isCulled = false;
     private Array<Event> events;
     private ModelInstance modelInstance = null;
 
     public CullableComponent(GameObject go) {
         super(go);
         go.addDirtyListener(this);
+        Arrays.fill(visibleFrames, -1);
     }
 
     @Override
@@ -73,41 +71,6 @@ public abstract class CullableComponent extends AbstractComponent implements Mod
         if (gameObject.scaleChanged) {
             setDimensions(modelInstance);
         }
-
-        if (!gameObject.sceneGraph.scene.settings.useFrustumCulling) {
-            isCulled = false;
-            return;
-        }
-
-        // Cannot frustum cull model cache objects, no reason for perform calculations
-        if (this instanceof ModelCacheable) {
-            if (((ModelCacheable) this).shouldCache()) {
-                isCulled = false;
-                return;
-            }
-        }
-
-        // If object is not culled, don't perform a cull check every frame, just in intervals
-        // to reduce matrix calculations
-        if (!isCulled && framesSinceLastCullCheck++ < frameCullCheckInterval) return;
-        framesSinceLastCullCheck = 0;
-
-        boolean visibleToPerspective;
-        boolean visibleToShadowMap = false;
-
-        Camera sceneCam = gameObject.sceneGraph.scene.cam;
-
-        visibleToPerspective = isVisible(sceneCam, modelInstance, center, radius);
-
-        // If not visible to main cam, check if it's visible to shadow map (to prevent shadows popping out)
-        if (!visibleToPerspective) {
-            if (gameObject.sceneGraph.scene.environment.shadowMap instanceof MundusDirectionalShadowLight) {
-                MundusDirectionalShadowLight shadowLight = (MundusDirectionalShadowLight) gameObject.sceneGraph.scene.environment.shadowMap;
-                visibleToShadowMap = isVisible(shadowLight.getCamera(), modelInstance, center, radius);
-            }
-        }
-
-        isCulled = !visibleToPerspective && !visibleToShadowMap;
     }
 
     @Override
@@ -149,6 +112,16 @@ public abstract class CullableComponent extends AbstractComponent implements Mod
         dimensions.scl(tmpScale);
         radius = dimensions.len() / 2f;
         orientedBoundingBox.set(tmpBounds, modelInstance.transform);
+        updateOctree();
+    }
+
+    /**
+     * Updates the world space bounds of this component in the scene graphs octree.
+     */
+    protected void updateOctree() {
+        if (modelInstance == null) return;
+        tmpBounds.set(orientedBoundingBox.getVertices());
+        gameObject.sceneGraph.getOctree().update(this, tmpBounds);
     }
 
     public OrientedBoundingBox getOrientedBoundingBox() {
@@ -179,8 +152,35 @@ public abstract class CullableComponent extends AbstractComponent implements Mod
         return radius;
     }
 
+    /**
+     * Marks this component as visible for the given pass.
+     *
+     * @param pass  the visibility pass
+     * @param frame the id of the culling run, see {@link com.mbrlabs.mundus.commons.scene3d.SceneGraph#nextVisibilityFrame(VisibilityPass)}
+     */
+    public void markVisible(VisibilityPass pass, long frame) {
+        visibleFrames[pass.getCullingPass().ordinal()] = frame;
+    }
+
+    /**
+     * @return true if the component is culled for the main camera
+     */
     public boolean isCulled() {
-        return isCulled;
+        return isCulled(VisibilityPass.CAMERA);
+    }
+
+    /**
+     * @return true if the component is culled for the given pass
+     */
+    public boolean isCulled(VisibilityPass pass) {
+        if (!gameObject.sceneGraph.scene.settings.useFrustumCulling) return false;
+
+        // Model cache objects are culled per cell by the ModelCacheManager
+        if (this instanceof ModelCacheable && ((ModelCacheable) this).shouldCache()) return false;
+
+        VisibilityPass cullingPass = pass.getCullingPass();
+        long frame = gameObject.sceneGraph.getVisibilityFrame(cullingPass);
+        return frame >= 0 && visibleFrames[cullingPass.ordinal()] != frame;
     }
 
     @Override
@@ -190,5 +190,6 @@ public abstract class CullableComponent extends AbstractComponent implements Mod
 
         if (modelInstance == null) return;
         orientedBoundingBox.setTransform(modelInstance.transform);
+        updateOctree();
     }
 }
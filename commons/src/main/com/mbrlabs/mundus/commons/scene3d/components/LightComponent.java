@@ -77,7 +77,7 @@ public class LightComponent extends AbstractComponent implements DirtyListener {
 
     @Override
     public Component clone(GameObject go) {
-        if (!LightUtils.canCreateLight(go.sceneGraph.scene.environment, lightType)) {
+        if (!LightUtils.canCreateLight(go.sceneGraph.scene, lightType)) {
             Gdx.app.log(TAG, "Could not clone Light Component, max lights reached.");
             return null;
         }
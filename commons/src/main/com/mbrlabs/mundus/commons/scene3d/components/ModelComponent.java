@@ -16,15 +16,25 @@
 
 package com.mbrlabs.mundus.commons.scene3d.components;
 
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.PerspectiveCamera;
 import com.badlogic.gdx.graphics.g3d.Material;
 import com.badlogic.gdx.graphics.g3d.ModelInstance;
 import com.badlogic.gdx.graphics.g3d.RenderableProvider;
+import com.badlogic.gdx.graphics.g3d.model.MeshPart;
+import com.badlogic.gdx.graphics.g3d.model.NodePart;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectMap;
 import com.mbrlabs.mundus.commons.assets.Asset;
 import com.mbrlabs.mundus.commons.assets.MaterialAsset;
 import com.mbrlabs.mundus.commons.assets.ModelAsset;
 import com.mbrlabs.mundus.commons.assets.TextureAsset;
+import com.mbrlabs.mundus.commons.lod.ModelLod;
+import com.mbrlabs.mundus.commons.rendering.RenderLayer;
 import com.mbrlabs.mundus.commons.scene3d.GameObject;
+import com.mbrlabs.mundus.commons.scene3d.InstancedModelManager;
 import com.mbrlabs.mundus.commons.scene3d.ModelCacheable;
 
 import java.util.Objects;
@@ -34,10 +44,21 @@ import java.util.Objects;
  * @version 17-01-2016
  */
 public class ModelComponent extends CullableComponent implements AssetUsage, ModelCacheable, RenderableComponent {
+    private static final Vector3 tmpVec = new Vector3();
 
     protected ModelAsset modelAsset;
     protected ModelInstance modelInstance;
     protected boolean useModelCache = false;
+    protected boolean useInstancing = false;
+    protected boolean occluder = false;
+    // Model and material assets identifying the instancing group, null until computed
+    private String instancingKey;
+
+    // LOD state, the node parts of the model instance in LOD order and their original mesh parts
+    private int lodLevel = 0;
+    private ModelLod appliedLod;
+    private Array<NodePart> nodeParts;
+    private Array<MeshPart> baseMeshParts;
 
     protected ObjectMap<String, MaterialAsset> materials;  // g3db material id to material asset uuid
 
@@ -54,6 +75,8 @@ public class ModelComponent extends CullableComponent implements AssetUsage, Mod
 
     public void setModel(ModelAsset model, boolean inheritMaterials) {
         this.modelAsset = model;
+        instancingKey = null;
+        resetLod();
         modelInstance = new ModelInstance(model.getModel());
         modelInstance.transform = gameObject.getTransform();
 
@@ -70,6 +93,8 @@ public class ModelComponent extends CullableComponent implements AssetUsage, Mod
 
     public void setModel(final ModelInstance modelInstance) {
         this.modelInstance = modelInstance;
+        instancingKey = null;
+        resetLod();
         modelInstance.transform = gameObject.getTransform();
 
         setDimensions(this.modelInstance);
@@ -84,16 +109,32 @@ public class ModelComponent extends CullableComponent implements AssetUsage, Mod
     }
 
     public void applyMaterials() {
+        instancingKey = null;
         for (Material mat : modelInstance.materials) {
             MaterialAsset materialAsset = materials.get(mat.id);
             if (materialAsset == null) continue;
 
             materialAsset.applyToMaterial(mat);
         }
+
+        // Cells merge renderables by material, so the cell has to be rebuilt with the new materials
+        if (gameObject.sceneGraph != null) {
+            gameObject.sceneGraph.scene.modelCacheManager.invalidate(this);
+        }
     }
 
     @Override
     public boolean shouldCache() {
+        // The model cache renders in every pass and is culled per cell, so objects excluded from a pass or with
+        // their own draw distance render individually
+        return useModelCache && gameObject.getLayerMask() == RenderLayer.ALL && !gameObject.hasDrawDistance();
+    }
+
+    /**
+     * @return true if the model cache is enabled for this component, even if it is not cached because of its
+     * game objects layer mask or draw distance
+     */
+    public boolean isUseModelCache() {
         return useModelCache;
     }
 
@@ -102,6 +143,127 @@ public class ModelComponent extends CullableComponent implements AssetUsage, Mod
         useModelCache = value;
     }
 
+    /**
+     * @return true if instancing is enabled for this component, even if it is not currently instanced
+     */
+    public boolean isUseInstancing() {
+        return useInstancing;
+    }
+
+    /**
+     * Sets if this should be rendered with GPU instancing, together with all other instanced components
+     * sharing the same model and materials.
+     */
+    public void setUseInstancing(boolean useInstancing) {
+        this.useInstancing = useInstancing;
+    }
+
+    /**
+     * @return true if this component hides other objects from the occlusion culling
+     */
+    public boolean isOccluder() {
+        return occluder;
+    }
+
+    /**
+     * Sets if this component is rasterized as occluder by the {@link com.mbrlabs.mundus.commons.culling.OcclusionCuller}.
+     * Meant for large, closed models like buildings, walls and rocks.
+     */
+    public void setOccluder(boolean occluder) {
+        this.occluder = occluder;
+    }
+
+    /**
+     * @return true if this component should be rendered instanced. Model cached components are never instanced.
+     */
+    public boolean shouldInstance() {
+        return useInstancing && !shouldCache() && InstancedModelManager.isSupported();
+    }
+
+    /**
+     * @return key of the instancing group, components with the same key share model and materials. Null if the
+     * component should not be instanced.
+     */
+    public String getInstancingKey() {
+        if (!shouldInstance() || modelAsset == null || modelInstance == null) return null;
+
+        if (instancingKey == null) {
+            StringBuilder builder = new StringBuilder(modelAsset.getID());
+            for (Material mat : modelInstance.materials) {
+                MaterialAsset materialAsset = materials.get(mat.id);
+                builder.append('|').append(materialAsset == null ? mat.id : materialAsset.getID());
+            }
+            if (lodLevel > 0) {
+                builder.append("|lod").append(lodLevel);
+            }
+            instancingKey = builder.toString();
+        }
+        return instancingKey;
+    }
+
+    @Override
+    public void update(float delta) {
+        super.update(delta);
+        updateLod();
+    }
+
+    /**
+     * @return the LOD level currently rendered, 0 for the original model
+     */
+    public int getLodLevel() {
+        return lodLevel;
+    }
+
+    /**
+     * Selects the LOD level from the projected screen size of the bounds in the scene camera. Model cached
+     * components always use the original model, as the cache is only rebuilt on demand.
+     */
+    private void updateLod() {
+        if (modelInstance == null) return;
+
+        ModelLod lod = modelAsset != null ? modelAsset.getLod() : null;
+        int level = 0;
+        if (lod != null && !shouldCache() && gameObject.sceneGraph != null && gameObject.sceneGraph.scene != null) {
+            Camera cam = gameObject.sceneGraph.scene.cam;
+            if (cam instanceof PerspectiveCamera) {
+                float distance = tmpVec.set(center).mul(modelInstance.transform).dst(cam.position);
+                float tanHalfFov = (float) Math.tan(((PerspectiveCamera) cam).fieldOfView * 0.5f * MathUtils.degreesToRadians);
+                float screenSize = distance > 0 ? radius / (distance * tanHalfFov) : Float.MAX_VALUE;
+                level = lod.selectLevel(screenSize * gameObject.sceneGraph.scene.settings.lodBias, lodLevel);
+            }
+        }
+
+        if (level != lodLevel || lod != appliedLod) {
+            applyLod(lod, level);
+        }
+    }
+
+    private void applyLod(ModelLod lod, int level) {
+        if (nodeParts == null) {
+            nodeParts = ModelLod.collectNodeParts(modelInstance.nodes, new Array<NodePart>());
+            baseMeshParts = new Array<>(nodeParts.size);
+            for (NodePart nodePart : nodeParts) {
+                baseMeshParts.add(new MeshPart(nodePart.meshPart));
+            }
+        }
+
+        for (int i = 0; i < nodeParts.size; i++) {
+            MeshPart lodPart = lod != null ? lod.getMeshPart(level, i) : null;
+            nodeParts.get(i).meshPart.set(lodPart != null ? lodPart : baseMeshParts.get(i));
+        }
+
+        lodLevel = level;
+        appliedLod = lod;
+        instancingKey = null;
+    }
+
+    private void resetLod() {
+        lodLevel = 0;
+        appliedLod = null;
+        nodeParts = null;
+        baseMeshParts = null;
+    }
+
     @Override
     public ModelInstance getModelInstance() {
         return modelInstance;
@@ -114,6 +276,8 @@ public class ModelComponent extends CullableComponent implements AssetUsage, Mod
         mc.setModel(new ModelInstance(modelAsset.getModel()));
         mc.materials.putAll(this.materials);
         mc.setUseModelCache(useModelCache);
+        mc.setUseInstancing(useInstancing);
+        mc.setOccluder(occluder);
         gameObject.sceneGraph.scene.modelCacheManager.requestModelCacheRebuild();
         return mc;
     }
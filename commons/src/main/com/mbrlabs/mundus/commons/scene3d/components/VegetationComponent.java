@@ -0,0 +1,566 @@
+package com.mbrlabs.mundus.commons.scene3d.components;
+
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.g3d.Material;
+import com.badlogic.gdx.graphics.g3d.ModelInstance;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Quaternion;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.utils.IntMap;
+import com.mbrlabs.mundus.commons.Scene;
+import com.mbrlabs.mundus.commons.assets.Asset;
+import com.mbrlabs.mundus.commons.assets.MaterialAsset;
+import com.mbrlabs.mundus.commons.assets.ModelAsset;
+import com.mbrlabs.mundus.commons.culling.VisibilityPass;
+import com.mbrlabs.mundus.commons.scene3d.GameObject;
+import com.mbrlabs.mundus.commons.scene3d.InstancedModelGroup;
+import com.mbrlabs.mundus.commons.scene3d.InstancedModelManager;
+import com.mbrlabs.mundus.commons.terrain.SplatMap;
+import com.mbrlabs.mundus.commons.terrain.SplatTexture;
+import com.mbrlabs.mundus.commons.terrain.Terrain;
+
+/**
+ * Scatters a model procedurally over the terrain of its game object, for grass, rocks and other vegetation.
+ * <p>
+ * Instances are placed by density, an optional splat map channel used as density map, and slope and height
+ * rules. They are generated lazily per terrain chunk around the scene camera and dropped again once out of
+ * range, so only the placement settings are serialized. Each chunk is seeded by its position, so it always
+ * regenerates with the same instances.
+ * <p>
+ * Chunks are frustum culled and drawn with GPU instancing through the scenes {@link InstancedModelManager}, which
+ * requires GL30. Towards the view distance chunks are thinned out to fade the vegetation out. Skinned models can
+ * not be instanced and are not rendered.
+ */
+public class VegetationComponent extends AbstractComponent implements AssetUsage {
+    public static final float DEFAULT_DENSITY = 0.5f;
+    public static final float DEFAULT_MAX_SLOPE = 30f;
+    public static final float DEFAULT_MIN_SCALE = 0.8f;
+    public static final float DEFAULT_MAX_SCALE = 1.2f;
+    public static final float DEFAULT_CHUNK_SIZE = 32f;
+    public static final float MIN_CHUNK_SIZE = 4f;
+    public static final float DEFAULT_VIEW_DISTANCE = 150f;
+    public static final float DEFAULT_FADE_START = 0.7f;
+
+    /** Chunks generated per frame at most, spreads the generation cost as the camera moves */
+    private static final int CHUNKS_PER_FRAME = 4;
+    private static final int MAX_INSTANCES_PER_CHUNK = 65536;
+
+    // Placement settings, changing them regenerates the chunks
+    private ModelAsset modelAsset;
+    private float density = DEFAULT_DENSITY;
+    private int seed = 0;
+    private SplatTexture.Channel densityChannel;
+    private float minSlope = 0f;
+    private float maxSlope = DEFAULT_MAX_SLOPE;
+    private float minHeight = 0f;
+    private float maxHeight = 0f;
+    private float minScale = DEFAULT_MIN_SCALE;
+    private float maxScale = DEFAULT_MAX_SCALE;
+    private boolean randomRotation = true;
+    private boolean alignToNormal = false;
+    private float chunkSize = DEFAULT_CHUNK_SIZE;
+
+    // Render settings
+    private float viewDistance = DEFAULT_VIEW_DISTANCE;
+    private float fadeStart = DEFAULT_FADE_START;
+    private boolean castShadows = false;
+
+    private final IntMap<Chunk> chunks = new IntMap<>();
+    private ModelInstance template;
+    private String instancingKey;
+    private float modelRadius;
+
+    private final Matrix4 invTransform = new Matrix4();
+    private final Matrix4 tmpMat = new Matrix4();
+    private final Vector3 localCam = new Vector3();
+    private final Vector3 tmpVec = new Vector3();
+    private final Vector3 tmpNormal = new Vector3();
+    private final Quaternion tmpQuat = new Quaternion();
+    private final BoundingBox tmpBounds = new BoundingBox();
+
+    public VegetationComponent(GameObject go) {
+        super(go);
+        type = Type.VEGETATION;
+    }
+
+    /**
+     * Drops chunks out of range and generates missing chunks around the scene camera, nearest first.
+     */
+    @Override
+    public void update(float delta) {
+        TerrainComponent terrainComponent = getTerrainComponent();
+        if (template == null || terrainComponent == null) return;
+        if (gameObject.sceneGraph == null || gameObject.sceneGraph.scene == null) return;
+
+        Camera cam = gameObject.sceneGraph.scene.cam;
+        Terrain terrain = terrainComponent.getTerrainAsset().getTerrain();
+        Matrix4 transform = gameObject.getTransform();
+
+        invTransform.set(transform).inv();
+        localCam.set(cam.position).mul(invTransform);
+        float localViewDistance = viewDistance / transform.getScaleX();
+
+        IntMap.Entries<Chunk> entries = chunks.entries();
+        while (entries.hasNext()) {
+            Chunk chunk = entries.next().value;
+            float distance = getChunkDistance(chunk.x, chunk.z);
+            if (distance > localViewDistance + chunkSize) {
+                entries.remove();
+                continue;
+            }
+            chunk.visibleCount = getFadedCount(chunk.count, distance / localViewDistance);
+        }
+
+        int chunksX = MathUtils.ceil(terrain.terrainWidth / chunkSize);
+        int minX = Math.max(0, MathUtils.floor((localCam.x - localViewDistance) / chunkSize));
+        int maxX = Math.min(chunksX - 1, MathUtils.floor((localCam.x + localViewDistance) / chunkSize));
+        int minZ = Math.max(0, MathUtils.floor((localCam.z - localViewDistance) / chunkSize));
+        int maxZ = Math.min(MathUtils.ceil(terrain.terrainDepth / chunkSize) - 1,
+                MathUtils.floor((localCam.z + localViewDistance) / chunkSize));
+
+        for (int i = 0; i < CHUNKS_PER_FRAME; i++) {
+            int nearestX = -1;
+            int nearestZ = -1;
+            float nearest = Float.MAX_VALUE;
+
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    if (chunks.containsKey(z * chunksX + x)) continue;
+
+                    float distance = getChunkDistance(x, z);
+                    if (distance <= localViewDistance && distance < nearest) {
+                        nearest = distance;
+                        nearestX = x;
+                        nearestZ = z;
+                    }
+                }
+            }
+            if (nearestX < 0) break;
+
+            int key = nearestZ * chunksX + nearestX;
+            Chunk chunk = generateChunk(terrainComponent, terrain, nearestX, nearestZ, key);
+            chunk.visibleCount = getFadedCount(chunk.count, nearest / localViewDistance);
+            chunks.put(key, chunk);
+        }
+    }
+
+    /**
+     * Queues the chunks visible to the camera for instanced rendering in the current pass. The scene renderer
+     * calls this while walking the scene graph, the instances are drawn at the end of the pass.
+     *
+     * @param camera the camera of the pass
+     * @param pass   the visibility pass being rendered
+     */
+    public void render(Scene scene, Camera camera, VisibilityPass pass) {
+        if (pass == VisibilityPass.SHADOW && !castShadows) return;
+        if (template == null || chunks.size == 0 || !InstancedModelManager.isSupported()) return;
+
+        InstancedModelGroup group = scene.instancedModelManager.getGroup(instancingKey, template);
+        for (Chunk chunk : chunks.values()) {
+            if (chunk.visibleCount == 0) continue;
+            if (!camera.frustum.boundsInFrustum(chunk.bounds)) continue;
+
+            scene.instancedModelManager.queue(group, chunk.transforms, 0, chunk.visibleCount);
+        }
+    }
+
+    private Chunk generateChunk(TerrainComponent terrainComponent, Terrain terrain, int chunkX, int chunkZ, int key) {
+        RandomXS128 random = new RandomXS128(((long) seed << 32) | (key & 0xFFFFFFFFL));
+        Matrix4 transform = gameObject.getTransform();
+        float baseHeight = transform.getTranslation(tmpVec).y;
+
+        float startX = chunkX * chunkSize;
+        float startZ = chunkZ * chunkSize;
+        float sizeX = Math.min(startX + chunkSize, terrain.terrainWidth) - startX;
+        float sizeZ = Math.min(startZ + chunkSize, terrain.terrainDepth) - startZ;
+        int candidates = Math.min(MAX_INSTANCES_PER_CHUNK, MathUtils.round(density * sizeX * sizeZ));
+
+        Pixmap densityMap = null;
+        if (densityChannel != null) {
+            SplatMap splatMap = terrain.getTerrainTexture().getSplatmap();
+            if (splatMap != null) {
+                densityMap = splatMap.getPixmap();
+            }
+        }
+
+        Chunk chunk = new Chunk(chunkX, chunkZ, candidates);
+        chunk.bounds.inf();
+
+        for (int i = 0; i < candidates; i++) {
+            // Always draw every value, so a rejected candidate does not change the ones after it
+            float localX = startX + random.nextFloat() * sizeX;
+            float localZ = startZ + random.nextFloat() * sizeZ;
+            float threshold = random.nextFloat();
+            float rotation = random.nextFloat() * 360f;
+            float scale = MathUtils.lerp(minScale, maxScale, random.nextFloat());
+
+            if (densityMap != null && threshold >= sampleDensity(densityMap, terrain, localX, localZ)) continue;
+
+            tmpVec.set(localX, 0, localZ).mul(transform);
+            float worldX = tmpVec.x;
+            float worldZ = tmpVec.z;
+            float worldY = terrainComponent.getHeightAtWorldCoord(worldX, worldZ) + baseHeight;
+            if (maxHeight > minHeight && (worldY < minHeight || worldY > maxHeight)) continue;
+
+            tmpNormal.set(terrainComponent.getNormalAtWordCoordinate(tmpNormal, worldX, worldZ)).nor();
+            float slope = MathUtils.acos(MathUtils.clamp(tmpNormal.y, -1f, 1f)) * MathUtils.radiansToDegrees;
+            if (slope < minSlope || slope > maxSlope) continue;
+
+            tmpMat.setToTranslation(worldX, worldY, worldZ);
+            if (alignToNormal) {
+                tmpMat.rotate(tmpQuat.setFromCross(Vector3.Y, tmpNormal));
+            }
+            if (randomRotation) {
+                tmpMat.rotate(Vector3.Y, rotation);
+            }
+            tmpMat.scale(scale, scale, scale);
+
+            chunk.add(tmpMat);
+            chunk.bounds.ext(worldX, worldY, worldZ);
+        }
+
+        if (chunk.count > 0) {
+            float radius = modelRadius * maxScale;
+            chunk.bounds.min.sub(radius);
+            chunk.bounds.max.add(radius);
+            chunk.bounds.update();
+        }
+        chunk.finish(random);
+        return chunk;
+    }
+
+    /**
+     * @return density map value of the splat map channel at the terrain local position, 0 to 1
+     */
+    private float sampleDensity(Pixmap densityMap, Terrain terrain, float localX, float localZ) {
+        int x = MathUtils.clamp((int) (localX / terrain.terrainWidth * densityMap.getWidth()), 0, densityMap.getWidth() - 1);
+        int y = MathUtils.clamp((int) (localZ / terrain.terrainDepth * densityMap.getHeight()), 0, densityMap.getHeight() - 1);
+        int pixel = densityMap.getPixel(x, y);
+
+        int r = (pixel >>> 24) & 0xFF;
+        int g = (pixel >>> 16) & 0xFF;
+        int b = (pixel >>> 8) & 0xFF;
+        int a = pixel & 0xFF;
+
+        switch (densityChannel) {
+            case R:
+                return r / 255f;
+            case G:
+                return g / 255f;
+            case B:
+                return b / 255f;
+            case A:
+                return a / 255f;
+            default:
+                // Base texture shows where no other channel is painted
+                return Math.max(0f, 1f - (r + g + b + a) / 255f);
+        }
+    }
+
+    /**
+     * @return distance on the XZ plane from the terrain local camera position to the chunk
+     */
+    private float getChunkDistance(int chunkX, int chunkZ) {
+        float dx = Math.max(0f, Math.max(chunkX * chunkSize - localCam.x, localCam.x - (chunkX + 1) * chunkSize));
+        float dz = Math.max(0f, Math.max(chunkZ * chunkSize - localCam.z, localCam.z - (chunkZ + 1) * chunkSize));
+        return (float) Math.sqrt(dx * dx + dz * dz);
+    }
+
+    /**
+     * @param distance distance to the chunk, as a fraction of the view distance
+     * @return number of instances to draw, reduced linearly from the fade start to the view distance
+     */
+    private int getFadedCount(int count, float distance) {
+        if (distance > 1f) return 0;
+        if (distance <= fadeStart || fadeStart >= 1f) return count;
+        return MathUtils.round(count * (1f - (distance - fadeStart) / (1f - fadeStart)));
+    }
+
+    private TerrainComponent getTerrainComponent() {
+        TerrainComponent terrainComponent = gameObject.findComponentByType(Type.TERRAIN);
+        if (terrainComponent == null || terrainComponent.getTerrainAsset() == null) return null;
+        return terrainComponent;
+    }
+
+    /**
+     * Drops all generated chunks, they are regenerated around the camera on the next updates. Call after the
+     * terrain changed.
+     */
+    public void invalidate() {
+        chunks.clear();
+    }
+
+    /**
+     * @return number of currently generated instances
+     */
+    public int getInstanceCount() {
+        int count = 0;
+        for (Chunk chunk : chunks.values()) {
+            count += chunk.count;
+        }
+        return count;
+    }
+
+    public int getChunkCount() {
+        return chunks.size;
+    }
+
+    public ModelAsset getModelAsset() {
+        return modelAsset;
+    }
+
+    public void setModelAsset(ModelAsset modelAsset) {
+        this.modelAsset = modelAsset;
+        template = null;
+        instancingKey = null;
+        invalidate();
+        if (modelAsset == null) return;
+
+        template = new ModelInstance(modelAsset.getModel());
+        StringBuilder builder = new StringBuilder(modelAsset.getID());
+        for (Material mat : template.materials) {
+            MaterialAsset materialAsset = modelAsset.getDefaultMaterials().get(mat.id);
+            if (materialAsset != null) {
+                materialAsset.applyToMaterial(mat);
+            }
+            // Same key as model components using the default materials, so they share instancing groups
+            builder.append('|').append(materialAsset == null ? mat.id : materialAsset.getID());
+        }
+        instancingKey = builder.toString();
+
+        template.calculateBoundingBox(tmpBounds);
+        modelRadius = Math.max(tmpBounds.min.len(), tmpBounds.max.len());
+    }
+
+    public float getDensity() {
+        return density;
+    }
+
+    /**
+     * @param density instances per square unit of terrain, before the placement rules are applied
+     */
+    public void setDensity(float density) {
+        this.density = Math.max(0f, density);
+        invalidate();
+    }
+
+    public int getSeed() {
+        return seed;
+    }
+
+    public void setSeed(int seed) {
+        this.seed = seed;
+        invalidate();
+    }
+
+    public SplatTexture.Channel getDensityChannel() {
+        return densityChannel;
+    }
+
+    /**
+     * @param densityChannel splat map channel used as density map, or null to scatter evenly
+     */
+    public void setDensityChannel(SplatTexture.Channel densityChannel) {
+        this.densityChannel = densityChannel;
+        invalidate();
+    }
+
+    public float getMinSlope() {
+        return minSlope;
+    }
+
+    /**
+     * @param minSlope minimum terrain slope in degrees
+     */
+    public void setMinSlope(float minSlope) {
+        this.minSlope = minSlope;
+        invalidate();
+    }
+
+    public float getMaxSlope() {
+        return maxSlope;
+    }
+
+    /**
+     * @param maxSlope maximum terrain slope in degrees
+     */
+    public void setMaxSlope(float maxSlope) {
+        this.maxSlope = maxSlope;
+        invalidate();
+    }
+
+    public float getMinHeight() {
+        return minHeight;
+    }
+
+    /**
+     * @param minHeight minimum world height, the height rule is disabled while max height is not above it
+     */
+    public void setMinHeight(float minHeight) {
+        this.minHeight = minHeight;
+        invalidate();
+    }
+
+    public float getMaxHeight() {
+        return maxHeight;
+    }
+
+    /**
+     * @param maxHeight maximum world height, the height rule is disabled while it is not above min height
+     */
+    public void setMaxHeight(float maxHeight) {
+        this.maxHeight = maxHeight;
+        invalidate();
+    }
+
+    public float getMinScale() {
+        return minScale;
+    }
+
+    public void setMinScale(float minScale) {
+        this.minScale = minScale;
+        invalidate();
+    }
+
+    public float getMaxScale() {
+        return maxScale;
+    }
+
+    public void setMaxScale(float maxScale) {
+        this.maxScale = maxScale;
+        invalidate();
+    }
+
+    public boolean isRandomRotation() {
+        return randomRotation;
+    }
+
+    public void setRandomRotation(boolean randomRotation) {
+        this.randomRotation = randomRotation;
+        invalidate();
+    }
+
+    public boolean isAlignToNormal() {
+        return alignToNormal;
+    }
+
+    public void setAlignToNormal(boolean alignToNormal) {
+        this.alignToNormal = alignToNormal;
+        invalidate();
+    }
+
+    public float getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @param chunkSize size of the generated chunks in terrain units, at least {@link #MIN_CHUNK_SIZE}
+     */
+    public void setChunkSize(float chunkSize) {
+        this.chunkSize = Math.max(MIN_CHUNK_SIZE, chunkSize);
+        invalidate();
+    }
+
+    public float getViewDistance() {
+        return viewDistance;
+    }
+
+    /**
+     * @param viewDistance distance from the camera up to which instances are generated and rendered
+     */
+    public void setViewDistance(float viewDistance) {
+        this.viewDistance = Math.max(0f, viewDistance);
+    }
+
+    public float getFadeStart() {
+        return fadeStart;
+    }
+
+    /**
+     * @param fadeStart fraction of the view distance at which instances start to thin out, 1 to disable fading
+     */
+    public void setFadeStart(float fadeStart) {
+        this.fadeStart = MathUtils.clamp(fadeStart, 0f, 1f);
+    }
+
+    public boolean isCastShadows() {
+        return castShadows;
+    }
+
+    public void setCastShadows(boolean castShadows) {
+        this.castShadows = castShadows;
+    }
+
+    @Override
+    public boolean usesAsset(Asset assetToCheck) {
+        return modelAsset != null && modelAsset.getID().equals(assetToCheck.getID());
+    }
+
+    @Override
+    public Component clone(GameObject go) {
+        VegetationComponent component = new VegetationComponent(go);
+        component.density = density;
+        component.seed = seed;
+        component.densityChannel = densityChannel;
+        component.minSlope = minSlope;
+        component.maxSlope = maxSlope;
+        component.minHeight = minHeight;
+        component.maxHeight = maxHeight;
+        component.minScale = minScale;
+        component.maxScale = maxScale;
+        component.randomRotation = randomRotation;
+        component.alignToNormal = alignToNormal;
+        component.chunkSize = chunkSize;
+        component.viewDistance = viewDistance;
+        component.fadeStart = fadeStart;
+        component.castShadows = castShadows;
+        component.setModelAsset(modelAsset);
+        return component;
+    }
+
+    /**
+     * Instances generated for one square chunk of the terrain.
+     */
+    private static class Chunk {
+        final int x;
+        final int z;
+        final BoundingBox bounds = new BoundingBox();
+        float[] transforms;
+        int count;
+        // Instances drawn after fading, a prefix of the shuffled transforms
+        int visibleCount;
+
+        Chunk(int x, int z, int capacity) {
+            this.x = x;
+            this.z = z;
+            transforms = new float[capacity * InstancedModelGroup.INSTANCE_SIZE];
+        }
+
+        void add(Matrix4 transform) {
+            System.arraycopy(transform.val, 0, transforms, count * InstancedModelGroup.INSTANCE_SIZE, InstancedModelGroup.INSTANCE_SIZE);
+            count++;
+        }
+
+        /**
+         * Trims the transforms and shuffles the instances, so any prefix is an evenly spread subset for fading.
+         */
+        void finish(RandomXS128 random) {
+            int size = InstancedModelGroup.INSTANCE_SIZE;
+            float[] trimmed = new float[count * size];
+            System.arraycopy(transforms, 0, trimmed, 0, trimmed.length);
+            transforms = trimmed;
+
+            float[] tmp = new float[size];
+            for (int i = count - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                System.arraycopy(transforms, i * size, tmp, 0, size);
+                System.arraycopy(transforms, j * size, transforms, i * size, size);
+                System.arraycopy(tmp, 0, transforms, j * size, size);
+            }
+        }
+    }
+}
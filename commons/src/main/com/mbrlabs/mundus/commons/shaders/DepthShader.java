@@ -2,11 +2,18 @@ package com.mbrlabs.mundus.commons.shaders;
 
 import com.badlogic.gdx.graphics.Camera;
 import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.g3d.Material;
 import com.badlogic.gdx.graphics.g3d.Renderable;
 import com.badlogic.gdx.graphics.g3d.Shader;
+import com.badlogic.gdx.graphics.g3d.attributes.BlendingAttribute;
+import com.badlogic.gdx.graphics.g3d.attributes.DepthTestAttribute;
+import com.badlogic.gdx.graphics.g3d.attributes.IntAttribute;
 import com.badlogic.gdx.graphics.g3d.utils.RenderContext;
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.mbrlabs.mundus.commons.env.MundusEnvironment;
 import com.mbrlabs.mundus.commons.utils.ShaderUtils;
+import net.mgsx.gltf.scene3d.attributes.PBRFloatAttribute;
+import net.mgsx.gltf.scene3d.attributes.PBRVertexAttributes;
 
 public class DepthShader extends ClippableShader {
 
@@ -20,7 +27,14 @@ public class DepthShader extends ClippableShader {
     protected ShaderProgram program;
 
     public DepthShader() {
-        program = ShaderUtils.compile(VERTEX_SHADER, FRAGMENT_SHADER, this);
+        this("");
+    }
+
+    /**
+     * @param prefix prefix prepended to the vertex and fragment shader sources, for defines
+     */
+    protected DepthShader(String prefix) {
+        program = ShaderUtils.compile(VERTEX_SHADER, FRAGMENT_SHADER, this, prefix);
     }
 
     @Override
@@ -54,6 +68,9 @@ public class DepthShader extends ClippableShader {
 
     @Override
     public void render(Renderable renderable) {
+        // The color pass draws these with depth writes, they must not occlude anything in the pre-pass
+        if (isDepthPrePass(renderable) && !writesExactDepth(renderable)) return;
+
         super.render(renderable);
 
         set(UNIFORM_TRANS_MATRIX, renderable.worldTransform);
@@ -62,6 +79,35 @@ public class DepthShader extends ClippableShader {
         renderable.meshPart.render(program);
     }
 
+    /**
+     * Whether the depth this shader writes for the renderable is the same as the depth written by the scene shaders,
+     * which is required for it to take part in a depth pre-pass. Skinned and morphed meshes are only transformed in
+     * the scene shaders, blended and alpha tested materials do not write depth for all fragments, and back faces are
+     * always culled here.
+     */
+    public static boolean writesExactDepth(Renderable renderable) {
+        if (renderable.bones != null) return false;
+        if (renderable.meshPart.mesh.getVertexAttributes().findByUsage(PBRVertexAttributes.Usage.PositionTarget) != null) return false;
+
+        Material material = renderable.material;
+        if (material == null) return true;
+
+        BlendingAttribute blending = (BlendingAttribute) material.get(BlendingAttribute.Type);
+        if (blending != null && blending.blended) return false;
+        if (material.has(PBRFloatAttribute.AlphaTest) || material.has(DepthTestAttribute.Type)) return false;
+
+        IntAttribute cullFace = (IntAttribute) material.get(IntAttribute.CullFace);
+        return cullFace == null || cullFace.value == GL20.GL_BACK;
+    }
+
+    /**
+     * @return true if the renderable is rendered in a depth pre-pass, or in the color pass following it
+     */
+    public static boolean isDepthPrePass(Renderable renderable) {
+        return renderable.environment instanceof MundusEnvironment
+                && ((MundusEnvironment) renderable.environment).isDepthPrePass();
+    }
+
     @Override
     public void end() {
         context.end();
@@ -0,0 +1,225 @@
+package com.mbrlabs.mundus.commons.shaders;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.GL30;
+import com.badlogic.gdx.graphics.g3d.Environment;
+import com.badlogic.gdx.graphics.g3d.attributes.ColorAttribute;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.mbrlabs.mundus.commons.env.MundusEnvironment;
+import net.mgsx.gltf.scene3d.attributes.FogAttribute;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Uniform buffer holding the per pass constants shared by the PBR, terrain and water shaders: camera matrix,
+ * camera position, near and far planes, clipping plane and fog. Instead of every shader setting these with
+ * individual glUniform calls each time it is bound, the scene renderer writes them once per pass and all programs
+ * read them from the same buffer.
+ * <p>
+ * Only used on desktop GL3 with uniform buffer object support, GLES2 and WebGL keep setting the uniforms per shader.
+ * Shaders compiled with {@link #getShaderPrefix()} declare these uniforms in a std140 block instead of as single
+ * uniforms, the offsets below have to match that block.
+ * <p>
+ * Shaders also pass their camera and environment on begin and render. Values are compared before uploading, so this
+ * costs nothing when the renderer already wrote them, but keeps shaders used outside of scene passes correct.
+ */
+public class FrameUniformBuffer {
+    /** Set to false before shaders are compiled to always set the uniforms per shader */
+    public static boolean enabled = true;
+
+    public static final String BLOCK_NAME = "u_frameUniforms";
+    public static final int BINDING = 0;
+
+    private static final String BLOCK =
+            "layout(std140) uniform " + BLOCK_NAME + " {\n" +
+            "    mat4 u_projViewTrans;\n" +
+            "    vec4 u_cameraPosition;\n" +
+            "    vec2 u_cameraNearFar;\n" +
+            "    vec4 u_clipPlane;\n" +
+            "    vec4 u_fogColor;\n" +
+            "    vec3 u_fogEquation;\n" +
+            "};\n";
+
+    // std140 offsets in floats, vec4 members are aligned to 16 bytes
+    private static final int PROJ_VIEW_TRANS = 0;
+    private static final int CAMERA_POSITION = 16;
+    private static final int CAMERA_NEAR_FAR = 20;
+    private static final int CLIP_PLANE = 24;
+    private static final int FOG_COLOR = 28;
+    private static final int FOG_EQUATION = 32;
+    private static final int SIZE = 36;
+
+    private static FrameUniformBuffer instance;
+    private static boolean checkedSupport;
+    private static boolean supported;
+
+    private static int uploads;
+
+    private final float[] data = new float[SIZE];
+    private final FloatBuffer buffer = BufferUtils.newFloatBuffer(SIZE);
+    private final int handle;
+    private boolean dirty = true;
+
+    private FrameUniformBuffer() {
+        handle = Gdx.gl.glGenBuffer();
+        Gdx.gl.glBindBuffer(GL30.GL_UNIFORM_BUFFER, handle);
+        Gdx.gl.glBufferData(GL30.GL_UNIFORM_BUFFER, SIZE * 4, null, GL20.GL_DYNAMIC_DRAW);
+        Gdx.gl.glBindBuffer(GL30.GL_UNIFORM_BUFFER, 0);
+    }
+
+    /**
+     * @return true if the frame uniform buffer is enabled and supported on the current backend
+     */
+    public static boolean isSupported() {
+        if (!enabled || Gdx.gl30 == null) return false;
+
+        if (!checkedSupport) {
+            checkedSupport = true;
+            supported = Gdx.app.getType() == Application.ApplicationType.Desktop
+                    && Gdx.graphics.supportsExtension("GL_ARB_uniform_buffer_object");
+        }
+        return supported;
+    }
+
+    /**
+     * @return the shared instance, or null if not supported
+     */
+    public static FrameUniformBuffer getInstance() {
+        if (!isSupported()) return null;
+
+        if (instance == null) {
+            instance = new FrameUniformBuffer();
+        }
+        return instance;
+    }
+
+    /**
+     * @return prefix declaring the shared uniform block, to be added to both vertex and fragment shader, or an empty
+     * string if not supported
+     */
+    public static String getShaderPrefix() {
+        if (!isSupported()) return "";
+
+        return "#extension GL_ARB_uniform_buffer_object : require\n"
+                + "#define frameUniformsFlag\n"
+                + BLOCK;
+    }
+
+    /**
+     * Binds the shared uniform block of the program to the buffer. Does nothing for programs without the block.
+     */
+    public static void bindProgram(ShaderProgram program) {
+        if (getInstance() == null) return;
+
+        int index = Gdx.gl30.glGetUniformBlockIndex(program.getHandle(), BLOCK_NAME);
+        if (index == GL30.GL_INVALID_INDEX) return;
+
+        Gdx.gl30.glUniformBlockBinding(program.getHandle(), index, BINDING);
+    }
+
+    /**
+     * Writes the camera and environment of a render pass, call before the batch is flushed.
+     */
+    public void update(Camera camera, Environment environment) {
+        writeCamera(camera);
+        writeEnvironment(environment);
+        upload();
+    }
+
+    /**
+     * Sets the camera values, uploading them right away if they changed.
+     */
+    public void setCamera(Camera camera) {
+        writeCamera(camera);
+        upload();
+    }
+
+    /**
+     * Sets the clipping plane and fog values of the environment, uploading them right away if they changed.
+     */
+    public void setEnvironment(Environment environment) {
+        writeEnvironment(environment);
+        upload();
+    }
+
+    private void writeCamera(Camera camera) {
+        float[] matrix = camera.combined.val;
+        for (int i = 0; i < 16; i++) {
+            set(PROJ_VIEW_TRANS + i, matrix[i]);
+        }
+
+        Vector3 position = camera.position;
+        set(CAMERA_POSITION, position.x);
+        set(CAMERA_POSITION + 1, position.y);
+        set(CAMERA_POSITION + 2, position.z);
+        // Same as DefaultShader.Setters.cameraPosition, used for the default fog
+        set(CAMERA_POSITION + 3, 1.1881f / (camera.far * camera.far));
+
+        set(CAMERA_NEAR_FAR, camera.near);
+        set(CAMERA_NEAR_FAR + 1, camera.far);
+    }
+
+    private void writeEnvironment(Environment environment) {
+        if (environment instanceof MundusEnvironment) {
+            MundusEnvironment env = (MundusEnvironment) environment;
+            Vector3 plane = env.getClippingPlane();
+            set(CLIP_PLANE, plane.x);
+            set(CLIP_PLANE + 1, plane.y);
+            set(CLIP_PLANE + 2, plane.z);
+            set(CLIP_PLANE + 3, env.getClippingHeight());
+        }
+
+        ColorAttribute fog = (ColorAttribute) environment.get(ColorAttribute.Fog);
+        if (fog != null) {
+            Color color = fog.color;
+            set(FOG_COLOR, color.r);
+            set(FOG_COLOR + 1, color.g);
+            set(FOG_COLOR + 2, color.b);
+            set(FOG_COLOR + 3, color.a);
+        }
+
+        FogAttribute fogEquation = (FogAttribute) environment.get(FogAttribute.FogEquation);
+        if (fogEquation != null) {
+            set(FOG_EQUATION, fogEquation.value.x);
+            set(FOG_EQUATION + 1, fogEquation.value.y);
+            set(FOG_EQUATION + 2, fogEquation.value.z);
+        }
+    }
+
+    private void set(int index, float value) {
+        if (data[index] == value) return;
+        data[index] = value;
+        dirty = true;
+    }
+
+    private void upload() {
+        if (!dirty) return;
+        dirty = false;
+        uploads++;
+
+        buffer.clear();
+        buffer.put(data);
+        buffer.flip();
+
+        Gdx.gl.glBindBuffer(GL30.GL_UNIFORM_BUFFER, handle);
+        Gdx.gl.glBufferSubData(GL30.GL_UNIFORM_BUFFER, 0, SIZE * 4, buffer);
+        Gdx.gl30.glBindBufferBase(GL30.GL_UNIFORM_BUFFER, BINDING, handle);
+    }
+
+    /**
+     * @return number of times the buffer was written since the last reset of the counts
+     */
+    public static int getUploads() {
+        return uploads;
+    }
+
+    public static void resetCounts() {
+        uploads = 0;
+    }
+}
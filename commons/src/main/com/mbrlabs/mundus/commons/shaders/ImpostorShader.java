@@ -0,0 +1,125 @@
+package com.mbrlabs.mundus.commons.shaders;
+
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.g3d.Environment;
+import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.badlogic.gdx.graphics.g3d.Shader;
+import com.badlogic.gdx.graphics.g3d.attributes.ColorAttribute;
+import com.badlogic.gdx.graphics.g3d.attributes.TextureAttribute;
+import com.badlogic.gdx.graphics.g3d.utils.RenderContext;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.mbrlabs.mundus.commons.env.MundusEnvironment;
+import com.mbrlabs.mundus.commons.impostor.ImpostorBatch;
+import com.mbrlabs.mundus.commons.shadows.MundusDirectionalShadowLight;
+import com.mbrlabs.mundus.commons.utils.LightUtils;
+import com.mbrlabs.mundus.commons.utils.ShaderUtils;
+import net.mgsx.gltf.scene3d.attributes.FogAttribute;
+
+/**
+ * Draws the quads of an {@link ImpostorBatch}. The albedo atlas is alpha tested and lit by the ambient light and
+ * the directional light using the model space normal atlas, point and spot lights are ignored at impostor distances.
+ */
+public class ImpostorShader extends ClippableShader {
+
+    private static final String VERTEX_SHADER = "com/mbrlabs/mundus/commons/shaders/impostor.vert.glsl";
+    private static final String FRAGMENT_SHADER = "com/mbrlabs/mundus/commons/shaders/impostor.frag.glsl";
+
+    protected final int UNIFORM_PROJ_VIEW_MATRIX = register(new Uniform("u_projViewMatrix"));
+    protected final int UNIFORM_CAM_POS = register(new Uniform("u_cameraPosition"));
+    protected final int UNIFORM_ALBEDO_TEXTURE = register(new Uniform("u_albedoTexture"));
+    protected final int UNIFORM_NORMAL_TEXTURE = register(new Uniform("u_normalTexture"));
+    protected final int UNIFORM_AMBIENT_LIGHT = register(new Uniform("u_ambientLight"));
+    protected final int UNIFORM_LIGHT_COLOR = register(new Uniform("u_lightColor"));
+
+    protected final int UNIFORM_FOG = register(new Uniform("u_fog"));
+    protected final int UNIFORM_FOG_COLOR = register(new Uniform("u_fogColor"));
+    protected final int UNIFORM_FOG_EQUATION = register(new Uniform("u_fogEquation"));
+
+    private final ShaderProgram program;
+
+    public ImpostorShader() {
+        program = ShaderUtils.compile(VERTEX_SHADER, FRAGMENT_SHADER, this);
+    }
+
+    @Override
+    public void init() {
+        super.init(program, null);
+    }
+
+    @Override
+    public int compareTo(Shader other) {
+        return 0;
+    }
+
+    @Override
+    public boolean canRender(Renderable instance) {
+        return instance.meshPart.mesh.getVertexAttribute(VertexAttributes.Usage.Generic) != null;
+    }
+
+    @Override
+    public void begin(Camera camera, RenderContext context) {
+        this.context = context;
+        context.begin();
+        // Quads are camera facing, the back side is only seen in mirrored reflections
+        context.setCullFace(GL20.GL_NONE);
+        context.setDepthTest(GL20.GL_LEQUAL, 0f, 1f);
+        context.setDepthMask(true);
+        context.setBlending(false, GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+
+        program.bind();
+
+        set(UNIFORM_PROJ_VIEW_MATRIX, camera.combined);
+        set(UNIFORM_CAM_POS, camera.position);
+    }
+
+    @Override
+    public void render(Renderable renderable) {
+        Environment env = renderable.environment;
+        if (env instanceof MundusEnvironment) {
+            setClippingPlane(((MundusEnvironment) env).getClippingPlane());
+            setClippingHeight(((MundusEnvironment) env).getClippingHeight());
+        }
+        super.render(renderable);
+
+        set(UNIFORM_ALBEDO_TEXTURE, ((TextureAttribute) renderable.material.get(TextureAttribute.Diffuse)).textureDescription);
+        set(UNIFORM_NORMAL_TEXTURE, ((TextureAttribute) renderable.material.get(TextureAttribute.Normal)).textureDescription);
+
+        ColorAttribute ambient = env.get(ColorAttribute.class, ColorAttribute.AmbientLight);
+        if (ambient != null) {
+            set(UNIFORM_AMBIENT_LIGHT, ambient.color.r, ambient.color.g, ambient.color.b);
+        } else {
+            set(UNIFORM_AMBIENT_LIGHT, 0f, 0f, 0f);
+        }
+
+        MundusDirectionalShadowLight light = LightUtils.getDirectionalLight(env);
+        if (light != null) {
+            set(UNIFORM_LIGHT_COLOR, light.color.r, light.color.g, light.color.b);
+        } else {
+            set(UNIFORM_LIGHT_COLOR, 0f, 0f, 0f);
+        }
+
+        FogAttribute fogEquation = env.get(FogAttribute.class, FogAttribute.FogEquation);
+        ColorAttribute fogColor = env.get(ColorAttribute.class, ColorAttribute.Fog);
+        if (fogEquation != null && fogColor != null) {
+            set(UNIFORM_FOG, 1);
+            set(UNIFORM_FOG_COLOR, fogColor.color);
+            set(UNIFORM_FOG_EQUATION, fogEquation.value);
+        } else {
+            set(UNIFORM_FOG, 0);
+        }
+
+        renderable.meshPart.render(program);
+    }
+
+    @Override
+    public void end() {
+        context.end();
+    }
+
+    @Override
+    public void dispose() {
+        program.dispose();
+    }
+}
@@ -0,0 +1,30 @@
+package com.mbrlabs.mundus.commons.shaders;
+
+import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.mbrlabs.mundus.commons.env.MundusEnvironment;
+
+/**
+ * Depth shader for instanced meshes, reading the world transform of each instance from instance attributes.
+ * Writes the same packed depth as {@link DepthShader}, so it can be used for shadow maps and refraction depth.
+ */
+public class InstancedDepthShader extends DepthShader {
+
+    public InstancedDepthShader() {
+        super("#define instancedFlag\n");
+    }
+
+    @Override
+    public boolean canRender(Renderable instance) {
+        return instance.meshPart.mesh.isInstanced();
+    }
+
+    @Override
+    public void render(Renderable renderable) {
+        if (renderable.environment instanceof MundusEnvironment) {
+            MundusEnvironment env = (MundusEnvironment) renderable.environment;
+            setClippingPlane(env.getClippingPlane());
+            setClippingHeight(env.getClippingHeight());
+        }
+        super.render(renderable);
+    }
+}
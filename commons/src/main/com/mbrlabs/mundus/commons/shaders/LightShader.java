@@ -1,5 +1,6 @@
 package com.mbrlabs.mundus.commons.shaders;
 
+import com.badlogic.gdx.graphics.Camera;
 import com.badlogic.gdx.graphics.g3d.Renderable;
 import com.badlogic.gdx.graphics.g3d.attributes.ColorAttribute;
 import com.badlogic.gdx.graphics.g3d.attributes.PointLightsAttribute;
@@ -7,9 +8,9 @@ import com.badlogic.gdx.graphics.g3d.attributes.SpotLightsAttribute;
 import com.badlogic.gdx.graphics.g3d.environment.PointLight;
 import com.badlogic.gdx.graphics.g3d.environment.SpotLight;
 import com.badlogic.gdx.graphics.g3d.shaders.BaseShader;
+import com.badlogic.gdx.graphics.g3d.utils.RenderContext;
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.mbrlabs.mundus.commons.env.MundusEnvironment;
 import com.mbrlabs.mundus.commons.shadows.MundusDirectionalShadowLight;
 import com.mbrlabs.mundus.commons.utils.LightUtils;
@@ -62,6 +63,11 @@ public abstract class LightShader extends BaseShader {
 
     private float shadowBias = 1f/255f;
 
+    // Skips uniforms and textures which did not change since the last renderable
+    protected final UniformCache uniformCache = new UniformCache(this);
+    // Shared per pass uniforms on GL3 desktop, null if the uniforms are set per shader
+    protected final FrameUniformBuffer frameUniforms = FrameUniformBuffer.getInstance();
+
     @Override
     public void init(ShaderProgram program, Renderable renderable) {
 
@@ -87,63 +93,68 @@ public abstract class LightShader extends BaseShader {
         }
 
         super.init(program, renderable);
+        FrameUniformBuffer.bindProgram(program);
+    }
+
+    @Override
+    public void begin(Camera camera, RenderContext context) {
+        uniformCache.reset();
+        if (frameUniforms != null) {
+            frameUniforms.setCamera(camera);
+        }
+        super.begin(camera, context);
     }
 
     protected void setLights(MundusEnvironment env) {
         DirectionalLightEx dirLight = LightUtils.getDirectionalLight(env);
         ColorAttribute ambientLight = (ColorAttribute) env.get(ColorAttribute.AmbientLight);
         if (dirLight != null) {
-            set(UNIFORM_DIRECTIONAL_LIGHT_COLOR, dirLight.baseColor.r, dirLight.baseColor.g, dirLight.baseColor.b);
-            set(UNIFORM_DIRECTIONAL_LIGHT_COLOR_AMBIENT, ambientLight.color.r, ambientLight.color.g, ambientLight.color.b);
-            set(UNIFORM_DIRECTIONAL_LIGHT_DIR, dirLight.direction);
+            uniformCache.set(UNIFORM_DIRECTIONAL_LIGHT_COLOR, dirLight.baseColor.r, dirLight.baseColor.g, dirLight.baseColor.b);
+            uniformCache.set(UNIFORM_DIRECTIONAL_LIGHT_COLOR_AMBIENT, ambientLight.color.r, ambientLight.color.g, ambientLight.color.b);
+            uniformCache.set(UNIFORM_DIRECTIONAL_LIGHT_DIR, dirLight.direction);
             // A bit of a hack, water does not use PBR lighting and thus intensity is scaled down
             // as PBR shader tends to require higher intensity then the water light calcs
-            set(UNIFORM_DIRECTIONAL_LIGHT_INTENSITY, dirLight.intensity * 0.1f);
+            uniformCache.set(UNIFORM_DIRECTIONAL_LIGHT_INTENSITY, dirLight.intensity * 0.1f);
         }
 
         // point lights
         PointLightsAttribute attr = env.get(PointLightsAttribute.class, PointLightsAttribute.Type);
         final Array<PointLight> pointLights = attr == null ? null : attr.lights;
         if (pointLights != null && pointLights.size > 0) {
-            set(UNIFORM_POINT_LIGHT_NUM_ACTIVE, pointLights.size);
+            // With clustered lighting there can be more lights than uniforms, only the first ones are used
+            int count = Math.min(pointLights.size, LightUtils.MAX_POINT_LIGHTS);
+            uniformCache.set(UNIFORM_POINT_LIGHT_NUM_ACTIVE, count);
 
-            if (pointLights.size > LightUtils.MAX_POINT_LIGHTS) {
-                throw new GdxRuntimeException("Too many point lights. Current: " + pointLights.size + " Max: " + LightUtils.MAX_POINT_LIGHTS);
-            }
-
-            for (int i = 0; i < pointLights.size; i++) {
+            for (int i = 0; i < count; i++) {
                 PointLight light = pointLights.get(i);
 
-                set(UNIFORM_POINT_LIGHT_COLOR[i], light.color.r, light.color.g, light.color.b);
-                set(UNIFORM_POINT_LIGHT_POS[i], light.position);
-                set(UNIFORM_POINT_LIGHT_INTENSITY[i], light.intensity);
+                uniformCache.set(UNIFORM_POINT_LIGHT_COLOR[i], light.color.r, light.color.g, light.color.b);
+                uniformCache.set(UNIFORM_POINT_LIGHT_POS[i], light.position);
+                uniformCache.set(UNIFORM_POINT_LIGHT_INTENSITY[i], light.intensity);
             }
         } else {
-            set(UNIFORM_POINT_LIGHT_NUM_ACTIVE, 0);
+            uniformCache.set(UNIFORM_POINT_LIGHT_NUM_ACTIVE, 0);
         }
 
         // spotlights
         SpotLightsAttribute spotAttr = env.get(SpotLightsAttribute.class, SpotLightsAttribute.Type);
         final Array<SpotLight> spotLights = spotAttr == null ? null : spotAttr.lights;
         if (spotLights != null && spotLights.size > 0) {
-            set(UNIFORM_SPOT_LIGHT_NUM_ACTIVE, spotLights.size);
-
-            if (spotLights.size > LightUtils.MAX_SPOT_LIGHTS) {
-                throw new GdxRuntimeException("Too many spotlights. Current: " + spotLights.size + " Max: " + LightUtils.MAX_SPOT_LIGHTS);
-            }
+            int count = Math.min(spotLights.size, LightUtils.MAX_SPOT_LIGHTS);
+            uniformCache.set(UNIFORM_SPOT_LIGHT_NUM_ACTIVE, count);
 
-            for (int i = 0; i < spotLights.size; i++) {
+            for (int i = 0; i < count; i++) {
                 SpotLight light = spotLights.get(i);
 
-                set(UNIFORM_SPOT_LIGHT_COLOR[i], light.color.r, light.color.g, light.color.b);
-                set(UNIFORM_SPOT_LIGHT_POS[i], light.position);
-                set(UNIFORM_SPOT_LIGHT_DIRECTION[i], light.direction);
-                set(UNIFORM_SPOT_LIGHT_CUT_OFF[i], light.cutoffAngle);
-                set(UNIFORM_SPOT_LIGHT_ATT_EXP[i], light.exponent);
-                set(UNIFORM_SPOT_LIGHT_INTENSITY[i], light.intensity);
+                uniformCache.set(UNIFORM_SPOT_LIGHT_COLOR[i], light.color.r, light.color.g, light.color.b);
+                uniformCache.set(UNIFORM_SPOT_LIGHT_POS[i], light.position);
+                uniformCache.set(UNIFORM_SPOT_LIGHT_DIRECTION[i], light.direction);
+                uniformCache.set(UNIFORM_SPOT_LIGHT_CUT_OFF[i], light.cutoffAngle);
+                uniformCache.set(UNIFORM_SPOT_LIGHT_ATT_EXP[i], light.exponent);
+                uniformCache.set(UNIFORM_SPOT_LIGHT_INTENSITY[i], light.intensity);
             }
         } else {
-            set(UNIFORM_SPOT_LIGHT_NUM_ACTIVE, 0);
+            uniformCache.set(UNIFORM_SPOT_LIGHT_NUM_ACTIVE, 0);
         }
 
     }
@@ -151,16 +162,16 @@ public abstract class LightShader extends BaseShader {
     protected void setShadows(MundusEnvironment env) {
         MundusDirectionalShadowLight dirLight = LightUtils.getDirectionalLight(env);
         if (dirLight == null) {
-            set(UNIFORM_USE_SHADOWS, 0);
+            uniformCache.set(UNIFORM_USE_SHADOWS, 0);
             return;
         }
 
         if (env.shadowMap != null) {
-            set(UNIFORM_SHADOW_BIAS, shadowBias);
-            set(UNIFORM_USE_SHADOWS, 1);
-            set(UNIFORM_SHADOW_TEXTURE, env.shadowMap.getDepthMap());
+            uniformCache.set(UNIFORM_SHADOW_BIAS, shadowBias);
+            uniformCache.set(UNIFORM_USE_SHADOWS, 1);
+            uniformCache.set(UNIFORM_SHADOW_TEXTURE, env.shadowMap.getDepthMap());
             set(UNIFORM_SHADOW_VIEW, env.shadowMap.getProjViewTrans());
-            set(UNIFORM_SHADOW_PCF_OFFSET,  1.f / (2f * env.shadowMap.getDepthMap().texture.getWidth()));
+            uniformCache.set(UNIFORM_SHADOW_PCF_OFFSET,  1.f / (2f * env.shadowMap.getDepthMap().texture.getWidth()));
         }
     }
 }
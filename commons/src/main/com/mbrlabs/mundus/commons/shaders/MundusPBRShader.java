@@ -1,10 +1,18 @@
 package com.mbrlabs.mundus.commons.shaders;
 
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.g3d.Attributes;
 import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.badlogic.gdx.graphics.g3d.utils.RenderContext;
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 import com.badlogic.gdx.math.Vector3;
 import com.mbrlabs.mundus.commons.env.MundusEnvironment;
+import com.mbrlabs.mundus.commons.env.lights.ClusteredLights;
+import com.mbrlabs.mundus.commons.env.lights.ClusteredLightsAttribute;
+import com.mbrlabs.mundus.commons.env.lights.SelectedLightsAttribute;
+import com.mbrlabs.mundus.commons.shadows.CascadedShadowMapAttribute;
+import com.mbrlabs.mundus.commons.shadows.MundusDirectionalShadowLight;
 import net.mgsx.gltf.scene3d.shaders.PBRShader;
 
 /**
@@ -14,14 +22,96 @@ import net.mgsx.gltf.scene3d.shaders.PBRShader;
 public class MundusPBRShader extends PBRShader {
 
     private final int u_clipPlane = register("u_clipPlane");
+    private final int u_clusterLights = register("u_clusterLights");
+    private final int u_clusterGrid = register("u_clusterGrid");
+    private final int u_clusterIndices = register("u_clusterIndices");
+    private final int u_clusterProjView = register("u_clusterProjView");
+    private final int u_clusterSize = register("u_clusterSize");
+    private final int u_clusterDepth = register("u_clusterDepth");
+
+    // Number of cascades in addition to the base shadow map this shader was compiled for
+    private final int numCascades;
+    // Whether this shader was compiled for instanced meshes
+    private final boolean instanced;
+    // Whether this shader was compiled for clustered point and spot lights
+    private final boolean clustered;
+    // Number of point and spot lights this shader was compiled for when lights are selected per object, else 0
+    private final int selectedLights;
+    private int[] u_csmSamplers;
+    private int[] u_csmTransforms;
+    private int[] u_csmPCFOffsets;
+    private int[] u_csmSplits;
+
+    // Whether the depth of the current renderable was written by a depth pre-pass
+    private boolean depthPrePassed;
+
+    // Skips uniforms and textures which did not change since the last renderable
+    protected final UniformCache uniformCache = new UniformCache(this);
+    // Shared per pass uniforms on GL3 desktop, null if the uniforms are set per shader
+    protected final FrameUniformBuffer frameUniforms = FrameUniformBuffer.getInstance();
 
     public MundusPBRShader(Renderable renderable, Config config, String prefix) {
         super(renderable, config, prefix);
+        numCascades = getAdditionalCascadeCount(renderable);
+        instanced = renderable.meshPart.mesh.isInstanced();
+        clustered = isClustered(renderable);
+        selectedLights = getSelectedLightCount(renderable);
     }
 
     @Override
     public void init(ShaderProgram program, Renderable renderable) {
         super.init(program, renderable);
+        FrameUniformBuffer.bindProgram(program);
+
+        if (numCascades > 0) {
+            u_csmSamplers = new int[numCascades];
+            u_csmTransforms = new int[numCascades];
+            u_csmPCFOffsets = new int[numCascades];
+            u_csmSplits = new int[numCascades + 1];
+            for (int i = 0; i < numCascades; i++) {
+                u_csmSamplers[i] = program.fetchUniformLocation("u_csmSamplers[" + i + "]", false);
+                u_csmTransforms[i] = program.fetchUniformLocation("u_csmTransforms[" + i + "]", false);
+                u_csmPCFOffsets[i] = program.fetchUniformLocation("u_csmPCFOffsets[" + i + "]", false);
+            }
+            for (int i = 0; i <= numCascades; i++) {
+                u_csmSplits[i] = program.fetchUniformLocation("u_csmSplits[" + i + "]", false);
+            }
+        }
+    }
+
+    @Override
+    public void begin(Camera camera, RenderContext context) {
+        uniformCache.reset();
+        if (frameUniforms != null) {
+            frameUniforms.setCamera(camera);
+        }
+        super.begin(camera, context);
+    }
+
+    @Override
+    public void render(Renderable renderable, Attributes combinedAttributes) {
+        depthPrePassed = DepthShader.isDepthPrePass(renderable) && DepthShader.writesExactDepth(renderable);
+        super.render(renderable, combinedAttributes);
+    }
+
+    @Override
+    protected void bindMaterial(Attributes attributes) {
+        super.bindMaterial(attributes);
+
+        if (depthPrePassed) {
+            // Depth is already in the buffer, only shade the fragments which passed it
+            context.setDepthTest(GL20.GL_LEQUAL, 0f, 1f);
+            context.setDepthMask(false);
+        }
+    }
+
+    @Override
+    public boolean canRender(Renderable renderable) {
+        return getAdditionalCascadeCount(renderable) == numCascades
+                && renderable.meshPart.mesh.isInstanced() == instanced
+                && isClustered(renderable) == clustered
+                && getSelectedLightCount(renderable) == selectedLights
+                && super.canRender(renderable);
     }
 
     @Override
@@ -34,10 +124,74 @@ public class MundusPBRShader extends PBRShader {
             set(u_shadowTexture, 0);
         }
 
-        // Set clipping plane
-        Vector3 clippingPlane = env.getClippingPlane();
-        set(u_clipPlane, clippingPlane.x, clippingPlane.y, clippingPlane.z, env.getClippingHeight());
+        if (numCascades > 0 && env.shadowMap != null) {
+            bindCascades(env);
+        }
+
+        // Set clipping plane, and fog, which is read from the shared uniforms as well
+        if (frameUniforms != null) {
+            frameUniforms.setEnvironment(env);
+        } else {
+            Vector3 clippingPlane = env.getClippingPlane();
+            uniformCache.set(u_clipPlane, clippingPlane.x, clippingPlane.y, clippingPlane.z, env.getClippingHeight());
+        }
+
+        if (clustered) {
+            bindClusters(env);
+        }
 
         super.bindLights(renderable, attributes);
     }
+
+    private void bindClusters(MundusEnvironment env) {
+        ClusteredLights clusters = ((ClusteredLightsAttribute) env.get(ClusteredLightsAttribute.ClusteredLights)).clusteredLights;
+        uniformCache.set(u_clusterLights, clusters.getLightTexture());
+        uniformCache.set(u_clusterGrid, clusters.getGridTexture());
+        uniformCache.set(u_clusterIndices, clusters.getIndexTexture());
+        set(u_clusterProjView, clusters.getProjView());
+        uniformCache.set(u_clusterSize, ClusteredLights.TILES_X, ClusteredLights.TILES_Y, clusters.getDepthSlices(), clusters.getLightCount());
+        uniformCache.set(u_clusterDepth, clusters.getNear(), clusters.getDepthScale());
+    }
+
+    private void bindCascades(MundusEnvironment env) {
+        CascadedShadowMapAttribute attribute = (CascadedShadowMapAttribute) env.get(CascadedShadowMapAttribute.CascadedShadowMap);
+        for (int i = 0; i <= numCascades; i++) {
+            // Far end of cascade i, split 0 is the near plane
+            program.setUniformf(u_csmSplits[i], attribute.cascadedShadowMap.getSplitDistance(i + 1));
+        }
+        for (int i = 0; i < numCascades; i++) {
+            // Cascade 0 is the base shadow map
+            MundusDirectionalShadowLight cascade = attribute.cascadedShadowMap.getCascades().get(i + 1);
+            program.setUniformi(u_csmSamplers[i], context.textureBinder.bind(cascade.getDepthMap()));
+            program.setUniformMatrix(u_csmTransforms[i], cascade.getProjViewTrans());
+            program.setUniformf(u_csmPCFOffsets[i], 1.f / (2f * cascade.getDepthMap().texture.getWidth()));
+        }
+    }
+
+    /**
+     * @return true if the renderables environment uses clustered lighting
+     */
+    public static boolean isClustered(Renderable renderable) {
+        return renderable.environment != null && renderable.environment.has(ClusteredLightsAttribute.ClusteredLights);
+    }
+
+    /**
+     * @return number of lights per type selected for the renderable, 0 if it uses all lights of the scene
+     */
+    public static int getSelectedLightCount(Renderable renderable) {
+        if (renderable.environment == null) return 0;
+
+        SelectedLightsAttribute attribute = (SelectedLightsAttribute) renderable.environment.get(SelectedLightsAttribute.SelectedLights);
+        return attribute == null ? 0 : attribute.lightCount;
+    }
+
+    /**
+     * @return number of cascades in addition to the base shadow map in the renderables environment
+     */
+    public static int getAdditionalCascadeCount(Renderable renderable) {
+        if (renderable.environment == null || renderable.environment.shadowMap == null) return 0;
+
+        CascadedShadowMapAttribute attribute = (CascadedShadowMapAttribute) renderable.environment.get(CascadedShadowMapAttribute.CascadedShadowMap);
+        return attribute == null ? 0 : attribute.cascadedShadowMap.getCascadeCount() - 1;
+    }
 }
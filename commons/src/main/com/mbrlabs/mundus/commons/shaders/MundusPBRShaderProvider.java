@@ -3,9 +3,14 @@ package com.mbrlabs.mundus.commons.shaders;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.g3d.Renderable;
 import com.badlogic.gdx.graphics.g3d.Shader;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.LongMap;
+import com.mbrlabs.mundus.commons.env.lights.ClusteredLights;
 import com.mbrlabs.mundus.commons.terrain.SplatTexture;
 import com.mbrlabs.mundus.commons.terrain.TerrainMaterial;
 import com.mbrlabs.mundus.commons.terrain.attributes.TerrainMaterialAttribute;
+import com.mbrlabs.mundus.commons.utils.ShaderUtils;
 import com.mbrlabs.mundus.commons.water.attributes.WaterMaterialAttribute;
 import net.mgsx.gltf.scene3d.shaders.PBRShader;
 import net.mgsx.gltf.scene3d.shaders.PBRShaderConfig;
@@ -17,20 +22,121 @@ import net.mgsx.gltf.scene3d.shaders.PBRShaderProvider;
  */
 public class MundusPBRShaderProvider extends PBRShaderProvider {
 
+    // Shaders grouped by getShaderKey, so lookups only test the shaders of the renderables variant
+    private final LongMap<Array<Shader>> shadersByKey = new LongMap<>();
+
     public MundusPBRShaderProvider(PBRShaderConfig config) {
         super(config);
     }
 
+    /**
+     * Same as {@link com.badlogic.gdx.graphics.g3d.utils.BaseShaderProvider#getShader(Renderable)}, but instead
+     * of testing every shader with canRender only the shaders created for renderables with the same key are
+     * tested.
+     */
+    @Override
+    public Shader getShader(Renderable renderable) {
+        Shader suggestedShader = renderable.shader;
+        if (suggestedShader != null && suggestedShader.canRender(renderable)) return suggestedShader;
+
+        long key = getShaderKey(renderable);
+        Array<Shader> candidates = shadersByKey.get(key);
+        if (candidates == null) {
+            candidates = new Array<>(false, 2);
+            shadersByKey.put(key, candidates);
+        }
+
+        for (int i = 0; i < candidates.size; i++) {
+            Shader shader = candidates.get(i);
+            if (shader.canRender(renderable)) return shader;
+        }
+
+        Shader shader = createShader(renderable);
+        if (!shader.canRender(renderable)) throw new GdxRuntimeException("unable to provide a shader for this renderable");
+        shader.init();
+        shaders.add(shader);
+        candidates.add(shader);
+        return shader;
+    }
+
+    /**
+     * Hashes everything the Mundus shaders compare in canRender, except for details like morph targets which are
+     * left to canRender. Renderables with different keys never share a shader.
+     */
+    protected long getShaderKey(Renderable renderable) {
+        long key = ShaderUtils.combineAttributeMasks(renderable);
+        key = key * 31 + renderable.meshPart.mesh.getVertexAttributes().getMaskWithSizePacked();
+        key = key * 31 + (renderable.meshPart.mesh.isInstanced() ? 1 : 0);
+        key = key * 31 + (renderable.bones == null ? 0 : renderable.bones.length);
+        key = key * 31 + MundusPBRShader.getAdditionalCascadeCount(renderable);
+        key = key * 31 + MundusPBRShader.getSelectedLightCount(renderable);
+
+        TerrainMaterialAttribute terrainMaterial = (TerrainMaterialAttribute) renderable.material.get(TerrainMaterialAttribute.TerrainMaterial);
+        if (terrainMaterial != null) {
+            key = key * 31 + terrainMaterial.terrainMaterial.getMask();
+        }
+
+        WaterMaterialAttribute waterMaterial = (WaterMaterialAttribute) renderable.material.get(WaterMaterialAttribute.WaterMaterial);
+        if (waterMaterial != null) {
+            key = key * 31 + waterMaterial.waterMaterial.getMask();
+        }
+        return key;
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        shadersByKey.clear();
+    }
+
     @Override
     protected Shader createShader(Renderable renderable) {
          if (renderable.material.has(WaterMaterialAttribute.WaterMaterial))
             return createWaterShader(renderable);
 
+        int selectedLights = MundusPBRShader.getSelectedLightCount(renderable);
+        if (selectedLights > 0) {
+            return createSelectedLightsShader(renderable, selectedLights);
+        }
+
         return super.createShader(renderable);
     }
 
+    /**
+     * Creates a shader with uniforms for only the given number of point and spot lights, for renderables whose
+     * lights were selected per object. Never uses more lights than the configured shader lights.
+     */
+    private Shader createSelectedLightsShader(Renderable renderable, int lightCount) {
+        int numPointLights = config.numPointLights;
+        int numSpotLights = config.numSpotLights;
+        config.numPointLights = Math.min(lightCount, numPointLights);
+        config.numSpotLights = Math.min(lightCount, numSpotLights);
+        try {
+            return super.createShader(renderable);
+        } finally {
+            config.numPointLights = numPointLights;
+            config.numSpotLights = numSpotLights;
+        }
+    }
+
     @Override
     protected PBRShader createShader(Renderable renderable, PBRShaderConfig config, String prefix){
+        prefix += FrameUniformBuffer.getShaderPrefix();
+
+        int numCascades = MundusPBRShader.getAdditionalCascadeCount(renderable);
+        if (numCascades > 0) {
+            prefix += "#define numCSM " + numCascades + "\n";
+        }
+
+        if (renderable.meshPart.mesh.isInstanced()) {
+            prefix += "#define instancedFlag\n";
+        }
+
+        if (MundusPBRShader.isClustered(renderable)) {
+            prefix += "#define clusteredLightsFlag\n";
+            prefix += "#define clusterIndexWidth " + ClusteredLights.INDEX_TEXTURE_WIDTH + "\n";
+        }
+
         if (renderable.material.has(TerrainMaterialAttribute.TerrainMaterial)) {
             return createPBRTerrainShader(renderable, config, prefix);
         }
@@ -49,7 +155,6 @@ public class MundusPBRShaderProvider extends PBRShaderProvider {
 
     private Shader createWaterShader(Renderable renderable) {
         Shader shader = new WaterUberShader(renderable, config);
-        shaders.add(shader);
         Gdx.app.log(MundusPBRShader.class.getSimpleName(), "Water Shader Compiled");
         return shader;
     }
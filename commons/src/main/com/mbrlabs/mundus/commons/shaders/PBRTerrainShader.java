@@ -37,7 +37,7 @@ public class PBRTerrainShader extends MundusPBRShader {
             @Override
             public void set (BaseShader shader, int inputID, Renderable renderable, Attributes combinedAttributes) {
                 TerrainMaterialAttribute terrainMaterialAttribute = (TerrainMaterialAttribute) combinedAttributes.get(TerrainMaterialAttribute.TerrainMaterial);
-                shader.set(inputID, v2.set(terrainMaterialAttribute.terrainMaterial.getTerrain().terrainWidth, terrainMaterialAttribute.terrainMaterial.getTerrain().terrainDepth));
+                ((PBRTerrainShader) shader).uniformCache.set(inputID, v2.set(terrainMaterialAttribute.terrainMaterial.getTerrain().terrainWidth, terrainMaterialAttribute.terrainMaterial.getTerrain().terrainDepth));
             }
         };
 
@@ -58,9 +58,7 @@ public class PBRTerrainShader extends MundusPBRShader {
                     TerrainMaterialAttribute terrainMaterialAttribute = (TerrainMaterialAttribute) combinedAttributes.get(TerrainMaterialAttribute.TerrainMaterial);
                     TerrainMaterial material = terrainMaterialAttribute.terrainMaterial;
                     textureDescription.texture = material.getTexture(channel).getTexture();
-                    final int unit = shader.context.textureBinder
-                            .bind(textureDescription);
-                    shader.set(inputID, unit);
+                    ((PBRTerrainShader) shader).uniformCache.set(inputID, textureDescription);
                 }
             };
         }
@@ -72,9 +70,7 @@ public class PBRTerrainShader extends MundusPBRShader {
                     TerrainMaterialAttribute terrainMaterialAttribute = (TerrainMaterialAttribute) combinedAttributes.get(TerrainMaterialAttribute.TerrainMaterial);
                     TerrainMaterial material = terrainMaterialAttribute.terrainMaterial;
                     textureDescription.texture = material.getNormalTexture(channel).getTexture();
-                    final int unit = shader.context.textureBinder
-                            .bind(textureDescription);
-                    shader.set(inputID, unit);
+                    ((PBRTerrainShader) shader).uniformCache.set(inputID, textureDescription);
                 }
             };
         }
@@ -86,9 +82,7 @@ public class PBRTerrainShader extends MundusPBRShader {
                 TerrainMaterial material = terrainMaterialAttribute.terrainMaterial;
 
                 textureDescription.texture = material.getSplatmap().getTexture();
-                final int unit = shader.context.textureBinder
-                        .bind(textureDescription);
-                shader.set(inputID, unit);
+                ((PBRTerrainShader) shader).uniformCache.set(inputID, textureDescription);
             }
         };
 
@@ -0,0 +1,27 @@
+package com.mbrlabs.mundus.commons.shaders;
+
+/**
+ * Stores linked shader program binaries, so programs compiled in an earlier run can be loaded instead of linked
+ * again. Reading and loading program binaries is not part of the libGDX GL interfaces, implementations live in the
+ * desktop backends. Installed with {@link com.mbrlabs.mundus.commons.utils.ShaderBinaryGL20#install}.
+ */
+public interface ShaderBinaryCache {
+
+    /**
+     * Loads the binary stored for the key into the program with glProgramBinary. The caller checks the link status
+     * afterwards and links the program from its shaders if the binary was rejected.
+     *
+     * @param program the program handle, with its compiled shaders attached
+     * @param key     the key of the program sources and the driver
+     * @return true if a binary was stored for the key and loaded into the program
+     */
+    boolean load(int program, String key);
+
+    /**
+     * Reads the binary of the linked program with glGetProgramBinary and stores it for the key.
+     *
+     * @param program the linked program handle
+     * @param key     the key of the program sources and the driver
+     */
+    void save(int program, String key);
+}
@@ -0,0 +1,99 @@
+package com.mbrlabs.mundus.commons.shaders;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.g3d.Environment;
+import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.badlogic.gdx.graphics.g3d.RenderableProvider;
+import com.badlogic.gdx.graphics.g3d.Shader;
+import com.badlogic.gdx.graphics.g3d.utils.ShaderProvider;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FlushablePool;
+import com.badlogic.gdx.utils.ObjectSet;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.mbrlabs.mundus.commons.Scene;
+import com.mbrlabs.mundus.commons.scene3d.GameObject;
+import com.mbrlabs.mundus.commons.scene3d.components.Component;
+import com.mbrlabs.mundus.commons.scene3d.components.ModelComponent;
+import com.mbrlabs.mundus.commons.scene3d.components.RenderableComponent;
+import com.mbrlabs.mundus.commons.scene3d.components.WaterComponent;
+
+/**
+ * Compiles the shaders of a scene up front. Shader providers compile a shader the first time a renderable with a
+ * new combination of material, vertex and environment attributes is rendered, which causes a hitch when the camera
+ * turns towards a new material or a terrain with a different set of splat channels.
+ * <p>
+ * Prewarming asks the providers for the shader of every renderable of every model, terrain and water component in
+ * the scene, so these variants are compiled while loading instead. Variants only created while rendering, like
+ * instanced meshes and impostors, are still compiled on first use.
+ */
+public class ShaderPrewarmer {
+    private static final String TAG = ShaderPrewarmer.class.getSimpleName();
+
+    private final Array<Renderable> renderables = new Array<>();
+    private final FlushablePool<Renderable> renderablePool = new FlushablePool<Renderable>() {
+        @Override
+        protected Renderable newObject() {
+            return new Renderable();
+        }
+    };
+    private final ObjectSet<Shader> shaders = new ObjectSet<>();
+
+    /**
+     * Compiles the shaders for all renderable components of the scene.
+     *
+     * @param shaderProvider      the shader provider of the scenes model batch
+     * @param depthShaderProvider the shader provider of the scenes depth batch, or null to skip depth shaders
+     * @return number of distinct shaders used by the scene
+     */
+    public int prewarm(Scene scene, ShaderProvider shaderProvider, ShaderProvider depthShaderProvider) {
+        long start = TimeUtils.millis();
+        shaders.clear();
+
+        // Clustered lights and per object light selection change the environment and thus the shader variants
+        scene.updateLights();
+        prewarm(scene, scene.sceneGraph.getRoot(), shaderProvider, depthShaderProvider);
+
+        int count = shaders.size;
+        shaders.clear();
+        Gdx.app.log(TAG, "Prewarmed " + count + " shaders in " + TimeUtils.timeSinceMillis(start) + "ms");
+        return count;
+    }
+
+    private void prewarm(Scene scene, GameObject parent, ShaderProvider shaderProvider, ShaderProvider depthShaderProvider) {
+        if (parent.getChildren() == null) return;
+
+        for (GameObject go : parent.getChildren()) {
+            for (Component component : go.getComponents()) {
+                if (!(component instanceof RenderableComponent)) continue;
+
+                RenderableProvider provider = ((RenderableComponent) component).getRenderableProvider();
+                if (provider == null) continue;
+
+                // Use the same environment as the scene renderer
+                Environment environment = scene.environment;
+                if (component instanceof ModelComponent && scene.lightSelector.isEnabled()) {
+                    environment = scene.lightSelector.getEnvironment(scene.environment, (ModelComponent) component);
+                }
+
+                // Water is not rendered into depth passes
+                boolean depth = depthShaderProvider != null && !(component instanceof WaterComponent);
+
+                provider.getRenderables(renderables, renderablePool);
+                for (Renderable renderable : renderables) {
+                    renderable.environment = environment;
+                    renderable.shader = null;
+                    shaders.add(shaderProvider.getShader(renderable));
+
+                    if (depth) {
+                        renderable.shader = null;
+                        shaders.add(depthShaderProvider.getShader(renderable));
+                    }
+                }
+                renderables.clear();
+                renderablePool.flush();
+            }
+
+            prewarm(scene, go, shaderProvider, depthShaderProvider);
+        }
+    }
+}
@@ -65,14 +65,14 @@ public class TerrainUberShader extends LightShader {
             @Override
             public void set (BaseShader shader, int inputID, Renderable renderable, Attributes combinedAttributes) {
                 TerrainMaterialAttribute terrainMaterialAttribute = (TerrainMaterialAttribute) combinedAttributes.get(TerrainMaterialAttribute.TerrainMaterial);
-                shader.set(inputID, v2.set(terrainMaterialAttribute.terrainMaterial.getTerrain().terrainWidth, terrainMaterialAttribute.terrainMaterial.getTerrain().terrainDepth));
+                ((TerrainUberShader) shader).uniformCache.set(inputID, v2.set(terrainMaterialAttribute.terrainMaterial.getTerrain().terrainWidth, terrainMaterialAttribute.terrainMaterial.getTerrain().terrainDepth));
             }
         };
 
         public final static Setter clipPlane = new LocalSetter() {
             @Override
             public void set (BaseShader shader, int inputID, Renderable renderable, Attributes combinedAttributes) {
-                shader.set(inputID, terrainClippingPlane.x, terrainClippingPlane.y, terrainClippingPlane.z, terrainClippingHeight);
+                ((TerrainUberShader) shader).uniformCache.set(inputID, terrainClippingPlane.x, terrainClippingPlane.y, terrainClippingPlane.z, terrainClippingHeight);
             }
         };
 
@@ -80,7 +80,7 @@ public class TerrainUberShader extends LightShader {
             @Override
             public void set (BaseShader shader, int inputID, Renderable renderable, Attributes combinedAttributes) {
                 TerrainMaterialAttribute terrainMaterialAttribute = (TerrainMaterialAttribute) combinedAttributes.get(TerrainMaterialAttribute.TerrainMaterial);
-                shader.set(inputID, terrainMaterialAttribute.terrainMaterial.getTerrain().getUvScale());
+                ((TerrainUberShader) shader).uniformCache.set(inputID, terrainMaterialAttribute.terrainMaterial.getTerrain().getUvScale());
             }
         };
 
@@ -103,9 +103,7 @@ public class TerrainUberShader extends LightShader {
                     TerrainMaterialAttribute terrainMaterialAttribute = (TerrainMaterialAttribute) combinedAttributes.get(TerrainMaterialAttribute.TerrainMaterial);
                     TerrainMaterial material = terrainMaterialAttribute.terrainMaterial;
                     textureDescription.texture = material.getTexture(channel).getTexture();
-                    final int unit = shader.context.textureBinder
-                            .bind(textureDescription);
-                    shader.set(inputID, unit);
+                    ((TerrainUberShader) shader).uniformCache.set(inputID, textureDescription);
                 }
             };
         }
@@ -117,9 +115,7 @@ public class TerrainUberShader extends LightShader {
                     TerrainMaterialAttribute terrainMaterialAttribute = (TerrainMaterialAttribute) combinedAttributes.get(TerrainMaterialAttribute.TerrainMaterial);
                     TerrainMaterial material = terrainMaterialAttribute.terrainMaterial;
                     textureDescription.texture = material.getNormalTexture(channel).getTexture();
-                    final int unit = shader.context.textureBinder
-                            .bind(textureDescription);
-                    shader.set(inputID, unit);
+                    ((TerrainUberShader) shader).uniformCache.set(inputID, textureDescription);
                 }
             };
         }
@@ -131,9 +127,7 @@ public class TerrainUberShader extends LightShader {
                     TerrainMaterial material = terrainMaterialAttribute.terrainMaterial;
 
                     textureDescription.texture = material.getSplatmap().getTexture();
-                    final int unit = shader.context.textureBinder
-                            .bind(textureDescription);
-                    shader.set(inputID, unit);
+                    ((TerrainUberShader) shader).uniformCache.set(inputID, textureDescription);
                 }
             };
 
@@ -220,7 +214,7 @@ public class TerrainUberShader extends LightShader {
     }
 
     protected String createPrefixForRenderable(Renderable renderable) {
-        String prefix = "";
+        String prefix = FrameUniformBuffer.getShaderPrefix();
 
         if (renderable.environment.has(ColorAttribute.Fog)) {
             prefix += "#define fogFlag\n";
@@ -303,6 +297,9 @@ public class TerrainUberShader extends LightShader {
         final MundusEnvironment env = (MundusEnvironment) renderable.environment;
         setLights(env);
         setShadows(env);
+        if (frameUniforms != null) {
+            frameUniforms.setEnvironment(env);
+        }
 
         super.render(renderable);
     }
@@ -310,8 +307,8 @@ public class TerrainUberShader extends LightShader {
     @Override
     public void render(Renderable renderable, Attributes combinedAttributes) {
         if (combinedAttributes.has(ColorAttribute.Fog) && combinedAttributes.has(FogAttribute.FogEquation)) {
-            set(u_fogColor, ((ColorAttribute)combinedAttributes.get(ColorAttribute.Fog)).color);
-            set(u_fogEquation, ((FogAttribute)combinedAttributes.get(FogAttribute.FogEquation)).value);
+            uniformCache.set(u_fogColor, ((ColorAttribute)combinedAttributes.get(ColorAttribute.Fog)).color);
+            uniformCache.set(u_fogEquation, ((FogAttribute)combinedAttributes.get(FogAttribute.FogEquation)).value);
         }
         super.render(renderable, combinedAttributes);
     }
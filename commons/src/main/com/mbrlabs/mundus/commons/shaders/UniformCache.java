@@ -0,0 +1,190 @@
+package com.mbrlabs.mundus.commons.shaders;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GLTexture;
+import com.badlogic.gdx.graphics.g3d.shaders.BaseShader;
+import com.badlogic.gdx.graphics.g3d.utils.TextureBinder;
+import com.badlogic.gdx.graphics.g3d.utils.TextureDescriptor;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.NumberUtils;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the last value set for each uniform of a shader and skips setting it again when consecutive
+ * renderables use the same value, like terrain chunks sharing a material or water tiles sharing the lights.
+ * <p>
+ * Textures are only bound again when the texture changed or the texture binder bound another texture since,
+ * which may have replaced it in its texture unit. Uniform values stay in the program, but texture units do not,
+ * so the cache has to be reset in the shaders begin method.
+ * <p>
+ * The number of updated and skipped uniforms and texture binds of all shaders is counted for profiling.
+ */
+public class UniformCache {
+    private static final int INT = 5;
+
+    private static int uniformUpdates;
+    private static int skippedUniformUpdates;
+    private static int textureBinds;
+    private static int skippedTextureBinds;
+
+    private final BaseShader shader;
+
+    // Raw bits of up to 4 components per uniform and the type, 1-4 for floats, 0 for unset
+    private int[] values = new int[0];
+    private int[] types = new int[0];
+
+    private final Array<TextureDescriptor<GLTexture>> textures = new Array<>();
+    private int[] textureBindCounts = new int[0];
+    private final TextureDescriptor<GLTexture> tmpTextureDescriptor = new TextureDescriptor<>();
+
+    public UniformCache(BaseShader shader) {
+        this.shader = shader;
+    }
+
+    /**
+     * Forgets all cached values. Call when the shader begins.
+     */
+    public void reset() {
+        Arrays.fill(types, 0);
+        // The binder never reports a negative count, so no cached texture matches
+        Arrays.fill(textureBindCounts, -1);
+    }
+
+    public boolean set(int uniform, int value) {
+        if (isCached(uniform, INT, value, 0, 0, 0)) return false;
+        return shader.set(uniform, value);
+    }
+
+    public boolean set(int uniform, float value) {
+        if (isCached(uniform, 1, bits(value), 0, 0, 0)) return false;
+        return shader.set(uniform, value);
+    }
+
+    public boolean set(int uniform, float v1, float v2) {
+        if (isCached(uniform, 2, bits(v1), bits(v2), 0, 0)) return false;
+        return shader.set(uniform, v1, v2);
+    }
+
+    public boolean set(int uniform, float v1, float v2, float v3) {
+        if (isCached(uniform, 3, bits(v1), bits(v2), bits(v3), 0)) return false;
+        return shader.set(uniform, v1, v2, v3);
+    }
+
+    public boolean set(int uniform, float v1, float v2, float v3, float v4) {
+        if (isCached(uniform, 4, bits(v1), bits(v2), bits(v3), bits(v4))) return false;
+        return shader.set(uniform, v1, v2, v3, v4);
+    }
+
+    public boolean set(int uniform, Vector2 value) {
+        return set(uniform, value.x, value.y);
+    }
+
+    public boolean set(int uniform, Vector3 value) {
+        return set(uniform, value.x, value.y, value.z);
+    }
+
+    public boolean set(int uniform, Color value) {
+        return set(uniform, value.r, value.g, value.b, value.a);
+    }
+
+    public boolean set(int uniform, GLTexture texture) {
+        tmpTextureDescriptor.set(texture, null, null, null, null);
+        return set(uniform, tmpTextureDescriptor);
+    }
+
+    /**
+     * Binds the texture and sets the texture unit, unless it is still bound from the last call.
+     */
+    public boolean set(int uniform, TextureDescriptor<? extends GLTexture> textureDescriptor) {
+        if (!shader.has(uniform)) return false;
+        ensureCapacity(uniform);
+
+        TextureBinder binder = shader.context.textureBinder;
+        TextureDescriptor<GLTexture> cached = textures.get(uniform);
+        if (cached != null && cached.equals(textureDescriptor) && textureBindCounts[uniform] == binder.getBindCount()) {
+            skippedTextureBinds++;
+            return false;
+        }
+
+        textureBinds++;
+        int unit = binder.bind(textureDescriptor);
+        if (cached == null) {
+            cached = new TextureDescriptor<>();
+            textures.set(uniform, cached);
+        }
+        cached.set(textureDescriptor);
+        textureBindCounts[uniform] = binder.getBindCount();
+        return set(uniform, unit);
+    }
+
+    private boolean isCached(int uniform, int type, int v1, int v2, int v3, int v4) {
+        if (uniform < 0) return true;
+        ensureCapacity(uniform);
+
+        int i = uniform * 4;
+        if (types[uniform] == type && values[i] == v1 && values[i + 1] == v2 && values[i + 2] == v3 && values[i + 3] == v4) {
+            skippedUniformUpdates++;
+            return true;
+        }
+
+        types[uniform] = type;
+        values[i] = v1;
+        values[i + 1] = v2;
+        values[i + 2] = v3;
+        values[i + 3] = v4;
+        uniformUpdates++;
+        return false;
+    }
+
+    private void ensureCapacity(int uniform) {
+        if (uniform < types.length) return;
+
+        int size = Math.max(uniform + 1, types.length * 2);
+        types = Arrays.copyOf(types, size);
+        values = Arrays.copyOf(values, size * 4);
+        textureBindCounts = Arrays.copyOf(textureBindCounts, size);
+        textures.setSize(size);
+    }
+
+    private static int bits(float value) {
+        return NumberUtils.floatToRawIntBits(value);
+    }
+
+    /**
+     * @return number of uniforms set through caches since the last reset of the counts
+     */
+    public static int getUniformUpdates() {
+        return uniformUpdates;
+    }
+
+    /**
+     * @return number of uniforms not set because they did not change since the last reset of the counts
+     */
+    public static int getSkippedUniformUpdates() {
+        return skippedUniformUpdates;
+    }
+
+    /**
+     * @return number of textures bound through caches since the last reset of the counts
+     */
+    public static int getTextureBinds() {
+        return textureBinds;
+    }
+
+    /**
+     * @return number of textures not bound because they were still bound since the last reset of the counts
+     */
+    public static int getSkippedTextureBinds() {
+        return skippedTextureBinds;
+    }
+
+    public static void resetCounts() {
+        uniformUpdates = 0;
+        skippedUniformUpdates = 0;
+        textureBinds = 0;
+        skippedTextureBinds = 0;
+    }
+}
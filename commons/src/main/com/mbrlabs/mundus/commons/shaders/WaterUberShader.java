@@ -68,7 +68,7 @@ public class WaterUberShader extends LightShader {
                 WaterMaterial mat = getWaterMaterial(renderable);
                 WaterFloatAttribute attr = (WaterFloatAttribute) mat.get(WaterFloatAttribute.FoamUVOffset);
                 if (attr != null)
-                    shader.set(inputID,  attr.value, attr.value, 200f, 200f);
+                    ((WaterUberShader) shader).uniformCache.set(inputID,  attr.value, attr.value, 200f, 200f);
             }
         };
 
@@ -82,7 +82,7 @@ public class WaterUberShader extends LightShader {
                 WaterColorAttribute attr = (WaterColorAttribute)(waterMaterial.get(WaterColorAttribute.Diffuse));
 
                 if (attr != null)
-                    shader.set(inputID, attr.color);
+                    ((WaterUberShader) shader).uniformCache.set(inputID, attr.color);
             }
         };
 
@@ -116,9 +116,7 @@ public class WaterUberShader extends LightShader {
                     WaterMaterial waterMaterial = waterMaterialAttribute.waterMaterial;
 
                     WaterTextureAttribute waterTextureAttributeU = waterMaterial.get(WaterTextureAttribute.class, attribute);
-                    final int unit = shader.context.textureBinder
-                            .bind(waterTextureAttributeU.textureDescription);
-                    shader.set(inputID, unit);
+                    ((WaterUberShader) shader).uniformCache.set(inputID, waterTextureAttributeU.textureDescription);
                 }
             };
         }
@@ -139,7 +137,7 @@ public class WaterUberShader extends LightShader {
 
         @Override
         public void set(BaseShader shader, int inputID, Renderable renderable, Attributes combinedAttributes) {
-            shader.set(inputID, getFloatValue(renderable, attribute, defaultValue));
+            ((WaterUberShader) shader).uniformCache.set(inputID, getFloatValue(renderable, attribute, defaultValue));
         }
     }
 
@@ -257,6 +255,9 @@ public class WaterUberShader extends LightShader {
     public void render(Renderable renderable) {
         final MundusEnvironment env = (MundusEnvironment) renderable.environment;
         setLights(env);
+        if (frameUniforms != null) {
+            frameUniforms.setEnvironment(env);
+        }
 
         super.render(renderable);
     }
@@ -264,8 +265,8 @@ public class WaterUberShader extends LightShader {
     @Override
     public void render(Renderable renderable, Attributes combinedAttributes) {
         if (combinedAttributes.has(ColorAttribute.Fog) && combinedAttributes.has(FogAttribute.FogEquation)) {
-            set(u_fogColor, ((ColorAttribute)combinedAttributes.get(ColorAttribute.Fog)).color);
-            set(u_fogEquation, ((FogAttribute)combinedAttributes.get(FogAttribute.FogEquation)).value);
+            uniformCache.set(u_fogColor, ((ColorAttribute)combinedAttributes.get(ColorAttribute.Fog)).color);
+            uniformCache.set(u_fogEquation, ((FogAttribute)combinedAttributes.get(FogAttribute.FogEquation)).value);
         }
 
         int cullFace = GL20.GL_BACK;
@@ -315,7 +316,7 @@ public class WaterUberShader extends LightShader {
     }
 
     private String createPrefixForRenderable(Renderable renderable) {
-        String prefix = "";
+        String prefix = FrameUniformBuffer.getShaderPrefix();
 
         if (renderable.environment.has(ColorAttribute.Fog)) {
             prefix += "#define fogFlag\n";
@@ -183,7 +183,7 @@ float getShadowness(vec2 offset)
     return step(v_shadowMapUv.z, dot(texture2D(u_shadowTexture, v_shadowMapUv.xy + offset), bitShifts) + u_shadowBias); // (1.0/255.0)
 }
 
-float getShadow()
+float getBaseShadow()
 {
 	return (//getShadowness(vec2(0,0)) +
 			getShadowness(vec2(u_shadowPCFOffset, u_shadowPCFOffset)) +
@@ -191,9 +191,59 @@ float getShadow()
 			getShadowness(vec2(u_shadowPCFOffset, -u_shadowPCFOffset)) +
 			getShadowness(vec2(-u_shadowPCFOffset, -u_shadowPCFOffset))) * 0.25;
 }
+
+#ifdef numCSM
+// Additional cascades, the base shadow map is the nearest cascade
+uniform sampler2D u_csmSamplers[numCSM];
+uniform float u_csmPCFOffsets[numCSM];
+// Far view depth of each cascade, starting with the base shadow map
+uniform float u_csmSplits[numCSM + 1];
+varying vec3 v_csmUVs[numCSM];
+varying float v_csmDepth;
+
+bool isInShadowMap(vec3 uv)
+{
+    return uv.x >= 0.0 && uv.x <= 1.0 && uv.y >= 0.0 && uv.y <= 1.0 && uv.z <= 0.998;
+}
+
+float getCSMShadowness(sampler2D shadowTexture, vec3 uv, vec2 offset)
+{
+    const vec4 bitShifts = vec4(1.0, 1.0 / 255.0, 1.0 / 65025.0, 1.0 / 16581375.0);
+    return step(uv.z, dot(texture2D(shadowTexture, uv.xy + offset), bitShifts) + u_shadowBias);
+}
+
+float getCSMShadow(sampler2D shadowTexture, vec3 uv, float pcfOffset)
+{
+	return (getCSMShadowness(shadowTexture, uv, vec2(pcfOffset, pcfOffset)) +
+			getCSMShadowness(shadowTexture, uv, vec2(-pcfOffset, pcfOffset)) +
+			getCSMShadowness(shadowTexture, uv, vec2(pcfOffset, -pcfOffset)) +
+			getCSMShadowness(shadowTexture, uv, vec2(-pcfOffset, -pcfOffset))) * 0.25;
+}
+
+float getShadow()
+{
+    // Select the cascade by view depth. A far cascade which was not updated this frame may not contain the
+    // fragment yet, the next cascade is used then
+    if (v_csmDepth < u_csmSplits[0] && isInShadowMap(v_shadowMapUv)) {
+        return getBaseShadow();
+    }
+
+    for(int i = 0; i < numCSM; i++){
+        if (v_csmDepth < u_csmSplits[i + 1] && isInShadowMap(v_csmUVs[i])) {
+            return getCSMShadow(u_csmSamplers[i], v_csmUVs[i], u_csmPCFOffsets[i]);
+        }
+    }
+    return 1.0;
+}
+#else
+float getShadow()
+{
+    return getBaseShadow();
+}
+#endif //numCSM
 #endif //shadowMapFlag
 
-#ifdef fogFlag
+#if defined(fogFlag) && !defined(frameUniformsFlag)
 uniform vec4 u_fogColor;
 
 #ifdef fogEquationFlag
@@ -247,7 +297,7 @@ uniform DirectionalLight u_dirLights[numDirectionalLights];
 #endif // numDirectionalLights
 
 
-#if numPointLights > 0
+#if numPointLights > 0 && !defined(clusteredLightsFlag)
 struct PointLight
 {
 	vec3 color;
@@ -256,7 +306,7 @@ struct PointLight
 uniform PointLight u_pointLights[numPointLights];
 #endif // numPointLights
 
-#if numSpotLights > 0
+#if numSpotLights > 0 && !defined(clusteredLightsFlag)
 struct SpotLight
 {
 	vec3 color;
@@ -267,9 +317,23 @@ struct SpotLight
 };
 uniform SpotLight u_spotLights[numSpotLights];
 #endif // numSpotLights
+
+#ifdef clusteredLightsFlag
+// Point and spot lights binned into view space clusters, see ClusteredLights
+uniform sampler2D u_clusterLights;
+uniform sampler2D u_clusterGrid;
+uniform sampler2D u_clusterIndices;
+uniform mat4 u_clusterProjView;
+// tiles x, tiles y, depth slices, light count
+uniform vec4 u_clusterSize;
+// near plane, depth slices per log(depth / near)
+uniform vec2 u_clusterDepth;
+#endif // clusteredLightsFlag
 #endif
 
+#ifndef frameUniformsFlag
 uniform vec4 u_cameraPosition;
+#endif
 
 uniform vec2 u_MetallicRoughnessValues;
 
@@ -565,7 +629,7 @@ vec3 getDirectionalLightContribution(PBRSurfaceInfo pbrSurface, DirectionalLight
 }
 #endif
 
-#if numPointLights > 0
+#if numPointLights > 0 && !defined(clusteredLightsFlag)
 vec3 getPointLightContribution(PBRSurfaceInfo pbrSurface, PointLight light)
 {
 	// light direction and distance
@@ -577,7 +641,7 @@ vec3 getPointLightContribution(PBRSurfaceInfo pbrSurface, PointLight light)
 }
 #endif
 
-#if numSpotLights > 0
+#if numSpotLights > 0 && !defined(clusteredLightsFlag)
 vec3 getSpotLightContribution(PBRSurfaceInfo pbrSurface, SpotLight light)
 {
 	// light distance
@@ -600,6 +664,61 @@ vec3 getSpotLightContribution(PBRSurfaceInfo pbrSurface, SpotLight light)
 }
 #endif
 
+#ifdef clusteredLightsFlag
+vec3 getClusteredLightContribution(PBRSurfaceInfo pbrSurface, int index)
+{
+	vec4 positionRange = texelFetch(u_clusterLights, ivec2(0, index), 0);
+	vec4 colorScale = texelFetch(u_clusterLights, ivec2(1, index), 0);
+	vec4 directionOffset = texelFetch(u_clusterLights, ivec2(2, index), 0);
+
+	vec3 d = positionRange.xyz - v_position.xyz;
+	float dist2 = dot(d, d);
+
+	// Fade out to zero at the light range, lights are only binned into the clusters within their range
+	float rangeFactor = dist2 / (positionRange.w * positionRange.w);
+	float window = saturate(1.0 - rangeFactor * rangeFactor);
+	window *= window;
+	if (window <= 0.0) return vec3(0.0);
+	d *= inversesqrt(dist2);
+
+	// Point lights have no direction and an offset of one, so they are not attenuated
+	float angularAttenuation = saturate(dot(-directionOffset.xyz, d) * colorScale.w + directionOffset.w);
+	angularAttenuation *= angularAttenuation;
+
+	return getLightContribution(pbrSurface, d) * colorScale.rgb * (angularAttenuation * window / (1.0 + dist2));
+}
+
+vec3 getClusteredLightsContribution(PBRSurfaceInfo pbrSurface)
+{
+	vec3 color = vec3(0.0);
+	vec4 clip = u_clusterProjView * vec4(v_position, 1.0);
+	vec3 ndc = clip.xyz / clip.w;
+
+	// Passes with another camera bin the lights for their own camera, see Scene.beginPassLightClusters. Fragments
+	// behind the clustered camera get no lights, the ones just outside its frustum use the nearest cluster
+	if (clip.w <= 0.0) return color;
+
+	ivec2 tile = ivec2(clamp((ndc.xy * 0.5 + 0.5) * u_clusterSize.xy, vec2(0.0), u_clusterSize.xy - 1.0));
+	// clip.w is the view depth for perspective cameras, orthographic cameras have a single slice
+	float slice = u_clusterDepth.y > 0.0 ? log(clip.w / u_clusterDepth.x) * u_clusterDepth.y : 0.0;
+	int z = int(clamp(slice, 0.0, u_clusterSize.z - 1.0));
+
+	vec2 cluster = texelFetch(u_clusterGrid, ivec2(tile.y * int(u_clusterSize.x) + tile.x, z), 0).rg;
+	int offset = int(cluster.r);
+	int count = int(cluster.g);
+	for (int i = 0; i < count; i++) {
+		// Light indices are packed four per texel
+		int index = offset + i;
+		int texel = index / 4;
+		vec4 indices = texelFetch(u_clusterIndices, ivec2(texel % clusterIndexWidth, texel / clusterIndexWidth), 0);
+		int component = index - texel * 4;
+		float light = component == 0 ? indices.x : (component == 1 ? indices.y : (component == 2 ? indices.z : indices.w));
+		color += getClusteredLightContribution(pbrSurface, int(light));
+	}
+	return color;
+}
+#endif // clusteredLightsFlag
+
 void main() {
     if ( v_clipDistance < 0.0 )
         discard;
@@ -736,14 +855,19 @@ void main() {
     }
 #endif
 
-#if (numPointLights > 0)
+#ifdef clusteredLightsFlag
+    // Point and spot lights of the fragments cluster
+    color += getClusteredLightsContribution(pbrSurface);
+#endif // clusteredLightsFlag
+
+#if (numPointLights > 0) && !defined(clusteredLightsFlag)
     // Point lights calculation
     for(int i=0 ; i<numPointLights ; i++){
     	color += getPointLightContribution(pbrSurface, u_pointLights[i]);
     }
 #endif // numPointLights
 
-#if (numSpotLights > 0)
+#if (numSpotLights > 0) && !defined(clusteredLightsFlag)
     // Spot lights calculation
     for(int i=0 ; i<numSpotLights ; i++){
     	color += getSpotLightContribution(pbrSurface, u_spotLights[i]);
@@ -19,7 +19,10 @@ precision highp float;
 varying vec3 v_position;
 
 attribute vec3 a_position;
+// Declared in the shared uniform block on GL3 desktop
+#ifndef frameUniformsFlag
 uniform mat4 u_projViewTrans;
+#endif
 
 #ifdef position0Flag
 attribute vec3 a_position0;
@@ -205,7 +208,15 @@ attribute vec2 a_boneWeight7;
 #endif
 #endif
 
+#ifdef instancedFlag
+// World transform per instance, one column per attribute
+attribute vec4 i_worldTrans0;
+attribute vec4 i_worldTrans1;
+attribute vec4 i_worldTrans2;
+attribute vec4 i_worldTrans3;
+#else
 uniform mat4 u_worldTrans;
+#endif
 
 #if defined(numBones)
 #if numBones > 0
@@ -226,11 +237,20 @@ varying float v_alphaTest;
 #ifdef shadowMapFlag
 uniform mat4 u_shadowMapProjViewTrans;
 varying vec3 v_shadowMapUv;
+
+#ifdef numCSM
+uniform mat4 u_csmTransforms[numCSM];
+varying vec3 v_csmUVs[numCSM];
+// View depth used to select the cascade
+varying float v_csmDepth;
+#endif //numCSM
 #endif //shadowMapFlag
 
 // clipping plane
 varying float v_clipDistance;
+#ifndef frameUniformsFlag
 uniform vec4 u_clipPlane;
+#endif
 
 #ifdef splatFlag
 varying vec2 v_splatPosition;
@@ -239,6 +259,22 @@ uniform vec2 u_terrainSize;
 
 void main() {
 
+	#ifdef instancedFlag
+		mat4 worldTrans = mat4(i_worldTrans0, i_worldTrans1, i_worldTrans2, i_worldTrans3);
+		#ifdef normalFlag
+			// Cofactor matrix, equal to the normal matrix up to scale, sign corrected for mirrored transforms
+			vec3 c0 = worldTrans[0].xyz;
+			vec3 c1 = worldTrans[1].xyz;
+			vec3 c2 = worldTrans[2].xyz;
+			mat3 normalMatrix = mat3(cross(c1, c2), cross(c2, c0), cross(c0, c1)) * sign(dot(c0, cross(c1, c2)));
+		#endif
+	#else
+		mat4 worldTrans = u_worldTrans;
+		#ifdef normalFlag
+			mat3 normalMatrix = u_normalMatrix;
+		#endif
+	#endif
+
 	#ifdef splatFlag
 		v_splatPosition = vec2(a_position.x / u_terrainSize.x, a_position.z / u_terrainSize);
 	#endif
@@ -321,9 +357,9 @@ void main() {
 	#endif		
 	
 	#ifdef skinningFlag
-		vec4 pos = u_worldTrans * skinning * vec4(morph_pos, 1.0);
+		vec4 pos = worldTrans * skinning * vec4(morph_pos, 1.0);
 	#else
-		vec4 pos = u_worldTrans * vec4(morph_pos, 1.0);
+		vec4 pos = worldTrans * vec4(morph_pos, 1.0);
 	#endif
 
 	v_clipDistance = dot(pos, u_clipPlane);
@@ -334,6 +370,15 @@ void main() {
 		vec4 spos = u_shadowMapProjViewTrans * pos;
 		v_shadowMapUv.xyz = (spos.xyz / spos.w) * 0.5 + 0.5;
 		v_shadowMapUv.z = min(v_shadowMapUv.z, 0.998);
+
+		#ifdef numCSM
+		v_csmDepth = gl_Position.w;
+		for(int i = 0; i < numCSM; i++){
+			vec4 csmPos = u_csmTransforms[i] * pos;
+			v_csmUVs[i] = (csmPos.xyz / csmPos.w) * 0.5 + 0.5;
+			v_csmUVs[i].z = min(v_csmUVs[i].z, 0.998);
+		}
+		#endif //numCSM
 	#endif //shadowMapFlag
 	
 	#if defined(normalFlag)
@@ -410,12 +455,12 @@ void main() {
 			#endif
 			
 			
-			vec3 normalW = normalize(vec3(u_normalMatrix * normal.xyz));
-			vec3 tangentW = normalize(vec3(u_worldTrans * vec4(tangent, 0.0)));
+			vec3 normalW = normalize(vec3(normalMatrix * normal.xyz));
+			vec3 tangentW = normalize(vec3(worldTrans * vec4(tangent, 0.0)));
 			vec3 bitangentW = cross(normalW, tangentW) * a_tangent.w;
 			v_TBN = mat3(tangentW, bitangentW, normalW);
 		#else // tangentFlag != 1
-			v_normal = normalize(vec3(u_normalMatrix * normal.xyz));
+			v_normal = normalize(vec3(normalMatrix * normal.xyz));
 		#endif
 	#endif // normalFlag
 	
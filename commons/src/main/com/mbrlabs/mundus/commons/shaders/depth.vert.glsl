@@ -16,7 +16,15 @@
 
 attribute vec3 a_position;
 
+#ifdef instancedFlag
+// World transform per instance, one column per attribute
+attribute vec4 i_worldTrans0;
+attribute vec4 i_worldTrans1;
+attribute vec4 i_worldTrans2;
+attribute vec4 i_worldTrans3;
+#else
 uniform mat4 u_transMatrix;
+#endif
 uniform mat4 u_projViewMatrix;
 
 // clipping plane
@@ -24,7 +32,12 @@ varying float v_clipDistance;
 uniform vec4 u_clipPlane;
 
 void main() {
-    vec4 worldPos = u_transMatrix * vec4(a_position, 1.0);
+#ifdef instancedFlag
+    mat4 transMatrix = mat4(i_worldTrans0, i_worldTrans1, i_worldTrans2, i_worldTrans3);
+#else
+    mat4 transMatrix = u_transMatrix;
+#endif
+    vec4 worldPos = transMatrix * vec4(a_position, 1.0);
     gl_Position = u_projViewMatrix * worldPos;
 
     // clipping plane
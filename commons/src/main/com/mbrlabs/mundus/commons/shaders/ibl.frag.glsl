@@ -0,0 +1,84 @@
+#include "compat.glsl"
+
+#define PI 3.1415926535897932384626433832795
+
+uniform samplerCube u_environment;
+// Solid angle of one texel of the base level of the environment map
+uniform float u_texelSolidAngle;
+// Level of detail the sampler picks for the size of the rendered face, sample levels are biased relative to it
+uniform float u_faceLod;
+#ifndef irradianceFlag
+uniform float u_roughness;
+#endif
+
+varying vec3 v_direction;
+
+// Van der Corput sequence, computed without bit operations which GLSL ES 1.0 does not have
+float radicalInverse(float i) {
+    float result = 0.0;
+    float f = 0.5;
+    for (int bit = 0; bit < 16; bit++) {
+        result += f * mod(i, 2.0);
+        i = floor(i * 0.5);
+        f *= 0.5;
+    }
+    return result;
+}
+
+// Reads the environment from the mip level whose texels cover the solid angle of the sample, so a few samples
+// do not miss small bright spots like the sun
+vec3 sampleEnvironment(vec3 direction, float pdf) {
+    float sampleSolidAngle = 1.0 / (float(sampleCount) * pdf + 0.0001);
+    float lod = max(0.5 * log2(sampleSolidAngle / u_texelSolidAngle) + 1.0, 0.0);
+    return textureCube(u_environment, direction, lod - u_faceLod).rgb;
+}
+
+void main() {
+    vec3 N = normalize(v_direction);
+    vec3 up = abs(N.z) < 0.999 ? vec3(0.0, 0.0, 1.0) : vec3(1.0, 0.0, 0.0);
+    vec3 tangentX = normalize(cross(up, N));
+    vec3 tangentY = cross(N, tangentX);
+
+#ifdef irradianceFlag
+    // Cosine weighted samples, their average is the irradiance divided by pi
+    vec3 color = vec3(0.0);
+    for (int i = 0; i < sampleCount; i++) {
+        float phi = 2.0 * PI * float(i) / float(sampleCount);
+        float v = radicalInverse(float(i));
+        float cosTheta = sqrt(1.0 - v);
+        float sinTheta = sqrt(v);
+        vec3 L = (cos(phi) * sinTheta) * tangentX + (sin(phi) * sinTheta) * tangentY + cosTheta * N;
+        color += sampleEnvironment(L, cosTheta / PI);
+    }
+    gl_FragColor = vec4(color / float(sampleCount), 1.0);
+#else
+    // The first mip level is the mirror reflection of the environment
+    if (u_roughness == 0.0) {
+        gl_FragColor = vec4(textureCube(u_environment, N).rgb, 1.0);
+        return;
+    }
+
+    // GGX importance sampling, assuming the view direction equals the normal
+    float a = u_roughness * u_roughness;
+    float a2 = a * a;
+    vec3 color = vec3(0.0);
+    float weight = 0.0;
+    for (int i = 0; i < sampleCount; i++) {
+        float phi = 2.0 * PI * float(i) / float(sampleCount);
+        float v = radicalInverse(float(i));
+        float cosTheta = sqrt((1.0 - v) / (1.0 + (a2 - 1.0) * v));
+        float sinTheta = sqrt(1.0 - cosTheta * cosTheta);
+        vec3 H = (cos(phi) * sinTheta) * tangentX + (sin(phi) * sinTheta) * tangentY + cosTheta * N;
+        vec3 L = 2.0 * dot(N, H) * H - N;
+        float NdotL = dot(N, L);
+        if (NdotL > 0.0) {
+            // The pdf of L reduces to D / 4 when the view direction equals the normal
+            float d = cosTheta * cosTheta * (a2 - 1.0) + 1.0;
+            float D = a2 / (PI * d * d);
+            color += sampleEnvironment(L, D / 4.0) * NdotL;
+            weight += NdotL;
+        }
+    }
+    gl_FragColor = vec4(color / weight, 1.0);
+#endif
+}
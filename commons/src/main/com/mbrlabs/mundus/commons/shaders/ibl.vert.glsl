@@ -0,0 +1,13 @@
+attribute vec2 a_position;
+
+// Direction of the face center and the directions the s and t texture coordinates of the face grow in
+uniform vec3 u_faceDirection;
+uniform vec3 u_faceS;
+uniform vec3 u_faceT;
+
+varying vec3 v_direction;
+
+void main() {
+    v_direction = u_faceDirection + a_position.x * u_faceS + a_position.y * u_faceT;
+    gl_Position = vec4(a_position, 0.0, 1.0);
+}
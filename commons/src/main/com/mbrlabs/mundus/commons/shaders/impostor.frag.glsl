@@ -0,0 +1,42 @@
+#include "compat.glsl"
+
+uniform sampler2D u_albedoTexture;
+uniform sampler2D u_normalTexture;
+uniform vec3 u_ambientLight;
+uniform vec3 u_lightColor;
+uniform vec3 u_cameraPosition;
+
+uniform int u_fog;
+uniform vec4 u_fogColor;
+uniform vec3 u_fogEquation;
+
+// clipping plane
+uniform vec4 u_clipPlane;
+
+varying vec2 v_texCoord0;
+varying vec3 v_lightDir;
+varying vec3 v_worldPos;
+
+void main() {
+    if (dot(vec4(v_worldPos, 1.0), u_clipPlane) < 0.0)
+        discard;
+
+    vec4 albedo = texture2D(u_albedoTexture, v_texCoord0);
+    if (albedo.a < 0.5)
+        discard;
+
+    // Model space normal, the light direction is in the same space
+    vec3 normal = normalize(texture2D(u_normalTexture, v_texCoord0).rgb * 2.0 - 1.0);
+    float diffuse = max(dot(normal, -v_lightDir), 0.0);
+
+    gl_FragColor = vec4(albedo.rgb * (u_ambientLight + u_lightColor * diffuse), 1.0);
+
+    if (u_fog == 1) {
+        float eyeDistance = length(u_cameraPosition - v_worldPos);
+        float fog = (eyeDistance - u_fogEquation.x) / (u_fogEquation.y - u_fogEquation.x);
+        fog = clamp(fog, 0.0, 1.0);
+        fog = pow(fog, u_fogEquation.z);
+
+        gl_FragColor.rgb = mix(gl_FragColor.rgb, u_fogColor.rgb, fog * u_fogColor.a);
+    }
+}
@@ -0,0 +1,19 @@
+attribute vec3 a_position;
+attribute vec2 a_texCoord0;
+// Light direction in the model space of the impostors object
+attribute vec3 a_lightDir;
+
+uniform mat4 u_projViewMatrix;
+
+varying vec2 v_texCoord0;
+varying vec3 v_lightDir;
+varying vec3 v_worldPos;
+
+void main() {
+    v_texCoord0 = a_texCoord0;
+    v_lightDir = a_lightDir;
+    v_worldPos = a_position;
+
+    // Quads are built in world space
+    gl_Position = u_projViewMatrix * vec4(a_position, 1.0);
+}
@@ -37,7 +37,9 @@ varying vec3 v_worldPos;
 uniform int u_useSpecular;
 uniform int u_activeNumPointLights;
 uniform int u_activeNumSpotLights;
+#ifndef frameUniformsFlag
 uniform vec4 u_cameraPosition;
+#endif
 uniform MED float u_shininess;
 uniform DirectionalLight u_directionalLight;
 uniform PointLight u_pointLights[numPointLights];
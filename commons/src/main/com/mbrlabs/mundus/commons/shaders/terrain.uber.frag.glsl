@@ -69,7 +69,7 @@ uniform sampler2D u_texture_base_normal;
 
 #endif // splatFlag
 
-#ifdef fogFlag
+#if defined(fogFlag) && !defined(frameUniformsFlag)
 uniform vec3 u_fogEquation;
 uniform MED vec4 u_fogColor;
 #endif
@@ -23,8 +23,11 @@ attribute vec4 a_tangent;
 
 // Default Uniforms
 uniform mat4 u_worldTrans;
+// Declared in the shared uniform block on GL3 desktop
+#ifndef frameUniformsFlag
 uniform mat4 u_projViewTrans;
 uniform vec4 u_cameraPosition;
+#endif
 uniform mat3 u_normalMatrix;
 
 varying vec2 v_texCoord0;
@@ -42,7 +45,9 @@ uniform vec2 u_terrainSize;
 
 // clipping plane
 varying float v_clipDistance;
+#ifndef frameUniformsFlag
 uniform vec4 u_clipPlane;
+#endif
 
 uniform mat4 u_shadowMapProjViewTrans;
 varying vec3 v_shadowMapUv;
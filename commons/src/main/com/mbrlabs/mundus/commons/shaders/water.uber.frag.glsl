@@ -35,12 +35,16 @@ uniform MED float u_foamEdgeBias;
 uniform MED float u_foamEdgeDistance;
 uniform MED float u_foamFallOffDistance;
 uniform MED float u_foamScrollSpeed;
+
+// Declared in the shared uniform block on GL3 desktop
+#ifndef frameUniformsFlag
 uniform vec2 u_cameraNearFar;
 
 #ifdef fogFlag
 uniform vec3 u_fogEquation;
 uniform MED vec4 u_fogColor;
 #endif
+#endif
 
 // From gdx-gltf library https://github.com/mgsx-dev/gdx-gltf
 vec4 SRGBtoLINEAR(vec4 srgbIn)
@@ -6,8 +6,11 @@ attribute vec2 a_texCoord0;
 
 // Default Uniforms
 uniform mat4 u_worldTrans;
+// Declared in the shared uniform block on GL3 desktop
+#ifndef frameUniformsFlag
 uniform mat4 u_projViewTrans;
 uniform vec4 u_cameraPosition;
+#endif
 
 // Water uniforms
 uniform vec4 u_diffuseUVTransform;
@@ -0,0 +1,270 @@
+package com.mbrlabs.mundus.commons.shadows;
+
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Cascaded shadow maps for a directional light. The view frustum of the scene camera is split into 2 to 4 slices
+ * and each slice gets its own shadow map, giving sharp shadows near the camera while still covering distant
+ * geometry.
+ * <p>
+ * The first cascade is the scene's base {@link MundusDirectionalShadowLight} so shaders without cascade support
+ * still get the near shadows. The remaining cascades are bound through {@link CascadedShadowMapAttribute}.
+ * <p>
+ * Far cascades can be refreshed at a lower rate than every frame. Cascades sharing an interval are staggered so
+ * their updates happen on different frames. A cascade's camera only moves when it is refreshed, so its map and
+ * projection always match.
+ */
+public class CascadedShadowMap implements Disposable {
+    public static final int MIN_CASCADES = 2;
+    public static final int MAX_CASCADES = 4;
+    public static final float DEFAULT_SPLIT_LAMBDA = 0.75f;
+    public static final float DEFAULT_MAX_DISTANCE = 200f;
+    /** Extra depth added behind each cascade so casters outside the view still cast into it */
+    public static final float DEFAULT_CASTER_DEPTH = 100f;
+
+    private static final int[] DEFAULT_UPDATE_INTERVALS = {1, 2, 4, 4};
+
+    private final MundusDirectionalShadowLight baseLight;
+    private final Array<MundusDirectionalShadowLight> cascades = new Array<>();
+    private final float[] splitDistances;
+    private final int[] updateIntervals;
+
+    private float splitLambda = DEFAULT_SPLIT_LAMBDA;
+    private float maxDistance = DEFAULT_MAX_DISTANCE;
+    private float casterDepth = DEFAULT_CASTER_DEPTH;
+    private boolean texelSnapping = true;
+
+    // Base light camera settings, restored on dispose
+    private final float baseViewportWidth;
+    private final float baseViewportHeight;
+    private final float baseNear;
+    private final float baseFar;
+
+    private final Vector3[] sliceCorners = new Vector3[8];
+    private final Vector3 tmpCenter = new Vector3();
+    private final Vector3 tmpVec = new Vector3();
+    private final Matrix4 lightView = new Matrix4();
+    private final Matrix4 lightViewInv = new Matrix4();
+
+    /**
+     * @param baseLight    the scenes directional light, used as the first cascade
+     * @param cascadeCount number of cascades, 2 to 4
+     */
+    public CascadedShadowMap(MundusDirectionalShadowLight baseLight, int cascadeCount) {
+        if (cascadeCount < MIN_CASCADES || cascadeCount > MAX_CASCADES) {
+            throw new IllegalArgumentException("Cascade count must be between " + MIN_CASCADES + " and " + MAX_CASCADES);
+        }
+
+        this.baseLight = baseLight;
+        Camera baseCam = baseLight.getCamera();
+        baseViewportWidth = baseCam.viewportWidth;
+        baseViewportHeight = baseCam.viewportHeight;
+        baseNear = baseCam.near;
+        baseFar = baseCam.far;
+
+        cascades.add(baseLight);
+        for (int i = 1; i < cascadeCount; i++) {
+            cascades.add(new MundusDirectionalShadowLight(baseLight.getShadowResolution(),
+                    (int) baseViewportWidth, (int) baseViewportHeight, baseNear, baseFar));
+        }
+
+        splitDistances = new float[cascadeCount + 1];
+        updateIntervals = new int[cascadeCount];
+        System.arraycopy(DEFAULT_UPDATE_INTERVALS, 0, updateIntervals, 0, cascadeCount);
+
+        for (int i = 0; i < sliceCorners.length; i++) {
+            sliceCorners[i] = new Vector3();
+        }
+    }
+
+    /**
+     * Whether the given cascade should be refreshed this frame, based on its update interval.
+     *
+     * @param cascade the cascade index
+     * @param frameId the current frame id
+     */
+    public boolean needsUpdate(int cascade, long frameId) {
+        int interval = updateIntervals[cascade];
+        return interval <= 1 || (frameId + cascade) % interval == 0;
+    }
+
+    /**
+     * Fits the cascade to its slice of the camera frustum. Should only be called when the cascade is refreshed.
+     *
+     * @param cascade the cascade index
+     * @param camera  the scene camera
+     */
+    public void updateCascade(int cascade, Camera camera) {
+        computeSplits(camera);
+
+        MundusDirectionalShadowLight light = cascades.get(cascade);
+        light.direction.set(baseLight.direction);
+
+        // Bounding sphere of the frustum slice, keeps the cascade size constant as the camera rotates
+        computeSliceCorners(camera, splitDistances[cascade], splitDistances[cascade + 1]);
+        tmpCenter.setZero();
+        for (Vector3 corner : sliceCorners) {
+            tmpCenter.add(corner);
+        }
+        tmpCenter.scl(1f / sliceCorners.length);
+
+        float radius = 0;
+        for (Vector3 corner : sliceCorners) {
+            radius = Math.max(radius, corner.dst(tmpCenter));
+        }
+        // Round up so small changes do not change the texel size
+        radius = MathUtils.ceil(radius);
+
+        if (texelSnapping) {
+            snapToTexel(tmpCenter, radius * 2f / light.getDepthMap().texture.getWidth(), light);
+        }
+
+        Camera lightCam = light.getCamera();
+        lightCam.viewportWidth = radius * 2f;
+        lightCam.viewportHeight = radius * 2f;
+        lightCam.near = 0.1f;
+        lightCam.far = (radius + casterDepth) * 2f;
+        light.setCenter(tmpCenter);
+    }
+
+    /**
+     * Moves the center in light space so it lands on a whole texel, preventing shadow edges from
+     * shimmering as the camera moves.
+     */
+    private void snapToTexel(Vector3 center, float texelSize, MundusDirectionalShadowLight light) {
+        lightView.setToLookAt(light.direction, light.getCamera().up);
+        lightViewInv.set(lightView).inv();
+
+        tmpVec.set(center).mul(lightView);
+        tmpVec.x = MathUtils.floor(tmpVec.x / texelSize) * texelSize;
+        tmpVec.y = MathUtils.floor(tmpVec.y / texelSize) * texelSize;
+        center.set(tmpVec).mul(lightViewInv);
+    }
+
+    /**
+     * Practical split scheme, blending logarithmic and uniform splits by the split lambda.
+     */
+    private void computeSplits(Camera camera) {
+        float near = camera.near;
+        float far = Math.min(camera.far, maxDistance);
+        int count = cascades.size;
+
+        splitDistances[0] = near;
+        for (int i = 1; i < count; i++) {
+            float p = i / (float) count;
+            float log = near * (float) Math.pow(far / near, p);
+            float uniform = near + (far - near) * p;
+            splitDistances[i] = splitLambda * log + (1f - splitLambda) * uniform;
+        }
+        splitDistances[count] = far;
+    }
+
+    private void computeSliceCorners(Camera camera, float sliceNear, float sliceFar) {
+        // Corners of the full frustum, near plane first, then far plane
+        Vector3[] planePoints = camera.frustum.planePoints;
+        float range = camera.far - camera.near;
+        float nearT = (sliceNear - camera.near) / range;
+        float farT = (sliceFar - camera.near) / range;
+
+        for (int i = 0; i < 4; i++) {
+            Vector3 nearPoint = planePoints[i];
+            Vector3 farPoint = planePoints[i + 4];
+            sliceCorners[i].set(nearPoint).lerp(farPoint, nearT);
+            sliceCorners[i + 4].set(nearPoint).lerp(farPoint, farT);
+        }
+    }
+
+    public Array<MundusDirectionalShadowLight> getCascades() {
+        return cascades;
+    }
+
+    public int getCascadeCount() {
+        return cascades.size;
+    }
+
+    public float getSplitDistance(int index) {
+        return splitDistances[index];
+    }
+
+    public float getSplitLambda() {
+        return splitLambda;
+    }
+
+    /**
+     * @param splitLambda 0 for uniform splits, 1 for logarithmic splits
+     */
+    public void setSplitLambda(float splitLambda) {
+        this.splitLambda = MathUtils.clamp(splitLambda, 0f, 1f);
+    }
+
+    public float getMaxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * @param maxDistance distance from the camera up to which shadows are rendered
+     */
+    public void setMaxDistance(float maxDistance) {
+        this.maxDistance = maxDistance;
+    }
+
+    public float getCasterDepth() {
+        return casterDepth;
+    }
+
+    public void setCasterDepth(float casterDepth) {
+        this.casterDepth = casterDepth;
+    }
+
+    public boolean isTexelSnapping() {
+        return texelSnapping;
+    }
+
+    public void setTexelSnapping(boolean texelSnapping) {
+        this.texelSnapping = texelSnapping;
+    }
+
+    public int getUpdateInterval(int cascade) {
+        return updateIntervals[cascade];
+    }
+
+    /**
+     * @param cascade  the cascade index
+     * @param interval refresh the cascade every n frames, 1 to refresh every frame
+     */
+    public void setUpdateInterval(int cascade, int interval) {
+        updateIntervals[cascade] = Math.max(1, interval);
+    }
+
+    /**
+     * Updates the shadow resolution of the additional cascades, the base light is updated by the scene.
+     */
+    public void setShadowResolution(ShadowResolution shadowResolution) {
+        for (int i = 1; i < cascades.size; i++) {
+            cascades.get(i).setShadowResolution(shadowResolution);
+        }
+    }
+
+    /**
+     * Disposes the additional cascades and restores the base light camera.
+     */
+    @Override
+    public void dispose() {
+        for (int i = 1; i < cascades.size; i++) {
+            cascades.get(i).dispose();
+        }
+        cascades.truncate(1);
+
+        Camera baseCam = baseLight.getCamera();
+        baseCam.viewportWidth = baseViewportWidth;
+        baseCam.viewportHeight = baseViewportHeight;
+        baseCam.near = baseNear;
+        baseCam.far = baseFar;
+        baseCam.update();
+    }
+}
@@ -0,0 +1,31 @@
+package com.mbrlabs.mundus.commons.shadows;
+
+import com.badlogic.gdx.graphics.g3d.Attribute;
+
+/**
+ * Environment attribute holding the {@link CascadedShadowMap} of a scene, so shaders can bind the additional
+ * cascades.
+ */
+public class CascadedShadowMapAttribute extends Attribute {
+    public final static String CascadedShadowMapAlias = "cascadedShadowMap";
+    public final static long CascadedShadowMap = register(CascadedShadowMapAlias);
+
+    public final CascadedShadowMap cascadedShadowMap;
+
+    public CascadedShadowMapAttribute(CascadedShadowMap cascadedShadowMap) {
+        super(CascadedShadowMap);
+        this.cascadedShadowMap = cascadedShadowMap;
+    }
+
+    @Override
+    public Attribute copy() {
+        return new CascadedShadowMapAttribute(cascadedShadowMap);
+    }
+
+    @Override
+    public int compareTo(Attribute o) {
+        if (type != o.type) return type < o.type ? -1 : 1;
+        CascadedShadowMapAttribute other = (CascadedShadowMapAttribute) o;
+        return cascadedShadowMap.getCascadeCount() - other.cascadedShadowMap.getCascadeCount();
+    }
+}
@@ -65,6 +65,10 @@ public class MundusDirectionalShadowLight extends DirectionalShadowLight {
         fbo = new NestableFrameBuffer(Pixmap.Format.RGBA8888, (int) res.x, (int) res.y, true);
     }
 
+    public FrameBuffer getFrameBuffer() {
+        return fbo;
+    }
+
     public boolean isCastsShadows() {
         return castsShadows;
     }
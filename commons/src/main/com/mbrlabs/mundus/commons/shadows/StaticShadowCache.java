@@ -0,0 +1,163 @@
+package com.mbrlabs.mundus.commons.shadows;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.GL30;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Disposable;
+import com.mbrlabs.mundus.commons.utils.NestableFrameBuffer;
+
+/**
+ * Caches the shadow map of static casters (model cached objects) in a persistent frame buffer, so they only need
+ * to be redrawn when something affecting them changes. Each frame the cache is copied into the lights shadow map
+ * and dynamic casters are drawn on top.
+ * <p>
+ * The cache is invalidated when the light direction or shadow camera changes, when the static casters change,
+ * or when the camera moves far enough for the texel snapped shadow center to move.
+ * <p>
+ * Copying depth between frame buffers requires GL30, see {@link #isSupported()}.
+ */
+public class StaticShadowCache implements Disposable {
+    /** Default distance the camera can move before the cache is redrawn, as a fraction of the shadow viewport */
+    public static final float DEFAULT_MOVE_THRESHOLD = 0.125f;
+
+    private FrameBuffer frameBuffer;
+    private boolean valid = false;
+    private float moveThreshold = DEFAULT_MOVE_THRESHOLD;
+
+    // State the cache was drawn with
+    private final Vector3 cachedDirection = new Vector3();
+    private final Vector3 cachedCenter = new Vector3();
+    private float cachedViewportWidth;
+    private float cachedViewportHeight;
+    private long cachedStaticVersion = -1;
+
+    private final Vector3 center = new Vector3();
+    private final Matrix4 lightView = new Matrix4();
+    private final Matrix4 lightViewInv = new Matrix4();
+
+    /**
+     * @return true if static shadow caching is supported on the current backend
+     */
+    public static boolean isSupported() {
+        return Gdx.gl30 != null;
+    }
+
+    /**
+     * Computes the shadow center for the camera position, snapped to a grid in light space so it only moves once
+     * the camera has moved beyond the threshold. The grid step is a whole number of shadow map texels.
+     *
+     * @param light          the shadow light
+     * @param cameraPosition position of the scene camera
+     * @return the snapped center, to be passed to the lights setCenter
+     */
+    public Vector3 getSnappedCenter(MundusDirectionalShadowLight light, Vector3 cameraPosition) {
+        float viewport = light.getCamera().viewportWidth;
+        float texelSize = viewport / light.getShadowResolution().getResolutionValues().x;
+        float step = Math.max(texelSize, MathUtils.round(viewport * moveThreshold / texelSize) * texelSize);
+
+        lightView.setToLookAt(light.direction, light.getCamera().up);
+        lightViewInv.set(lightView).inv();
+
+        center.set(cameraPosition).mul(lightView);
+        center.x = MathUtils.floor(center.x / step) * step;
+        center.y = MathUtils.floor(center.y / step) * step;
+        center.z = MathUtils.floor(center.z / step) * step;
+        return center.mul(lightViewInv);
+    }
+
+    /**
+     * Whether the cache must be redrawn before use.
+     *
+     * @param light         the shadow light, centered for this frame
+     * @param staticVersion version of the static casters, see ModelCacheManager#getVersion()
+     */
+    public boolean needsRedraw(MundusDirectionalShadowLight light, long staticVersion) {
+        return !valid
+                || staticVersion != cachedStaticVersion
+                || !light.direction.epsilonEquals(cachedDirection, MathUtils.FLOAT_ROUNDING_ERROR)
+                || !center.epsilonEquals(cachedCenter, MathUtils.FLOAT_ROUNDING_ERROR)
+                || light.getCamera().viewportWidth != cachedViewportWidth
+                || light.getCamera().viewportHeight != cachedViewportHeight
+                || frameBuffer.getWidth() != light.getFrameBuffer().getWidth()
+                || frameBuffer.getHeight() != light.getFrameBuffer().getHeight();
+    }
+
+    /**
+     * Begins redrawing the cache. Must be called between the lights begin() and end().
+     */
+    public void begin(MundusDirectionalShadowLight light) {
+        FrameBuffer target = light.getFrameBuffer();
+        if (frameBuffer == null || frameBuffer.getWidth() != target.getWidth() || frameBuffer.getHeight() != target.getHeight()) {
+            if (frameBuffer != null) {
+                frameBuffer.dispose();
+            }
+            frameBuffer = new NestableFrameBuffer(Pixmap.Format.RGBA8888, target.getWidth(), target.getHeight(), true);
+        }
+
+        frameBuffer.begin();
+        Gdx.gl.glClearColor(1, 1, 1, 1);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT);
+    }
+
+    /**
+     * Ends redrawing the cache and records the state it was drawn with.
+     */
+    public void end(MundusDirectionalShadowLight light, long staticVersion) {
+        frameBuffer.end();
+
+        valid = true;
+        cachedStaticVersion = staticVersion;
+        cachedDirection.set(light.direction);
+        cachedCenter.set(center);
+        cachedViewportWidth = light.getCamera().viewportWidth;
+        cachedViewportHeight = light.getCamera().viewportHeight;
+    }
+
+    /**
+     * Copies the cached color (packed depth) and depth buffers into the target, which must be bound.
+     */
+    public void copyTo(FrameBuffer target) {
+        int width = target.getWidth();
+        int height = target.getHeight();
+
+        Gdx.gl30.glBindFramebuffer(GL30.GL_READ_FRAMEBUFFER, frameBuffer.getFramebufferHandle());
+        Gdx.gl30.glBindFramebuffer(GL30.GL_DRAW_FRAMEBUFFER, target.getFramebufferHandle());
+        Gdx.gl30.glBlitFramebuffer(0, 0, width, height, 0, 0, width, height,
+                GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT, GL20.GL_NEAREST);
+        Gdx.gl30.glBindFramebuffer(GL20.GL_FRAMEBUFFER, target.getFramebufferHandle());
+    }
+
+    /**
+     * Forces the cache to be redrawn on next use.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    public float getMoveThreshold() {
+        return moveThreshold;
+    }
+
+    /**
+     * @param moveThreshold distance the camera can move before the cache is redrawn, as a fraction of the shadow
+     *                      viewport size
+     */
+    public void setMoveThreshold(float moveThreshold) {
+        this.moveThreshold = moveThreshold;
+        invalidate();
+    }
+
+    @Override
+    public void dispose() {
+        if (frameBuffer != null) {
+            frameBuffer.dispose();
+            frameBuffer = null;
+        }
+        valid = false;
+    }
+}
@@ -82,6 +82,8 @@ public class Terrain implements Disposable {
     private Model model;
     private Mesh mesh;
     private Map<Integer, Array<Integer>> vertexToTriangleMap;
+    // Incremented on every update, lets caches of the height data detect changes
+    private int version;
 
     private Terrain(int vertexResolution) {
         this.attribs = new VertexAttributes(
@@ -518,6 +520,14 @@ public class Terrain implements Disposable {
         MeshTangentSpaceGenerator.computeTangentSpace(vertices, indices, attribs, false, true, normalMapUVs);
 
         mesh.setVertices(vertices);
+        version++;
+    }
+
+    /**
+     * @return counter incremented each time the mesh is rebuilt from the height data by {@link #update()}
+     */
+    public int getVersion() {
+        return version;
     }
 
     public Model getModel() {
@@ -11,7 +11,10 @@ import com.badlogic.gdx.graphics.g3d.environment.PointLight;
 import com.badlogic.gdx.graphics.g3d.environment.SpotLight;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Array;
+import com.mbrlabs.mundus.commons.Scene;
+import com.mbrlabs.mundus.commons.SceneSettings;
 import com.mbrlabs.mundus.commons.env.MundusEnvironment;
+import com.mbrlabs.mundus.commons.env.lights.ClusteredLights;
 import com.mbrlabs.mundus.commons.env.lights.LightType;
 import com.mbrlabs.mundus.commons.shadows.MundusDirectionalShadowLight;
 import net.mgsx.gltf.scene3d.lights.PointLightEx;
@@ -28,6 +31,9 @@ public class LightUtils {
     public static final int MAX_POINT_LIGHTS = 12;
     public static final int MAX_SPOT_LIGHTS = 12;
 
+    /** Point and spot light contributions below this are considered negligible */
+    public static final float LIGHT_CUTOFF = 0.004f;
+
     public static final float DEFAULT_INTENSITY = 2.0f;
     public static final Color DEFAULT_COLOR = Color.WHITE.cpy();
     public static final Vector3 DEFAULT_DIRECTION = new Vector3(0.40f, -1, 0);
@@ -66,6 +72,71 @@ public class LightUtils {
         return spotLights == null ? 0 : spotLights.size;
     }
 
+    /**
+     * Returns the distance up to which a point or spot light noticeably contributes. This is the lights range if
+     * set, else the distance at which the inverse square falloff of its brightest channel drops below
+     * {@link #LIGHT_CUTOFF}.
+     */
+    public static float getLightRange(PointLight light) {
+        if (light instanceof PointLightEx && ((PointLightEx) light).range != null) {
+            return ((PointLightEx) light).range;
+        }
+        return getLightRange(light.color, light.intensity);
+    }
+
+    /**
+     * @see #getLightRange(PointLight)
+     */
+    public static float getLightRange(SpotLight light) {
+        if (light instanceof SpotLightEx && ((SpotLightEx) light).range != null) {
+            return ((SpotLightEx) light).range;
+        }
+        return getLightRange(light.color, light.intensity);
+    }
+
+    private static float getLightRange(Color color, float intensity) {
+        // Shaders attenuate by 1 / (1 + d^2)
+        float brightness = Math.max(color.r, Math.max(color.g, color.b)) * intensity;
+        return (float) Math.sqrt(Math.max(0f, brightness / LIGHT_CUTOFF - 1f));
+    }
+
+    /**
+     * @return true if the environment has more point or spot lights than the uniform arrays of the shaders hold
+     */
+    public static boolean needsClusteredLighting(Environment env) {
+        return getPointLightsCount(env) > MAX_POINT_LIGHTS || getSpotLightsCount(env) > MAX_SPOT_LIGHTS;
+    }
+
+    /**
+     * @param lightsPerObject whether lights are selected per object, see {@link SceneSettings#lightsPerObject}
+     * @return maximum number of point lights, higher with clustered lighting or per object lights
+     */
+    public static int getMaxPointLights(Environment env, boolean lightsPerObject) {
+        if (!ClusteredLights.isSupported() && !lightsPerObject) return MAX_POINT_LIGHTS;
+        return ClusteredLights.MAX_LIGHTS - getSpotLightsCount(env);
+    }
+
+    /**
+     * @param lightsPerObject whether lights are selected per object, see {@link SceneSettings#lightsPerObject}
+     * @return maximum number of spot lights, higher with clustered lighting or per object lights
+     */
+    public static int getMaxSpotLights(Environment env, boolean lightsPerObject) {
+        if (!ClusteredLights.isSupported() && !lightsPerObject) return MAX_SPOT_LIGHTS;
+        return ClusteredLights.MAX_LIGHTS - getPointLightsCount(env);
+    }
+
+    /**
+     * Checks whether the scene can support adding a light of the given lightType, taking its light settings into
+     * account.
+     *
+     * @param scene the scene to check
+     * @param lightType the lightType to be added
+     * @return true if it can be added, else false
+     */
+    public static boolean canCreateLight(Scene scene, LightType lightType) {
+        return canCreateLight(scene.environment, lightType, scene.settings.lightsPerObject > 0);
+    }
+
     /**
      * Checks whether the environment can support adding a light of the given lightType.
      *
@@ -74,13 +145,17 @@ public class LightUtils {
      * @return true if it can be added, else false
      */
     public static boolean canCreateLight(Environment env, LightType lightType) {
+        return canCreateLight(env, lightType, false);
+    }
+
+    private static boolean canCreateLight(Environment env, LightType lightType, boolean lightsPerObject) {
         switch(lightType) {
             case DIRECTIONAL_LIGHT:
                 return false;
             case POINT_LIGHT:
-                return getPointLightsCount(env) < LightUtils.MAX_POINT_LIGHTS;
+                return getPointLightsCount(env) < getMaxPointLights(env, lightsPerObject);
             case SPOT_LIGHT:
-                return getSpotLightsCount(env) < LightUtils.MAX_SPOT_LIGHTS;
+                return getSpotLightsCount(env) < getMaxSpotLights(env, lightsPerObject);
         }
         return false;
     }
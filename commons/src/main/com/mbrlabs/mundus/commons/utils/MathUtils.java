@@ -16,6 +16,8 @@
 
 package com.mbrlabs.mundus.commons.utils;
 
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.PerspectiveCamera;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
 
@@ -82,6 +84,21 @@ public class MathUtils {
         vectorToRotate.rotate(axis, angleDegrees);
     }
 
+    /**
+     * Fraction of the screen height covered by a sphere, as seen from a perspective camera.
+     *
+     * @param camera   the camera
+     * @param radius   radius of the sphere
+     * @param distance distance from the camera to the nearest point of the sphere
+     * @return the fraction, or Float.MAX_VALUE for other cameras or when the camera is inside the sphere
+     */
+    public static float getScreenSize(Camera camera, float radius, float distance) {
+        if (!(camera instanceof PerspectiveCamera) || distance <= 0) return Float.MAX_VALUE;
+
+        float halfFov = ((PerspectiveCamera) camera).fieldOfView * 0.5f * com.badlogic.gdx.math.MathUtils.degreesToRadians;
+        return radius / (distance * (float) Math.tan(halfFov));
+    }
+
     public static boolean isPowerOfTwo(int number) {
         return (number & (number - 1)) == 0;
     }
@@ -0,0 +1,70 @@
+package com.mbrlabs.mundus.commons.utils;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Cubemap;
+import com.badlogic.gdx.graphics.CubemapData;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+
+/**
+ * Cubemap data uploading the faces of all mip levels from pixmaps. The faces are ordered by mip level, largest
+ * level first, and by {@link Cubemap.CubemapSide} within each level. The pixmaps are not disposed and the data is
+ * not managed, as the pixmaps are usually disposed right after the upload.
+ */
+public class PixmapCubemapData implements CubemapData {
+    public static final int SIDES = Cubemap.CubemapSide.values().length;
+
+    private final Pixmap[] faces;
+    private final int mipLevels;
+
+    public PixmapCubemapData(Pixmap[] faces) {
+        if (faces.length == 0 || faces.length % SIDES != 0) {
+            throw new IllegalArgumentException("Expected " + SIDES + " faces per mip level, got " + faces.length);
+        }
+        this.faces = faces;
+        this.mipLevels = faces.length / SIDES;
+    }
+
+    /**
+     * @return index of the face in the face array
+     */
+    public static int getIndex(int level, Cubemap.CubemapSide side) {
+        return level * SIDES + side.ordinal();
+    }
+
+    @Override
+    public boolean isPrepared() {
+        return true;
+    }
+
+    @Override
+    public void prepare() {
+    }
+
+    @Override
+    public void consumeCubemapData() {
+        Gdx.gl.glPixelStorei(GL20.GL_UNPACK_ALIGNMENT, 1);
+        for (int level = 0; level < mipLevels; level++) {
+            for (Cubemap.CubemapSide side : Cubemap.CubemapSide.values()) {
+                Pixmap face = faces[getIndex(level, side)];
+                Gdx.gl.glTexImage2D(side.glEnum, level, face.getGLInternalFormat(), face.getWidth(), face.getHeight(),
+                        0, face.getGLFormat(), face.getGLType(), face.getPixels());
+            }
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return faces[0].getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return faces[0].getHeight();
+    }
+
+    @Override
+    public boolean isManaged() {
+        return false;
+    }
+}
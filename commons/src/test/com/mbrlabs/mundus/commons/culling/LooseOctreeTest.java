@@ -0,0 +1,93 @@
+package com.mbrlabs.mundus.commons.culling;
+
+import com.badlogic.gdx.graphics.PerspectiveCamera;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.utils.Array;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LooseOctreeTest {
+
+    private LooseOctree<String> octree;
+    private PerspectiveCamera cam;
+
+    @Before
+    public void setUp() {
+        octree = new LooseOctree<>(64f, 1f);
+
+        // Looks down -Z from the origin
+        cam = new PerspectiveCamera(67f, 100f, 100f);
+        cam.position.set(0, 0, 0);
+        cam.lookAt(0, 0, -1);
+        cam.near = 1f;
+        cam.far = 100f;
+        cam.update();
+    }
+
+    @Test
+    public void queryReturnsOnlyVisible() {
+        octree.update("front", box(0, 0, -10, 1));
+        octree.update("behind", box(0, 0, 10, 1));
+        octree.update("far", box(0, 0, -200, 1));
+
+        Array<String> result = octree.query(cam.frustum, new Array<String>());
+
+        assertEquals(1, result.size);
+        assertTrue(result.contains("front", false));
+    }
+
+    @Test
+    public void updateMovesObject() {
+        octree.update("obj", box(0, 0, 10, 1));
+        assertEquals(0, octree.query(cam.frustum, new Array<String>()).size);
+
+        octree.update("obj", box(0, 0, -10, 1));
+        Array<String> result = octree.query(cam.frustum, new Array<String>());
+        assertEquals(1, result.size);
+        assertEquals(1, octree.size());
+    }
+
+    @Test
+    public void removeObject() {
+        octree.update("obj", box(0, 0, -10, 1));
+        assertTrue(octree.contains("obj"));
+
+        assertTrue(octree.remove("obj"));
+        assertFalse(octree.remove("obj"));
+        assertFalse(octree.contains("obj"));
+        assertEquals(0, octree.query(cam.frustum, new Array<String>()).size);
+    }
+
+    @Test
+    public void rootGrowsToFitObjects() {
+        // Well outside of the initial root bounds
+        octree.update("outside", box(0, 0, -90, 1));
+        octree.update("large", box(0, 0, -50, 100));
+
+        Array<String> result = octree.query(cam.frustum, new Array<String>());
+        assertEquals(2, result.size);
+        assertTrue(result.contains("outside", false));
+        assertTrue(result.contains("large", false));
+    }
+
+    @Test
+    public void clearRemovesAll() {
+        octree.update("a", box(0, 0, -10, 1));
+        octree.update("b", box(5, 0, -20, 1));
+        octree.clear();
+
+        assertEquals(0, octree.size());
+        assertEquals(0, octree.query(cam.frustum, new Array<String>()).size);
+    }
+
+    private BoundingBox box(float x, float y, float z, float halfSize) {
+        Vector3 min = new Vector3(x - halfSize, y - halfSize, z - halfSize);
+        Vector3 max = new Vector3(x + halfSize, y + halfSize, z + halfSize);
+        return new BoundingBox(min, max);
+    }
+}
@@ -0,0 +1,127 @@
+package com.mbrlabs.mundus.commons.culling;
+
+import com.badlogic.gdx.graphics.PerspectiveCamera;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OcclusionBufferTest {
+
+    private OcclusionBuffer buffer;
+    private PerspectiveCamera cam;
+
+    @Before
+    public void setUp() {
+        buffer = new OcclusionBuffer(64, 64);
+
+        // Looks down -Z from the origin
+        cam = new PerspectiveCamera(67f, 100f, 100f);
+        cam.position.set(0, 0, 0);
+        cam.lookAt(0, 0, -1);
+        cam.near = 1f;
+        cam.far = 100f;
+        cam.update();
+    }
+
+    @Test
+    public void emptyBufferHidesNothing() {
+        buffer.begin(cam.combined);
+        buffer.end();
+
+        assertTrue(buffer.isVisible(corners(0, 0, -30, 1)));
+        assertEquals(0, buffer.getTriangleCount());
+    }
+
+    @Test
+    public void wallHidesObjectsBehindIt() {
+        buffer.begin(cam.combined);
+        rasterizeWall(-10, 4);
+        buffer.end();
+
+        assertFalse(buffer.isVisible(corners(0, 0, -30, 1)));
+        // In front of the wall
+        assertTrue(buffer.isVisible(corners(0, 0, -5, 1)));
+        // Behind the wall, but next to it on screen
+        assertTrue(buffer.isVisible(corners(15, 0, -30, 1)));
+        // Larger than the wall on screen
+        assertTrue(buffer.isVisible(corners(0, 0, -30, 20)));
+    }
+
+    @Test
+    public void boundsIntersectingWallAreVisible() {
+        buffer.begin(cam.combined);
+        rasterizeWall(-10, 4);
+        buffer.end();
+
+        assertTrue(buffer.isVisible(corners(0, 0, -10, 1)));
+    }
+
+    @Test
+    public void boundsCrossingNearPlaneAreVisible() {
+        buffer.begin(cam.combined);
+        rasterizeWall(-10, 4);
+        buffer.end();
+
+        assertTrue(buffer.isVisible(corners(0, 0, 0, 1)));
+    }
+
+    @Test
+    public void wallCrossingNearPlaneIsClipped() {
+        // Floor from behind the camera to far in front of it, looking slightly down
+        cam.lookAt(0, -0.2f, -1);
+        cam.update();
+
+        float[] positions = {
+                -50, -1, 20,
+                50, -1, 20,
+                50, -1, -90,
+                -50, -1, -90
+        };
+        int[] indices = {0, 1, 2, 2, 3, 0};
+
+        buffer.begin(cam.combined);
+        buffer.rasterize(positions, indices, indices.length, new Matrix4());
+        buffer.end();
+
+        assertTrue(buffer.getTriangleCount() > 0);
+        // Below the floor
+        assertFalse(buffer.isVisible(corners(0, -5, -30, 1)));
+        // Above the floor
+        assertTrue(buffer.isVisible(corners(0, 2, -30, 1)));
+    }
+
+    private void rasterizeWall(float z, float halfSize) {
+        float[] positions = {
+                -halfSize, -halfSize, z,
+                halfSize, -halfSize, z,
+                halfSize, halfSize, z,
+                -halfSize, halfSize, z
+        };
+        int[] indices = {0, 1, 2, 2, 3, 0};
+        buffer.rasterize(positions, indices, indices.length, new Matrix4());
+    }
+
+    private Vector3[] corners(float x, float y, float z, float size) {
+        BoundingBox box = new BoundingBox(new Vector3(x - size / 2, y - size / 2, z - size / 2),
+                new Vector3(x + size / 2, y + size / 2, z + size / 2));
+        Vector3[] corners = new Vector3[8];
+        for (int i = 0; i < 8; i++) {
+            corners[i] = new Vector3();
+        }
+        box.getCorner000(corners[0]);
+        box.getCorner001(corners[1]);
+        box.getCorner010(corners[2]);
+        box.getCorner011(corners[3]);
+        box.getCorner100(corners[4]);
+        box.getCorner101(corners[5]);
+        box.getCorner110(corners[6]);
+        box.getCorner111(corners[7]);
+        return corners;
+    }
+}
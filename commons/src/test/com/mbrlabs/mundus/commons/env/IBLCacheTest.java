@@ -0,0 +1,56 @@
+package com.mbrlabs.mundus.commons.env;
+
+import com.badlogic.gdx.math.Vector3;
+import net.mgsx.gltf.scene3d.lights.DirectionalLightEx;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class IBLCacheTest {
+
+    private final Vector3 tmp = new Vector3();
+
+    @Test
+    public void similarLightsShareKey() {
+        DirectionalLightEx light = createLight(-0.5f, -1f, -0.7f, 1f);
+        DirectionalLightEx similar = createLight(-0.501f, -1.002f, -0.7f, 1.01f);
+        // Same direction with another length
+        DirectionalLightEx scaled = createLight(-1f, -2f, -1.4f, 1f);
+
+        assertEquals(IBLCache.getKey(light, tmp), IBLCache.getKey(similar, tmp));
+        assertEquals(IBLCache.getKey(light, tmp), IBLCache.getKey(scaled, tmp));
+    }
+
+    @Test
+    public void differentLightsHaveDifferentKeys() {
+        DirectionalLightEx light = createLight(-0.5f, -1f, -0.7f, 1f);
+
+        DirectionalLightEx direction = createLight(0.5f, -1f, -0.7f, 1f);
+        DirectionalLightEx intensity = createLight(-0.5f, -1f, -0.7f, 2f);
+        DirectionalLightEx color = createLight(-0.5f, -1f, -0.7f, 1f);
+        color.color.set(1f, 0.5f, 0.2f, 1f);
+
+        assertNotEquals(IBLCache.getKey(light, tmp), IBLCache.getKey(direction, tmp));
+        assertNotEquals(IBLCache.getKey(light, tmp), IBLCache.getKey(intensity, tmp));
+        assertNotEquals(IBLCache.getKey(light, tmp), IBLCache.getKey(color, tmp));
+    }
+
+    @Test
+    public void brightColorsKeepTheirHue() {
+        DirectionalLightEx red = createLight(0f, -1f, 0f, 1f);
+        red.color.set(4f, 2f, 2f, 1f);
+        DirectionalLightEx white = createLight(0f, -1f, 0f, 1f);
+        white.color.set(4f, 4f, 4f, 1f);
+
+        assertNotEquals(IBLCache.getKey(red, tmp), IBLCache.getKey(white, tmp));
+    }
+
+    private DirectionalLightEx createLight(float x, float y, float z, float intensity) {
+        DirectionalLightEx light = new DirectionalLightEx();
+        light.direction.set(x, y, z);
+        light.color.set(1f, 1f, 1f, 1f);
+        light.intensity = intensity;
+        return light;
+    }
+}
@@ -0,0 +1,86 @@
+package com.mbrlabs.mundus.commons.env.lights;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g3d.environment.PointLight;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.mbrlabs.mundus.commons.env.MundusEnvironment;
+import com.mbrlabs.mundus.commons.utils.LightUtils;
+import net.mgsx.gltf.scene3d.lights.PointLightEx;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LightSelectorTest {
+
+    private MundusEnvironment environment;
+    private LightSelector selector;
+
+    @Before
+    public void setUp() {
+        environment = new MundusEnvironment();
+        selector = new LightSelector(10f);
+    }
+
+    @Test
+    public void selectsNearestLights() {
+        // A row of street lamps every 20 units along X
+        for (int i = 0; i < 20; i++) {
+            environment.add(createLight(i * 20f, 30f));
+        }
+        selector.update(environment, 2);
+
+        MundusEnvironment selected = selector.getEnvironment(environment, new Vector3(105f, 0, 0), 1f);
+        Array<PointLight> lights = LightUtils.getPointLights(selected);
+
+        assertEquals(2, lights.size);
+        assertTrue(lights.contains(LightUtils.getPointLights(environment).get(5), true));
+        assertTrue(lights.contains(LightUtils.getPointLights(environment).get(6), true));
+        assertEquals(2, getSelectedLightCount(selected));
+    }
+
+    @Test
+    public void skipsLightsOutOfRange() {
+        PointLightEx light = createLight(0, 5f);
+        environment.add(light);
+        selector.update(environment, 4);
+
+        assertEquals(0, LightUtils.getPointLights(selector.getEnvironment(environment, new Vector3(50f, 0, 0), 1f)).size);
+        assertSame(light, LightUtils.getPointLights(selector.getEnvironment(environment, new Vector3(3f, 0, 0), 1f)).first());
+    }
+
+    @Test
+    public void disabledWithoutLightsOrLimit() {
+        selector.update(environment, 4);
+        assertFalse(selector.isEnabled());
+
+        environment.add(createLight(0, 5f));
+        selector.update(environment, 0);
+        assertFalse(selector.isEnabled());
+
+        selector.update(environment, 4);
+        assertTrue(selector.isEnabled());
+    }
+
+    @Test
+    public void clampsLightsPerObject() {
+        environment.add(createLight(0, 5f));
+        selector.update(environment, 64);
+
+        assertEquals(LightSelector.MAX_LIGHTS_PER_OBJECT, selector.getLightsPerObject());
+    }
+
+    private PointLightEx createLight(float x, float range) {
+        PointLightEx light = new PointLightEx();
+        light.set(Color.WHITE, new Vector3(x, 2f, 0), 10f, range);
+        return light;
+    }
+
+    private int getSelectedLightCount(MundusEnvironment selected) {
+        return ((SelectedLightsAttribute) selected.get(SelectedLightsAttribute.SelectedLights)).lightCount;
+    }
+}
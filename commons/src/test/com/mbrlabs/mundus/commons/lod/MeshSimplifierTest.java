@@ -0,0 +1,111 @@
+package com.mbrlabs.mundus.commons.lod;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MeshSimplifierTest {
+
+    // Vertices per side of the height field
+    private static final int GRID = 17;
+    private static final int STRIDE = 3;
+
+    private float[] vertices;
+    private int[] indices;
+
+    @Before
+    public void setUp() {
+        vertices = new float[GRID * GRID * STRIDE];
+        for (int x = 0; x < GRID; x++) {
+            for (int z = 0; z < GRID; z++) {
+                int p = (x * GRID + z) * STRIDE;
+                vertices[p] = x;
+                vertices[p + 1] = (float) (0.5 * Math.sin(x * 0.4) * Math.cos(z * 0.3));
+                vertices[p + 2] = z;
+            }
+        }
+
+        // Two triangles per cell, wound to face up
+        indices = new int[(GRID - 1) * (GRID - 1) * 6];
+        int i = 0;
+        for (int x = 0; x < GRID - 1; x++) {
+            for (int z = 0; z < GRID - 1; z++) {
+                int v00 = x * GRID + z;
+                int v01 = v00 + 1;
+                int v10 = v00 + GRID;
+                int v11 = v10 + 1;
+                indices[i++] = v00;
+                indices[i++] = v01;
+                indices[i++] = v10;
+                indices[i++] = v10;
+                indices[i++] = v01;
+                indices[i++] = v11;
+            }
+        }
+    }
+
+    @Test
+    public void reducesTriangles() {
+        int[] result = simplify(indices.length / 4);
+
+        assertEquals(0, result.length % 3);
+        assertTrue(result.length > 0);
+        assertTrue(result.length <= indices.length / 4);
+    }
+
+    @Test
+    public void keepsOpenEdges() {
+        Set<Long> openEdges = getOpenEdges(indices);
+        int[] result = simplify(indices.length / 8);
+
+        assertEquals(4 * (GRID - 1), openEdges.size());
+        assertEquals(openEdges, getOpenEdges(result));
+    }
+
+    @Test
+    public void keepsTrianglesFacingUp() {
+        int[] result = simplify(indices.length / 8);
+
+        for (int t = 0; t < result.length; t += 3) {
+            assertTrue("Triangle " + t / 3 + " flipped", getNormalY(result[t], result[t + 1], result[t + 2]) >= 0);
+        }
+    }
+
+    private int[] simplify(int targetIndexCount) {
+        return MeshSimplifier.simplify(vertices, STRIDE, 0, GRID * GRID, indices, targetIndexCount);
+    }
+
+    /**
+     * @return the half edges without an opposite half edge, packed as from << 32 | to
+     */
+    private static Set<Long> getOpenEdges(int[] indices) {
+        Set<Long> halfEdges = new HashSet<>();
+        for (int t = 0; t < indices.length; t += 3) {
+            for (int e = 0; e < 3; e++) {
+                halfEdges.add((long) indices[t + e] << 32 | indices[t + (e + 1) % 3]);
+            }
+        }
+
+        Set<Long> openEdges = new HashSet<>();
+        for (long edge : halfEdges) {
+            long opposite = (edge & 0xFFFFFFFFL) << 32 | edge >>> 32;
+            if (!halfEdges.contains(opposite)) {
+                openEdges.add(edge);
+            }
+        }
+        return openEdges;
+    }
+
+    private float getNormalY(int i0, int i1, int i2) {
+        int p0 = i0 * STRIDE;
+        int p1 = i1 * STRIDE;
+        int p2 = i2 * STRIDE;
+        return (vertices[p1 + 2] - vertices[p0 + 2]) * (vertices[p2] - vertices[p0])
+                - (vertices[p1] - vertices[p0]) * (vertices[p2 + 2] - vertices[p0 + 2]);
+    }
+}
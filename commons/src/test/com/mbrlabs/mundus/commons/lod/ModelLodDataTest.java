@@ -0,0 +1,65 @@
+package com.mbrlabs.mundus.commons.lod;
+
+import com.badlogic.gdx.files.FileHandle;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ModelLodDataTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writeAndRead() throws IOException {
+        ModelLodData data = new ModelLodData();
+        data.levels.add(createLevel(0.3f, 0, 1));
+        data.levels.add(createLevel(0.15f, 0, 2));
+
+        FileHandle file = new FileHandle(folder.newFile("model.lod"));
+        data.write(file);
+        ModelLodData read = ModelLodData.read(file);
+
+        assertEquals(data.levels.size, read.levels.size);
+        for (int l = 0; l < data.levels.size; l++) {
+            ModelLodData.Level expected = data.levels.get(l);
+            ModelLodData.Level actual = read.levels.get(l);
+            assertEquals(expected.screenSize, actual.screenSize, 0f);
+            assertEquals(expected.parts.size, actual.parts.size);
+
+            for (int p = 0; p < expected.parts.size; p++) {
+                ModelLodData.Part expectedPart = expected.parts.get(p);
+                ModelLodData.Part actualPart = actual.parts.get(p);
+                assertEquals(expectedPart.partIndex, actualPart.partIndex);
+                assertEquals(expectedPart.vertexSize, actualPart.vertexSize);
+                assertArrayEquals(expectedPart.vertices, actualPart.vertices, 0f);
+                assertArrayEquals(expectedPart.indices, actualPart.indices);
+            }
+        }
+    }
+
+    private static ModelLodData.Level createLevel(float screenSize, int... partIndices) {
+        ModelLodData.Level level = new ModelLodData.Level();
+        level.screenSize = screenSize;
+
+        for (int partIndex : partIndices) {
+            ModelLodData.Part part = new ModelLodData.Part();
+            part.partIndex = partIndex;
+            part.vertexSize = 5;
+            part.vertices = new float[part.vertexSize * 3];
+            for (int i = 0; i < part.vertices.length; i++) {
+                part.vertices[i] = partIndex + i * 0.25f - 1f;
+            }
+            // Indices above 32767 are stored as negative shorts
+            part.indices = new short[] {0, 1, 2, 2, 1, (short) 40000};
+            level.parts.add(part);
+        }
+
+        return level;
+    }
+}
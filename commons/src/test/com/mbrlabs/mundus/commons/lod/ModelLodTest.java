@@ -0,0 +1,36 @@
+package com.mbrlabs.mundus.commons.lod;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ModelLodTest {
+
+    private static final float[] SCREEN_SIZES = {Float.MAX_VALUE, 0.3f, 0.15f};
+
+    @Test
+    public void keepsLevelWithinHysteresis() {
+        // 10% below the first threshold is needed to switch to level 1
+        assertEquals(0, ModelLod.selectLevel(SCREEN_SIZES, 0.28f, 0));
+        // and 10% above it to switch back
+        assertEquals(1, ModelLod.selectLevel(SCREEN_SIZES, 0.32f, 1));
+    }
+
+    @Test
+    public void switchesLevelPastHysteresis() {
+        assertEquals(1, ModelLod.selectLevel(SCREEN_SIZES, 0.26f, 0));
+        assertEquals(0, ModelLod.selectLevel(SCREEN_SIZES, 0.34f, 1));
+    }
+
+    @Test
+    public void skipsLevelsOnLargeChanges() {
+        assertEquals(2, ModelLod.selectLevel(SCREEN_SIZES, 0.01f, 0));
+        assertEquals(0, ModelLod.selectLevel(SCREEN_SIZES, 1f, 2));
+    }
+
+    @Test
+    public void clampsCurrentLevel() {
+        assertEquals(2, ModelLod.selectLevel(SCREEN_SIZES, 0.1f, 5));
+        assertEquals(0, ModelLod.selectLevel(SCREEN_SIZES, 1f, -1));
+    }
+}
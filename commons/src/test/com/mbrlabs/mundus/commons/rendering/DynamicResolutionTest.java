@@ -0,0 +1,63 @@
+package com.mbrlabs.mundus.commons.rendering;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DynamicResolutionTest {
+
+    private static final float TARGET = 1f / 60f;
+    private static final float MIN_SCALE = 0.5f;
+
+    private DynamicResolution dynamicResolution;
+
+    @Before
+    public void setUp() {
+        dynamicResolution = new DynamicResolution();
+    }
+
+    @Test
+    public void lowersScaleOnSlowFrames() {
+        run(1f / 30f, 2f);
+
+        assertEquals(MIN_SCALE, dynamicResolution.getScale(), 0.001f);
+    }
+
+    @Test
+    public void keepsScaleOnSingleSlowFrame() {
+        run(TARGET, 1f);
+        dynamicResolution.update(0.2f, TARGET, MIN_SCALE);
+        run(TARGET, 1f);
+
+        assertEquals(DynamicResolution.MAX_SCALE, dynamicResolution.getScale(), 0.001f);
+    }
+
+    @Test
+    public void raisesScaleOnFastFrames() {
+        run(1f / 30f, 2f);
+        run(TARGET, 3f);
+
+        assertEquals(MIN_SCALE + DynamicResolution.SCALE_STEP, dynamicResolution.getScale(), 0.001f);
+
+        run(TARGET, 10f);
+
+        assertEquals(DynamicResolution.MAX_SCALE, dynamicResolution.getScale(), 0.001f);
+    }
+
+    @Test
+    public void keepsScaleSlightlyOverTarget() {
+        run(1f / 30f, 0.3f);
+        run(TARGET * 1.1f, 1f);
+        float scale = dynamicResolution.getScale();
+        run(TARGET * 1.1f, 10f);
+
+        assertEquals(scale, dynamicResolution.getScale(), 0.001f);
+    }
+
+    private void run(float delta, float seconds) {
+        for (float time = 0; time < seconds; time += delta) {
+            dynamicResolution.update(delta, TARGET, MIN_SCALE);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.mbrlabs.mundus.commons.rendering;
+
+import com.badlogic.gdx.graphics.PerspectiveCamera;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g3d.Material;
+import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.badlogic.gdx.graphics.g3d.Shader;
+import com.badlogic.gdx.graphics.g3d.attributes.BlendingAttribute;
+import com.badlogic.gdx.graphics.g3d.attributes.TextureAttribute;
+import com.badlogic.gdx.utils.Array;
+import net.mgsx.gltf.scene3d.attributes.PBRTextureAttribute;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MundusRenderableSorterTest {
+
+    private static final int SHADERS = 6;
+    private static final int MATERIALS = 24;
+
+    private final Random random = new Random(42);
+    private final Shader[] shaders = new Shader[SHADERS];
+    private final Material[] materials = new Material[MATERIALS];
+    private PerspectiveCamera cam;
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < SHADERS; i++) {
+            shaders[i] = mock(Shader.class);
+        }
+        for (int i = 0; i < MATERIALS; i++) {
+            Texture texture = mock(Texture.class);
+            when(texture.getTextureObjectHandle()).thenReturn(i + 1);
+            materials[i] = new Material("material" + i, new PBRTextureAttribute(PBRTextureAttribute.BaseColorTexture, texture));
+        }
+
+        cam = new PerspectiveCamera(67f, 100f, 100f);
+        cam.near = 1f;
+        cam.far = 1000f;
+        cam.update();
+    }
+
+    @Test
+    public void reducesStateChanges() {
+        Array<Renderable> renderables = new Array<>();
+        for (int i = 0; i < 2000; i++) {
+            // Each material is rendered by one shader
+            int material = random.nextInt(MATERIALS);
+            renderables.add(createRenderable(shaders[material % SHADERS], materials[material], random.nextFloat() * 900f));
+        }
+
+        // The shuffled order switches far more often
+        assertTrue(countShaderSwitches(renderables) > SHADERS);
+        assertTrue(countTextureBinds(renderables) > MATERIALS);
+
+        new MundusRenderableSorter().sort(cam, renderables);
+
+        assertEquals(SHADERS, countShaderSwitches(renderables));
+        assertEquals(MATERIALS, countTextureBinds(renderables));
+    }
+
+    @Test
+    public void sortsOpaqueFrontToBackWithinMaterial() {
+        Array<Renderable> renderables = new Array<>();
+        for (int i = 0; i < 50; i++) {
+            renderables.add(createRenderable(shaders[0], materials[0], random.nextFloat() * 900f));
+        }
+
+        new MundusRenderableSorter().sort(cam, renderables);
+
+        for (int i = 1; i < renderables.size; i++) {
+            assertTrue(getDistance(renderables.get(i - 1)) <= getDistance(renderables.get(i)) + 1f);
+        }
+    }
+
+    @Test
+    public void rendersTransparentLastBackToFront() {
+        Material transparent = new Material("transparent", new BlendingAttribute(0.5f));
+
+        Array<Renderable> renderables = new Array<>();
+        for (int i = 0; i < 100; i++) {
+            boolean blended = i % 2 == 0;
+            renderables.add(createRenderable(shaders[i % SHADERS], blended ? transparent : materials[i % MATERIALS],
+                    random.nextFloat() * 900f));
+        }
+
+        new MundusRenderableSorter().sort(cam, renderables);
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(renderables.get(i).material != transparent);
+        }
+        for (int i = 50; i < 100; i++) {
+            assertTrue(renderables.get(i).material == transparent);
+            if (i > 50) {
+                assertTrue(getDistance(renderables.get(i - 1)) + 0.01f >= getDistance(renderables.get(i)));
+            }
+        }
+    }
+
+    private Renderable createRenderable(Shader shader, Material material, float distance) {
+        Renderable renderable = new Renderable();
+        renderable.shader = shader;
+        renderable.material = material;
+        renderable.worldTransform.setToTranslation(0, 0, -distance);
+        return renderable;
+    }
+
+    private float getDistance(Renderable renderable) {
+        return -renderable.worldTransform.getValues()[14];
+    }
+
+    private int countShaderSwitches(Array<Renderable> renderables) {
+        int count = 0;
+        Shader current = null;
+        for (Renderable renderable : renderables) {
+            if (renderable.shader != current) {
+                current = renderable.shader;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int countTextureBinds(Array<Renderable> renderables) {
+        int count = 0;
+        Texture current = null;
+        for (Renderable renderable : renderables) {
+            Texture texture = ((TextureAttribute) renderable.material.get(PBRTextureAttribute.BaseColorTexture)).textureDescription.texture;
+            if (texture != current) {
+                current = texture;
+                count++;
+            }
+        }
+        return count;
+    }
+}
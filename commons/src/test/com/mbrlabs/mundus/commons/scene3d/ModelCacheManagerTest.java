@@ -0,0 +1,76 @@
+package com.mbrlabs.mundus.commons.scene3d;
+
+import com.badlogic.gdx.graphics.g3d.Model;
+import com.badlogic.gdx.graphics.g3d.ModelInstance;
+import com.mbrlabs.mundus.commons.Scene;
+import com.mbrlabs.mundus.commons.scene3d.components.Component;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ModelCacheManagerTest {
+
+    private ModelCacheManager manager;
+    private GameObject go;
+    private ModelCacheable component;
+
+    @Before
+    public void setUp() throws InvalidComponentException {
+        Scene scene = Mockito.mock(Scene.class);
+        scene.sceneGraph = new SceneGraph(scene);
+        manager = new ModelCacheManager(scene);
+
+        // An empty model has no meshes to merge, so building cells does not need a GL context
+        component = (ModelCacheable) Mockito.mock(Component.class, Mockito.withSettings().extraInterfaces(ModelCacheable.class));
+        Mockito.when(component.shouldCache()).thenReturn(true);
+        Mockito.when(component.getModelInstance()).thenReturn(new ModelInstance(new Model()));
+
+        go = new GameObject(scene.sceneGraph, "Cached", -1);
+        go.addComponent((Component) component);
+        scene.sceneGraph.addGameObject(go);
+    }
+
+    @After
+    public void tearDown() {
+        manager.dispose();
+    }
+
+    @Test
+    public void reactivatedObjectIsCachedAgain() {
+        manager.rebuildModelCache();
+        assertTrue(isCached());
+
+        go.active = false;
+        manager.rebuildModelCache();
+        assertFalse(isCached());
+
+        manager.modelCacheRebuildRequested = false;
+        go.active = true;
+        manager.invalidate(go);
+
+        assertTrue(manager.modelCacheRebuildRequested);
+        manager.rebuildModelCache();
+        assertTrue(isCached());
+    }
+
+    @Test
+    public void invalidateRequestsRebuildForUncachedObject() {
+        manager.modelCacheRebuildRequested = false;
+        manager.invalidate(go);
+
+        assertTrue(manager.modelCacheRebuildRequested);
+        assertEquals(0, manager.getCells().size);
+    }
+
+    private boolean isCached() {
+        for (ModelCacheCell cell : manager.getCells()) {
+            if (cell.getCacheables().contains(component, true)) return true;
+        }
+        return false;
+    }
+}
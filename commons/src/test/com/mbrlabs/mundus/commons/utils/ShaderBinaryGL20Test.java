@@ -0,0 +1,107 @@
+package com.mbrlabs.mundus.commons.utils;
+
+import com.badlogic.gdx.graphics.GL20;
+import com.mbrlabs.mundus.commons.shaders.ShaderBinaryCache;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.nio.IntBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+
+public class ShaderBinaryGL20Test {
+
+    private GL20 gl;
+    private ShaderBinaryCache cache;
+    private ShaderBinaryGL20 wrapper;
+    private boolean linked;
+
+    @Before
+    public void setUp() {
+        gl = Mockito.mock(GL20.class);
+        cache = Mockito.mock(ShaderBinaryCache.class);
+        wrapper = new ShaderBinaryGL20(gl, cache);
+
+        Mockito.when(gl.glGetString(GL20.GL_RENDERER)).thenReturn("Renderer");
+        Mockito.when(gl.glGetString(GL20.GL_VERSION)).thenReturn("4.6");
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                ((IntBuffer) invocation.getArguments()[2]).put(0, linked ? GL20.GL_TRUE : GL20.GL_FALSE);
+                return null;
+            }
+        }).when(gl).glGetProgramiv(anyInt(), eq(GL20.GL_LINK_STATUS), Mockito.any(IntBuffer.class));
+    }
+
+    @Test
+    public void linksAndStoresProgramWithoutBinary() {
+        linked = true;
+        createProgram(1, "vertex", "fragment");
+        wrapper.glLinkProgram(1);
+
+        Mockito.verify(gl).glLinkProgram(1);
+        Mockito.verify(cache).save(eq(1), anyString());
+    }
+
+    @Test
+    public void skipsLinkWhenBinaryLoads() {
+        Mockito.when(cache.load(anyInt(), anyString())).thenReturn(true);
+        linked = true;
+        createProgram(1, "vertex", "fragment");
+        wrapper.glLinkProgram(1);
+
+        Mockito.verify(gl, Mockito.never()).glLinkProgram(anyInt());
+        Mockito.verify(cache, Mockito.never()).save(anyInt(), anyString());
+    }
+
+    @Test
+    public void linksFromShadersWhenBinaryIsRejected() {
+        // The binary loads, but the driver leaves the program unlinked
+        Mockito.when(cache.load(anyInt(), anyString())).thenReturn(true);
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                linked = true;
+                return null;
+            }
+        }).when(gl).glLinkProgram(1);
+
+        createProgram(1, "vertex", "fragment");
+        wrapper.glLinkProgram(1);
+
+        Mockito.verify(gl).glLinkProgram(1);
+        Mockito.verify(cache).save(eq(1), anyString());
+    }
+
+    @Test
+    public void keyDependsOnSources() {
+        createProgram(1, "vertex", "fragment");
+        createProgram(2, "vertex", "fragment");
+        createProgram(3, "#define flag\nvertex", "fragment");
+        wrapper.glLinkProgram(1);
+        wrapper.glLinkProgram(2);
+        wrapper.glLinkProgram(3);
+
+        ArgumentCaptor<String> keys = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(cache, Mockito.times(3)).load(anyInt(), keys.capture());
+        assertEquals(keys.getAllValues().get(0), keys.getAllValues().get(1));
+        assertNotEquals(keys.getAllValues().get(0), keys.getAllValues().get(2));
+    }
+
+    private void createProgram(int program, String vertexSource, String fragmentSource) {
+        int vertexShader = program * 10;
+        int fragmentShader = program * 10 + 1;
+        wrapper.glShaderSource(vertexShader, vertexSource);
+        wrapper.glShaderSource(fragmentShader, fragmentSource);
+        wrapper.glAttachShader(program, vertexShader);
+        wrapper.glAttachShader(program, fragmentShader);
+    }
+}
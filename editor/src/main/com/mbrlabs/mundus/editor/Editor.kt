@@ -25,8 +25,12 @@ import com.badlogic.gdx.graphics.OrthographicCamera
 import com.badlogic.gdx.graphics.g3d.ModelBatch
 import com.badlogic.gdx.graphics.g3d.ModelInstance
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer
+import com.mbrlabs.mundus.commons.env.IBLCache
+import com.mbrlabs.mundus.commons.shaders.ShaderPrewarmer
 import com.mbrlabs.mundus.commons.utils.DebugRenderer
+import com.mbrlabs.mundus.commons.utils.ShaderBinaryGL20
 import com.mbrlabs.mundus.commons.utils.ShaderUtils
+import com.mbrlabs.mundus.commons.utils.StateTrackingGL20
 import com.mbrlabs.mundus.editor.core.project.ProjectAlreadyImportedException
 import com.mbrlabs.mundus.editor.core.project.ProjectContext
 import com.mbrlabs.mundus.editor.core.project.ProjectManager
@@ -49,8 +53,10 @@ import com.mbrlabs.mundus.editor.ui.gizmos.GizmoManager
 import com.mbrlabs.mundus.editor.utils.Colors
 import com.mbrlabs.mundus.editor.utils.Compass
 import com.mbrlabs.mundus.editor.utils.GlUtils
+import com.mbrlabs.mundus.editor.utils.RenderableSorters
 import com.mbrlabs.mundus.editor.utils.UsefulMeshs
-import net.mgsx.gltf.scene3d.scene.SceneRenderableSorter
+import com.mbrlabs.mundus.runtime.lwjgl3.Lwjgl3IBLMapStore
+import com.mbrlabs.mundus.runtime.lwjgl3.Lwjgl3ShaderBinaryCache
 import net.mgsx.gltf.scene3d.shaders.PBRDepthShaderProvider
 import org.apache.commons.io.FileUtils
 import org.apache.commons.io.FilenameUtils
@@ -82,8 +88,24 @@ class Editor : Lwjgl3WindowAdapter(), ApplicationListener,
     private lateinit var shapeRenderer: ShapeRenderer
     private lateinit var debugRenderer: DebugRenderer
     private lateinit var globalPreferencesManager: MundusPreferencesManager
+    private lateinit var iblMapStore: Lwjgl3IBLMapStore
+
+    /** Wrap GL with a state tracker on create, must be set before the Mundus context is initialized */
+    var glStateTracking = false
+
+    /** Link shader programs from binaries stored by previous runs, must be set before the Mundus context is initialized */
+    var shaderBinaryCache = true
 
     override fun create() {
+        if (shaderBinaryCache && Lwjgl3ShaderBinaryCache.isSupported()) {
+            val directory = Gdx.files.absolute(FilenameUtils.concat(Registry.HOME_DIR, "shaders/"))
+            ShaderBinaryGL20.install(Gdx.graphics, Lwjgl3ShaderBinaryCache(directory))
+        }
+        iblMapStore = Lwjgl3IBLMapStore(Gdx.files.absolute(FilenameUtils.concat(Registry.HOME_DIR, "ibl/")))
+        IBLCache.getInstance().store = iblMapStore
+        if (glStateTracking) {
+            StateTrackingGL20.install(Gdx.graphics)
+        }
         Mundus.registerEventListener(this)
         camController = Mundus.inject()
         shortcutController = Mundus.inject()
@@ -145,11 +167,16 @@ class Editor : Lwjgl3WindowAdapter(), ApplicationListener,
         val sg = scene.sceneGraph
 
         val config = ShaderUtils.buildPBRShaderConfig(projectManager.current().assetManager.maxNumBones)
+        val shaderProvider = EditorShaderProvider(config)
         projectManager.modelBatch?.dispose()
-        projectManager.modelBatch = ModelBatch(EditorShaderProvider(config), SceneRenderableSorter())
+        projectManager.modelBatch = ModelBatch(shaderProvider, RenderableSorters.create())
 
         val depthConfig = ShaderUtils.buildPBRShaderDepthConfig(projectManager.current().assetManager.maxNumBones)
-        projectManager.setDepthBatch((ModelBatch(PBRDepthShaderProvider(depthConfig))))
+        val depthShaderProvider = PBRDepthShaderProvider(depthConfig)
+        projectManager.setDepthBatch((ModelBatch(depthShaderProvider)))
+
+        // Compile the scenes shaders now instead of when materials first come into view
+        ShaderPrewarmer().prewarm(scene, shaderProvider, depthShaderProvider)
 
         UI.sceneWidget.setCam(context.currScene.cam)
         UI.sceneWidget.setRenderer {
@@ -287,11 +314,13 @@ class Editor : Lwjgl3WindowAdapter(), ApplicationListener,
 
     override fun onGameObjectModified(event: GameObjectModifiedEvent) {
         if (event.gameObject == null) return
-        projectManager.current().currScene.modelCacheManager.requestModelCacheRebuild()
+        // Not every modification changes a transform, so the cells of the game object are rebuilt in any case
+        projectManager.current().currScene.modelCacheManager.invalidate(event.gameObject!!)
     }
 
     override fun dispose() {
         debugRenderer.dispose()
+        iblMapStore.dispose()
         Mundus.dispose()
     }
 
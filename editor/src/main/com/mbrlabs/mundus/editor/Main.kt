@@ -24,6 +24,7 @@ import com.badlogic.gdx.utils.SharedLibraryLoader
 import com.kotcrab.vis.ui.util.OsUtils
 import com.mbrlabs.mundus.commons.utils.ShaderPreprocessor
 import com.mbrlabs.mundus.editor.utils.Log
+import com.mbrlabs.mundus.editor.utils.RenderableSorters
 import com.mbrlabs.mundus.editor.utils.StartOnFirstThreadHelper
 import org.kohsuke.args4j.CmdLineParser
 import org.kohsuke.args4j.Option
@@ -49,6 +50,15 @@ class LaunchOptions {
     @Option(name="-noShaderCache", usage="Disable shader preprocessor caching, useful for hot reloads during shader development")
     var noShaderCache = false
 
+    @Option(name="-glStateTracking", usage="Drop GL calls which would not change the GL state")
+    var glStateTracking = false
+
+    @Option(name="-noShaderBinaryCache", usage="Always link shader programs instead of loading the binaries stored by previous runs")
+    var noShaderBinaryCache = false
+
+    @Option(name="-gltfSorter", usage="Sort renderables with the gdx-gltf sorter instead of the Mundus sorter")
+    var gltfSorter = false
+
     @Option(name="-fpsLimit", usage="Set FPS limit")
     var fps = 60 // Default to 60 FPS limit (ex -fpsLimit=30)
 }
@@ -70,6 +80,8 @@ fun main(arg: Array<String>) {
 private fun launchEditor(options: LaunchOptions) {
     val config = Lwjgl3ApplicationConfiguration()
     val editor = Editor()
+    editor.glStateTracking = options.glStateTracking
+    editor.shaderBinaryCache = !options.noShaderBinaryCache
     config.setWindowListener(editor)
 
     // Set initial window size. See https://github.com/mbrlabs/Mundus/issues/11
@@ -103,6 +115,8 @@ private fun launchEditor(options: LaunchOptions) {
         ShaderPreprocessor.cacheEnabled = false
     }
 
+    RenderableSorters.useGltfSorter = options.gltfSorter
+
     val aaSamples = if (options.noMSAA) 0 else 8
     config.setBackBufferConfig(8, 8, 8, 8, 24, 0, aaSamples)
 
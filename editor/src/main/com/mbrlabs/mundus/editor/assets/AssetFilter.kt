@@ -18,6 +18,7 @@ package com.mbrlabs.mundus.editor.assets
 
 import com.mbrlabs.mundus.commons.assets.Asset
 import com.mbrlabs.mundus.commons.assets.MaterialAsset
+import com.mbrlabs.mundus.commons.assets.ModelAsset
 import com.mbrlabs.mundus.commons.assets.TextureAsset
 
 /**
@@ -46,4 +47,10 @@ class AssetTextureFilter : AssetFilter {
     override fun ignore(asset: Asset): Boolean {
         return asset !is TextureAsset
     }
-}
\ No newline at end of file
+}
+
+class AssetModelFilter : AssetFilter {
+    override fun ignore(asset: Asset): Boolean {
+        return asset !is ModelAsset
+    }
+}
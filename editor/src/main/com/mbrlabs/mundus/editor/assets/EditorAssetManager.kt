@@ -624,6 +624,15 @@ class EditorAssetManager(assetsRoot: FileHandle) : AssetManager(assetsRoot) {
                 binFile.delete()
         }
 
+        if (asset is ModelAsset) {
+            asset.lod = null
+            asset.impostor = null
+            for (file in arrayOf(asset.lodFile, asset.impostorAlbedoFile, asset.impostorNormalFile)) {
+                if (file.exists())
+                    file.delete()
+            }
+        }
+
         if (asset.meta.file.exists())
             asset.meta.file.delete()
 
@@ -0,0 +1,126 @@
+package com.mbrlabs.mundus.editor.assets
+
+import com.badlogic.gdx.Gdx
+import com.badlogic.gdx.graphics.GL20
+import com.badlogic.gdx.graphics.OrthographicCamera
+import com.badlogic.gdx.graphics.Pixmap
+import com.badlogic.gdx.graphics.PixmapIO
+import com.badlogic.gdx.graphics.g3d.ModelBatch
+import com.badlogic.gdx.graphics.g3d.ModelInstance
+import com.badlogic.gdx.graphics.glutils.FrameBuffer
+import com.badlogic.gdx.math.Vector3
+import com.mbrlabs.mundus.commons.assets.ModelAsset
+import com.mbrlabs.mundus.commons.assets.meta.MetaModel
+import com.mbrlabs.mundus.commons.impostor.ImpostorAtlas
+import com.mbrlabs.mundus.editor.Mundus
+import com.mbrlabs.mundus.editor.core.project.ProjectManager
+import com.mbrlabs.mundus.editor.shader.ImpostorBakeShader
+import com.mbrlabs.mundus.editor.ui.UI
+import com.mbrlabs.mundus.editor.utils.Log
+
+/**
+ * Bakes the impostor atlas of a model asset by rendering it offscreen from every frame direction of the atlas,
+ * see [ImpostorAtlas]. The albedo and normal atlases are written next to the model file.
+ */
+object ImpostorBaker {
+
+    private val TAG = ImpostorBaker::class.java.simpleName
+
+    /** Frames per side, 8x8 views of 128 pixels give a 1024 pixel atlas */
+    const val DEFAULT_FRAMES = 8
+    private const val FRAME_SIZE = 128
+
+    /**
+     * Bakes and applies the impostor atlas. Must be called on the render thread.
+     */
+    fun bake(asset: ModelAsset, frames: Int = DEFAULT_FRAMES) {
+        val center = Vector3()
+        val radius = ImpostorAtlas.computeBounds(asset.model, center)
+        if (radius <= 0f) {
+            UI.toaster.error("${asset.name} has no geometry to bake an impostor of")
+            return
+        }
+
+        val atlasSize = frames * FRAME_SIZE
+        val instance = ModelInstance(asset.model)
+        val frameBuffer = FrameBuffer(Pixmap.Format.RGBA8888, atlasSize, atlasSize, true)
+        val shader = ImpostorBakeShader()
+        shader.init()
+        val batch = ModelBatch()
+
+        val cam = OrthographicCamera(radius * 2f, radius * 2f)
+        cam.near = radius * 0.01f
+        cam.far = radius * 4f
+
+        try {
+            shader.normalMode = false
+            val albedo = renderAtlas(frameBuffer, batch, shader, instance, cam, center, radius, frames)
+            shader.normalMode = true
+            val normal = renderAtlas(frameBuffer, batch, shader, instance, cam, center, radius, frames)
+
+            PixmapIO.writePNG(asset.impostorAlbedoFile, albedo)
+            PixmapIO.writePNG(asset.impostorNormalFile, normal)
+            albedo.dispose()
+            normal.dispose()
+        } catch (e: Exception) {
+            Log.exception(TAG, e)
+            UI.toaster.error("Error while baking the impostor of ${asset.name}")
+            return
+        } finally {
+            batch.dispose()
+            shader.dispose()
+            frameBuffer.dispose()
+        }
+
+        asset.impostor = ImpostorAtlas.load(asset.impostorAlbedoFile, asset.impostorNormalFile, frames, asset.model)
+
+        if (asset.meta.model == null) {
+            asset.meta.model = MetaModel()
+        }
+        asset.meta.model.impostorFrames = frames
+        Mundus.inject<MetaSaver>().save(asset.meta)
+
+        // Impostor batches reference the previous atlas
+        val projectManager: ProjectManager = Mundus.inject()
+        projectManager.current().currScene.impostorManager.invalidate()
+
+        UI.toaster.success("Baked impostor for ${asset.name}")
+    }
+
+    private fun renderAtlas(frameBuffer: FrameBuffer, batch: ModelBatch, shader: ImpostorBakeShader,
+                            instance: ModelInstance, cam: OrthographicCamera, center: Vector3, radius: Float,
+                            frames: Int): Pixmap {
+        val direction = Vector3()
+
+        frameBuffer.begin()
+        Gdx.gl.glClearColor(0f, 0f, 0f, 0f)
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT or GL20.GL_DEPTH_BUFFER_BIT)
+
+        for (y in 0 until frames) {
+            for (x in 0 until frames) {
+                ImpostorAtlas.getFrameDirection(frames, x, y, direction)
+
+                // Same orientation as the runtime quads, up is world up except when looking straight down
+                cam.position.set(center).mulAdd(direction, radius * 2f)
+                cam.direction.set(direction).scl(-1f)
+                if (Math.abs(direction.y) > 0.999f) {
+                    cam.up.set(0f, 0f, -1f)
+                } else {
+                    cam.up.set(Vector3.Y)
+                }
+                cam.normalizeUp()
+                cam.update()
+
+                Gdx.gl.glViewport(x * FRAME_SIZE, y * FRAME_SIZE, FRAME_SIZE, FRAME_SIZE)
+                batch.begin(cam)
+                batch.render(instance, shader)
+                batch.end()
+            }
+        }
+
+        // Read back bottom up, frame rows stay in texture coordinate order
+        val pixmap = Pixmap.createFromFrameBuffer(0, 0, frameBuffer.width, frameBuffer.height)
+        frameBuffer.end()
+        return pixmap
+    }
+}
@@ -56,6 +56,8 @@ class MetaSaver {
         val model = meta.model ?: return
         json.writeObjectStart(Meta.JSON_MODEL)
         json.writeValue(MetaModel.JSON_NUM_BONES, meta.model.numBones)
+        json.writeValue(MetaModel.JSON_LOD_LEVELS, meta.model.lodLevels)
+        json.writeValue(MetaModel.JSON_IMPOSTOR_FRAMES, meta.model.impostorFrames)
 
         // default materials
         if(model.defaultMaterials != null) {
@@ -0,0 +1,73 @@
+package com.mbrlabs.mundus.editor.assets
+
+import com.badlogic.gdx.Gdx
+import com.badlogic.gdx.utils.async.AsyncExecutor
+import com.badlogic.gdx.utils.async.AsyncTask
+import com.mbrlabs.mundus.commons.assets.ModelAsset
+import com.mbrlabs.mundus.commons.assets.meta.MetaModel
+import com.mbrlabs.mundus.commons.lod.ModelLod
+import com.mbrlabs.mundus.commons.lod.ModelLodData
+import com.mbrlabs.mundus.editor.Mundus
+import com.mbrlabs.mundus.editor.core.project.ProjectManager
+import com.mbrlabs.mundus.editor.ui.UI
+import com.mbrlabs.mundus.editor.utils.Log
+
+/**
+ * Generates simplified LOD meshes for model assets. Simplification runs on a background thread, the result is
+ * written next to the model file and applied to the asset on the render thread.
+ */
+object ModelLodGenerator {
+
+    private val TAG = ModelLodGenerator::class.java.simpleName
+
+    const val DEFAULT_LEVELS = 3
+
+    private val executor = AsyncExecutor(1, "ModelLodGenerator")
+
+    /**
+     * @param asset  the model asset, must be loaded
+     * @param levels number of levels to generate, excluding the original model
+     */
+    fun generate(asset: ModelAsset, levels: Int) {
+        // Mesh data has to be read on the render thread
+        val sources = ModelLodData.extract(asset.model)
+        if (sources.isEmpty) {
+            UI.toaster.error("${asset.name} has no meshes LODs can be generated for")
+            return
+        }
+
+        UI.toaster.info("Generating LODs for ${asset.name}")
+        executor.submit(AsyncTask<Void?> {
+            try {
+                val data = ModelLodData.generate(sources, levels)
+                data.write(asset.lodFile)
+                Gdx.app.postRunnable { apply(asset, data) }
+            } catch (e: Exception) {
+                Gdx.app.postRunnable {
+                    Log.exception(TAG, e)
+                    UI.toaster.error("Error while generating LODs for ${asset.name}")
+                }
+            }
+            null
+        })
+    }
+
+    private fun apply(asset: ModelAsset, data: ModelLodData) {
+        // The asset may have been deleted while generating
+        if (asset.model == null || !asset.file.exists()) return
+
+        asset.lod = ModelLod(asset.model, data)
+
+        if (asset.meta.model == null) {
+            asset.meta.model = MetaModel()
+        }
+        asset.meta.model.lodLevels = data.levels.size
+        Mundus.inject<MetaSaver>().save(asset.meta)
+
+        // Instancing groups hold copies of the previous LOD meshes
+        val projectManager: ProjectManager = Mundus.inject()
+        projectManager.current().currScene.instancedModelManager.invalidate()
+
+        UI.toaster.success("Generated ${data.levels.size} LODs for ${asset.name}")
+    }
+}
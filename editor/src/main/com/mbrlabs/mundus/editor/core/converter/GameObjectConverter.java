@@ -19,13 +19,16 @@ package com.mbrlabs.mundus.editor.core.converter;
 import com.badlogic.gdx.math.Quaternion;
 import com.badlogic.gdx.math.Vector3;
 import com.mbrlabs.mundus.commons.assets.Asset;
+import com.mbrlabs.mundus.commons.assets.ModelAsset;
 import com.mbrlabs.mundus.commons.dto.GameObjectDTO;
 import com.mbrlabs.mundus.commons.mapper.CustomPropertiesComponentConverter;
+import com.mbrlabs.mundus.commons.mapper.VegetationComponentConverter;
 import com.mbrlabs.mundus.commons.scene3d.GameObject;
 import com.mbrlabs.mundus.commons.scene3d.SceneGraph;
 import com.mbrlabs.mundus.commons.scene3d.components.Component;
 import com.mbrlabs.mundus.commons.scene3d.components.CustomPropertiesComponent;
 import com.mbrlabs.mundus.commons.scene3d.components.LightComponent;
+import com.mbrlabs.mundus.commons.scene3d.components.VegetationComponent;
 import com.mbrlabs.mundus.editor.scene3d.components.PickableModelComponent;
 import com.mbrlabs.mundus.editor.scene3d.components.PickableTerrainComponent;
 import com.mbrlabs.mundus.editor.scene3d.components.PickableWaterComponent;
@@ -47,6 +50,8 @@ public class GameObjectConverter {
                                      Map<String, Asset> assets) {
         final GameObject go = new GameObject(sceneGraph, dto.getName(), dto.getId());
         go.active = dto.isActive();
+        go.setLayerMask(dto.getLayerMask());
+        go.setDrawDistance(dto.getDrawDistance());
 
         // transformation
         final float[] transform = dto.getTransform();
@@ -81,6 +86,12 @@ public class GameObjectConverter {
             go.getComponents().add(component);
         }
 
+        // Convert vegetation component
+        if (dto.getVegetationComponent() != null) {
+            ModelAsset modelAsset = (ModelAsset) assets.get(dto.getVegetationComponent().getModelID());
+            go.getComponents().add(VegetationComponentConverter.convert(dto.getVegetationComponent(), go, modelAsset));
+        }
+
         // recursively convert children
         if (dto.getChilds() != null) {
             for (GameObjectDTO c : dto.getChilds()) {
@@ -100,6 +111,8 @@ public class GameObjectConverter {
         descriptor.setName(go.name);
         descriptor.setId(go.id);
         descriptor.setActive(go.active);
+        descriptor.setLayerMask(go.getLayerMask());
+        descriptor.setDrawDistance(go.getDrawDistance());
 
         // translation
         go.getLocalPosition(tempVec);
@@ -133,6 +146,8 @@ public class GameObjectConverter {
                 descriptor.setLightComponent(PickableLightComponentConverter.convert((LightComponent) c));
             } else if (c.getType() == Component.Type.CUSTOM_PROPERTIES) {
                 descriptor.setCustomPropertiesComponent(CustomPropertiesComponentConverter.convert((CustomPropertiesComponent) c));
+            } else if (c.getType() == Component.Type.VEGETATION) {
+                descriptor.setVegetationComponent(VegetationComponentConverter.convert((VegetationComponent) c));
             }
         }
 
@@ -48,6 +48,8 @@ public class ModelComponentConverter {
         PickableModelComponent component = new PickableModelComponent(go);
         component.setModel(model, false);
         component.setUseModelCache(dto.isUseModelCache());
+        component.setUseInstancing(dto.isUseInstancing());
+        component.setOccluder(dto.isOccluder());
 
         for (String g3dbMatID : dto.getMaterials().keySet()) {
             String uuid = dto.getMaterials().get(g3dbMatID);
@@ -64,7 +66,9 @@ public class ModelComponentConverter {
     public static ModelComponentDTO convert(PickableModelComponent modelComponent) {
         ModelComponentDTO dto = new ModelComponentDTO();
         dto.setModelID(modelComponent.getModelAsset().getID());
-        dto.setUseModelCache(modelComponent.shouldCache());
+        dto.setUseModelCache(modelComponent.isUseModelCache());
+        dto.setUseInstancing(modelComponent.isUseInstancing());
+        dto.setOccluder(modelComponent.isOccluder());
 
         // materials
         for (String g3dbMatID : modelComponent.getMaterials().keys()) {
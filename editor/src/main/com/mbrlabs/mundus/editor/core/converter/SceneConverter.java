@@ -62,14 +62,33 @@ public class SceneConverter {
 
         MundusDirectionalShadowLight directionalLightEx = LightUtils.getDirectionalLight(scene.environment);
         dto.setDirectionalLight(DirectionalLightConverter.convert(scene, directionalLightEx));
+        dto.setShadowCascades(scene.getCascadeCount());
 
         // Water
         dto.setWaterResolution(scene.settings.waterResolution);
         dto.setWaterHeight(scene.settings.waterHeight);
         dto.setEnableWaterReflections(scene.settings.enableWaterReflections);
         dto.setEnableWaterRefractions(scene.settings.enableWaterRefractions);
+        dto.setWaterUpdateInterval(scene.settings.waterUpdateInterval);
+        dto.setWaterUpdateOnCameraMove(scene.settings.waterUpdateOnCameraMove);
+        dto.setWaterReflectionDrawDistance(scene.settings.waterReflectionDrawDistance);
+        dto.setWaterReflectionMinScreenSize(scene.settings.waterReflectionMinScreenSize);
 
         dto.setUseFrustumCulling(scene.settings.useFrustumCulling);
+        dto.setUseOcclusionCulling(scene.settings.useOcclusionCulling);
+        dto.setCacheStaticShadows(scene.settings.cacheStaticShadows);
+        dto.setLodBias(scene.settings.lodBias);
+        dto.setImpostorDistance(scene.settings.impostorDistance);
+        dto.setLightsPerObject(scene.settings.lightsPerObject);
+        dto.setDepthPrePass(scene.settings.depthPrePass);
+        dto.setDynamicResolution(scene.settings.dynamicResolution);
+        dto.setTargetFrameRate(scene.settings.targetFrameRate);
+        dto.setMinResolutionScale(scene.settings.minResolutionScale);
+        dto.setDrawDistance(scene.settings.drawDistance);
+        dto.setMinScreenSize(scene.settings.minScreenSize);
+        dto.setShadowDrawDistance(scene.settings.shadowDrawDistance);
+        dto.setShadowMinScreenSize(scene.settings.shadowMinScreenSize);
+        dto.setCullFoggedObjects(scene.settings.cullFoggedObjects);
 
         // camera
         dto.setCamPosX(scene.cam.position.x);
@@ -108,6 +127,7 @@ public class SceneConverter {
         if (light != null) {
             scene.setDirectionalLight(light);
         }
+        scene.setCascadedShadows(dto.getShadowCascades());
 
         // Water stuff
         scene.settings.waterResolution = dto.getWaterResolution();
@@ -116,8 +136,26 @@ public class SceneConverter {
 
         scene.settings.waterHeight = dto.getWaterHeight();
         scene.settings.useFrustumCulling = dto.isUseFrustumCulling();
+        scene.settings.useOcclusionCulling = dto.isUseOcclusionCulling();
+        scene.settings.cacheStaticShadows = dto.isCacheStaticShadows();
+        scene.settings.lodBias = dto.getLodBias();
+        scene.settings.impostorDistance = dto.getImpostorDistance();
+        scene.settings.lightsPerObject = dto.getLightsPerObject();
+        scene.settings.depthPrePass = dto.isDepthPrePass();
+        scene.settings.dynamicResolution = dto.isDynamicResolution();
+        scene.settings.targetFrameRate = dto.getTargetFrameRate();
+        scene.settings.minResolutionScale = dto.getMinResolutionScale();
+        scene.settings.drawDistance = dto.getDrawDistance();
+        scene.settings.minScreenSize = dto.getMinScreenSize();
+        scene.settings.shadowDrawDistance = dto.getShadowDrawDistance();
+        scene.settings.shadowMinScreenSize = dto.getShadowMinScreenSize();
+        scene.settings.cullFoggedObjects = dto.isCullFoggedObjects();
         scene.settings.enableWaterReflections = dto.isEnableWaterReflections();
         scene.settings.enableWaterRefractions = dto.isEnableWaterRefractions();
+        scene.settings.waterUpdateInterval = Math.max(1, dto.getWaterUpdateInterval());
+        scene.settings.waterUpdateOnCameraMove = dto.isWaterUpdateOnCameraMove();
+        scene.settings.waterReflectionDrawDistance = dto.getWaterReflectionDrawDistance();
+        scene.settings.waterReflectionMinScreenSize = dto.getWaterReflectionMinScreenSize();
 
         // scene graph
         scene.sceneGraph = new SceneGraph(scene);
@@ -172,6 +172,7 @@ public class DescriptorConverter {
         // export settings
         descriptor.setExportAllAssets(settings.getExport().allAssets);
         descriptor.setExportCompressScenes(settings.getExport().compressScenes);
+        descriptor.setExportBakeSkyboxIBL(settings.getExport().bakeSkyboxIBL);
         if(settings.getExport().outputFolder != null) {
             descriptor.setExportOutputFolder(settings.getExport().outputFolder.path());
         }
@@ -187,6 +188,7 @@ public class DescriptorConverter {
         // export settings
         settings.getExport().allAssets = descriptor.isExportAllAssets();
         settings.getExport().compressScenes = descriptor.isExportCompressScenes();
+        settings.getExport().bakeSkyboxIBL = descriptor.isExportBakeSkyboxIBL();
         if(descriptor.getExportOutputFolder() != null && descriptor.getExportOutputFolder().length() > 0) {
             settings.getExport().outputFolder = new FileHandle(descriptor.getExportOutputFolder());
         }
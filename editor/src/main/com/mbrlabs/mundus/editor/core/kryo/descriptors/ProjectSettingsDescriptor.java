@@ -34,6 +34,8 @@ public class ProjectSettingsDescriptor {
     private String exportOutputFolder;
     @Tag(3)
     private String jsonType;
+    @Tag(4)
+    private boolean exportBakeSkyboxIBL;
 
     public String getJsonType() {
         return jsonType;
@@ -59,6 +61,14 @@ public class ProjectSettingsDescriptor {
         this.exportAllAssets = exportAllAssets;
     }
 
+    public boolean isExportBakeSkyboxIBL() {
+        return exportBakeSkyboxIBL;
+    }
+
+    public void setExportBakeSkyboxIBL(boolean exportBakeSkyboxIBL) {
+        this.exportBakeSkyboxIBL = exportBakeSkyboxIBL;
+    }
+
     public String getExportOutputFolder() {
         return exportOutputFolder;
     }
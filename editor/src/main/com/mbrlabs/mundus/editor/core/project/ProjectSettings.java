@@ -38,6 +38,7 @@ public class ProjectSettings {
         public JsonWriter.OutputType jsonType = JsonWriter.OutputType.json;
         public boolean compressScenes = false;
         public boolean allAssets = true;
+        public boolean bakeSkyboxIBL = false;
         public FileHandle outputFolder;
     }
 
@@ -17,21 +17,29 @@
 package com.mbrlabs.mundus.editor.exporter
 
 import com.badlogic.gdx.files.FileHandle
+import com.badlogic.gdx.graphics.Cubemap
+import com.badlogic.gdx.graphics.Pixmap
 import com.badlogic.gdx.utils.Json
 import com.badlogic.gdx.utils.JsonWriter
 import com.kotcrab.vis.ui.util.async.AsyncTask
 import com.kotcrab.vis.ui.util.async.AsyncTaskListener
 import com.mbrlabs.mundus.commons.assets.Asset
+import com.mbrlabs.mundus.commons.assets.ModelAsset
+import com.mbrlabs.mundus.commons.assets.SkyboxAsset
 import com.mbrlabs.mundus.commons.dto.GameObjectDTO
 import com.mbrlabs.mundus.commons.dto.ModelComponentDTO
 import com.mbrlabs.mundus.commons.dto.SceneDTO
 import com.mbrlabs.mundus.commons.dto.TerrainComponentDTO
+import com.mbrlabs.mundus.commons.env.IBLBaker
+import com.mbrlabs.mundus.commons.env.IBLCache
+import com.mbrlabs.mundus.commons.env.IBLFiles
 import com.mbrlabs.mundus.commons.importer.JsonScene
 import com.mbrlabs.mundus.editor.core.converter.SceneConverter
 import com.mbrlabs.mundus.editor.core.io.IOManager
 import com.mbrlabs.mundus.editor.core.project.ProjectContext
 import com.mbrlabs.mundus.editor.core.project.ProjectManager
 import com.mbrlabs.mundus.editor.core.scene.SceneManager
+import com.mbrlabs.mundus.runtime.lwjgl3.Lwjgl3IBLMapStore
 import org.apache.commons.io.FilenameUtils
 import java.io.File
 import java.io.Writer
@@ -52,6 +60,8 @@ class Exporter(val ioManager: IOManager, val project: ProjectContext) {
         // and while converting (on the other thread)
         val currentSceneDTO = SceneConverter.convert(project.currScene)
         val jsonType = project.settings.export.jsonType
+        // Rendering needs the GL context of the main thread, the faces are written by the export task
+        val skyboxIBLs = if (project.settings.export.bakeSkyboxIBL) bakeSkyboxIBLs() else emptyList()
 
         val task = object: AsyncTask("export_${project.name}") {
             override fun doInBackground() {
@@ -77,6 +87,11 @@ class Exporter(val ioManager: IOManager, val project: ProjectContext) {
                     Thread.sleep(50)
                 }
 
+                for (ibl in skyboxIBLs) {
+                    setMessage(ibl.skyboxId)
+                    ibl.write(assetFolder)
+                }
+
                 // load, convert & copy scenes
                 for(sceneName in project.scenes) {
                     val file = FileHandle(FilenameUtils.concat(scenesFolder.path(),
@@ -104,6 +119,44 @@ class Exporter(val ioManager: IOManager, val project: ProjectContext) {
         task.execute()
     }
 
+    /**
+     * Bakes the image based lighting maps of every skybox asset. The rotation of the skybox is not baked.
+     */
+    private fun bakeSkyboxIBLs(): List<SkyboxIBL> {
+        val ibls = ArrayList<SkyboxIBL>()
+        val baker = IBLBaker()
+        try {
+            for (asset in project.assetManager.assets) {
+                if (asset !is SkyboxAsset) continue
+                val environment = Cubemap(asset.positiveX?.file ?: continue, asset.negativeX?.file ?: continue,
+                        asset.positiveY?.file ?: continue, asset.negativeY?.file ?: continue,
+                        asset.positiveZ?.file ?: continue, asset.negativeZ?.file ?: continue)
+                baker.setEnvironment(environment)
+                ibls.add(SkyboxIBL(asset.id, baker.renderIrradianceMap(IBLCache.IRRADIANCE_SIZE),
+                        baker.renderRadianceMap(IBLCache.RADIANCE_MIP_LEVELS)))
+                environment.dispose()
+            }
+        } finally {
+            baker.dispose()
+        }
+        return ibls
+    }
+
+    private class SkyboxIBL(val skyboxId: String, val irradiance: Array<Pixmap>, val radiance: Array<Pixmap>) {
+
+        fun write(assetFolder: FileHandle) {
+            try {
+                val directory = IBLFiles.getBakeDirectory(assetFolder, skyboxId)
+                directory.mkdirs()
+                Lwjgl3IBLMapStore.write(directory, IBLFiles.IRRADIANCE, irradiance)
+                Lwjgl3IBLMapStore.write(directory, IBLFiles.RADIANCE, radiance)
+            } finally {
+                irradiance.forEach { it.dispose() }
+                radiance.forEach { it.dispose() }
+            }
+        }
+    }
+
     private fun createFolders(exportRootFolder: FileHandle) {
         // ROOT/assets
         val assets = File(FilenameUtils.concat(exportRootFolder.path(), "assets/"))
@@ -117,6 +170,13 @@ class Exporter(val ioManager: IOManager, val project: ProjectContext) {
     private fun exportAsset(asset: Asset, folder: FileHandle) {
         asset.file.copyTo(folder)
         asset.meta.file.copyTo(folder)
+
+        if (asset is ModelAsset) {
+            for (file in arrayOf(asset.lodFile, asset.impostorAlbedoFile, asset.impostorNormalFile)) {
+                if (file.exists())
+                    file.copyTo(folder)
+            }
+        }
     }
 
     private fun exportScene(scene: SceneDTO, file: FileHandle, jsonType: JsonWriter.OutputType) {
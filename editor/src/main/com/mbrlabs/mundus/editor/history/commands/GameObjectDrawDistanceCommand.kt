@@ -0,0 +1,23 @@
+package com.mbrlabs.mundus.editor.history.commands
+
+import com.mbrlabs.mundus.commons.scene3d.GameObject
+import com.mbrlabs.mundus.editor.Mundus
+import com.mbrlabs.mundus.editor.events.GameObjectModifiedEvent
+import com.mbrlabs.mundus.editor.history.Command
+
+/**
+ * Command to change the draw distance of a game object.
+ */
+class GameObjectDrawDistanceCommand(val gameObject: GameObject, val drawDistance: Float) : Command {
+    private val previousDrawDistance = gameObject.drawDistance
+
+    override fun execute() {
+        gameObject.drawDistance = drawDistance
+        Mundus.postEvent(GameObjectModifiedEvent(gameObject))
+    }
+
+    override fun undo() {
+        gameObject.drawDistance = previousDrawDistance
+        Mundus.postEvent(GameObjectModifiedEvent(gameObject))
+    }
+}
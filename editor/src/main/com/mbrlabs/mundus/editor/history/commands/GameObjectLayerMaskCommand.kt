@@ -0,0 +1,23 @@
+package com.mbrlabs.mundus.editor.history.commands
+
+import com.mbrlabs.mundus.commons.scene3d.GameObject
+import com.mbrlabs.mundus.editor.Mundus
+import com.mbrlabs.mundus.editor.events.GameObjectModifiedEvent
+import com.mbrlabs.mundus.editor.history.Command
+
+/**
+ * Command to change the render layers of a game object.
+ */
+class GameObjectLayerMaskCommand(val gameObject: GameObject, val layerMask: Int) : Command {
+    private val previousLayerMask = gameObject.layerMask
+
+    override fun execute() {
+        gameObject.layerMask = layerMask
+        Mundus.postEvent(GameObjectModifiedEvent(gameObject))
+    }
+
+    override fun undo() {
+        gameObject.layerMask = previousLayerMask
+        Mundus.postEvent(GameObjectModifiedEvent(gameObject))
+    }
+}
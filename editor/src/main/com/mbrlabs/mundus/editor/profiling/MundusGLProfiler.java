@@ -4,6 +4,9 @@ import com.badlogic.gdx.Graphics;
 import com.badlogic.gdx.graphics.GL30;
 import com.badlogic.gdx.graphics.profiling.GLProfiler;
 import com.badlogic.gdx.math.FloatCounter;
+import com.mbrlabs.mundus.commons.shaders.FrameUniformBuffer;
+import com.mbrlabs.mundus.commons.shaders.UniformCache;
+import com.mbrlabs.mundus.commons.utils.StateTrackingGL20;
 
 /**
  * Extends libGDX GLProfiler to add support for using the MundusGLInterceptor instead.
@@ -17,6 +20,11 @@ public class MundusGLProfiler extends GLProfiler {
     private final MundusGLInterceptor glInterceptor;
     private boolean enabled = false;
 
+    // GL state tracker wrapped by the interceptor, if installed
+    private final StateTrackingGL20 stateTracker;
+    private int skippedCallsOnResume;
+    private int skippedGLCalls;
+
     /**
      * Create a new instance of GLProfiler to monitor a {@link Graphics} instance's gl calls
      *
@@ -26,6 +34,7 @@ public class MundusGLProfiler extends GLProfiler {
     public MundusGLProfiler(Graphics graphics) {
         super(graphics);
         this.graphics = graphics;
+        stateTracker = graphics.getGL20() instanceof StateTrackingGL20 ? (StateTrackingGL20) graphics.getGL20() : null;
         GL30 gl30 = graphics.getGL30();
         if (gl30 != null) {
             glInterceptor = new MundusGL30Interceptor(this, graphics.getGL30());
@@ -53,6 +62,9 @@ public class MundusGLProfiler extends GLProfiler {
      * Pauses interceptor data collection without clearing statistics
      */
     public void pause() {
+        if (stateTracker != null && !glInterceptor.isPaused()) {
+            skippedGLCalls += stateTracker.getSkippedCalls() - skippedCallsOnResume;
+        }
         glInterceptor.setPaused(true);
     }
 
@@ -60,6 +72,9 @@ public class MundusGLProfiler extends GLProfiler {
      * Resumes statistics collection
      */
     public void resume() {
+        if (stateTracker != null) {
+            skippedCallsOnResume = stateTracker.getSkippedCalls();
+        }
         glInterceptor.setPaused(false);
     }
 
@@ -125,11 +140,79 @@ public class MundusGLProfiler extends GLProfiler {
         return glInterceptor.getVertexCount();
     }
 
+    /**
+     *
+     * @return the amount of uniforms set by shaders with a {@link UniformCache} since the last reset
+     */
+    public int getCachedUniformUpdates () {
+        return UniformCache.getUniformUpdates();
+    }
+
+    /**
+     *
+     * @return the amount of uniforms skipped by shaders with a {@link UniformCache} since the last reset
+     */
+    public int getSkippedUniformUpdates () {
+        return UniformCache.getSkippedUniformUpdates();
+    }
+
+    /**
+     *
+     * @return the amount of textures bound by shaders with a {@link UniformCache} since the last reset
+     */
+    public int getCachedTextureBinds () {
+        return UniformCache.getTextureBinds();
+    }
+
+    /**
+     *
+     * @return the amount of texture binds skipped by shaders with a {@link UniformCache} since the last reset
+     */
+    public int getSkippedTextureBinds () {
+        return UniformCache.getSkippedTextureBinds();
+    }
+
+    /**
+     *
+     * @return the amount of times the {@link FrameUniformBuffer} was written since the last reset
+     */
+    public int getFrameUniformUploads () {
+        return FrameUniformBuffer.getUploads();
+    }
+
+    /**
+     * @return true if shaders read the per pass uniforms from the {@link FrameUniformBuffer}
+     */
+    public boolean isUsingFrameUniformBuffer () {
+        return FrameUniformBuffer.isSupported();
+    }
+
+    /**
+     * The calls counted by this profiler include these, as the profiler wraps the state tracker.
+     *
+     * @return the amount of GL calls dropped by the {@link StateTrackingGL20} since the last reset, 0 if not installed
+     */
+    public int getSkippedGLCalls () {
+        return skippedGLCalls;
+    }
+
+    /**
+     * @return true if GL calls pass through a {@link StateTrackingGL20}
+     */
+    public boolean isStateTracking () {
+        return stateTracker != null;
+    }
 
     /** Will reset the statistical information which has been collected so far. This should be called after every frame.
      * Error listener is kept as it is. */
     @Override
     public void reset () {
         glInterceptor.reset();
+        UniformCache.resetCounts();
+        FrameUniformBuffer.resetCounts();
+        skippedGLCalls = 0;
+        if (stateTracker != null) {
+            skippedCallsOnResume = stateTracker.getSkippedCalls();
+        }
     }
 }
@@ -55,6 +55,7 @@ public class PickableModelComponent extends ModelComponent implements PickableCo
         mc.setModel(new ModelInstance(modelAsset.getModel()));
         mc.materials.putAll(this.materials);
         mc.setUseModelCache(useModelCache);
+        mc.setUseInstancing(useInstancing);
         mc.encodeRaypickColorId();
         gameObject.sceneGraph.scene.modelCacheManager.requestModelCacheRebuild();
         return mc;
@@ -0,0 +1,92 @@
+package com.mbrlabs.mundus.editor.shader
+
+import com.badlogic.gdx.graphics.Camera
+import com.badlogic.gdx.graphics.Color
+import com.badlogic.gdx.graphics.GL20
+import com.badlogic.gdx.graphics.g3d.Renderable
+import com.badlogic.gdx.graphics.g3d.Shader
+import com.badlogic.gdx.graphics.g3d.attributes.ColorAttribute
+import com.badlogic.gdx.graphics.g3d.attributes.TextureAttribute
+import com.badlogic.gdx.graphics.g3d.shaders.BaseShader
+import com.badlogic.gdx.graphics.g3d.utils.RenderContext
+import com.mbrlabs.mundus.commons.utils.ShaderUtils
+import net.mgsx.gltf.scene3d.attributes.PBRColorAttribute
+import net.mgsx.gltf.scene3d.attributes.PBRTextureAttribute
+
+private const val VERTEX_SHADER = "com/mbrlabs/mundus/editor/shader/impostor_bake.vert.glsl"
+private const val FRAGMENT_SHADER = "com/mbrlabs/mundus/editor/shader/impostor_bake.frag.glsl"
+
+/**
+ * Renders the unlit base color or the model space normals of a model, for baking impostor atlases.
+ */
+class ImpostorBakeShader : BaseShader() {
+
+    private val UNIFORM_PROJ_VIEW_MATRIX = register(Uniform("u_projViewMatrix"))
+    private val UNIFORM_TRANS_MATRIX = register(Uniform("u_transMatrix"))
+    private val UNIFORM_NORMAL_MODE = register(Uniform("u_normalMode"))
+    private val UNIFORM_DIFFUSE_COLOR = register(Uniform("u_diffuseColor"))
+    private val UNIFORM_HAS_DIFFUSE_TEXTURE = register(Uniform("u_hasDiffuseTexture"))
+    private val UNIFORM_DIFFUSE_TEXTURE = register(Uniform("u_diffuseTexture"))
+
+    /** Renders normals instead of the base color */
+    var normalMode = false
+
+    init {
+        program = ShaderUtils.compile(VERTEX_SHADER, FRAGMENT_SHADER, this)
+    }
+
+    override fun init() {
+        super.init(program, null)
+    }
+
+    override fun compareTo(other: Shader): Int {
+        return 0
+    }
+
+    override fun canRender(instance: Renderable): Boolean {
+        return true
+    }
+
+    override fun begin(camera: Camera, context: RenderContext) {
+        this.context = context
+        context.begin()
+        // Foliage is often single sided
+        context.setCullFace(GL20.GL_NONE)
+        context.setDepthTest(GL20.GL_LEQUAL, 0f, 1f)
+        context.setDepthMask(true)
+
+        program.bind()
+
+        set(UNIFORM_PROJ_VIEW_MATRIX, camera.combined)
+        set(UNIFORM_NORMAL_MODE, if (normalMode) 1 else 0)
+    }
+
+    override fun render(renderable: Renderable) {
+        set(UNIFORM_TRANS_MATRIX, renderable.worldTransform)
+
+        val material = renderable.material
+        val color = material.get(PBRColorAttribute::class.java, PBRColorAttribute.BaseColorFactor)
+                ?: material.get(ColorAttribute::class.java, ColorAttribute.Diffuse)
+        set(UNIFORM_DIFFUSE_COLOR, color?.color ?: Color.WHITE)
+
+        val texture = material.get(PBRTextureAttribute::class.java, PBRTextureAttribute.BaseColorTexture)
+                ?: material.get(TextureAttribute::class.java, TextureAttribute.Diffuse)
+        if (texture != null) {
+            set(UNIFORM_HAS_DIFFUSE_TEXTURE, 1)
+            set(UNIFORM_DIFFUSE_TEXTURE, texture.textureDescription)
+        } else {
+            set(UNIFORM_HAS_DIFFUSE_TEXTURE, 0)
+        }
+
+        renderable.meshPart.render(program)
+    }
+
+    override fun end() {
+        context.end()
+    }
+
+    override fun dispose() {
+        program.dispose()
+    }
+
+}
@@ -0,0 +1,29 @@
+#ifdef GL_ES
+precision highp float;
+#endif
+
+uniform int u_normalMode;
+uniform vec4 u_diffuseColor;
+uniform int u_hasDiffuseTexture;
+uniform sampler2D u_diffuseTexture;
+
+varying vec3 v_normal;
+varying vec2 v_texCoord0;
+
+void main(void) {
+    vec4 color = u_diffuseColor;
+    if (u_hasDiffuseTexture == 1) {
+        color *= texture2D(u_diffuseTexture, v_texCoord0);
+    }
+    if (color.a < 0.5) {
+        discard;
+    }
+
+    if (u_normalMode == 1) {
+        // Meshes without normals face up
+        vec3 normal = length(v_normal) > 0.0001 ? normalize(v_normal) : vec3(0.0, 1.0, 0.0);
+        gl_FragColor = vec4(normal * 0.5 + 0.5, 1.0);
+    } else {
+        gl_FragColor = vec4(color.rgb, 1.0);
+    }
+}
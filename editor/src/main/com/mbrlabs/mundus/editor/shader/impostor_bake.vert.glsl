@@ -0,0 +1,16 @@
+attribute vec3 a_position;
+attribute vec3 a_normal;
+attribute vec2 a_texCoord0;
+
+uniform mat4 u_transMatrix;
+uniform mat4 u_projViewMatrix;
+
+varying vec3 v_normal;
+varying vec2 v_texCoord0;
+
+void main(void) {
+    // Baked with an identity instance transform, so world space is model space
+    v_normal = (u_transMatrix * vec4(a_normal, 0.0)).xyz;
+    v_texCoord0 = a_texCoord0;
+    gl_Position = u_projViewMatrix * u_transMatrix * vec4(a_position, 1.0);
+}
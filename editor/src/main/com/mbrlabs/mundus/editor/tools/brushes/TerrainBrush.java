@@ -27,7 +27,9 @@ import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.math.collision.Ray;
 import com.mbrlabs.mundus.commons.assets.TerrainAsset;
+import com.mbrlabs.mundus.commons.scene3d.components.Component;
 import com.mbrlabs.mundus.commons.scene3d.components.TerrainComponent;
+import com.mbrlabs.mundus.commons.scene3d.components.VegetationComponent;
 import com.mbrlabs.mundus.commons.terrain.SplatMap;
 import com.mbrlabs.mundus.commons.terrain.SplatTexture;
 import com.mbrlabs.mundus.commons.terrain.Terrain;
@@ -520,6 +522,13 @@ public abstract class TerrainBrush extends Tool {
             paintCommand.setAfter(sm.getPixmap());
             getHistory().add(paintCommand);
         }
+        if (terrainHeightModified || splatmapModified) {
+            // Scattered vegetation depends on terrain height and splatmap
+            VegetationComponent vegetation = terrainComponent.getGameObject().findComponentByType(Component.Type.VEGETATION);
+            if (vegetation != null) {
+                vegetation.invalidate();
+            }
+        }
         splatmapModified = false;
         terrainHeightModified = false;
         heightCommand = null;
@@ -13,6 +13,7 @@ import com.mbrlabs.mundus.commons.scene3d.GameObject
 import com.mbrlabs.mundus.commons.scene3d.InvalidComponentException
 import com.mbrlabs.mundus.commons.scene3d.components.Component
 import com.mbrlabs.mundus.commons.scene3d.components.CustomPropertiesComponent
+import com.mbrlabs.mundus.commons.scene3d.components.VegetationComponent
 import com.mbrlabs.mundus.commons.utils.LightUtils
 import com.mbrlabs.mundus.editor.Mundus
 import com.mbrlabs.mundus.editor.core.project.ProjectManager
@@ -24,7 +25,8 @@ class AddComponentDialog : BaseDialog("Add Component") {
 
     private enum class ComponentType(val type: Component.Type, val label: String) {
         LIGHT(Component.Type.LIGHT, "Light"),
-        CUSTOM_PROPERTIES(Component.Type.CUSTOM_PROPERTIES, "Custom properties");
+        CUSTOM_PROPERTIES(Component.Type.CUSTOM_PROPERTIES, "Custom properties"),
+        VEGETATION(Component.Type.VEGETATION, "Vegetation");
 
         override fun toString(): String = label
     }
@@ -56,9 +58,10 @@ class AddComponentDialog : BaseDialog("Add Component") {
         // Load types into select box
         val addableTypes = Array<ComponentType>()
 
-        // At the moment, only light and custom properties components are supported for dynamically adding
+        // At the moment, only light, custom properties and vegetation components are supported for dynamically adding
         addableTypes.add(ComponentType.LIGHT)
         addableTypes.add(ComponentType.CUSTOM_PROPERTIES)
+        addableTypes.add(ComponentType.VEGETATION)
 
         selectBox.items = addableTypes
 
@@ -97,23 +100,25 @@ class AddComponentDialog : BaseDialog("Add Component") {
             Component.Type.PARTICLE_SYSTEM -> TODO()
             Component.Type.WATER -> TODO()
             Component.Type.CUSTOM_PROPERTIES -> return getNewCustomPropertiesComponent(go)
+            Component.Type.VEGETATION -> return getNewVegetationComponent(go)
         }
     }
 
     private fun getNewLightComponent(go: GameObject): Component? {
-        val env = projectManager.current().currScene.environment
+        val scene = projectManager.current().currScene
+        val env = scene.environment
 
         // Create a point or spotlight based on maximum lights allowed
-        if (LightUtils.canCreateLight(env, LightType.POINT_LIGHT)) {
+        if (LightUtils.canCreateLight(scene, LightType.POINT_LIGHT)) {
             return PickableLightComponent(go, LightType.POINT_LIGHT)
-        } else if (LightUtils.canCreateLight(env, LightType.SPOT_LIGHT)) {
-            Dialogs.showOKDialog(UI, "Info", "Max point lights reached ("+LightUtils.MAX_POINT_LIGHTS+"), switching to spotlight.")
+        } else if (LightUtils.canCreateLight(scene, LightType.SPOT_LIGHT)) {
+            Dialogs.showOKDialog(UI, "Info", "Max point lights reached ("+LightUtils.getPointLightsCount(env)+"), switching to spotlight.")
             return PickableLightComponent(go, LightType.SPOT_LIGHT)
         } else {
             val str = buildString {
                 append("Max lighting reached, cannot add additional point or spot lights.\n")
-                append("\nPoint Lights: " + LightUtils.MAX_POINT_LIGHTS)
-                append("\nSpot Lights: " + LightUtils.MAX_SPOT_LIGHTS)
+                append("\nPoint Lights: " + LightUtils.getPointLightsCount(env))
+                append("\nSpot Lights: " + LightUtils.getSpotLightsCount(env))
             }
             Dialogs.showOKDialog(UI, "Info", str)
             return null
@@ -124,4 +129,12 @@ class AddComponentDialog : BaseDialog("Add Component") {
         return CustomPropertiesComponent(go)
     }
 
+    private fun getNewVegetationComponent(go: GameObject): Component? {
+        if (go.findComponentByType<Component>(Component.Type.TERRAIN) == null) {
+            Dialogs.showOKDialog(UI, "Info", "Vegetation can only be added to terrain game objects.")
+            return null
+        }
+        return VegetationComponent(go)
+    }
+
 }
\ No newline at end of file
@@ -10,6 +10,7 @@ import com.kotcrab.vis.ui.widget.VisSelectBox
 import com.kotcrab.vis.ui.widget.VisTable
 import com.kotcrab.vis.ui.widget.VisTextButton
 import com.kotcrab.vis.ui.widget.VisTextField
+import com.mbrlabs.mundus.commons.shadows.CascadedShadowMap
 import com.mbrlabs.mundus.commons.shadows.MundusDirectionalShadowLight
 import com.mbrlabs.mundus.commons.shadows.ShadowResolution
 import com.mbrlabs.mundus.commons.utils.LightUtils
@@ -33,6 +34,7 @@ class ShadowSettingsDialog : BaseDialog("Shadow Settings"), ProjectChangedEvent.
     private val applyBtn = VisTextButton("Apply Settings")
     private val defaultBtn = VisTextButton("Reset Defaults")
     private lateinit var shadowResSelectBox: VisSelectBox<String>
+    private lateinit var cascadesSelectBox: VisSelectBox<String>
 
     private val projectManager: ProjectManager = Mundus.inject()
 
@@ -87,6 +89,16 @@ class ShadowSettingsDialog : BaseDialog("Shadow Settings"), ProjectChangedEvent.
         root.add(resolutionLabel).left().padBottom(10f)
         root.add(selectorsTable).left().padBottom(10f).row()
 
+        val cascadesLabel = ToolTipLabel(
+            "Shadow Cascades", "Splits the shadowed view distance into multiple shadow maps, " +
+                    "\nkeeping close shadows sharp while covering far distances. \nEach cascade renders the shadow casters again."
+        )
+        cascadesSelectBox = VisSelectBox<String>()
+        cascadesSelectBox.setItems(CASCADES_OFF, "2", "3", "4")
+
+        root.add(cascadesLabel).left().padBottom(10f)
+        root.add(cascadesSelectBox).left().padBottom(10f).row()
+
         root.add(applyBtn).pad(4f).growX()
         root.add(defaultBtn).pad(4f).growX()
 
@@ -115,6 +127,9 @@ class ShadowSettingsDialog : BaseDialog("Shadow Settings"), ProjectChangedEvent.
                     )
                 }
 
+                val cascades = cascadesSelectBox.selected.toIntOrNull() ?: 0
+                projectManager.current().currScene.setCascadedShadows(cascades)
+
                 resetValues()
             }
         })
@@ -130,6 +145,7 @@ class ShadowSettingsDialog : BaseDialog("Shadow Settings"), ProjectChangedEvent.
                         MundusDirectionalShadowLight.DEFAULT_CAM_NEAR,
                         MundusDirectionalShadowLight.DEFAULT_CAM_FAR
                     )
+                    projectManager.current().currScene.setCascadedShadows(0)
 
                     resetValues()
                 }
@@ -150,6 +166,9 @@ class ShadowSettingsDialog : BaseDialog("Shadow Settings"), ProjectChangedEvent.
             shadowResSelectBox.selected = directionalLightEx.shadowResolution.value
         }
 
+        val cascades = projectManager.current().currScene.cascadeCount
+        cascadesSelectBox.selected = if (cascades >= CascadedShadowMap.MIN_CASCADES) cascades.toString() else CASCADES_OFF
+
     }
 
     private fun validateFields(): String? {
@@ -168,4 +187,8 @@ class ShadowSettingsDialog : BaseDialog("Shadow Settings"), ProjectChangedEvent.
         resetValues()
     }
 
+    companion object {
+        private const val CASCADES_OFF = "Off"
+    }
+
 }
\ No newline at end of file
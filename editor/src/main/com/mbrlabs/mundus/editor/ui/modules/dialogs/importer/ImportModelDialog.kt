@@ -37,6 +37,7 @@ import com.badlogic.gdx.utils.GdxRuntimeException
 import com.badlogic.gdx.utils.UBJsonReader
 import com.kotcrab.vis.ui.util.dialog.Dialogs
 import com.kotcrab.vis.ui.widget.VisLabel
+import com.kotcrab.vis.ui.widget.VisSelectBox
 import com.kotcrab.vis.ui.widget.VisTable
 import com.kotcrab.vis.ui.widget.VisTextButton
 import com.mbrlabs.mundus.commons.assets.ModelAsset
@@ -51,6 +52,7 @@ import com.mbrlabs.mundus.editor.assets.AssetAlreadyExistsException
 import com.mbrlabs.mundus.editor.assets.FileHandleWithDependencies
 import com.mbrlabs.mundus.editor.assets.MetaSaver
 import com.mbrlabs.mundus.editor.assets.ModelImporter
+import com.mbrlabs.mundus.editor.assets.ModelLodGenerator
 import com.mbrlabs.mundus.editor.core.project.ProjectManager
 import com.mbrlabs.mundus.editor.events.AssetImportEvent
 import com.mbrlabs.mundus.editor.events.LogEvent
@@ -60,6 +62,7 @@ import com.mbrlabs.mundus.editor.ui.modules.dialogs.BaseDialog
 import com.mbrlabs.mundus.editor.ui.widgets.FileChooserField
 import com.mbrlabs.mundus.editor.ui.widgets.RenderWidget
 import com.mbrlabs.mundus.editor.utils.Log
+import com.mbrlabs.mundus.editor.utils.RenderableSorters
 import com.mbrlabs.mundus.editor.utils.isCollada
 import com.mbrlabs.mundus.editor.utils.isFBX
 import com.mbrlabs.mundus.editor.utils.isG3DB
@@ -71,7 +74,6 @@ import net.mgsx.gltf.loaders.gltf.GLTFLoader
 import net.mgsx.gltf.scene3d.attributes.PBRCubemapAttribute
 import net.mgsx.gltf.scene3d.attributes.PBRTextureAttribute
 import net.mgsx.gltf.scene3d.lights.DirectionalLightEx
-import net.mgsx.gltf.scene3d.scene.SceneRenderableSorter
 import net.mgsx.gltf.scene3d.shaders.PBRDepthShaderProvider
 import net.mgsx.gltf.scene3d.shaders.PBRShaderConfig
 import net.mgsx.gltf.scene3d.shaders.PBRShaderProvider
@@ -87,6 +89,7 @@ class ImportModelDialog : BaseDialog("Import Mesh"), Disposable {
 
     companion object {
         private val TAG = ImportModelDialog::class.java.simpleName
+        private const val NO_LODS = "None"
     }
 
     private val importMeshTable: ImportModelTable
@@ -122,6 +125,7 @@ class ImportModelDialog : BaseDialog("Import Mesh"), Disposable {
         private var renderWidget: RenderWidget? = null
         private val importBtn = VisTextButton("IMPORT")
         private val modelInput = FileChooserField(300)
+        private val lodLevels = VisSelectBox<String>()
 
         // preview model + instance
         private var previewModel: Model? = null
@@ -210,6 +214,12 @@ class ImportModelDialog : BaseDialog("Import Mesh"), Disposable {
 
             inputTable.add(VisLabel("Model File")).left().padBottom(5f).row()
             inputTable.add(modelInput).fillX().expandX().padBottom(10f).row()
+
+            lodLevels.setItems(NO_LODS, "2", "3", "4")
+            val lodTable = VisTable()
+            lodTable.add(VisLabel("Generate LODs")).left().padRight(5f)
+            lodTable.add(lodLevels).left()
+            inputTable.add(lodTable).left().padBottom(10f).row()
             inputTable.add(importBtn).fillX().expand().bottom()
 
             modelInput.setEditable(false)
@@ -236,7 +246,7 @@ class ImportModelDialog : BaseDialog("Import Mesh"), Disposable {
                             // shader provider with new max bones.
                             if (modelBoneCount > projectManager.current().assetManager.maxNumBones) {
                                 val config = ShaderUtils.buildPBRShaderConfig(modelBoneCount)
-                                projectManager.modelBatch = ModelBatch(MundusPBRShaderProvider(config), SceneRenderableSorter())
+                                projectManager.modelBatch = ModelBatch(MundusPBRShaderProvider(config), RenderableSorters.create())
 
                                 val depthConfig = ShaderUtils.buildPBRShaderDepthConfig(modelBoneCount)
                                 projectManager.setDepthBatch((ModelBatch(PBRDepthShaderProvider(depthConfig))))
@@ -247,6 +257,10 @@ class ImportModelDialog : BaseDialog("Import Mesh"), Disposable {
 
                             Mundus.postEvent(AssetImportEvent(modelAsset))
                             UI.toaster.success("Mesh imported")
+
+                            if (lodLevels.selected != NO_LODS) {
+                                ModelLodGenerator.generate(modelAsset, lodLevels.selected.toInt())
+                            }
                         } catch (e: IOException) {
                             e.printStackTrace()
                             UI.toaster.error("Error while creating a ModelAsset")
@@ -18,6 +18,7 @@ package com.mbrlabs.mundus.editor.ui.modules.dialogs.settings
 
 import com.badlogic.gdx.files.FileHandle
 import com.badlogic.gdx.utils.JsonWriter
+import com.kotcrab.vis.ui.widget.Tooltip
 import com.kotcrab.vis.ui.widget.VisCheckBox
 import com.kotcrab.vis.ui.widget.VisLabel
 import com.kotcrab.vis.ui.widget.VisSelectBox
@@ -41,6 +42,7 @@ class ExportSettingsTable : BaseSettingsTable(), ProjectChangedEvent.ProjectChan
     private val jsonType = VisSelectBox<JsonWriter.OutputType>()
     private val allAssets = VisCheckBox("Export unused assets [will be ignored for now]")
     private val compression = VisCheckBox("Compress scenes [will be ignored for now]")
+    private val bakeSkyboxIBL = VisCheckBox("Bake image based lighting from skyboxes")
 
     private val projectManager: ProjectManager = Mundus.inject()
     private val ioManager: IOManager = Mundus.inject<IOManagerProvider>().ioManager
@@ -66,6 +68,10 @@ class ExportSettingsTable : BaseSettingsTable(), ProjectChangedEvent.ProjectChan
         add(VisLabel("Flags")).growX().row()
         add(allAssets).left().row()
         add(compression).left().row()
+        add(bakeSkyboxIBL).left().row()
+
+        Tooltip.Builder("The runtime lights scenes with a skybox from the baked maps instead of the directional light")
+                .target(bakeSkyboxIBL).build()
 
         fileChooserField.setFileMode(FileChooser.SelectionMode.DIRECTORIES)
     }
@@ -81,6 +87,7 @@ class ExportSettingsTable : BaseSettingsTable(), ProjectChangedEvent.ProjectChan
         }
         allAssets.isChecked = exportSettings?.allAssets!!
         compression.isChecked = exportSettings.compressScenes
+        bakeSkyboxIBL.isChecked = exportSettings.bakeSkyboxIBL
         jsonType.selected = exportSettings.jsonType
     }
 
@@ -88,6 +95,7 @@ class ExportSettingsTable : BaseSettingsTable(), ProjectChangedEvent.ProjectChan
         val exportSettings = projectManager.current().settings?.export ?: return
         exportSettings.allAssets = allAssets.isChecked
         exportSettings.compressScenes = compression.isChecked
+        exportSettings.bakeSkyboxIBL = bakeSkyboxIBL.isChecked
         exportSettings.jsonType = jsonType.selected
         exportSettings.outputFolder = FileHandle(fileChooserField.path)
 
@@ -2,12 +2,18 @@ package com.mbrlabs.mundus.editor.ui.modules.dialogs.settings
 
 import com.badlogic.gdx.scenes.scene2d.Actor
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener
+import com.kotcrab.vis.ui.util.FloatDigitsOnlyFilter
+import com.kotcrab.vis.ui.util.IntDigitsOnlyFilter
 import com.kotcrab.vis.ui.widget.VisCheckBox
 import com.kotcrab.vis.ui.widget.VisLabel
 import com.kotcrab.vis.ui.widget.VisTable
+import com.kotcrab.vis.ui.widget.VisTextField
+import com.mbrlabs.mundus.commons.env.lights.LightSelector
 import com.mbrlabs.mundus.editor.Mundus
 import com.mbrlabs.mundus.editor.core.project.ProjectManager
 import com.mbrlabs.mundus.editor.core.scene.SceneManager
+import com.mbrlabs.mundus.editor.events.LogEvent
+import com.mbrlabs.mundus.editor.events.LogType
 import com.mbrlabs.mundus.editor.events.ProjectChangedEvent
 import com.mbrlabs.mundus.editor.events.SceneChangedEvent
 import com.mbrlabs.mundus.editor.ui.UI
@@ -22,6 +28,20 @@ class PerformanceSettingsTable : BaseSettingsTable(), ProjectChangedEvent.Projec
     private val projectManager: ProjectManager = Mundus.inject()
 
     private val frustumCullingChkBox = VisCheckBox(null)
+    private val occlusionCullingChkBox = VisCheckBox(null)
+    private val cacheStaticShadowsChkBox = VisCheckBox(null)
+    private val lodBiasField = VisTextField()
+    private val impostorDistanceField = VisTextField()
+    private val lightsPerObjectField = VisTextField()
+    private val depthPrePassChkBox = VisCheckBox(null)
+    private val dynamicResolutionChkBox = VisCheckBox(null)
+    private val targetFrameRateField = VisTextField()
+    private val minResolutionScaleField = VisTextField()
+    private val drawDistanceField = VisTextField()
+    private val minScreenSizeField = VisTextField()
+    private val shadowDrawDistanceField = VisTextField()
+    private val shadowMinScreenSizeField = VisTextField()
+    private val cullFoggedObjectsChkBox = VisCheckBox(null)
 
     init {
         Mundus.registerEventListener(this)
@@ -36,11 +56,119 @@ class PerformanceSettingsTable : BaseSettingsTable(), ProjectChangedEvent.Projec
         val frustumLabel = ToolTipLabel("Perform Frustum Culling (Per Scene)", "Frustum Culling increase performance by not rendering offscreen " +
             "objects.\nThis is done by calculating the bounds of GameObjects models and checking for intersections on the camera frustum.\n" +
                 "If objects are being culled while still on screen make sure all transforms are applied to your model in your modeling application.\n" +
-                "\nNote: If you are using shadows, then the shadow frustum is also used to test for visibility to allow for shadows to appear from offscreen objects.\n" +
-            "This means that objects directly behind the player may not be culled until also out of the shadow frustum.")
+                "\nNote: Each pass (camera, shadows, water reflections) is culled against its own frustum, so offscreen objects\n" +
+            "still cast shadows without being rendered by the camera.")
 
         settingsTable.add(frustumLabel)
         settingsTable.add(frustumCullingChkBox).row()
+
+        val occlusionLabel = ToolTipLabel("Perform Occlusion Culling (Per Scene)", "Skips objects hidden behind terrains and " +
+            "occluder models from the camera.\nThe occluders are rasterized into a small depth buffer on the CPU each frame, " +
+                "mark large models as occluders in their model component.\n" +
+                "\nNote: Requires frustum culling. Shadows and water reflections are not occlusion culled.")
+
+        settingsTable.add(occlusionLabel)
+        settingsTable.add(occlusionCullingChkBox).row()
+
+        val staticShadowsLabel = ToolTipLabel("Cache Static Shadows (Per Scene)", "Renders shadows of model cached objects once and " +
+            "reuses them until the light, the cached objects or the camera position change enough.\n" +
+                "Non cached objects are still rendered into the shadow map every frame.\n" +
+                "\nNote: Requires OpenGL 3, ignored otherwise.")
+
+        settingsTable.add(staticShadowsLabel)
+        settingsTable.add(cacheStaticShadowsChkBox).row()
+
+        val lodBiasLabel = ToolTipLabel("LOD Bias (Per Scene)", "Multiplies the projected screen size of models when " +
+            "selecting their level of detail.\nValues above 1 keep detailed LODs longer, values below 1 switch to simpler LODs sooner.\n" +
+                "\nNote: Only affects models with generated LODs.")
+
+        settingsTable.add(lodBiasLabel)
+        settingsTable.add(lodBiasField).width(60f).row()
+
+        val impostorDistanceLabel = ToolTipLabel("Impostor Distance (Per Scene)", "Models with a baked impostor are drawn as " +
+            "camera facing quads beyond this distance from the camera, 0 disables impostors.\nBake impostors in the model asset inspector.\n" +
+                "\nNote: Impostors do not cast shadows and model cached objects are never drawn as impostors.")
+
+        settingsTable.add(impostorDistanceLabel)
+        settingsTable.add(impostorDistanceField).width(60f).row()
+
+        val lightsPerObjectLabel = ToolTipLabel("Lights Per Object (Per Scene)", "Shades each model with only its " +
+            "most influential point and spot lights, 0 uses all lights, at most " + LightSelector.MAX_LIGHTS_PER_OBJECT + ".\nLowers shading cost and lifts the limit of 12 " +
+                "point and 12 spot lights without clustered lighting.\n" +
+                "\nNote: Not used with clustered lighting (OpenGL 3 with more than 12 lights). Model cached, instanced " +
+                "and terrain objects use the first 12 lights.")
+
+        settingsTable.add(lightsPerObjectLabel)
+        settingsTable.add(lightsPerObjectField).width(60f).row()
+
+        val depthPrePassLabel = ToolTipLabel("Depth Pre-Pass (Per Scene)", "Renders the depth of opaque objects first, " +
+            "then shades only the visible surface of each pixel.\nReduces shading cost in scenes with a lot of overdraw, " +
+                "like dense foliage or overlapping terrain, at the cost of drawing opaque objects twice.\n" +
+                "\nNote: Skinned, morphed, alpha tested, blended and double sided objects are only drawn in the color pass.")
+
+        settingsTable.add(depthPrePassLabel)
+        settingsTable.add(depthPrePassChkBox).row()
+
+        val dynamicResolutionLabel = ToolTipLabel("Dynamic Resolution (Per Scene)", "Renders the scene at a lower " +
+            "resolution and scales it up while frames take longer than the target frame rate allows.
+The resolution " +
+                "is lowered in steps after a short while over the target and raised again after a longer while within it.
+" +
+                "\nNote: With vertical sync the target frame rate should not be above the refresh rate of the display.")
+
+        settingsTable.add(dynamicResolutionLabel)
+        settingsTable.add(dynamicResolutionChkBox).row()
+
+        val targetFrameRateLabel = ToolTipLabel("Target Frame Rate (Per Scene)", "Frame rate dynamic resolution " +
+            "tries to keep.")
+
+        settingsTable.add(targetFrameRateLabel)
+        settingsTable.add(targetFrameRateField).width(60f).row()
+
+        val minResolutionScaleLabel = ToolTipLabel("Min Resolution Scale (Per Scene)", "Lowest fraction of the " +
+            "viewport resolution dynamic resolution goes down to, between 0.1 and 1.")
+
+        settingsTable.add(minResolutionScaleLabel)
+        settingsTable.add(minResolutionScaleField).width(60f).row()
+
+        val drawDistanceLabel = ToolTipLabel("Draw Distance (Per Scene)", "Objects further away from the camera " +
+            "are not rendered, 0 for no limit.\nGame objects can have a shorter draw distance of their own in the inspector, " +
+                "which applies to every pass.\n" +
+                "\nNote: Applies to the main camera and water refractions. Requires frustum culling, model cached objects " +
+                "are culled per cache cell.")
+
+        settingsTable.add(drawDistanceLabel)
+        settingsTable.add(drawDistanceField).width(60f).row()
+
+        val minScreenSizeLabel = ToolTipLabel("Min Screen Size (Per Scene)", "Objects covering less than this " +
+            "fraction of the screen height are not rendered, 0 for no limit.\nFor example 0.01 skips objects smaller " +
+                "than 1% of the screen height.\n" +
+                "\nNote: Model cached objects are culled per cache cell, by the size of the whole cell.")
+
+        settingsTable.add(minScreenSizeLabel)
+        settingsTable.add(minScreenSizeField).width(60f).row()
+
+        val shadowDrawDistanceLabel = ToolTipLabel("Shadow Draw Distance (Per Scene)", "Objects further away from " +
+            "the camera than this do not cast shadows, 0 for no limit.\n" +
+                "\nNote: Model cached objects are culled per cache cell, except with static shadow caching.")
+
+        settingsTable.add(shadowDrawDistanceLabel)
+        settingsTable.add(shadowDrawDistanceField).width(60f).row()
+
+        val shadowMinScreenSizeLabel = ToolTipLabel("Shadow Min Screen Size (Per Scene)", "Objects covering less " +
+            "than this fraction of the screen height do not cast shadows, 0 for no limit.\n" +
+                "\nNote: Model cached objects are culled per cache cell, except with static shadow caching.")
+
+        settingsTable.add(shadowMinScreenSizeLabel)
+        settingsTable.add(shadowMinScreenSizeField).width(60f).row()
+
+        val cullFoggedObjectsLabel = ToolTipLabel("Cull Fogged Objects (Per Scene)", "Objects entirely behind the " +
+            "end of the fog are not rendered, they would only be drawn in the fog color.\nKeep draw distances at or " +
+                "beyond the fog end, so objects fade into the fog before they disappear.\n" +
+                "\nNote: Only used with fog enabled. Shadows are not affected.")
+
+        settingsTable.add(cullFoggedObjectsLabel)
+        settingsTable.add(cullFoggedObjectsChkBox).row()
         add(settingsTable)
 
         frustumCullingChkBox.addListener(object : ChangeListener() {
@@ -48,10 +176,163 @@ class PerformanceSettingsTable : BaseSettingsTable(), ProjectChangedEvent.Projec
                 projectManager.current().currScene.settings.useFrustumCulling = frustumCullingChkBox.isChecked
             }
         })
+
+        occlusionCullingChkBox.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent, actor: Actor) {
+                projectManager.current().currScene.settings.useOcclusionCulling = occlusionCullingChkBox.isChecked
+            }
+        })
+
+        cacheStaticShadowsChkBox.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent, actor: Actor) {
+                projectManager.current().currScene.settings.cacheStaticShadows = cacheStaticShadowsChkBox.isChecked
+            }
+        })
+
+        lodBiasField.textFieldFilter = FloatDigitsOnlyFilter(false)
+        lodBiasField.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent, actor: Actor) {
+                if (!lodBiasField.isInputValid || lodBiasField.isEmpty) return
+                try {
+                    projectManager.current().currScene.settings.lodBias = lodBiasField.text.toFloat()
+                } catch (ex : NumberFormatException) {
+                    Mundus.postEvent(LogEvent(LogType.ERROR,"Error parsing field " + lodBiasField.name))
+                }
+            }
+        })
+
+        impostorDistanceField.textFieldFilter = FloatDigitsOnlyFilter(false)
+        impostorDistanceField.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent, actor: Actor) {
+                if (!impostorDistanceField.isInputValid || impostorDistanceField.isEmpty) return
+                try {
+                    projectManager.current().currScene.settings.impostorDistance = impostorDistanceField.text.toFloat()
+                } catch (ex : NumberFormatException) {
+                    Mundus.postEvent(LogEvent(LogType.ERROR,"Error parsing field " + impostorDistanceField.name))
+                }
+            }
+        })
+
+        depthPrePassChkBox.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent, actor: Actor) {
+                projectManager.current().currScene.settings.depthPrePass = depthPrePassChkBox.isChecked
+            }
+        })
+
+        dynamicResolutionChkBox.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent, actor: Actor) {
+                projectManager.current().currScene.settings.dynamicResolution = dynamicResolutionChkBox.isChecked
+            }
+        })
+
+        targetFrameRateField.textFieldFilter = IntDigitsOnlyFilter(false)
+        targetFrameRateField.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent, actor: Actor) {
+                if (!targetFrameRateField.isInputValid || targetFrameRateField.isEmpty) return
+                try {
+                    projectManager.current().currScene.settings.targetFrameRate = targetFrameRateField.text.toInt()
+                } catch (ex : NumberFormatException) {
+                    Mundus.postEvent(LogEvent(LogType.ERROR,"Error parsing field " + targetFrameRateField.name))
+                }
+            }
+        })
+
+        minResolutionScaleField.textFieldFilter = FloatDigitsOnlyFilter(false)
+        minResolutionScaleField.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent, actor: Actor) {
+                if (!minResolutionScaleField.isInputValid || minResolutionScaleField.isEmpty) return
+                try {
+                    projectManager.current().currScene.settings.minResolutionScale = minResolutionScaleField.text.toFloat().coerceIn(0.1f, 1f)
+                } catch (ex : NumberFormatException) {
+                    Mundus.postEvent(LogEvent(LogType.ERROR,"Error parsing field " + minResolutionScaleField.name))
+                }
+            }
+        })
+
+        drawDistanceField.textFieldFilter = FloatDigitsOnlyFilter(false)
+        drawDistanceField.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent, actor: Actor) {
+                if (!drawDistanceField.isInputValid || drawDistanceField.isEmpty) return
+                try {
+                    projectManager.current().currScene.settings.drawDistance = drawDistanceField.text.toFloat()
+                } catch (ex : NumberFormatException) {
+                    Mundus.postEvent(LogEvent(LogType.ERROR,"Error parsing field " + drawDistanceField.name))
+                }
+            }
+        })
+
+        minScreenSizeField.textFieldFilter = FloatDigitsOnlyFilter(false)
+        minScreenSizeField.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent, actor: Actor) {
+                if (!minScreenSizeField.isInputValid || minScreenSizeField.isEmpty) return
+                try {
+                    projectManager.current().currScene.settings.minScreenSize = minScreenSizeField.text.toFloat()
+                } catch (ex : NumberFormatException) {
+                    Mundus.postEvent(LogEvent(LogType.ERROR,"Error parsing field " + minScreenSizeField.name))
+                }
+            }
+        })
+
+        shadowDrawDistanceField.textFieldFilter = FloatDigitsOnlyFilter(false)
+        shadowDrawDistanceField.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent, actor: Actor) {
+                if (!shadowDrawDistanceField.isInputValid || shadowDrawDistanceField.isEmpty) return
+                try {
+                    projectManager.current().currScene.settings.shadowDrawDistance = shadowDrawDistanceField.text.toFloat()
+                } catch (ex : NumberFormatException) {
+                    Mundus.postEvent(LogEvent(LogType.ERROR,"Error parsing field " + shadowDrawDistanceField.name))
+                }
+            }
+        })
+
+        shadowMinScreenSizeField.textFieldFilter = FloatDigitsOnlyFilter(false)
+        shadowMinScreenSizeField.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent, actor: Actor) {
+                if (!shadowMinScreenSizeField.isInputValid || shadowMinScreenSizeField.isEmpty) return
+                try {
+                    projectManager.current().currScene.settings.shadowMinScreenSize = shadowMinScreenSizeField.text.toFloat()
+                } catch (ex : NumberFormatException) {
+                    Mundus.postEvent(LogEvent(LogType.ERROR,"Error parsing field " + shadowMinScreenSizeField.name))
+                }
+            }
+        })
+
+        cullFoggedObjectsChkBox.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent, actor: Actor) {
+                projectManager.current().currScene.settings.cullFoggedObjects = cullFoggedObjectsChkBox.isChecked
+            }
+        })
+
+        lightsPerObjectField.textFieldFilter = IntDigitsOnlyFilter(false)
+        lightsPerObjectField.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent, actor: Actor) {
+                if (!lightsPerObjectField.isInputValid || lightsPerObjectField.isEmpty) return
+                try {
+                    projectManager.current().currScene.settings.lightsPerObject = lightsPerObjectField.text.toInt()
+                        .coerceIn(0, LightSelector.MAX_LIGHTS_PER_OBJECT)
+                } catch (ex : NumberFormatException) {
+                    Mundus.postEvent(LogEvent(LogType.ERROR,"Error parsing field " + lightsPerObjectField.name))
+                }
+            }
+        })
     }
 
     private fun updateValues() {
         frustumCullingChkBox.isChecked = projectManager.current().currScene.settings.useFrustumCulling
+        occlusionCullingChkBox.isChecked = projectManager.current().currScene.settings.useOcclusionCulling
+        cacheStaticShadowsChkBox.isChecked = projectManager.current().currScene.settings.cacheStaticShadows
+        lodBiasField.text = projectManager.current().currScene.settings.lodBias.toString()
+        impostorDistanceField.text = projectManager.current().currScene.settings.impostorDistance.toString()
+        lightsPerObjectField.text = projectManager.current().currScene.settings.lightsPerObject.toString()
+        depthPrePassChkBox.isChecked = projectManager.current().currScene.settings.depthPrePass
+        dynamicResolutionChkBox.isChecked = projectManager.current().currScene.settings.dynamicResolution
+        targetFrameRateField.text = projectManager.current().currScene.settings.targetFrameRate.toString()
+        minResolutionScaleField.text = projectManager.current().currScene.settings.minResolutionScale.toString()
+        drawDistanceField.text = projectManager.current().currScene.settings.drawDistance.toString()
+        minScreenSizeField.text = projectManager.current().currScene.settings.minScreenSize.toString()
+        shadowDrawDistanceField.text = projectManager.current().currScene.settings.shadowDrawDistance.toString()
+        shadowMinScreenSizeField.text = projectManager.current().currScene.settings.shadowMinScreenSize.toString()
+        cullFoggedObjectsChkBox.isChecked = projectManager.current().currScene.settings.cullFoggedObjects
     }
 
     override fun onSave() {
@@ -36,6 +36,18 @@ class ProfilingBar : Tab(false, false) {
     private val textureBindLabel = VisLabel("Texture bindings: ")
     private val textureBind = VisLabel()
 
+    private val uniformUpdatesLabel = VisLabel("Uniform updates (skipped): ")
+    private val uniformUpdates = VisLabel()
+
+    private val cachedTextureBindLabel = VisLabel("Cached texture binds (skipped): ")
+    private val cachedTextureBind = VisLabel()
+
+    private val frameUniformUploadsLabel = VisLabel("Frame uniform buffer writes: ")
+    private val frameUniformUploads = VisLabel()
+
+    private val skippedGLCallsLabel = VisLabel("Redundant GL calls dropped: ")
+    private val skippedGLCalls = VisLabel()
+
     private val cellPadding = 4f
 
     init {
@@ -64,6 +76,22 @@ class ProfilingBar : Tab(false, false) {
 
         profileTable.add(textureBindLabel).left().pad(cellPadding)
         profileTable.add(textureBind).left().pad(cellPadding).expand().row()
+
+        profileTable.add(uniformUpdatesLabel).left().pad(cellPadding)
+        profileTable.add(uniformUpdates).left().pad(cellPadding).expand().row()
+
+        profileTable.add(cachedTextureBindLabel).left().pad(cellPadding)
+        profileTable.add(cachedTextureBind).left().pad(cellPadding).expand().row()
+
+        if (glProfile.isUsingFrameUniformBuffer) {
+            profileTable.add(frameUniformUploadsLabel).left().pad(cellPadding)
+            profileTable.add(frameUniformUploads).left().pad(cellPadding).expand().row()
+        }
+
+        if (glProfile.isStateTracking) {
+            profileTable.add(skippedGLCallsLabel).left().pad(cellPadding)
+            profileTable.add(skippedGLCalls).left().pad(cellPadding).expand().row()
+        }
     }
 
     override fun getTabTitle(): String {
@@ -93,6 +121,10 @@ class ProfilingBar : Tab(false, false) {
         vertexCount.setText(String.format("%,d", glProfile.vertexCount.total.toLong()))
         shaderSwitches.setText(glProfile.shaderSwitches)
         textureBind.setText(glProfile.textureBindings)
+        uniformUpdates.setText("${glProfile.cachedUniformUpdates} (${glProfile.skippedUniformUpdates})")
+        cachedTextureBind.setText("${glProfile.cachedTextureBinds} (${glProfile.skippedTextureBinds})")
+        frameUniformUploads.setText(glProfile.frameUniformUploads)
+        skippedGLCalls.setText(glProfile.skippedGLCalls)
     }
 
 }
\ No newline at end of file
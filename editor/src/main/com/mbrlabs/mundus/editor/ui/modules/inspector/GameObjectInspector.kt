@@ -28,6 +28,7 @@ import com.mbrlabs.mundus.commons.scene3d.components.CustomPropertiesComponent
 import com.mbrlabs.mundus.commons.scene3d.components.LightComponent
 import com.mbrlabs.mundus.commons.scene3d.components.ModelComponent
 import com.mbrlabs.mundus.commons.scene3d.components.TerrainComponent
+import com.mbrlabs.mundus.commons.scene3d.components.VegetationComponent
 import com.mbrlabs.mundus.commons.scene3d.components.WaterComponent
 import com.mbrlabs.mundus.editor.ui.UI
 import com.mbrlabs.mundus.editor.ui.modules.inspector.components.ComponentWidget
@@ -36,6 +37,7 @@ import com.mbrlabs.mundus.editor.ui.modules.inspector.components.IdentifierWidge
 import com.mbrlabs.mundus.editor.ui.modules.inspector.components.LightComponentWidget
 import com.mbrlabs.mundus.editor.ui.modules.inspector.components.ModelComponentWidget
 import com.mbrlabs.mundus.editor.ui.modules.inspector.components.TransformWidget
+import com.mbrlabs.mundus.editor.ui.modules.inspector.components.VegetationComponentWidget
 import com.mbrlabs.mundus.editor.ui.modules.inspector.components.terrain.TerrainComponentWidget
 import com.mbrlabs.mundus.editor.ui.modules.inspector.components.WaterComponentWidget
 
@@ -113,6 +115,8 @@ class GameObjectInspector : VisTable() {
                     componentWidgets.add(LightComponentWidget(component as LightComponent))
                 } else if (component.type == Component.Type.CUSTOM_PROPERTIES) {
                     componentWidgets.add(CustomPropertiesWidget(component as CustomPropertiesComponent))
+                } else if (component.type == Component.Type.VEGETATION) {
+                    componentWidgets.add(VegetationComponentWidget(component as VegetationComponent))
                 }
             }
         }
@@ -132,6 +136,9 @@ class GameObjectInspector : VisTable() {
         } else if (component is CustomPropertiesComponent) {
             componentWidgets.add(CustomPropertiesWidget(component))
             componentTable.add(componentWidgets.last()).grow().row()
+        } else if (component is VegetationComponent) {
+            componentWidgets.add(VegetationComponentWidget(component))
+            componentTable.add(componentWidgets.last()).grow().row()
         }
     }
 
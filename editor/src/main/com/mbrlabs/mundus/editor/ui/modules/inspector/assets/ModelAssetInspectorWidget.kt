@@ -19,6 +19,7 @@ package com.mbrlabs.mundus.editor.ui.modules.inspector.assets
 import com.badlogic.gdx.scenes.scene2d.InputEvent
 import com.badlogic.gdx.scenes.scene2d.utils.ClickListener
 import com.kotcrab.vis.ui.widget.VisLabel
+import com.kotcrab.vis.ui.widget.VisSelectBox
 import com.kotcrab.vis.ui.widget.VisTable
 import com.kotcrab.vis.ui.widget.VisTextButton
 import com.mbrlabs.mundus.commons.assets.MaterialAsset
@@ -26,6 +27,8 @@ import com.mbrlabs.mundus.commons.assets.ModelAsset
 import com.mbrlabs.mundus.commons.scene3d.GameObject
 import com.mbrlabs.mundus.commons.utils.ModelUtils
 import com.mbrlabs.mundus.editor.Mundus
+import com.mbrlabs.mundus.editor.assets.ImpostorBaker
+import com.mbrlabs.mundus.editor.assets.ModelLodGenerator
 import com.mbrlabs.mundus.editor.core.project.ProjectManager
 import com.mbrlabs.mundus.editor.tools.ToolManager
 import com.mbrlabs.mundus.editor.ui.modules.inspector.BaseInspectorWidget
@@ -47,12 +50,17 @@ class ModelAssetInspectorWidget : BaseInspectorWidget(TITLE) {
     private val vertexCount = VisLabel()
     private val indexCount = VisLabel()
     private val boneCount = VisLabel()
+    private val lodCount = VisLabel()
+    private val impostor = VisLabel()
 
     // materials
     private val materialContainer = VisTable()
 
     // actions
     private val modelPlacement = VisTextButton("Activate model placement tool")
+    private val lodLevels = VisSelectBox<Int>()
+    private val generateLods = VisTextButton("Generate LODs")
+    private val bakeImpostor = VisTextButton("Bake impostor")
 
     private val toolManager: ToolManager = Mundus.inject()
     private val projectManager: ProjectManager = Mundus.inject()
@@ -68,12 +76,23 @@ class ModelAssetInspectorWidget : BaseInspectorWidget(TITLE) {
         collapsibleContent.add(materialCount).growX().row()
         collapsibleContent.add(vertexCount).growX().row()
         collapsibleContent.add(indexCount).growX().row()
-        collapsibleContent.add(boneCount).growX().padBottom(15f).row()
+        collapsibleContent.add(boneCount).growX().row()
+        collapsibleContent.add(lodCount).growX().row()
+        collapsibleContent.add(impostor).growX().padBottom(15f).row()
 
         // actions
         collapsibleContent.add(VisLabel("Actions")).growX().row()
         collapsibleContent.addSeparator().padBottom(5f).row()
-        collapsibleContent.add(modelPlacement).growX().padBottom(15f).row()
+        collapsibleContent.add(modelPlacement).growX().padBottom(5f).row()
+
+        lodLevels.setItems(2, 3, 4)
+        lodLevels.selected = ModelLodGenerator.DEFAULT_LEVELS
+        val lodTable = VisTable()
+        lodTable.add(VisLabel("LOD levels:")).left().padRight(5f)
+        lodTable.add(lodLevels).left().padRight(5f)
+        lodTable.add(generateLods).growX()
+        collapsibleContent.add(lodTable).growX().padBottom(5f).row()
+        collapsibleContent.add(bakeImpostor).growX().padBottom(15f).row()
 
         // materials
         val label = VisLabel()
@@ -92,6 +111,19 @@ class ModelAssetInspectorWidget : BaseInspectorWidget(TITLE) {
                 toolManager.activateTool(toolManager.modelPlacementTool)
             }
         })
+
+        generateLods.addListener(object : ClickListener() {
+            override fun clicked(event: InputEvent?, x: Float, y: Float) {
+                ModelLodGenerator.generate(modelAsset!!, lodLevels.selected)
+            }
+        })
+
+        bakeImpostor.addListener(object : ClickListener() {
+            override fun clicked(event: InputEvent?, x: Float, y: Float) {
+                ImpostorBaker.bake(modelAsset!!)
+                updateUI()
+            }
+        })
     }
 
     private fun updateUI() {
@@ -103,6 +135,9 @@ class ModelAssetInspectorWidget : BaseInspectorWidget(TITLE) {
         vertexCount.setText("Vertices: " + ModelUtils.getVerticesCount(model))
         indexCount.setText("Indices: " + ModelUtils.getIndicesCount(model))
         boneCount.setText("Bones: " + modelAsset!!.meta.model.numBones)
+        lodCount.setText("LODs: " + modelAsset!!.meta.model.lodLevels)
+        val impostorFrames = modelAsset!!.meta.model.impostorFrames
+        impostor.setText("Impostor: " + if (impostorFrames > 0) "${impostorFrames}x$impostorFrames frames" else "None")
 
         materialContainer.clear()
         for (g3dbMatID in modelAsset!!.defaultMaterials.keys) {
@@ -114,6 +149,7 @@ class ModelAssetInspectorWidget : BaseInspectorWidget(TITLE) {
                     val assetManager = projectManager.current().assetManager
                     modelAsset!!.defaultMaterials.put(g3dbMatID, materialAsset)
                     modelAsset!!.applyDependencies()
+                    projectManager.current().currScene.modelCacheManager.invalidateAll()
                     toolManager.modelPlacementTool.setModel(modelAsset)
                     assetManager.addModifiedAsset(modelAsset!!)
                 }
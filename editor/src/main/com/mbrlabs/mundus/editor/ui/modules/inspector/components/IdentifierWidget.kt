@@ -19,16 +19,23 @@ package com.mbrlabs.mundus.editor.ui.modules.inspector.components
 import com.badlogic.gdx.scenes.scene2d.Actor
 import com.badlogic.gdx.scenes.scene2d.Touchable
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener
+import com.kotcrab.vis.ui.util.FloatDigitsOnlyFilter
 import com.kotcrab.vis.ui.widget.VisCheckBox
 import com.kotcrab.vis.ui.widget.VisLabel
 import com.kotcrab.vis.ui.widget.VisTable
 import com.kotcrab.vis.ui.widget.VisTextField
+import com.mbrlabs.mundus.commons.rendering.RenderLayer
 import com.mbrlabs.mundus.commons.scene3d.GameObject
 import com.mbrlabs.mundus.editor.Mundus
 import com.mbrlabs.mundus.editor.core.project.ProjectManager
+import com.mbrlabs.mundus.editor.events.LogEvent
+import com.mbrlabs.mundus.editor.events.LogType
 import com.mbrlabs.mundus.editor.events.SceneGraphChangedEvent
 import com.mbrlabs.mundus.editor.history.CommandHistory
 import com.mbrlabs.mundus.editor.history.commands.GameObjectActiveCommand
+import com.mbrlabs.mundus.editor.history.commands.GameObjectDrawDistanceCommand
+import com.mbrlabs.mundus.editor.history.commands.GameObjectLayerMaskCommand
+import com.mbrlabs.mundus.editor.ui.widgets.ToolTipLabel
 
 /**
  * @author Marcus Brummer
@@ -40,6 +47,12 @@ class IdentifierWidget : VisTable() {
     private val name = VisTextField("Name")
     private val tag = VisTextField("Untagged")
 
+    private val mainLayer = VisCheckBox("Main", true)
+    private val shadowLayer = VisCheckBox("Shadow", true)
+    private val reflectionLayer = VisCheckBox("Reflection", true)
+    private val refractionLayer = VisCheckBox("Refraction", true)
+    private val drawDistance = VisTextField()
+
     private val projectManager: ProjectManager = Mundus.inject()
     private val history: CommandHistory = Mundus.inject()
 
@@ -63,6 +76,27 @@ class IdentifierWidget : VisTable() {
         add(name).padBottom(4f).left().top().expandX().fillX().row()
         add(VisLabel("Tag: ")).left().top()
         add(tag).top().left().expandX().fillX().row()
+
+        val layersTable = VisTable()
+        for (layer in arrayOf(mainLayer, shadowLayer, reflectionLayer, refractionLayer)) {
+            // Only user changes update the layer mask
+            layer.setProgrammaticChangeEvents(false)
+        }
+        layersTable.defaults().padRight(4f)
+        layersTable.add(mainLayer)
+        layersTable.add(shadowLayer)
+        layersTable.add(reflectionLayer)
+        layersTable.add(refractionLayer)
+        add(ToolTipLabel("Layers: ", "Render passes this game object is drawn in. Children have their own layers.\n" +
+                "Excluding small props from shadow, reflection and refraction passes improves performance.\n" +
+                "Model cached objects are only cached when in all layers.")).padTop(4f).left().top()
+        add(layersTable).padTop(4f).left().top().row()
+
+        drawDistance.setProgrammaticChangeEvents(false)
+        add(ToolTipLabel("Draw Distance: ", "Components of this game object further away from the camera are not " +
+                "rendered in any pass, 0 for no limit.\nChildren have their own draw distance.\n" +
+                "Model cached objects are only cached without a draw distance.")).padTop(4f).left().top()
+        add(drawDistance).padTop(4f).width(60f).left().top().row()
     }
 
     private fun setupListeners() {
@@ -88,11 +122,64 @@ class IdentifierWidget : VisTable() {
             }
         })
 
+        val layerListener = object : ChangeListener() {
+            override fun changed(event: ChangeEvent, actor: Actor) {
+                val projectContext = projectManager.current()
+                val selectedGO = projectContext.currScene.currentSelection ?: return
+                val layerMask = getLayerMask()
+                if (selectedGO.layerMask == layerMask) return
+
+                val command = GameObjectLayerMaskCommand(selectedGO, layerMask)
+                command.execute()
+                history.add(command)
+            }
+        }
+        mainLayer.addListener(layerListener)
+        shadowLayer.addListener(layerListener)
+        reflectionLayer.addListener(layerListener)
+        refractionLayer.addListener(layerListener)
+
+        drawDistance.textFieldFilter = FloatDigitsOnlyFilter(false)
+        drawDistance.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent, actor: Actor) {
+                if (!drawDistance.isInputValid || drawDistance.isEmpty) return
+                val projectContext = projectManager.current()
+                val selectedGO = projectContext.currScene.currentSelection ?: return
+                try {
+                    val value = drawDistance.text.toFloat()
+                    if (selectedGO.drawDistance == value) return
+
+                    val command = GameObjectDrawDistanceCommand(selectedGO, value)
+                    command.execute()
+                    history.add(command)
+                } catch (ex : NumberFormatException) {
+                    Mundus.postEvent(LogEvent(LogType.ERROR,"Error parsing field Draw Distance"))
+                }
+            }
+        })
+
     }
 
     fun setValues(go: GameObject) {
         active.isChecked = go.active
         name.text = go.name
+        mainLayer.isChecked = go.isInLayer(RenderLayer.MAIN)
+        shadowLayer.isChecked = go.isInLayer(RenderLayer.SHADOW)
+        reflectionLayer.isChecked = go.isInLayer(RenderLayer.REFLECTION)
+        refractionLayer.isChecked = go.isInLayer(RenderLayer.REFRACTION)
+        // Only replace the text if the value differs, so the modified event of an edit does not interrupt typing
+        if (drawDistance.text.toFloatOrNull() != go.drawDistance) {
+            drawDistance.text = go.drawDistance.toString()
+        }
+    }
+
+    private fun getLayerMask(): Int {
+        var mask = 0
+        if (mainLayer.isChecked) mask = mask or RenderLayer.MAIN
+        if (shadowLayer.isChecked) mask = mask or RenderLayer.SHADOW
+        if (reflectionLayer.isChecked) mask = mask or RenderLayer.REFLECTION
+        if (refractionLayer.isChecked) mask = mask or RenderLayer.REFRACTION
+        return mask
     }
 
 }
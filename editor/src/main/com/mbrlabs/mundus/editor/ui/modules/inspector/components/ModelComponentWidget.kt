@@ -37,6 +37,8 @@ class ModelComponentWidget(modelComponent: ModelComponent) : ComponentWidget<Mod
 
     private val materialContainer = VisTable()
     private val useModelCache = VisCheckBox(null)
+    private val useInstancing = VisCheckBox(null)
+    private val occluder = VisCheckBox(null)
 
     init {
         this.component = modelComponent
@@ -52,7 +54,13 @@ class ModelComponentWidget(modelComponent: ModelComponent) : ComponentWidget<Mod
 
         val cacheTable = VisTable()
         cacheTable.add(ToolTipLabel("Use in Model Cache? ", "Merges meshes together to reduce draw counts.\nNote: Only applicable for static, non-moving, non-animated models!")).padRight(2f)
-        cacheTable.add(useModelCache).left()
+        cacheTable.add(useModelCache).left().row()
+        cacheTable.add(ToolTipLabel("Use GPU Instancing? ", "Draws all objects sharing this model and materials with a single draw call per mesh.\n" +
+                "Ignored when the model is cached. Note: Requires OpenGL 3, not applicable for animated models!")).padRight(2f)
+        cacheTable.add(useInstancing).left().row()
+        cacheTable.add(ToolTipLabel("Use as Occluder? ", "Hides objects behind this model when occlusion culling is enabled.\n" +
+                "Note: Meant for large, closed models like buildings, walls and rocks!")).padRight(2f)
+        cacheTable.add(occluder).left()
         collapsibleContent.add(cacheTable).left().padBottom(5f).row()
 
         // create materials for all model nodes
@@ -68,15 +76,29 @@ class ModelComponentWidget(modelComponent: ModelComponent) : ComponentWidget<Mod
         collapsibleContent.add(materialContainer).grow().row()
         buildMaterials()
 
-        useModelCache.isChecked = component.shouldCache()
+        useModelCache.isChecked = component.isUseModelCache
+        useInstancing.isChecked = component.isUseInstancing
+        occluder.isChecked = component.isOccluder
 
         useModelCache.addListener(object : ChangeListener() {
             override fun changed(event: ChangeEvent, actor: Actor) {
-                if (component.shouldCache() == useModelCache.isChecked) return
+                if (component.isUseModelCache == useModelCache.isChecked) return
                 component.setUseModelCache(useModelCache.isChecked)
                 component.gameObject.sceneGraph.scene.modelCacheManager.requestModelCacheRebuild()
             }
         })
+
+        useInstancing.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent, actor: Actor) {
+                component.isUseInstancing = useInstancing.isChecked
+            }
+        })
+
+        occluder.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent, actor: Actor) {
+                component.isOccluder = occluder.isChecked
+            }
+        })
     }
 
     private fun buildMaterials() {
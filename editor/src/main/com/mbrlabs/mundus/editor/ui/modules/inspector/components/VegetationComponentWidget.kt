@@ -0,0 +1,212 @@
+package com.mbrlabs.mundus.editor.ui.modules.inspector.components
+
+import com.badlogic.gdx.scenes.scene2d.Actor
+import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener
+import com.kotcrab.vis.ui.util.FloatDigitsOnlyFilter
+import com.kotcrab.vis.ui.util.IntDigitsOnlyFilter
+import com.kotcrab.vis.ui.widget.VisCheckBox
+import com.kotcrab.vis.ui.widget.VisLabel
+import com.kotcrab.vis.ui.widget.VisSelectBox
+import com.kotcrab.vis.ui.widget.VisTable
+import com.kotcrab.vis.ui.widget.VisTextField
+import com.mbrlabs.mundus.commons.assets.Asset
+import com.mbrlabs.mundus.commons.assets.ModelAsset
+import com.mbrlabs.mundus.commons.scene3d.GameObject
+import com.mbrlabs.mundus.commons.scene3d.components.Component
+import com.mbrlabs.mundus.commons.scene3d.components.VegetationComponent
+import com.mbrlabs.mundus.commons.terrain.SplatTexture
+import com.mbrlabs.mundus.editor.Mundus
+import com.mbrlabs.mundus.editor.assets.AssetModelFilter
+import com.mbrlabs.mundus.editor.events.LogEvent
+import com.mbrlabs.mundus.editor.events.LogType
+import com.mbrlabs.mundus.editor.ui.modules.dialogs.assets.AssetPickerDialog
+import com.mbrlabs.mundus.editor.ui.widgets.AssetSelectionField
+import com.mbrlabs.mundus.editor.ui.widgets.ToolTipLabel
+
+/**
+ * Inspector widget of the vegetation component, editing its placement and render settings.
+ */
+class VegetationComponentWidget(vegetationComponent: VegetationComponent)
+    : ComponentWidget<VegetationComponent>("Vegetation Component", vegetationComponent) {
+
+    private val modelField = AssetSelectionField()
+    private val densityField = VisTextField()
+    private val seedField = VisTextField()
+    private val channelSelectBox = VisSelectBox<String>()
+    private val minSlopeField = VisTextField()
+    private val maxSlopeField = VisTextField()
+    private val minHeightField = VisTextField()
+    private val maxHeightField = VisTextField()
+    private val minScaleField = VisTextField()
+    private val maxScaleField = VisTextField()
+    private val randomRotation = VisCheckBox(null)
+    private val alignToNormal = VisCheckBox(null)
+    private val chunkSizeField = VisTextField()
+    private val viewDistanceField = VisTextField()
+    private val fadeStartField = VisTextField()
+    private val castShadows = VisCheckBox(null)
+
+    // Updating the fields fires change events, which would invalidate the chunks
+    private var updating = false
+
+    init {
+        component = vegetationComponent
+        setupUI()
+        setupListeners()
+        updateValues()
+    }
+
+    private fun setupUI() {
+        collapsibleContent.add(VisLabel("Model")).left().row()
+        collapsibleContent.addSeparator().padBottom(5f).row()
+        modelField.assetFilter = AssetModelFilter()
+        collapsibleContent.add(modelField).growX().padBottom(10f).row()
+
+        collapsibleContent.add(VisLabel("Placement")).left().row()
+        collapsibleContent.addSeparator().padBottom(5f).row()
+
+        channelSelectBox.setItems(NONE, *SplatTexture.Channel.values().map { it.name }.toTypedArray())
+
+        val placement = getSectionTable()
+        addRow(placement, ToolTipLabel("Density:", "Instances per square unit of terrain, before the placement rules are applied."), densityField)
+        addRow(placement, ToolTipLabel("Seed:", "Changing the seed generates a different distribution."), seedField)
+        addRow(placement, ToolTipLabel("Density Map:", "Splatmap channel used as density map.\nNone scatters evenly, BASE uses where no other channel is painted."), channelSelectBox)
+        addRow(placement, ToolTipLabel("Min Slope:", "Minimum terrain slope in degrees."), minSlopeField)
+        addRow(placement, ToolTipLabel("Max Slope:", "Maximum terrain slope in degrees."), maxSlopeField)
+        addRow(placement, ToolTipLabel("Min Height:", "Minimum world height.\nThe height rule is disabled while max height is not above min height."), minHeightField)
+        addRow(placement, ToolTipLabel("Max Height:", "Maximum world height.\nThe height rule is disabled while max height is not above min height."), maxHeightField)
+        addRow(placement, VisLabel("Min Scale:"), minScaleField)
+        addRow(placement, VisLabel("Max Scale:"), maxScaleField)
+        addRow(placement, VisLabel("Random Rotation:"), randomRotation)
+        addRow(placement, ToolTipLabel("Align To Normal:", "Tilts instances to follow the terrain surface."), alignToNormal)
+        addRow(placement, ToolTipLabel("Chunk Size:", "Size of the terrain chunks instances are generated and culled in."), chunkSizeField)
+        collapsibleContent.add(placement).growX().padBottom(10f).row()
+
+        collapsibleContent.add(VisLabel("Rendering")).left().row()
+        collapsibleContent.addSeparator().padBottom(5f).row()
+
+        val rendering = getSectionTable()
+        addRow(rendering, ToolTipLabel("View Distance:", "Instances are generated and rendered up to this distance from the camera."), viewDistanceField)
+        addRow(rendering, ToolTipLabel("Fade Start:", "Fraction of the view distance at which instances start to thin out, 1 to disable fading."), fadeStartField)
+        addRow(rendering, ToolTipLabel("Cast Shadows:", "Draws instances into the shadow map. Costly for dense vegetation."), castShadows)
+        collapsibleContent.add(rendering).growX().row()
+    }
+
+    private fun setupListeners() {
+        modelField.pickerListener = object : AssetPickerDialog.AssetPickerListener {
+            override fun onSelected(asset: Asset?) {
+                component.modelAsset = asset as ModelAsset?
+            }
+        }
+
+        channelSelectBox.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent?, actor: Actor?) {
+                if (updating) return
+                val selected = channelSelectBox.selected
+                component.densityChannel = if (selected == NONE) null else SplatTexture.Channel.valueOf(selected)
+            }
+        })
+
+        registerFloatField(densityField) { component.density = it }
+        registerFloatField(minSlopeField) { component.minSlope = it }
+        registerFloatField(maxSlopeField) { component.maxSlope = it }
+        registerFloatField(minHeightField, true) { component.minHeight = it }
+        registerFloatField(maxHeightField, true) { component.maxHeight = it }
+        registerFloatField(minScaleField) { component.minScale = it }
+        registerFloatField(maxScaleField) { component.maxScale = it }
+        registerFloatField(chunkSizeField) { component.chunkSize = it }
+        registerFloatField(viewDistanceField) { component.viewDistance = it }
+        registerFloatField(fadeStartField) { component.fadeStart = it }
+
+        seedField.textFieldFilter = IntDigitsOnlyFilter(true)
+        seedField.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent?, actor: Actor?) {
+                if (updating || !seedField.isInputValid || seedField.isEmpty) return
+                try {
+                    component.seed = seedField.text.toInt()
+                } catch (ex: NumberFormatException) {
+                    Mundus.postEvent(LogEvent(LogType.ERROR, "Error parsing field " + seedField.name))
+                }
+            }
+        })
+
+        randomRotation.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent?, actor: Actor?) {
+                if (updating) return
+                component.isRandomRotation = randomRotation.isChecked
+            }
+        })
+
+        alignToNormal.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent?, actor: Actor?) {
+                if (updating) return
+                component.isAlignToNormal = alignToNormal.isChecked
+            }
+        })
+
+        castShadows.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent?, actor: Actor?) {
+                if (updating) return
+                component.isCastShadows = castShadows.isChecked
+            }
+        })
+    }
+
+    private fun registerFloatField(field: VisTextField, allowNegative: Boolean = false, setter: (Float) -> Unit) {
+        field.textFieldFilter = FloatDigitsOnlyFilter(allowNegative)
+        field.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent?, actor: Actor?) {
+                if (updating || !field.isInputValid || field.isEmpty) return
+                try {
+                    setter(field.text.toFloat())
+                } catch (ex: NumberFormatException) {
+                    Mundus.postEvent(LogEvent(LogType.ERROR, "Error parsing field " + field.name))
+                }
+            }
+        })
+    }
+
+    private fun updateValues() {
+        updating = true
+        modelField.setAsset(component.modelAsset)
+        densityField.text = component.density.toString()
+        seedField.text = component.seed.toString()
+        channelSelectBox.selected = component.densityChannel?.name ?: NONE
+        minSlopeField.text = component.minSlope.toString()
+        maxSlopeField.text = component.maxSlope.toString()
+        minHeightField.text = component.minHeight.toString()
+        maxHeightField.text = component.maxHeight.toString()
+        minScaleField.text = component.minScale.toString()
+        maxScaleField.text = component.maxScale.toString()
+        randomRotation.isChecked = component.isRandomRotation
+        alignToNormal.isChecked = component.isAlignToNormal
+        chunkSizeField.text = component.chunkSize.toString()
+        viewDistanceField.text = component.viewDistance.toString()
+        fadeStartField.text = component.fadeStart.toString()
+        castShadows.isChecked = component.isCastShadows
+        updating = false
+    }
+
+    private fun addRow(table: VisTable, label: Actor, field: Actor) {
+        table.add(label).left().growX()
+        table.add(field).left().growX().row()
+    }
+
+    private fun getSectionTable(): VisTable {
+        val table = VisTable()
+        table.defaults().padLeft(0f).padBottom(5f)
+        return table
+    }
+
+    override fun setValues(go: GameObject) {
+        val c: VegetationComponent? = go.findComponentByType(Component.Type.VEGETATION)
+        if (c != null) {
+            component = c
+            updateValues()
+        }
+    }
+
+    companion object {
+        private const val NONE = "None"
+    }
+}
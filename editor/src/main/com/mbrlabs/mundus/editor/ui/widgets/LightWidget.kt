@@ -1,7 +1,6 @@
 package com.mbrlabs.mundus.editor.ui.widgets
 
 import com.badlogic.gdx.graphics.Color
-import com.badlogic.gdx.graphics.g3d.Environment
 import com.badlogic.gdx.scenes.scene2d.Actor
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener
 import com.badlogic.gdx.utils.Align
@@ -144,10 +143,10 @@ class LightWidget(val lightComponent: LightComponent) : BaseWidget() {
         }
 
         // Disable spotlight check box if the corresponding light counts are maxed out.
-        val env: Environment = lightComponent.gameObject.sceneGraph.scene.environment
-        if (!spotlightCheckbox.isChecked && !LightUtils.canCreateLight(env, LightType.SPOT_LIGHT)) {
+        val scene = lightComponent.gameObject.sceneGraph.scene
+        if (!spotlightCheckbox.isChecked && !LightUtils.canCreateLight(scene, LightType.SPOT_LIGHT)) {
             spotlightCheckbox.isDisabled = true
-        } else if (spotlightCheckbox.isChecked && !LightUtils.canCreateLight(env, LightType.POINT_LIGHT)) {
+        } else if (spotlightCheckbox.isChecked && !LightUtils.canCreateLight(scene, LightType.POINT_LIGHT)) {
             spotlightCheckbox.isDisabled = true
         }
 
@@ -8,6 +8,7 @@ import com.badlogic.gdx.scenes.scene2d.utils.ClickListener
 import com.badlogic.gdx.utils.Align
 import com.badlogic.gdx.utils.Array
 import com.kotcrab.vis.ui.util.FloatDigitsOnlyFilter
+import com.kotcrab.vis.ui.util.IntDigitsOnlyFilter
 import com.kotcrab.vis.ui.widget.VisCheckBox
 import com.kotcrab.vis.ui.widget.VisLabel
 import com.kotcrab.vis.ui.widget.VisSelectBox
@@ -43,6 +44,11 @@ class WaterWidget(val waterComponent: WaterComponent) : VisTable() {
 
     private val enableReflections = VisCheckBox(null)
     private val enableRefractions = VisCheckBox(null)
+    private val updateOnCameraMove = VisCheckBox(null)
+
+    private val updateIntervalField = VisTextField()
+    private val reflectionDrawDistanceField = VisTextField()
+    private val reflectionMinScreenSizeField = VisTextField()
 
     private val colorPickerField = ColorPickerField()
     private val cullFaceSelectBox: VisSelectBox<MaterialWidget.CullFace> = VisSelectBox()
@@ -193,8 +199,66 @@ class WaterWidget(val waterComponent: WaterComponent) : VisTable() {
             }
         })
 
+        checkboxTable.add(ToolTipLabel("Update Only On Camera Move", "Only re-renders reflections and refractions when the camera moves or rotates.\n" +
+                "Moving objects will not update in reflections while the camera is still.")).padRight(2f)
+        checkboxTable.add(updateOnCameraMove).left().row()
+        updateOnCameraMove.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent?, actor: Actor?) {
+                projectManager.current().currScene.settings.waterUpdateOnCameraMove = updateOnCameraMove.isChecked
+            }
+        })
+
         qualitySettings.add(checkboxTable).left().padBottom(5f).row()
 
+        val passesTable = VisTable()
+        passesTable.defaults().padBottom(5f)
+        passesTable.add(ToolTipLabel("Update Interval:", "Re-render reflections and refractions every n frames (Global per scene).\n" +
+                "Higher values improve performance at the cost of reflection latency.")).growX()
+        passesTable.add(updateIntervalField).growX().row()
+        passesTable.add(ToolTipLabel("Reflection Draw Distance:", "Objects further away than this are not reflected, 0 for no limit.\n" +
+                "Requires frustum culling.")).growX()
+        passesTable.add(reflectionDrawDistanceField).growX().row()
+        passesTable.add(ToolTipLabel("Reflection Min Screen Size:", "Objects smaller than this fraction of the screen height are not reflected, 0 for no limit.\n" +
+                "Requires frustum culling.")).growX()
+        passesTable.add(reflectionMinScreenSizeField).growX().row()
+        qualitySettings.add(passesTable).growX().colspan(2).padBottom(5f).row()
+
+        updateIntervalField.textFieldFilter = IntDigitsOnlyFilter(false)
+        updateIntervalField.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent?, actor: Actor?) {
+                if (!updateIntervalField.isInputValid || updateIntervalField.isEmpty) return
+                try {
+                    projectManager.current().currScene.settings.waterUpdateInterval = Math.max(1, updateIntervalField.text.toInt())
+                } catch (ex : NumberFormatException) {
+                    Mundus.postEvent(LogEvent(LogType.ERROR,"Error parsing field " + updateIntervalField.name))
+                }
+            }
+        })
+
+        reflectionDrawDistanceField.textFieldFilter = FloatDigitsOnlyFilter(false)
+        reflectionDrawDistanceField.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent?, actor: Actor?) {
+                if (!reflectionDrawDistanceField.isInputValid || reflectionDrawDistanceField.isEmpty) return
+                try {
+                    projectManager.current().currScene.settings.waterReflectionDrawDistance = reflectionDrawDistanceField.text.toFloat()
+                } catch (ex : NumberFormatException) {
+                    Mundus.postEvent(LogEvent(LogType.ERROR,"Error parsing field " + reflectionDrawDistanceField.name))
+                }
+            }
+        })
+
+        reflectionMinScreenSizeField.textFieldFilter = FloatDigitsOnlyFilter(false)
+        reflectionMinScreenSizeField.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent?, actor: Actor?) {
+                if (!reflectionMinScreenSizeField.isInputValid || reflectionMinScreenSizeField.isEmpty) return
+                try {
+                    projectManager.current().currScene.settings.waterReflectionMinScreenSize = reflectionMinScreenSizeField.text.toFloat()
+                } catch (ex : NumberFormatException) {
+                    Mundus.postEvent(LogEvent(LogType.ERROR,"Error parsing field " + reflectionMinScreenSizeField.name))
+                }
+            }
+        })
+
         val selectorsTable = VisTable(true)
         selectBox = VisSelectBox<String>()
         selectBox.setItems(
@@ -255,6 +319,10 @@ class WaterWidget(val waterComponent: WaterComponent) : VisTable() {
                 projectManager.current().currScene.settings.waterResolution = WaterResolution.DEFAULT_WATER_RESOLUTION
                 projectManager.current().currScene.settings.enableWaterReflections = true
                 projectManager.current().currScene.settings.enableWaterRefractions = true
+                projectManager.current().currScene.settings.waterUpdateInterval = 1
+                projectManager.current().currScene.settings.waterUpdateOnCameraMove = false
+                projectManager.current().currScene.settings.waterReflectionDrawDistance = 0f
+                projectManager.current().currScene.settings.waterReflectionMinScreenSize = 0f
                 projectManager.current().assetManager.addModifiedAsset(waterComponent.waterAsset)
 
                 setFieldsToCurrentValues()
@@ -305,6 +373,10 @@ class WaterWidget(val waterComponent: WaterComponent) : VisTable() {
 
         enableRefractions.isChecked = projectManager.current().currScene.settings.enableWaterRefractions
         enableReflections.isChecked = projectManager.current().currScene.settings.enableWaterReflections
+        updateOnCameraMove.isChecked = projectManager.current().currScene.settings.waterUpdateOnCameraMove
+        updateIntervalField.text = projectManager.current().currScene.settings.waterUpdateInterval.toString()
+        reflectionDrawDistanceField.text = projectManager.current().currScene.settings.waterReflectionDrawDistance.toString()
+        reflectionMinScreenSizeField.text = projectManager.current().currScene.settings.waterReflectionMinScreenSize.toString()
 
         if (!selectBox.items.contains(projectManager.current().currScene.settings.waterResolution.value)) {
             selectBox.selected = WaterResolution.DEFAULT_WATER_RESOLUTION.value
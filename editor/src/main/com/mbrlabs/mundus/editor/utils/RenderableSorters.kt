@@ -0,0 +1,18 @@
+package com.mbrlabs.mundus.editor.utils
+
+import com.badlogic.gdx.graphics.g3d.utils.RenderableSorter
+import com.mbrlabs.mundus.commons.rendering.MundusRenderableSorter
+import net.mgsx.gltf.scene3d.scene.SceneRenderableSorter
+
+/**
+ * Creates the renderable sorter of the editors model batch.
+ */
+object RenderableSorters {
+
+    /** Use the gdx-gltf sorter instead, to compare shader switches and texture bindings in the profiler */
+    var useGltfSorter = false
+
+    fun create(): RenderableSorter {
+        return if (useGltfSorter) SceneRenderableSorter() else MundusRenderableSorter()
+    }
+}
@@ -0,0 +1,93 @@
+package com.mbrlabs.mundus.runtime.lwjgl3;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Cubemap;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.PixmapIO;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncTask;
+import com.mbrlabs.mundus.commons.env.IBLFiles;
+import com.mbrlabs.mundus.commons.env.IBLMapStore;
+import com.mbrlabs.mundus.commons.utils.PixmapCubemapData;
+
+/**
+ * {@link IBLMapStore} for desktop backends, storing the maps of each light in a sub directory in the
+ * {@link IBLFiles} layout. Faces are encoded and written on a background thread, a face which is read while it is
+ * written fails to decode and is rendered again.
+ * <p>
+ * Install it with {@link com.mbrlabs.mundus.commons.env.IBLCache#setStore}, or pass it to the Mundus runtime
+ * config.
+ */
+public class Lwjgl3IBLMapStore implements IBLMapStore, Disposable {
+    private static final String TAG = Lwjgl3IBLMapStore.class.getSimpleName();
+
+    private final FileHandle directory;
+    private final AsyncExecutor executor = new AsyncExecutor(1, TAG);
+
+    /**
+     * @param directory the directory to store the maps in, created when the first map is stored
+     */
+    public Lwjgl3IBLMapStore(FileHandle directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public Pixmap load(String name, String map, int level, Cubemap.CubemapSide side) {
+        FileHandle file = IBLFiles.getFace(directory.child(name), map, level, side);
+        if (!file.exists()) return null;
+
+        try {
+            return new Pixmap(file);
+        } catch (GdxRuntimeException e) {
+            Gdx.app.error(TAG, "Could not read IBL face " + file.path(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public void save(final String name, final String map, final Pixmap[] faces) {
+        executor.submit(new AsyncTask<Void>() {
+            @Override
+            public Void call() {
+                try {
+                    write(directory.child(name), map, faces);
+                } catch (GdxRuntimeException e) {
+                    Gdx.app.error(TAG, "Could not write IBL map " + name, e);
+                } finally {
+                    for (Pixmap face : faces) {
+                        face.dispose();
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Writes all faces of a map in the {@link IBLFiles} layout. The faces are not disposed.
+     *
+     * @param directory the directory to write to
+     * @param map       {@link IBLFiles#IRRADIANCE} or {@link IBLFiles#RADIANCE}
+     * @param faces     the faces of all mip levels, in the order of {@link PixmapCubemapData}
+     */
+    public static void write(FileHandle directory, String map, Pixmap[] faces) {
+        int mipLevels = faces.length / PixmapCubemapData.SIDES;
+        for (int level = 0; level < mipLevels; level++) {
+            for (Cubemap.CubemapSide side : Cubemap.CubemapSide.values()) {
+                Pixmap face = faces[PixmapCubemapData.getIndex(level, side)];
+                PixmapIO.writePNG(IBLFiles.getFace(directory, map, level, side), face);
+            }
+        }
+    }
+
+    /**
+     * Waits for the faces still being written.
+     */
+    @Override
+    public void dispose() {
+        executor.dispose();
+    }
+}
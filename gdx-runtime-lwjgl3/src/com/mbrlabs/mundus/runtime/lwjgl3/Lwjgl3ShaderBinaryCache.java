@@ -0,0 +1,94 @@
+package com.mbrlabs.mundus.runtime.lwjgl3;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.mbrlabs.mundus.commons.shaders.ShaderBinaryCache;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL41;
+import org.lwjgl.opengl.GLCapabilities;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * {@link ShaderBinaryCache} for the LWJGL3 backend, storing program binaries as files in a directory. Each file
+ * holds the binary format followed by the binary. Binaries of a rejected or outdated file are written again once
+ * the program is linked from its shaders.
+ * <p>
+ * Install it with {@link com.mbrlabs.mundus.commons.utils.ShaderBinaryGL20#install} if {@link #isSupported()},
+ * or pass it to the Mundus runtime config.
+ */
+public class Lwjgl3ShaderBinaryCache implements ShaderBinaryCache {
+    private static final String TAG = Lwjgl3ShaderBinaryCache.class.getSimpleName();
+    private static final String EXTENSION = ".bin";
+    // Size of the binary format written before the binary
+    private static final int HEADER_SIZE = 4;
+
+    private final FileHandle directory;
+
+    /**
+     * @param directory the directory to store the binaries in, created when the first binary is stored
+     */
+    public Lwjgl3ShaderBinaryCache(FileHandle directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return true if the GL context of the current thread can save and load program binaries
+     */
+    public static boolean isSupported() {
+        GLCapabilities capabilities = GL.getCapabilities();
+        if (!capabilities.OpenGL41 && !capabilities.GL_ARB_get_program_binary) return false;
+
+        // Some drivers support the calls but offer no binary format
+        return GL11.glGetInteger(GL41.GL_NUM_PROGRAM_BINARY_FORMATS) > 0;
+    }
+
+    @Override
+    public boolean load(int program, String key) {
+        FileHandle file = directory.child(key + EXTENSION);
+        if (!file.exists()) return false;
+
+        byte[] bytes;
+        try {
+            bytes = file.readBytes();
+        } catch (GdxRuntimeException e) {
+            Gdx.app.error(TAG, "Could not read shader binary " + file.path(), e);
+            return false;
+        }
+        if (bytes.length <= HEADER_SIZE) return false;
+
+        int format = ByteBuffer.wrap(bytes).getInt();
+        ByteBuffer binary = BufferUtils.newByteBuffer(bytes.length - HEADER_SIZE);
+        binary.put(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE);
+        binary.flip();
+
+        GL41.glProgramBinary(program, format, binary);
+        return true;
+    }
+
+    @Override
+    public void save(int program, String key) {
+        int length = GL20.glGetProgrami(program, GL41.GL_PROGRAM_BINARY_LENGTH);
+        if (length <= 0) return;
+
+        IntBuffer format = BufferUtils.newIntBuffer(1);
+        ByteBuffer binary = BufferUtils.newByteBuffer(length);
+        GL41.glGetProgramBinary(program, null, format, binary);
+
+        byte[] bytes = new byte[HEADER_SIZE + length];
+        ByteBuffer.wrap(bytes).putInt(format.get(0));
+        binary.get(bytes, HEADER_SIZE, length);
+
+        FileHandle file = directory.child(key + EXTENSION);
+        try {
+            file.writeBytes(bytes, false);
+        } catch (GdxRuntimeException e) {
+            Gdx.app.error(TAG, "Could not write shader binary " + file.path(), e);
+        }
+    }
+}
@@ -27,9 +27,15 @@ import com.mbrlabs.mundus.commons.Scene;
 import com.mbrlabs.mundus.commons.assets.AssetManager;
 import com.mbrlabs.mundus.commons.assets.AssetNotFoundException;
 import com.mbrlabs.mundus.commons.assets.meta.MetaFileParseException;
+import com.mbrlabs.mundus.commons.env.IBLCache;
+import com.mbrlabs.mundus.commons.env.IBLMapStore;
+import com.mbrlabs.mundus.commons.rendering.MundusRenderableSorter;
 import com.mbrlabs.mundus.commons.shaders.MundusPBRShaderProvider;
+import com.mbrlabs.mundus.commons.shaders.ShaderBinaryCache;
+import com.mbrlabs.mundus.commons.shaders.ShaderPrewarmer;
+import com.mbrlabs.mundus.commons.utils.ShaderBinaryGL20;
 import com.mbrlabs.mundus.commons.utils.ShaderUtils;
-import net.mgsx.gltf.scene3d.scene.SceneRenderableSorter;
+import com.mbrlabs.mundus.commons.utils.StateTrackingGL20;
 import net.mgsx.gltf.scene3d.shaders.PBRDepthShaderProvider;
 import net.mgsx.gltf.scene3d.shaders.PBRShaderConfig;
 
@@ -48,6 +54,8 @@ public class Mundus implements Disposable {
     private final FileHandle root;
 
     private Shaders shaders;
+    private final boolean prewarmShaders;
+    private StateTrackingGL20 glStateTracker;
 
     /**
      * Initializes Mundus, defaulting to synchronous loading of assets
@@ -92,6 +100,17 @@ public class Mundus implements Disposable {
         this.root = mundusRoot;
         this.assetManager = new AssetManager(root.child(PROJECT_ASSETS_DIR));
         this.sceneLoader = new SceneLoader(this, root.child(PROJECT_SCENES_DIR));
+        this.prewarmShaders = config.prewarmShaders;
+
+        if (config.shaderBinaryCache != null) {
+            ShaderBinaryGL20.install(Gdx.graphics, config.shaderBinaryCache);
+        }
+        if (config.iblMapStore != null) {
+            IBLCache.getInstance().setStore(config.iblMapStore);
+        }
+        if (config.trackGLState) {
+            glStateTracker = StateTrackingGL20.install(Gdx.graphics);
+        }
 
         if (config.autoLoad) {
             init(config.asyncLoad);
@@ -102,6 +121,13 @@ public class Mundus implements Disposable {
         return assetManager;
     }
 
+    /**
+     * @return the GL state tracker, which counts the dropped GL calls, or null if {@link Config#trackGLState} is disabled
+     */
+    public StateTrackingGL20 getGLStateTracker() {
+        return glStateTracker;
+    }
+
     public Shaders getShaders() {
         if (shaders == null) {
             initShaders();
@@ -122,11 +148,12 @@ public class Mundus implements Disposable {
      * Optionally pass in your own PBRShaderConfig.
      */
     public Scene loadScene(final String name, PBRShaderConfig config) {
-        return loadScene(name, config, new SceneRenderableSorter());
+        return loadScene(name, config, new MundusRenderableSorter());
     }
 
     /**
-     * Provide your own PBRShaderConfig and RenderableSorter
+     * Provide your own PBRShaderConfig and RenderableSorter. The other overloads use a {@link MundusRenderableSorter},
+     * pass a SceneRenderableSorter to sort like gdx-gltf instead.
      */
     public Scene loadScene(final String name, PBRShaderConfig config, RenderableSorter renderableSorter) {
         return loadScene(name, config, ShaderUtils.buildPBRShaderDepthConfig(assetManager.maxNumBones), renderableSorter);
@@ -136,7 +163,7 @@ public class Mundus implements Disposable {
      * Provide your own PBRShaderConfig and DepthShader config
      */
     public Scene loadScene(final String name, PBRShaderConfig config, DepthShader.Config depthConfig) {
-        return loadScene(name, config, depthConfig, new SceneRenderableSorter());
+        return loadScene(name, config, depthConfig, new MundusRenderableSorter());
     }
 
     /**
@@ -144,9 +171,15 @@ public class Mundus implements Disposable {
      */
     public Scene loadScene(final String name, PBRShaderConfig config, DepthShader.Config depthConfig, RenderableSorter renderableSorter) {
         final Scene scene = sceneLoader.load(name);
-        scene.batch = new ModelBatch(new MundusPBRShaderProvider(config), renderableSorter);
+        MundusPBRShaderProvider shaderProvider = new MundusPBRShaderProvider(config);
+        scene.batch = new ModelBatch(shaderProvider, renderableSorter);
 
-        scene.depthBatch = new ModelBatch(new PBRDepthShaderProvider(depthConfig));
+        PBRDepthShaderProvider depthShaderProvider = new PBRDepthShaderProvider(depthConfig);
+        scene.depthBatch = new ModelBatch(depthShaderProvider);
+
+        if (prewarmShaders) {
+            new ShaderPrewarmer().prewarm(scene, shaderProvider, depthShaderProvider);
+        }
 
         return scene;
     }
@@ -199,6 +232,24 @@ public class Mundus implements Disposable {
         public boolean autoLoad = true;
         /** Load the project asynchronously (true) or synchronously (false)*/
         public boolean asyncLoad = false;
+        /** Compile the shaders of loaded scenes up front, instead of when their materials first come into view */
+        public boolean prewarmShaders = true;
+        /**
+         * Wrap Gdx.gl with a {@link StateTrackingGL20}, which drops GL calls that would not change the GL state.
+         * Install GL profilers after creating Mundus so they wrap the tracker.
+         */
+        public boolean trackGLState = false;
+        /**
+         * Links shader programs from binaries stored by a previous run instead of linking them from their sources,
+         * for example a Lwjgl3ShaderBinaryCache from the gdx-runtime-lwjgl3 module on desktop. Null to always link.
+         */
+        public ShaderBinaryCache shaderBinaryCache = null;
+        /**
+         * Loads the image based lighting maps of directional lights from maps stored by a previous run instead of
+         * rendering them, for example a Lwjgl3IBLMapStore from the gdx-runtime-lwjgl3 module on desktop. Null to
+         * always render them.
+         */
+        public IBLMapStore iblMapStore = null;
 
     }
 
@@ -25,6 +25,7 @@ import com.mbrlabs.mundus.commons.assets.AssetManager;
 import com.mbrlabs.mundus.commons.assets.ModelAsset;
 import com.mbrlabs.mundus.commons.assets.SkyboxAsset;
 import com.mbrlabs.mundus.commons.dto.SceneDTO;
+import com.mbrlabs.mundus.commons.env.IBLFiles;
 import com.mbrlabs.mundus.commons.scene3d.GameObject;
 import com.mbrlabs.mundus.commons.scene3d.SceneGraph;
 import com.mbrlabs.mundus.commons.scene3d.components.Component;
@@ -62,6 +63,14 @@ public class SceneLoader {
         if (scene.skyboxAssetId != null) {
             SkyboxAsset skyboxAsset = (SkyboxAsset) assetManager.findAssetByID(scene.skyboxAssetId);
             scene.setSkybox(skyboxAsset, mundus.getShaders().getSkyboxShader());
+
+            // Maps baked from the skybox on export replace the maps built for the directional light
+            if (skyboxAsset != null) {
+                FileHandle iblDirectory = IBLFiles.getBakeDirectory(skyboxAsset.getFile().parent(), skyboxAsset.getID());
+                if (IBLFiles.exists(iblDirectory)) {
+                    scene.setBakedIBL(IBLFiles.loadIrradianceMap(iblDirectory), IBLFiles.loadRadianceMap(iblDirectory));
+                }
+            }
         }
 
         scene.setDepthShader(mundus.getShaders().getDepthShader());
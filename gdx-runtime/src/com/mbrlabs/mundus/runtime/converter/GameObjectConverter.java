@@ -17,8 +17,10 @@
 package com.mbrlabs.mundus.runtime.converter;
 
 import com.mbrlabs.mundus.commons.assets.AssetManager;
+import com.mbrlabs.mundus.commons.assets.ModelAsset;
 import com.mbrlabs.mundus.commons.dto.GameObjectDTO;
 import com.mbrlabs.mundus.commons.mapper.CustomPropertiesComponentConverter;
+import com.mbrlabs.mundus.commons.mapper.VegetationComponentConverter;
 import com.mbrlabs.mundus.commons.scene3d.GameObject;
 import com.mbrlabs.mundus.commons.scene3d.SceneGraph;
 import com.mbrlabs.mundus.runtime.Shaders;
@@ -34,6 +36,8 @@ public class GameObjectConverter {
     public static GameObject convert(GameObjectDTO dto, SceneGraph sceneGraph, Shaders shaders, AssetManager assetManager) {
         final GameObject go = new GameObject(sceneGraph, dto.getName(), dto.getId());
         go.active = dto.isActive();
+        go.setLayerMask(dto.getLayerMask());
+        go.setDrawDistance(dto.getDrawDistance());
 
         // transformation
         final float[] transform = dto.getTransform();
@@ -65,6 +69,11 @@ public class GameObjectConverter {
             go.getComponents().add(CustomPropertiesComponentConverter.convert(dto.getCustomPropertiesComponent(), go));
         }
 
+        if (dto.getVegetationComponent() != null) {
+            ModelAsset modelAsset = (ModelAsset) assetManager.findAssetByID(dto.getVegetationComponent().getModelID());
+            go.getComponents().add(VegetationComponentConverter.convert(dto.getVegetationComponent(), go, modelAsset));
+        }
+
         // recursively convert children
         if (dto.getChilds() != null) {
             for (GameObjectDTO c : dto.getChilds()) {
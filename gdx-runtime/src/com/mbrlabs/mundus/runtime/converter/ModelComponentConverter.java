@@ -38,6 +38,8 @@ public class ModelComponentConverter {
         ModelComponent mc = new ModelComponent(gameObject);
         mc.setModel((ModelAsset) assetManager.findAssetByID(modelComponentDTO.getModelID()), false);
         mc.setUseModelCache(modelComponentDTO.isUseModelCache());
+        mc.setUseInstancing(modelComponentDTO.isUseInstancing());
+        mc.setOccluder(modelComponentDTO.isOccluder());
 
         for(Map.Entry<String, String> entry : modelComponentDTO.getMaterials().entrySet()) {
             mc.getMaterials().put(entry.getKey(), (MaterialAsset) assetManager.findAssetByID(entry.getValue()));
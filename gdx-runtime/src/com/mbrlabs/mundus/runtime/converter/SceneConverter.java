@@ -61,6 +61,7 @@ public class SceneConverter {
         if (light != null) {
             scene.setDirectionalLight(light);
         }
+        scene.setCascadedShadows(dto.getShadowCascades());
 
         // Water stuff
         scene.settings.waterResolution = dto.getWaterResolution();
@@ -69,8 +70,26 @@ public class SceneConverter {
 
         scene.settings.waterHeight = dto.getWaterHeight();
         scene.settings.useFrustumCulling = dto.isUseFrustumCulling();
+        scene.settings.useOcclusionCulling = dto.isUseOcclusionCulling();
+        scene.settings.cacheStaticShadows = dto.isCacheStaticShadows();
+        scene.settings.lodBias = dto.getLodBias();
+        scene.settings.impostorDistance = dto.getImpostorDistance();
+        scene.settings.lightsPerObject = dto.getLightsPerObject();
+        scene.settings.depthPrePass = dto.isDepthPrePass();
+        scene.settings.dynamicResolution = dto.isDynamicResolution();
+        scene.settings.targetFrameRate = dto.getTargetFrameRate();
+        scene.settings.minResolutionScale = dto.getMinResolutionScale();
+        scene.settings.drawDistance = dto.getDrawDistance();
+        scene.settings.minScreenSize = dto.getMinScreenSize();
+        scene.settings.shadowDrawDistance = dto.getShadowDrawDistance();
+        scene.settings.shadowMinScreenSize = dto.getShadowMinScreenSize();
+        scene.settings.cullFoggedObjects = dto.isCullFoggedObjects();
         scene.settings.enableWaterReflections = dto.isEnableWaterReflections();
         scene.settings.enableWaterRefractions = dto.isEnableWaterRefractions();
+        scene.settings.waterUpdateInterval = Math.max(1, dto.getWaterUpdateInterval());
+        scene.settings.waterUpdateOnCameraMove = dto.isWaterUpdateOnCameraMove();
+        scene.settings.waterReflectionDrawDistance = dto.getWaterReflectionDrawDistance();
+        scene.settings.waterReflectionMinScreenSize = dto.getWaterReflectionMinScreenSize();
 
         // scene graph
         scene.sceneGraph = new SceneGraph(scene);